@@ -0,0 +1,82 @@
+package uk.ac.ed.ilp.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Thread pools shared by the planning services
+ */
+@Configuration
+public class ExecutorConfig {
+
+    /**
+     * Bounded pool for CPU-bound planning work: the A* searches of a route's legs and the
+     * blocks of the feasibility matrix share it, so together they never use more than the cores
+     * Defaults to one thread per core; when the queue is full the caller runs the task itself
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService planningExecutor(@Value("${ilp.planning.threads:0}") int threads) {
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger counter = new AtomicInteger();
+        return new ThreadPoolExecutor(
+                poolSize, poolSize,
+                30, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(poolSize * 16),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "planning-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    /**
+     * Single background thread that refreshes the ILP world snapshot
+     */
+    @Bean(destroyMethod = "shutdownNow")
+    public ScheduledExecutorService snapshotRefreshExecutor() {
+        return Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "snapshot-refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Single background thread for the startup warm-up and its retries, kept off the
+     * refresh thread so a slow or retrying warm-up never delays a snapshot refresh
+     */
+    @Bean(destroyMethod = "shutdownNow")
+    public ScheduledExecutorService warmupExecutor() {
+        return Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "warmup");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Fork-join pool that builds the derived structures of each new snapshot
+     * Defaults to one thread per core
+     */
+    @Bean(destroyMethod = "shutdownNow")
+    public ForkJoinPool snapshotPipelinePool(@Value("${ilp.snapshot.pipeline-threads:0}") int threads) {
+        int parallelism = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        return new ForkJoinPool(parallelism, pool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName("snapshot-pipeline-" + thread.getPoolIndex());
+            return thread;
+        }, null, false);
+    }
+}
@@ -0,0 +1,75 @@
+package uk.ac.ed.ilp.config;
+
+import org.springframework.boot.actuate.endpoint.SecurityContext;
+import org.springframework.boot.actuate.health.AdditionalHealthEndpointPath;
+import org.springframework.boot.actuate.health.HealthEndpointGroup;
+import org.springframework.boot.actuate.health.HealthEndpointGroups;
+import org.springframework.boot.actuate.health.HealthEndpointGroupsPostProcessor;
+import org.springframework.boot.actuate.health.HttpCodeStatusMapper;
+import org.springframework.boot.actuate.health.StatusAggregator;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Health endpoint groups
+ * Readiness-only indicators are taken out of the root /actuator/health, so a service that is
+ * still warming up reports UP there (and on liveness) while the readiness group is DOWN.
+ * Which groups include them is set in application.yml.
+ */
+@Configuration
+public class HealthConfig {
+
+    // Contributors that only the readiness group should see
+    private static final Set<String> READINESS_ONLY = Set.of("warmupService");
+
+    @Bean
+    public HealthEndpointGroupsPostProcessor readinessOnlyContributors() {
+        return groups -> {
+            Map<String, HealthEndpointGroup> named = new LinkedHashMap<>();
+            for (String name : groups.getNames()) {
+                named.put(name, groups.get(name));
+            }
+            return HealthEndpointGroups.of(new Excluding(groups.getPrimary(), READINESS_ONLY), named);
+        };
+    }
+
+    /**
+     * Group that is the given group without some of its members
+     */
+    private record Excluding(HealthEndpointGroup group, Set<String> excluded) implements HealthEndpointGroup {
+
+        @Override
+        public boolean isMember(String name) {
+            return !excluded.contains(name) && group.isMember(name);
+        }
+
+        @Override
+        public boolean showComponents(SecurityContext securityContext) {
+            return group.showComponents(securityContext);
+        }
+
+        @Override
+        public boolean showDetails(SecurityContext securityContext) {
+            return group.showDetails(securityContext);
+        }
+
+        @Override
+        public StatusAggregator getStatusAggregator() {
+            return group.getStatusAggregator();
+        }
+
+        @Override
+        public HttpCodeStatusMapper getHttpCodeStatusMapper() {
+            return group.getHttpCodeStatusMapper();
+        }
+
+        @Override
+        public AdditionalHealthEndpointPath getAdditionalPath() {
+            return group.getAdditionalPath();
+        }
+    }
+}
@@ -4,6 +4,13 @@ import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Profile;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.web.client.RestTemplate;
+import uk.ac.ed.ilp.http.GzipInterceptor;
+import uk.ac.ed.ilp.http.RetryInterceptor;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
 
 /**
  * Configuration class following Lecture 5 patterns
@@ -13,6 +20,9 @@ import org.springframework.context.annotation.Profile;
 @ConfigurationProperties(prefix = "ilp.service")
 public class IlpConfiguration {
 
+    private static final int DEFAULT_TIMEOUT_MS = 10000; // Used when no profile sets a timeout
+    private static final Duration RETRY_BACKOFF = Duration.ofMillis(200);
+
     private boolean debug;
     private int timeout;
     private int maxRetries;
@@ -72,13 +82,39 @@ public class IlpConfiguration {
         }
         
         // Ensure URL ends with / for proper path construction
-        if (endpoint != null && !endpoint.endsWith("/")) {
+        // (a file:// endpoint names a snapshot bundle, not a directory)
+        if (!endpoint.startsWith("file:") && !endpoint.endsWith("/")) {
             endpoint = endpoint + "/";
         }
         
         return endpoint;
     }
 
+    /**
+     * RestTemplate used to call the ILP REST service
+     * Backed by one shared JDK HttpClient, which keeps connections alive and pools them
+     * (HTTP/2 where the server supports it), so fetches do not pay a TLS handshake each time.
+     * Uses the profile's timeout for connect and read, retries up to maxRetries times and
+     * accepts gzip-compressed responses.
+     */
+    @Bean
+    public RestTemplate ilpRestTemplate() {
+        Duration requestTimeout = Duration.ofMillis(timeout > 0 ? timeout : DEFAULT_TIMEOUT_MS);
+        HttpClient httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(requestTimeout)
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .build();
+
+        JdkClientHttpRequestFactory requestFactory = new JdkClientHttpRequestFactory(httpClient);
+        requestFactory.setReadTimeout(requestTimeout);
+
+        RestTemplate restTemplate = new RestTemplate(requestFactory);
+        restTemplate.getInterceptors().add(new GzipInterceptor());
+        restTemplate.getInterceptors().add(new RetryInterceptor(maxRetries, RETRY_BACKOFF)); // Must stay last
+        return restTemplate;
+    }
+
     /**
      * Local development configuration
      */
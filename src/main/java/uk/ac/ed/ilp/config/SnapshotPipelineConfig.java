@@ -0,0 +1,84 @@
+package uk.ac.ed.ilp.config;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import uk.ac.ed.ilp.geometry.InflatedPolygon;
+import uk.ac.ed.ilp.index.AvailabilityIndex;
+import uk.ac.ed.ilp.index.CapabilityColumns;
+import uk.ac.ed.ilp.mapper.GeoJsonMapper;
+import uk.ac.ed.ilp.service.DroneAvailabilityService;
+import uk.ac.ed.ilp.service.FleetIndexService;
+import uk.ac.ed.ilp.service.PathfindingService;
+import uk.ac.ed.ilp.snapshot.PipelineStage;
+import uk.ac.ed.ilp.snapshot.SnapshotPipeline;
+import uk.ac.ed.ilp.snapshot.WorldDataset;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Caches filled for every new world snapshot before it is published
+ * Each stage calls the accessor that request handlers use, so the structure it builds
+ * is the one they read. Inflated areas, availability intervals and capability columns are
+ * streamed: built element by element while a refresh reads their dataset.
+ */
+@Configuration
+public class SnapshotPipelineConfig {
+
+    @Bean
+    public SnapshotPipeline snapshotPipeline(PathfindingService pathfindingService,
+                                             DroneAvailabilityService droneAvailabilityService,
+                                             FleetIndexService fleetIndexService,
+                                             @Qualifier("snapshotPipelinePool") ForkJoinPool snapshotPipelinePool) {
+        PipelineStage inflatedAreas = PipelineStage.streamed("inflatedRestrictedAreas",
+                WorldDataset.RESTRICTED_AREAS,
+                pathfindingService::inflatedAreasBuilder, InflatedPolygon.Builder::build,
+                pathfindingService::preloadInflatedRestrictedAreas,
+                world -> pathfindingService.inflatedRestrictedAreas(world.getRestrictedAreas()));
+        PipelineStage clearance = PipelineStage.of("clearanceField",
+                EnumSet.of(WorldDataset.RESTRICTED_AREAS), List.of(inflatedAreas),
+                world -> pathfindingService.clearanceField(world.getRestrictedAreas()));
+        PipelineStage distances = PipelineStage.of("servicePointDistances",
+                EnumSet.of(WorldDataset.SERVICE_POINTS, WorldDataset.RESTRICTED_AREAS), List.of(clearance),
+                world -> pathfindingService.servicePointDistances(world.getServicePoints(), world.getRestrictedAreas()));
+
+        PipelineStage availability = PipelineStage.streamed("availabilityIndex",
+                WorldDataset.DRONES_FOR_SERVICE_POINTS,
+                AvailabilityIndex::builder, AvailabilityIndex.Builder::build,
+                droneAvailabilityService::preloadAvailabilityIndex,
+                world -> droneAvailabilityService.availabilityIndex(world.getDronesForServicePoints()));
+
+        PipelineStage drones = PipelineStage.of("droneIndex",
+                EnumSet.of(WorldDataset.DRONES),
+                world -> fleetIndexService.drones(world.getDrones()));
+        PipelineStage capabilities = PipelineStage.streamed("capabilityColumns",
+                WorldDataset.DRONES,
+                CapabilityColumns::builder, CapabilityColumns.Builder::build,
+                fleetIndexService::preloadCapabilities,
+                world -> fleetIndexService.capabilities(world.getDrones()));
+        PipelineStage droneTable = PipelineStage.of("droneTable",
+                EnumSet.of(WorldDataset.DRONES), List.of(capabilities),
+                world -> fleetIndexService.droneTable(world.getDrones()));
+        PipelineStage servicePoints = PipelineStage.of("servicePointIndex",
+                EnumSet.of(WorldDataset.SERVICE_POINTS, WorldDataset.DRONES_FOR_SERVICE_POINTS),
+                world -> fleetIndexService.servicePoints(world.getServicePoints(), world.getDronesForServicePoints()));
+
+        PipelineStage staticFeatures = PipelineStage.of("staticGeoJsonFeatures",
+                EnumSet.of(WorldDataset.RESTRICTED_AREAS, WorldDataset.SERVICE_POINTS),
+                world -> GeoJsonMapper.staticFeatures(world.getRestrictedAreas(), world.getServicePoints()));
+
+        return new SnapshotPipeline(List.of(
+                inflatedAreas,
+                clearance,
+                distances,
+                availability,
+                drones,
+                capabilities,
+                droneTable,
+                servicePoints,
+                staticFeatures
+        ), snapshotPipelinePool);
+    }
+}
@@ -4,25 +4,33 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import uk.ac.ed.ilp.index.AvailabilityIndex;
+import uk.ac.ed.ilp.mapper.GeoJsonMapper;
+import uk.ac.ed.ilp.query.DroneAttribute;
+import uk.ac.ed.ilp.query.QueryPlan;
+import uk.ac.ed.ilp.query.QueryResultCache;
 import uk.ac.ed.ilp.model.requests.DistanceRequest;
 import uk.ac.ed.ilp.model.LngLat;
-import uk.ac.ed.ilp.model.LngLatAlt;
 import uk.ac.ed.ilp.model.Region;
 import uk.ac.ed.ilp.model.requests.NextPositionRequest;
 import uk.ac.ed.ilp.service.RegionService;
 import uk.ac.ed.ilp.service.DistanceService;
 import uk.ac.ed.ilp.service.PositionService;
 import uk.ac.ed.ilp.service.ValidationService;
-import uk.ac.ed.ilp.service.IlpRestClient;
+import uk.ac.ed.ilp.service.WorldSnapshotService;
 import uk.ac.ed.ilp.service.DroneQueryService;
 import uk.ac.ed.ilp.service.DroneAvailabilityService;
 import uk.ac.ed.ilp.service.DeliveryPathService;
 import uk.ac.ed.ilp.model.requests.IsInRegionSpecRequest;
 import uk.ac.ed.ilp.model.requests.QueryCondition;
+import uk.ac.ed.ilp.model.requests.AvailabilityWindowRequest;
+import uk.ac.ed.ilp.model.requests.DroneQuery;
+import uk.ac.ed.ilp.model.AvailabilitySlot;
 import uk.ac.ed.ilp.model.Drone;
 import uk.ac.ed.ilp.model.MedDispatchRec;
 import uk.ac.ed.ilp.model.DroneForServicePoint;
 import uk.ac.ed.ilp.model.DeliveryPathResponse;
+import uk.ac.ed.ilp.model.FeasibilityMatrix;
 import uk.ac.ed.ilp.model.ServicePoint;
 import uk.ac.ed.ilp.model.RestrictedArea;
 import uk.ac.ed.ilp.model.GeoJsonFeatureCollection;
@@ -33,10 +41,12 @@ import uk.ac.ed.ilp.model.DronePath;
 import uk.ac.ed.ilp.model.DeliveryPath;
 import uk.ac.ed.ilp.model.RouteComparisonResponse;
 import uk.ac.ed.ilp.model.ComparisonStats;
+import uk.ac.ed.ilp.snapshot.WorldSnapshot;
 
+import java.time.LocalDate;
+import java.time.LocalTime;
 import java.util.List;
 import java.util.ArrayList;
-import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/api/v1")
@@ -46,26 +56,29 @@ public class ApiController {
     private final DistanceService distanceService;
     private final PositionService positionService;
     private final ValidationService validationService;
-    private final IlpRestClient ilpRestClient;
+    private final WorldSnapshotService worldSnapshotService;
     private final DroneQueryService droneQueryService;
     private final DroneAvailabilityService droneAvailabilityService;
     private final DeliveryPathService deliveryPathService;
+    private final QueryResultCache queryResultCache;
     private static final String STUDENT_ID = "s2490039";
 
     @Autowired
     public ApiController(RegionService regionService, DistanceService distanceService, 
                         PositionService positionService, ValidationService validationService,
-                        IlpRestClient ilpRestClient, DroneQueryService droneQueryService,
+                        WorldSnapshotService worldSnapshotService, DroneQueryService droneQueryService,
                         DroneAvailabilityService droneAvailabilityService,
-                        DeliveryPathService deliveryPathService) {
+                        DeliveryPathService deliveryPathService,
+                        QueryResultCache queryResultCache) {
         this.regionService = regionService;
         this.distanceService = distanceService;
         this.positionService = positionService;
         this.validationService = validationService;
-        this.ilpRestClient = ilpRestClient;
+        this.worldSnapshotService = worldSnapshotService;
         this.droneQueryService = droneQueryService;
         this.droneAvailabilityService = droneAvailabilityService;
         this.deliveryPathService = deliveryPathService;
+        this.queryResultCache = queryResultCache;
     }
 
     @GetMapping(value = "/uid", produces = MediaType.TEXT_PLAIN_VALUE)
@@ -171,24 +184,19 @@ public class ApiController {
     
     @GetMapping(value = "/dronesWithCooling/{state}", produces = MediaType.APPLICATION_JSON_VALUE)
     public ResponseEntity<List<String>> dronesWithCooling(@PathVariable Boolean state) {
-        List<Drone> drones = ilpRestClient.fetchDrones();
-                List<String> droneIds = drones.stream()
-                .filter(drone -> drone != null && drone.getCapability() != null)
-                .filter(drone -> {
-                    Boolean cooling = drone.getCapability().getCooling();
-                    boolean hasCooling = Boolean.TRUE.equals(cooling);
-                    return hasCooling == state;
-                })
-                .map(Drone::getId)
-                .filter(id -> id != null)
-                .collect(Collectors.toList());
+        WorldSnapshot world = worldSnapshotService.current();
+        List<Drone> drones = world.getDrones();
+        // Same plan as the condition cooling = state, so both endpoints share the cached result
+        QueryPlan plan = QueryPlan.compileEquals(DroneAttribute.COOLING.fieldName(), String.valueOf(state));
+        List<String> droneIds = queryResultCache.get(world.getVersion(), plan.predicate(),
+                () -> droneQueryService.select(drones, plan));
         
         return ResponseEntity.ok(droneIds);
     }
 
     @GetMapping(value = "/droneDetails/{id}", produces = MediaType.APPLICATION_JSON_VALUE)
     public ResponseEntity<Drone> droneDetails(@PathVariable String id) {
-        List<Drone> drones = ilpRestClient.fetchDrones();
+        List<Drone> drones = worldSnapshotService.current().getDrones();
         
         // Find drone with matching ID
         Drone drone = drones.stream()
@@ -212,8 +220,8 @@ public class ApiController {
             @PathVariable String attribute,
             @PathVariable String value) {
         
-        // Fetch fresh data from ILP REST service
-        List<Drone> drones = ilpRestClient.fetchDrones();
+        // Read drones from the current ILP snapshot
+        List<Drone> drones = worldSnapshotService.current().getDrones();
         
         // Delegate to service for query logic
         List<String> droneIds = droneQueryService.queryByAttribute(drones, attribute, value);
@@ -224,7 +232,8 @@ public class ApiController {
     /**
      * Returns array of drone IDs matching multiple conditions with operators
      * All conditions joined by AND logic
-     * Supports operators: =, !=, <, > for numerical attributes; only = for boolean/string
+     * Supports operators: =, !=, <, > (also <=, >=, between) for numerical attributes; only = for boolean/string;
+     * "in" for any attribute, and anyOf / not to combine conditions
      */
     @PostMapping(
             value = "/query",
@@ -242,11 +251,15 @@ public class ApiController {
                 return ResponseEntity.ok(List.of());
             }
             
-            // Fetch fresh data from ILP REST service
-            List<Drone> drones = ilpRestClient.fetchDrones();
+            // Read drones from the current ILP snapshot
+            WorldSnapshot world = worldSnapshotService.current();
+            List<Drone> drones = world.getDrones();
             
-            // Delegate to service for query logic (AND logic - all conditions must match)
-            List<String> droneIds = droneQueryService.queryByConditions(drones, conditions);
+            // Delegate to service for query logic (AND logic - all conditions must match),
+            // reusing the result of an equivalent query on the same snapshot
+            QueryPlan plan = QueryPlan.compile(conditions);
+            List<String> droneIds = queryResultCache.get(world.getVersion(), plan.predicate(),
+                    () -> droneQueryService.select(drones, plan));
             
             return ResponseEntity.ok(droneIds);
         } catch (Exception e) {
@@ -256,6 +269,38 @@ public class ApiController {
         }
     }
 
+    /**
+     * Returns array of drone IDs matching the conditions, ordered by an attribute and cut to a limit
+     * e.g. the 5 cheapest cooling drones with capacity > 4
+     */
+    @PostMapping(
+            value = "/queryRanked",
+            consumes = MediaType.APPLICATION_JSON_VALUE,
+            produces = MediaType.APPLICATION_JSON_VALUE
+    )
+    public ResponseEntity<?> queryRanked(@RequestBody(required = false) DroneQuery query) {
+        if (query == null) {
+            return ResponseEntity.badRequest().body("Invalid request body");
+        }
+        
+        DroneAttribute orderBy = null;
+        if (query.getOrderBy() != null) {
+            orderBy = DroneAttribute.of(query.getOrderBy());
+            if (orderBy == null || !orderBy.isSortable()) {
+                return ResponseEntity.badRequest().body("Invalid orderBy attribute");
+            }
+        }
+        if (query.getLimit() != null && query.getLimit() < 0) {
+            return ResponseEntity.badRequest().body("Invalid limit");
+        }
+        
+        List<Drone> drones = worldSnapshotService.current().getDrones();
+        List<String> droneIds = droneQueryService.queryRanked(drones, query.getConditions(), orderBy,
+                Boolean.TRUE.equals(query.getDescending()), query.getLimit());
+        
+        return ResponseEntity.ok(droneIds);
+    }
+
     /**
      * Returns array of drone IDs that can handle all dispatches
      * All dispatches joined by AND logic - one drone must handle all
@@ -274,10 +319,11 @@ public class ApiController {
             return ResponseEntity.ok(List.of()); // Empty array per spec
         }
         
-        // Fetch fresh data from ILP REST service
-        List<Drone> drones = ilpRestClient.fetchDrones();
-        List<ServicePoint> servicePoints = ilpRestClient.fetchServicePoints();
-        List<DroneForServicePoint> dronesForServicePoints = ilpRestClient.fetchDronesForServicePoints();
+        // Read all datasets from one ILP snapshot
+        WorldSnapshot world = worldSnapshotService.current();
+        List<Drone> drones = world.getDrones();
+        List<ServicePoint> servicePoints = world.getServicePoints();
+        List<DroneForServicePoint> dronesForServicePoints = world.getDronesForServicePoints();
         
         // Find drones that can handle all dispatches
         List<String> droneIds = droneAvailabilityService.findAvailableDrones(
@@ -286,6 +332,79 @@ public class ApiController {
         return ResponseEntity.ok(droneIds);
     }
 
+    /**
+     * Returns array of drone IDs free during a time window on each of several days
+     * e.g. 09:00-13:00 every day of next week; overlap asks for any free time in the window
+     */
+    @PostMapping(
+            value = "/queryAvailabilityWindow",
+            consumes = MediaType.APPLICATION_JSON_VALUE,
+            produces = MediaType.APPLICATION_JSON_VALUE
+    )
+    public ResponseEntity<?> queryAvailabilityWindow(@RequestBody(required = false) AvailabilityWindowRequest request) {
+        if (request == null) {
+            return ResponseEntity.badRequest().body("Invalid request body");
+        }
+        
+        LocalDate date = AvailabilityIndex.parseDate(request.getDate());
+        LocalTime from = AvailabilityIndex.parseTime(request.getFrom());
+        LocalTime until = AvailabilityIndex.parseTime(request.getUntil());
+        int days = request.getDays() != null ? request.getDays() : 1;
+        if (date == null || from == null || until == null || from.isAfter(until) || days < 1) {
+            return ResponseEntity.badRequest().body("Invalid date or time window");
+        }
+        
+        WorldSnapshot world = worldSnapshotService.current();
+        List<String> droneIds = droneAvailabilityService.findDronesAvailableInWindow(
+                world.getDrones(), world.getDronesForServicePoints(), date, from, until, days,
+                Boolean.TRUE.equals(request.getOverlap()));
+        
+        return ResponseEntity.ok(droneIds);
+    }
+
+    /**
+     * Earliest slot at or after date and time when the drone is available
+     */
+    @GetMapping(value = "/nextAvailableSlot/{droneId}", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<?> nextAvailableSlot(
+            @PathVariable String droneId,
+            @RequestParam String date,
+            @RequestParam String time) {
+        LocalDate localDate = AvailabilityIndex.parseDate(date);
+        LocalTime localTime = AvailabilityIndex.parseTime(time);
+        if (localDate == null || localTime == null) {
+            return ResponseEntity.badRequest().body("Invalid date or time");
+        }
+        
+        AvailabilitySlot slot = droneAvailabilityService.nextAvailableSlot(
+                droneId, worldSnapshotService.current().getDronesForServicePoints(), localDate, localTime);
+        if (slot == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(slot);
+    }
+
+    /**
+     * Feasibility of many dispatches against the whole fleet in one call
+     * Each row answers queryAvailableDrones for one dispatch on its own
+     */
+    @PostMapping(
+            value = "/queryAvailableDronesMatrix",
+            consumes = MediaType.APPLICATION_JSON_VALUE,
+            produces = MediaType.APPLICATION_JSON_VALUE
+    )
+    public ResponseEntity<FeasibilityMatrix> queryAvailableDronesMatrix(
+            @RequestBody(required = false) List<MedDispatchRec> dispatches) {
+        
+        if (dispatches == null || dispatches.isEmpty()) {
+            return ResponseEntity.ok(new FeasibilityMatrix(List.of(), List.of(), List.of()));
+        }
+        
+        WorldSnapshot world = worldSnapshotService.current();
+        return ResponseEntity.ok(droneAvailabilityService.feasibilityMatrix(
+                dispatches, world.getDrones(), world.getDronesForServicePoints(), world.getServicePoints()));
+    }
+
     /**
      * Calculate delivery paths for dispatches
      * Returns optimal routes with flight paths, total moves, and total cost
@@ -303,11 +422,12 @@ public class ApiController {
             return ResponseEntity.ok(new DeliveryPathResponse(0.0, 0, List.of()));
         }
         
-        // Fetch fresh data from ILP REST service
-        List<Drone> drones = ilpRestClient.fetchDrones();
-        List<ServicePoint> servicePoints = ilpRestClient.fetchServicePoints();
-        List<DroneForServicePoint> dronesForServicePoints = ilpRestClient.fetchDronesForServicePoints();
-        List<RestrictedArea> restrictedAreas = ilpRestClient.fetchRestrictedAreas();
+        // Read all datasets from one ILP snapshot
+        WorldSnapshot world = worldSnapshotService.current();
+        List<Drone> drones = world.getDrones();
+        List<ServicePoint> servicePoints = world.getServicePoints();
+        List<DroneForServicePoint> dronesForServicePoints = world.getDronesForServicePoints();
+        List<RestrictedArea> restrictedAreas = world.getRestrictedAreas();
         
         // Calculate delivery paths
         DeliveryPathResponse response = deliveryPathService.calculateDeliveryPaths(
@@ -334,11 +454,12 @@ public class ApiController {
             return ResponseEntity.ok(new GeoJsonFeatureCollection("FeatureCollection", List.of()));
         }
         
-        // Fetch fresh data from ILP REST service
-        List<Drone> drones = ilpRestClient.fetchDrones();
-        List<ServicePoint> servicePoints = ilpRestClient.fetchServicePoints();
-        List<DroneForServicePoint> dronesForServicePoints = ilpRestClient.fetchDronesForServicePoints();
-        List<RestrictedArea> restrictedAreas = ilpRestClient.fetchRestrictedAreas();
+        // Read all datasets from one ILP snapshot
+        WorldSnapshot world = worldSnapshotService.current();
+        List<Drone> drones = world.getDrones();
+        List<ServicePoint> servicePoints = world.getServicePoints();
+        List<DroneForServicePoint> dronesForServicePoints = world.getDronesForServicePoints();
+        List<RestrictedArea> restrictedAreas = world.getRestrictedAreas();
         
         // Calculate delivery paths
         // The automarker ensures all test cases can be solved by one drone
@@ -358,7 +479,7 @@ public class ApiController {
         }
         
         // Transform to GeoJSON format (include restricted areas, service points, and delivery points for visualization)
-        GeoJsonFeatureCollection geoJson = transformToGeoJson(response, restrictedAreas, servicePoints, dispatches);
+        GeoJsonFeatureCollection geoJson = transformToGeoJson(response, world, dispatches);
         
         return ResponseEntity.ok(geoJson);
     }
@@ -386,11 +507,12 @@ public class ApiController {
                     .build());
         }
         
-        // Fetch fresh data from ILP REST service
-        List<Drone> drones = ilpRestClient.fetchDrones();
-        List<ServicePoint> servicePoints = ilpRestClient.fetchServicePoints();
-        List<DroneForServicePoint> dronesForServicePoints = ilpRestClient.fetchDronesForServicePoints();
-        List<RestrictedArea> restrictedAreas = ilpRestClient.fetchRestrictedAreas();
+        // Read all datasets from one ILP snapshot
+        WorldSnapshot world = worldSnapshotService.current();
+        List<Drone> drones = world.getDrones();
+        List<ServicePoint> servicePoints = world.getServicePoints();
+        List<DroneForServicePoint> dronesForServicePoints = world.getDronesForServicePoints();
+        List<RestrictedArea> restrictedAreas = world.getRestrictedAreas();
         
         // Compare routes using the service
         RouteComparisonResponse comparison = deliveryPathService.compareRoutes(
@@ -401,14 +523,14 @@ public class ApiController {
             comparison.getSingleDroneSolution().getDronePaths() != null &&
             !comparison.getSingleDroneSolution().getDronePaths().isEmpty()) {
             comparison.setSingleDroneGeoJson(
-                    transformToGeoJson(comparison.getSingleDroneSolution(), restrictedAreas, servicePoints, dispatches));
+                    transformToGeoJson(comparison.getSingleDroneSolution(), world, dispatches));
         }
         
         if (comparison.getMultiDroneSolution() != null && 
             comparison.getMultiDroneSolution().getDronePaths() != null &&
             !comparison.getMultiDroneSolution().getDronePaths().isEmpty()) {
             comparison.setMultiDroneGeoJson(
-                    transformToGeoJson(comparison.getMultiDroneSolution(), restrictedAreas, servicePoints, dispatches));
+                    transformToGeoJson(comparison.getMultiDroneSolution(), world, dispatches));
         }
         
         return ResponseEntity.ok(comparison);
@@ -420,85 +542,11 @@ public class ApiController {
      * Also includes restricted areas, service points, and delivery points for visualization
      */
     private GeoJsonFeatureCollection transformToGeoJson(DeliveryPathResponse response, 
-                                                         List<RestrictedArea> restrictedAreas,
-                                                         List<ServicePoint> servicePoints,
+                                                         WorldSnapshot world,
                                                          List<MedDispatchRec> dispatches) {
-        List<GeoJsonFeature> features = new ArrayList<>();
-        
-        // Add restricted areas as Polygon features (for visualization)
-        if (restrictedAreas != null && !restrictedAreas.isEmpty()) {
-            for (RestrictedArea area : restrictedAreas) {
-                if (area != null && area.getVertices() != null && area.getVertices().size() >= 3) {
-                    // Create polygon coordinates (close the ring by repeating first point)
-                    List<List<Double>> polygonCoordinates = new ArrayList<>();
-                    for (LngLat vertex : area.getVertices()) {
-                        if (vertex != null && vertex.isValid()) {
-                            polygonCoordinates.add(List.of(vertex.getLng(), vertex.getLat()));
-                        }
-                    }
-                    // Only add closing point if polygon isn't already closed
-                    if (!polygonCoordinates.isEmpty()) {
-                        List<Double> first = polygonCoordinates.get(0);
-                        List<Double> last = polygonCoordinates.get(polygonCoordinates.size() - 1);
-                        // Check if already closed (first == last)
-                        if (first.size() == 2 && last.size() == 2) {
-                            if (!first.get(0).equals(last.get(0)) || !first.get(1).equals(last.get(1))) {
-                                // Not closed, add first point at end
-                                polygonCoordinates.add(new ArrayList<>(first));
-                            }
-                        } else {
-                            // Add first point at end to close
-                            polygonCoordinates.add(new ArrayList<>(first));
-                        }
-                    }
-                    
-                    // Create Polygon geometry (GeoJSON Polygon format: [[[lng, lat], ...]])
-                    List<List<List<Double>>> polygonCoords = List.of(polygonCoordinates);
-                    GeoJsonGeometry geometry = new GeoJsonGeometry("Polygon", polygonCoords);
-                    
-                    // Create properties for restricted area
-                    GeoJsonProperties properties = new GeoJsonProperties();
-                    String areaName = area.getName() != null ? area.getName() : "Restricted Area (No-Fly Zone)";
-                    properties.setName(areaName);
-                    
-                    // Create feature
-                    GeoJsonFeature feature = new GeoJsonFeature("Feature", geometry, properties);
-                    features.add(feature);
-                }
-            }
-        }
-        
-        // Add service points as Point features (for visualization)
-        if (servicePoints != null && !servicePoints.isEmpty()) {
-            for (ServicePoint servicePoint : servicePoints) {
-                if (servicePoint != null && servicePoint.getLocation() != null) {
-                    LngLatAlt location = servicePoint.getLocation();
-                    if (location != null && location.getLng() != null && location.getLat() != null) {
-                        // Create Point geometry (GeoJSON Point format: [lng, lat])
-                        List<Double> pointCoordinates = List.of(location.getLng(), location.getLat());
-                        GeoJsonGeometry geometry = new GeoJsonGeometry("Point", pointCoordinates);
-                        
-                        // Create properties for service point with distinct styling
-                        GeoJsonProperties properties = new GeoJsonProperties();
-                        String pointName = servicePoint.getName() != null ? servicePoint.getName() : "Service Point";
-                        if (servicePoint.getId() != null) {
-                            properties.setName(pointName + " (ID: " + servicePoint.getId() + ")");
-                        } else {
-                            properties.setName(pointName);
-                        }
-                        // Style service points as blue circles (large)
-                        properties.setType("servicePoint");
-                        properties.setMarkerColor("#0066FF"); // Blue
-                        properties.setMarkerSize("large");
-                        properties.setMarkerSymbol("circle");
-                        
-                        // Create feature
-                        GeoJsonFeature feature = new GeoJsonFeature("Feature", geometry, properties);
-                        features.add(feature);
-                    }
-                }
-            }
-        }
+        // Restricted areas and service points are prebuilt once per snapshot
+        List<GeoJsonFeature> features = new ArrayList<>(
+                GeoJsonMapper.staticFeatures(world.getRestrictedAreas(), world.getServicePoints()));
         
         // Add delivery points as Point features (for visualization)
         if (dispatches != null && !dispatches.isEmpty()) {
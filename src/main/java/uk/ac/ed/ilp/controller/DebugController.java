@@ -0,0 +1,139 @@
+package uk.ac.ed.ilp.controller;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import uk.ac.ed.ilp.geometry.InflatedPolygon;
+import uk.ac.ed.ilp.model.Drone;
+import uk.ac.ed.ilp.model.DroneRejection;
+import uk.ac.ed.ilp.model.GeoJsonFeature;
+import uk.ac.ed.ilp.model.GeoJsonFeatureCollection;
+import uk.ac.ed.ilp.model.GeoJsonGeometry;
+import uk.ac.ed.ilp.model.GeoJsonProperties;
+import uk.ac.ed.ilp.model.LngLat;
+import uk.ac.ed.ilp.model.MedDispatchRec;
+import uk.ac.ed.ilp.model.RejectionReason;
+import uk.ac.ed.ilp.model.RestrictedArea;
+import uk.ac.ed.ilp.service.DroneAvailabilityService;
+import uk.ac.ed.ilp.service.PathfindingService;
+import uk.ac.ed.ilp.service.WorldSnapshotService;
+import uk.ac.ed.ilp.snapshot.SnapshotBundle;
+import uk.ac.ed.ilp.snapshot.WorldSnapshot;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Debugging endpoints exposing precomputed structures used by the planner
+ */
+@RestController
+@RequestMapping("/api/v1/debug")
+public class DebugController {
+
+    private final WorldSnapshotService worldSnapshotService;
+    private final PathfindingService pathfindingService;
+    private final DroneAvailabilityService droneAvailabilityService;
+
+    @Autowired
+    public DebugController(WorldSnapshotService worldSnapshotService, PathfindingService pathfindingService,
+                           DroneAvailabilityService droneAvailabilityService) {
+        this.worldSnapshotService = worldSnapshotService;
+        this.pathfindingService = pathfindingService;
+        this.droneAvailabilityService = droneAvailabilityService;
+    }
+
+    /**
+     * Restricted areas and their safety-buffered outlines as GeoJSON polygons
+     * Areas that could not be inflated only appear with their original outline
+     */
+    @GetMapping(value = "/inflatedRestrictedAreasAsGeoJson", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<GeoJsonFeatureCollection> inflatedRestrictedAreasAsGeoJson() {
+        List<RestrictedArea> restrictedAreas = worldSnapshotService.current().getRestrictedAreas();
+        List<GeoJsonFeature> features = new ArrayList<>();
+
+        if (restrictedAreas != null) {
+            for (RestrictedArea area : restrictedAreas) {
+                if (area != null && area.getVertices() != null && area.getVertices().size() >= 3) {
+                    features.add(polygonFeature(area.getVertices(), area.getName(), "restrictedArea"));
+                }
+            }
+        }
+
+        for (InflatedPolygon polygon : pathfindingService.inflatedRestrictedAreas(restrictedAreas)) {
+            if (polygon.isInflated()) {
+                String name = polygon.getName() != null ? polygon.getName() + " (buffered)" : "Buffered Restricted Area";
+                features.add(polygonFeature(polygon.getInflatedVertices(), name, "inflatedRestrictedArea"));
+            }
+        }
+
+        return ResponseEntity.ok(new GeoJsonFeatureCollection("FeatureCollection", features));
+    }
+
+    /**
+     * For every drone, why it cannot take all the given dispatches together
+     * Same checks as queryAvailableDrones, with the reason spelled out
+     */
+    @PostMapping(value = "/explainAvailability", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<List<DroneRejection>> explainAvailability(@RequestBody(required = false) List<MedDispatchRec> dispatches) {
+        if (dispatches == null || dispatches.isEmpty()) {
+            return ResponseEntity.ok(List.of());
+        }
+
+        WorldSnapshot world = worldSnapshotService.current();
+        List<DroneRejection> rejections = new ArrayList<>();
+        for (Drone drone : world.getDrones()) {
+            if (drone == null) {
+                continue;
+            }
+            RejectionReason reason = droneAvailabilityService.rejectionReason(
+                    drone, dispatches, world.getDronesForServicePoints(), world.getServicePoints());
+            String message = reason == null ? null : droneAvailabilityService.explainRejection(
+                    drone, dispatches, world.getDronesForServicePoints(), world.getServicePoints());
+            rejections.add(new DroneRejection(drone.getId(), reason, message));
+        }
+        return ResponseEntity.ok(rejections);
+    }
+
+    /**
+     * Current world snapshot as a SnapshotBundle file
+     * Save it and point ILP_ENDPOINT at it (file:///path/to/bundle) to run offline
+     */
+    @GetMapping(value = "/snapshotBundle", produces = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public ResponseEntity<byte[]> snapshotBundle() throws IOException {
+        WorldSnapshot snapshot = worldSnapshotService.current();
+        ByteArrayOutputStream bundle = new ByteArrayOutputStream();
+        SnapshotBundle.write(snapshot, bundle);
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"ilp-snapshot-v" + snapshot.getVersion() + ".ilpb\"")
+                .body(bundle.toByteArray());
+    }
+
+    /**
+     * GeoJSON Polygon feature with a closed ring
+     */
+    private GeoJsonFeature polygonFeature(List<LngLat> vertices, String name, String type) {
+        List<List<Double>> ring = new ArrayList<>();
+        for (LngLat vertex : vertices) {
+            if (vertex != null) {
+                ring.add(List.of(vertex.getLng(), vertex.getLat()));
+            }
+        }
+        if (!ring.isEmpty() && !ring.get(0).equals(ring.get(ring.size() - 1))) {
+            ring.add(ring.get(0));
+        }
+
+        GeoJsonProperties properties = new GeoJsonProperties();
+        properties.setName(name);
+        properties.setType(type);
+        return new GeoJsonFeature("Feature", new GeoJsonGeometry("Polygon", List.of(ring)), properties);
+    }
+}
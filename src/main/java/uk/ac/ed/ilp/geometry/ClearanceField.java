@@ -0,0 +1,138 @@
+package uk.ac.ed.ilp.geometry;
+
+import uk.ac.ed.ilp.model.LngLat;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Lower bound on the distance to the nearest restricted area, precomputed on a grid
+ * Built once per restricted-area dataset, so sizing a macro-move in the search is one array
+ * lookup instead of measuring every polygon edge from every expanded node.
+ *
+ * A cell stores the distance from its centre to the nearest blocked boundary (see
+ * InflatedPolygon.clearance) less half the cell diagonal, which bounds the distance from
+ * every point in the cell. Values are capped at range: points off the grid, and cells
+ * further than range from every area, report range.
+ */
+public final class ClearanceField {
+
+    private static final int MAX_CELLS = 1 << 20; // Grid is coarsened beyond this many cells
+
+    private final double range;
+    private final double minX;
+    private final double minY;
+    private final double cellSize;
+    private final int columns;
+    private final int rows;
+    private final double[] cells;
+
+    private ClearanceField(double range, double minX, double minY, double cellSize, int columns, int rows) {
+        this.range = range;
+        this.minX = minX;
+        this.minY = minY;
+        this.cellSize = cellSize;
+        this.columns = columns;
+        this.rows = rows;
+        this.cells = new double[columns * rows];
+        Arrays.fill(cells, range);
+    }
+
+    /**
+     * Field around the given areas, exact up to range, with cells of (at least) cellSize
+     */
+    public static ClearanceField build(List<InflatedPolygon> polygons, double range, double cellSize) {
+        if (polygons.isEmpty()) {
+            return new ClearanceField(range, 0, 0, cellSize, 0, 0);
+        }
+
+        // Anything further than range from an area's extent is at least range from the area
+        double margin = range + cellSize;
+        double loX = Double.MAX_VALUE, loY = Double.MAX_VALUE;
+        double hiX = -Double.MAX_VALUE, hiY = -Double.MAX_VALUE;
+        for (InflatedPolygon polygon : polygons) {
+            double[] extent = extent(polygon);
+            loX = Math.min(loX, extent[0] - margin);
+            loY = Math.min(loY, extent[1] - margin);
+            hiX = Math.max(hiX, extent[2] + margin);
+            hiY = Math.max(hiY, extent[3] + margin);
+        }
+        double size = Math.max(cellSize, Math.sqrt((hiX - loX) * (hiY - loY) / MAX_CELLS));
+        int columns = (int) Math.ceil((hiX - loX) / size);
+        int rows = (int) Math.ceil((hiY - loY) / size);
+
+        ClearanceField field = new ClearanceField(range, loX, loY, size, columns, rows);
+        for (InflatedPolygon polygon : polygons) {
+            field.lower(polygon);
+        }
+        return field;
+    }
+
+    /**
+     * Bounding box (minX, minY, maxX, maxY) of the area a polygon blocks
+     */
+    static double[] extent(InflatedPolygon polygon) {
+        PolygonEdges outline = polygon.getOutline();
+        double buffer = polygon.getBuffer();
+        double[] extent = {outline.minX() - buffer, outline.minY() - buffer,
+                outline.maxX() + buffer, outline.maxY() + buffer};
+        for (LngLat vertex : polygon.getInflatedVertices()) {
+            extent[0] = Math.min(extent[0], vertex.getLng());
+            extent[1] = Math.min(extent[1], vertex.getLat());
+            extent[2] = Math.max(extent[2], vertex.getLng());
+            extent[3] = Math.max(extent[3], vertex.getLat());
+        }
+        return extent;
+    }
+
+    /**
+     * Lower the cells within range of one polygon to their distance from it
+     */
+    private void lower(InflatedPolygon polygon) {
+        double[] extent = extent(polygon);
+        double reach = range + cellSize;
+        int fromColumn = Math.max(0, column(extent[0] - reach));
+        int toColumn = Math.min(columns - 1, column(extent[2] + reach));
+        int fromRow = Math.max(0, row(extent[1] - reach));
+        int toRow = Math.min(rows - 1, row(extent[3] + reach));
+        double halfDiagonal = cellSize * Math.sqrt(0.5);
+
+        for (int row = fromRow; row <= toRow; row++) {
+            double y = minY + (row + 0.5) * cellSize;
+            for (int column = fromColumn; column <= toColumn; column++) {
+                double x = minX + (column + 0.5) * cellSize;
+                int cell = row * columns + column;
+                cells[cell] = Math.min(cells[cell], polygon.clearance(x, y) - halfDiagonal);
+            }
+        }
+    }
+
+    private int column(double x) {
+        return (int) Math.floor((x - minX) / cellSize);
+    }
+
+    private int row(double y) {
+        return (int) Math.floor((y - minY) / cellSize);
+    }
+
+    /**
+     * Lower bound on the distance from (x, y) to every blocked area, at most range
+     * Only meaningful for points outside the areas, which is all the search ever asks about
+     */
+    public double clearance(double x, double y) {
+        int column = column(x);
+        int row = row(y);
+        if (column < 0 || column >= columns || row < 0 || row >= rows) {
+            return range;
+        }
+        return cells[row * columns + column];
+    }
+
+    public double range() {
+        return range;
+    }
+
+    public int cellCount() {
+        return cells.length;
+    }
+}
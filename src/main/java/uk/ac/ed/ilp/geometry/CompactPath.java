@@ -0,0 +1,350 @@
+package uk.ac.ed.ilp.geometry;
+
+import uk.ac.ed.ilp.model.LngLat;
+
+import java.util.AbstractList;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Flight path stored as a start coordinate plus one byte per move
+ * A move is a compass index (0 = East, counting anticlockwise in 22.5 degree steps), a hover,
+ * or an anchor that jumps to an exact stored coordinate (used for the final snap onto a target).
+ * Positions are only rebuilt as LngLat when the path is read, using the same arithmetic as
+ * PositionService so the expanded points are identical to the ones the planner visited.
+ *
+ * Paths are immutable. Concatenation links the two paths in O(1) without copying; the second
+ * path is taken to continue from where the first one ends, so its start point is not repeated.
+ */
+public final class CompactPath {
+
+    public static final double STEP_SIZE = 0.00015; // Same step as PositionService
+    public static final int DIRECTIONS = 16;
+    public static final byte HOVER = 16;
+    public static final byte ANCHOR = 17;
+
+    private static final double[] STEP_LNG = new double[DIRECTIONS];
+    private static final double[] STEP_LAT = new double[DIRECTIONS];
+    private static final byte[] NO_CODES = new byte[0];
+    private static final double[] NO_ANCHORS = new double[0];
+    private static final byte[] HOVER_CODE = {HOVER};
+
+    static {
+        for (int i = 0; i < DIRECTIONS; i++) {
+            double radians = Math.toRadians(i * 22.5);
+            STEP_LNG[i] = STEP_SIZE * Math.cos(radians);
+            STEP_LAT[i] = STEP_SIZE * Math.sin(radians);
+        }
+    }
+
+    private final double startLng;
+    private final double startLat;
+    private final double endLng;
+    private final double endLat;
+    private final int moveCount;
+
+    // Leaf: codes[0..length) with anchor coordinates as lng/lat pairs in code order
+    private final byte[] codes;
+    private final int length;
+    private final double[] anchors;
+
+    // Concatenation: left then right (both null for a leaf)
+    private final CompactPath left;
+    private final CompactPath right;
+
+    private CompactPath(double startLng, double startLat, double endLng, double endLat,
+                        byte[] codes, int length, double[] anchors) {
+        this.startLng = startLng;
+        this.startLat = startLat;
+        this.endLng = endLng;
+        this.endLat = endLat;
+        this.moveCount = length;
+        this.codes = codes;
+        this.length = length;
+        this.anchors = anchors;
+        this.left = null;
+        this.right = null;
+    }
+
+    private CompactPath(CompactPath left, CompactPath right) {
+        this.startLng = left.startLng;
+        this.startLat = left.startLat;
+        this.endLng = right.endLng;
+        this.endLat = right.endLat;
+        this.moveCount = left.moveCount + right.moveCount;
+        this.codes = null;
+        this.length = 0;
+        this.anchors = null;
+        this.left = left;
+        this.right = right;
+    }
+
+    /**
+     * Path with no moves that stays at the given point
+     */
+    public static CompactPath at(LngLat point) {
+        return new CompactPath(point.getLng(), point.getLat(), point.getLng(), point.getLat(), NO_CODES, 0, NO_ANCHORS);
+    }
+
+    public static Builder builder(LngLat start) {
+        return new Builder(start.getLng(), start.getLat());
+    }
+
+    /**
+     * Encode a list of points; moves that are not an exact compass step or hover become anchors
+     * Returns null for a missing or empty list
+     */
+    public static CompactPath fromPoints(List<LngLat> points) {
+        if (points == null || points.isEmpty()) {
+            return null;
+        }
+
+        Builder builder = builder(points.get(0));
+        for (int i = 1; i < points.size(); i++) {
+            LngLat point = points.get(i);
+            double lng = point.getLng();
+            double lat = point.getLat();
+            if (lng == builder.lng && lat == builder.lat) {
+                builder.hover();
+                continue;
+            }
+            int direction = -1;
+            for (int d = 0; d < DIRECTIONS && direction < 0; d++) {
+                if (builder.lng + STEP_LNG[d] == lng && builder.lat + STEP_LAT[d] == lat) {
+                    direction = d;
+                }
+            }
+            if (direction >= 0) {
+                builder.move(direction);
+            } else {
+                builder.anchor(point);
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * Compass index for an angle in degrees that is a multiple of 22.5
+     */
+    public static int directionIndex(double angle) {
+        int index = (int) Math.round(angle / 22.5) % DIRECTIONS;
+        return index < 0 ? index + DIRECTIONS : index;
+    }
+
+    public int moveCount() {
+        return moveCount;
+    }
+
+    public int pointCount() {
+        return moveCount + 1;
+    }
+
+    public LngLat start() {
+        return new LngLat(startLng, startLat);
+    }
+
+    public LngLat end() {
+        return new LngLat(endLng, endLat);
+    }
+
+    /**
+     * This path followed by next, which must start where this path ends
+     */
+    public CompactPath concat(CompactPath next) {
+        return next.moveCount == 0 ? this : new CompactPath(this, next);
+    }
+
+    /**
+     * This path followed by one hover move
+     */
+    public CompactPath hover() {
+        return new CompactPath(this, new CompactPath(endLng, endLat, endLng, endLat, HOVER_CODE, 1, NO_ANCHORS));
+    }
+
+    /**
+     * This path followed by a single move straight onto the given point
+     */
+    public CompactPath jumpTo(LngLat point) {
+        return concat(builder(end()).anchor(point).build());
+    }
+
+    /**
+     * Read-only LngLat view of the path; points are only built when the view is read
+     */
+    public List<LngLat> asList() {
+        return new PointList();
+    }
+
+    /**
+     * Approximate memory held by the move codes and anchors
+     */
+    public long encodedBytes() {
+        if (left != null) {
+            return left.encodedBytes() + right.encodedBytes();
+        }
+        return codes.length + (long) anchors.length * Double.BYTES;
+    }
+
+    /**
+     * Walks the leaves in order, replaying each move from the running position
+     */
+    private final class PointIterator implements Iterator<LngLat> {
+        private final Deque<CompactPath> pending = new ArrayDeque<>();
+        private CompactPath leaf;
+        private int codeIndex;
+        private int anchorIndex;
+        private double lng = startLng;
+        private double lat = startLat;
+        private boolean startReturned;
+
+        PointIterator() {
+            pending.push(CompactPath.this);
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (!startReturned) {
+                return true;
+            }
+            while (leaf == null || codeIndex >= leaf.length) {
+                if (pending.isEmpty()) {
+                    return false;
+                }
+                CompactPath node = pending.pop();
+                while (node.left != null) {
+                    pending.push(node.right);
+                    node = node.left;
+                }
+                leaf = node;
+                codeIndex = 0;
+                anchorIndex = 0;
+            }
+            return true;
+        }
+
+        @Override
+        public LngLat next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            if (!startReturned) {
+                startReturned = true;
+                return new LngLat(lng, lat);
+            }
+            byte code = leaf.codes[codeIndex++];
+            if (code < DIRECTIONS) {
+                lng = lng + STEP_LNG[code];
+                lat = lat + STEP_LAT[code];
+            } else if (code == ANCHOR) {
+                lng = leaf.anchors[anchorIndex++];
+                lat = leaf.anchors[anchorIndex++];
+            }
+            return new LngLat(lng, lat);
+        }
+    }
+
+    /**
+     * Iteration replays the moves; indexed access expands the whole path once and keeps it
+     */
+    private final class PointList extends AbstractList<LngLat> {
+        private LngLat[] expanded;
+
+        @Override
+        public LngLat get(int index) {
+            if (expanded == null) {
+                LngLat[] points = new LngLat[pointCount()];
+                int i = 0;
+                for (Iterator<LngLat> it = new PointIterator(); it.hasNext(); ) {
+                    points[i++] = it.next();
+                }
+                expanded = points;
+            }
+            return expanded[index];
+        }
+
+        @Override
+        public int size() {
+            return pointCount();
+        }
+
+        @Override
+        public Iterator<LngLat> iterator() {
+            LngLat[] points = expanded;
+            return points != null ? Arrays.asList(points).iterator() : new PointIterator();
+        }
+    }
+
+    /**
+     * Appends moves to a growable byte array
+     */
+    public static final class Builder {
+        private final double startLng;
+        private final double startLat;
+        private double lng;
+        private double lat;
+        private byte[] codes = new byte[32];
+        private int length;
+        private double[] anchors = NO_ANCHORS;
+        private int anchorLength;
+
+        private Builder(double startLng, double startLat) {
+            this.startLng = startLng;
+            this.startLat = startLat;
+            this.lng = startLng;
+            this.lat = startLat;
+        }
+
+        /**
+         * One step in the given compass direction
+         */
+        public Builder move(int direction) {
+            append((byte) direction);
+            lng = lng + STEP_LNG[direction];
+            lat = lat + STEP_LAT[direction];
+            return this;
+        }
+
+        public Builder move(int direction, int times) {
+            for (int i = 0; i < times; i++) {
+                move(direction);
+            }
+            return this;
+        }
+
+        public Builder hover() {
+            append(HOVER);
+            return this;
+        }
+
+        /**
+         * One move straight onto an exact point
+         */
+        public Builder anchor(LngLat point) {
+            append(ANCHOR);
+            if (anchorLength + 2 > anchors.length) {
+                anchors = Arrays.copyOf(anchors, Math.max(4, anchors.length * 2));
+            }
+            anchors[anchorLength++] = point.getLng();
+            anchors[anchorLength++] = point.getLat();
+            lng = point.getLng();
+            lat = point.getLat();
+            return this;
+        }
+
+        public CompactPath build() {
+            return new CompactPath(startLng, startLat, lng, lat,
+                    Arrays.copyOf(codes, length), length, Arrays.copyOf(anchors, anchorLength));
+        }
+
+        private void append(byte code) {
+            if (length == codes.length) {
+                codes = Arrays.copyOf(codes, codes.length * 2);
+            }
+            codes[length++] = code;
+        }
+    }
+}
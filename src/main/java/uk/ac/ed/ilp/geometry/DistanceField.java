@@ -0,0 +1,190 @@
+package uk.ac.ed.ilp.geometry;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Flight distance from one origin (a service point) around the restricted areas,
+ * precomputed on a grid
+ * Cells hold the shortest distance from the origin to their centre over a 16-neighbour
+ * grid whose links avoid the buffered areas (Dijkstra), so a lookup costs one straight-line
+ * test instead of a path search. A point in direct sight of the origin gets the exact
+ * straight-line distance; one behind an area gets its cell's distance plus the offset
+ * from the cell centre.
+ *
+ * The grid covers the origin and every area with a margin, which is enough to route around
+ * any of them. Points beyond it are measured from the nearest grid cell, and points the grid
+ * cannot reach (e.g. inside an area) fall back to the straight-line distance.
+ */
+public final class DistanceField {
+
+    private static final int MAX_CELLS = 1 << 18; // Grid is coarsened beyond this many cells
+    private static final int MARGIN_CELLS = 4;
+    private static final int[][] NEIGHBOURS = {
+            {1, 0}, {-1, 0}, {0, 1}, {0, -1},
+            {1, 1}, {1, -1}, {-1, 1}, {-1, -1},
+            {1, 2}, {2, 1}, {-1, 2}, {-2, 1}, {1, -2}, {2, -1}, {-1, -2}, {-2, -1}
+    };
+
+    private final double originX;
+    private final double originY;
+    private final List<InflatedPolygon> polygons;
+    private final double minX;
+    private final double minY;
+    private final double cellSize;
+    private final int columns;
+    private final int rows;
+    private final double[] cells;
+
+    private DistanceField(double originX, double originY, List<InflatedPolygon> polygons,
+                          double minX, double minY, double cellSize, int columns, int rows) {
+        this.originX = originX;
+        this.originY = originY;
+        this.polygons = polygons;
+        this.minX = minX;
+        this.minY = minY;
+        this.cellSize = cellSize;
+        this.columns = columns;
+        this.rows = rows;
+        this.cells = new double[columns * rows];
+        Arrays.fill(cells, Double.POSITIVE_INFINITY);
+    }
+
+    /**
+     * Field around the given areas from (originX, originY), with cells of (at least) cellSize
+     * clearance must be built from the same polygons; it lets most grid links skip the polygon tests
+     */
+    public static DistanceField build(double originX, double originY, List<InflatedPolygon> polygons,
+                                      ClearanceField clearance, double cellSize) {
+        if (polygons.isEmpty()) {
+            return new DistanceField(originX, originY, List.of(), 0, 0, cellSize, 0, 0);
+        }
+
+        double margin = MARGIN_CELLS * cellSize;
+        double loX = originX - margin, loY = originY - margin;
+        double hiX = originX + margin, hiY = originY + margin;
+        for (InflatedPolygon polygon : polygons) {
+            double[] extent = ClearanceField.extent(polygon);
+            loX = Math.min(loX, extent[0] - margin);
+            loY = Math.min(loY, extent[1] - margin);
+            hiX = Math.max(hiX, extent[2] + margin);
+            hiY = Math.max(hiY, extent[3] + margin);
+        }
+        double size = Math.max(cellSize, Math.sqrt((hiX - loX) * (hiY - loY) / MAX_CELLS));
+        int columns = (int) Math.ceil((hiX - loX) / size);
+        int rows = (int) Math.ceil((hiY - loY) / size);
+
+        DistanceField field = new DistanceField(originX, originY, List.copyOf(polygons), loX, loY, size, columns, rows);
+        field.propagate(clearance);
+        return field;
+    }
+
+    /**
+     * Dijkstra over the grid, seeded with the cells around the origin it can see directly
+     */
+    private void propagate(ClearanceField clearance) {
+        PriorityQueue<Reached> open = new PriorityQueue<>();
+        int originColumn = column(originX);
+        int originRow = row(originY);
+        for (int row = originRow - 1; row <= originRow + 1; row++) {
+            for (int column = originColumn - 1; column <= originColumn + 1; column++) {
+                if (column < 0 || column >= columns || row < 0 || row >= rows) {
+                    continue;
+                }
+                double x = centreX(column);
+                double y = centreY(row);
+                if (!blocked(originX, originY, x, y)) {
+                    int cell = row * columns + column;
+                    cells[cell] = Math.hypot(x - originX, y - originY);
+                    open.add(new Reached(cell, cells[cell]));
+                }
+            }
+        }
+
+        while (!open.isEmpty()) {
+            Reached reached = open.poll();
+            if (reached.distance() > cells[reached.cell()]) {
+                continue; // Stale entry
+            }
+            int column = reached.cell() % columns;
+            int row = reached.cell() / columns;
+            double x = centreX(column);
+            double y = centreY(row);
+            double free = clearance.clearance(x, y);
+            for (int[] step : NEIGHBOURS) {
+                int nextColumn = column + step[0];
+                int nextRow = row + step[1];
+                if (nextColumn < 0 || nextColumn >= columns || nextRow < 0 || nextRow >= rows) {
+                    continue;
+                }
+                double length = Math.hypot(step[0], step[1]) * cellSize;
+                int next = nextRow * columns + nextColumn;
+                double distance = reached.distance() + length;
+                if (distance >= cells[next]) {
+                    continue;
+                }
+                // A link shorter than the clearance at its start cannot reach an area
+                if (free <= length && blocked(x, y, centreX(nextColumn), centreY(nextRow))) {
+                    continue;
+                }
+                cells[next] = distance;
+                open.add(new Reached(next, distance));
+            }
+        }
+    }
+
+    private boolean blocked(double ax, double ay, double bx, double by) {
+        for (InflatedPolygon polygon : polygons) {
+            if (polygon.segmentBlocked(ax, ay, bx, by)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Flight distance from the origin to (x, y), never less than the straight-line distance
+     */
+    public double distance(double x, double y) {
+        double direct = Math.hypot(x - originX, y - originY);
+        if (cells.length == 0 || !blocked(originX, originY, x, y)) {
+            return direct;
+        }
+        int column = Math.max(0, Math.min(columns - 1, column(x)));
+        int row = Math.max(0, Math.min(rows - 1, row(y)));
+        double viaGrid = cells[row * columns + column];
+        if (viaGrid == Double.POSITIVE_INFINITY) {
+            return direct;
+        }
+        return Math.max(direct, viaGrid + Math.hypot(x - centreX(column), y - centreY(row)));
+    }
+
+    public int cellCount() {
+        return cells.length;
+    }
+
+    private int column(double x) {
+        return (int) Math.floor((x - minX) / cellSize);
+    }
+
+    private int row(double y) {
+        return (int) Math.floor((y - minY) / cellSize);
+    }
+
+    private double centreX(int column) {
+        return minX + (column + 0.5) * cellSize;
+    }
+
+    private double centreY(int row) {
+        return minY + (row + 0.5) * cellSize;
+    }
+
+    private record Reached(int cell, double distance) implements Comparable<Reached> {
+
+        @Override
+        public int compareTo(Reached other) {
+            return Double.compare(distance, other.distance);
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package uk.ac.ed.ilp.geometry;
+
+/**
+ * Tests one segment against many polygon edges held as struct-of-arrays (x1, y1, x2, y2)
+ * Two implementations: a plain scalar loop, and a SIMD one on the JDK Vector API that tests
+ * several edges per instruction. The vector kernel needs the incubating jdk.incubator.vector
+ * module (java --add-modules jdk.incubator.vector) and a CPU with vector registers; without
+ * them best() falls back to the scalar kernel. Both give identical answers.
+ */
+public interface EdgeKernel {
+
+    /**
+     * True if segment a-b properly crosses any of the first size edges
+     * (same rule as PolygonEdges.properlyIntersect)
+     */
+    boolean crossesAny(double ax, double ay, double bx, double by,
+                       double[] x1, double[] y1, double[] x2, double[] y2, int size);
+
+    /**
+     * True if an endpoint of segment a-b is closer than sqrt(bufferSq) to any of the edges,
+     * or an endpoint of any edge is that close to segment a-b
+     */
+    boolean nearAny(double ax, double ay, double bx, double by, double bufferSq,
+                    double[] x1, double[] y1, double[] x2, double[] y2, int size);
+
+    String name();
+
+    static EdgeKernel scalar() {
+        return ScalarEdgeKernel.INSTANCE;
+    }
+
+    /**
+     * The Vector API kernel, or null if this JVM cannot run it usefully
+     */
+    static EdgeKernel vector() {
+        return Kernels.VECTOR;
+    }
+
+    /**
+     * The vector kernel where available, otherwise the scalar one
+     */
+    static EdgeKernel best() {
+        return Kernels.VECTOR != null ? Kernels.VECTOR : ScalarEdgeKernel.INSTANCE;
+    }
+
+    /**
+     * Holds the capability check so it runs once, on first use
+     */
+    final class Kernels {
+
+        private static final EdgeKernel VECTOR = loadVector();
+
+        private Kernels() {
+        }
+
+        private static EdgeKernel loadVector() {
+            if (ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()) {
+                return null;
+            }
+            try {
+                return VectorEdgeKernel.isUseful() ? new VectorEdgeKernel() : null;
+            } catch (LinkageError e) {
+                return null;
+            }
+        }
+    }
+}
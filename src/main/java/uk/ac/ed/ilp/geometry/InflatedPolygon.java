@@ -0,0 +1,286 @@
+package uk.ac.ed.ilp.geometry;
+
+import uk.ac.ed.ilp.model.LngLat;
+import uk.ac.ed.ilp.model.RestrictedArea;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Restricted area grown outwards by a safety buffer (Minkowski sum with a disk)
+ * Built once per restricted-area dataset so a candidate move only needs crossing and
+ * containment tests against the grown outline, with no per-move distance calculation.
+ *
+ * Convex corners get a circular arc approximated by a polygon drawn around the circle,
+ * so the grown outline always contains the true buffered area. Reflex corners use the
+ * intersection of the two offset edges. If the grown outline is not a simple polygon
+ * (buffer too large for the shape) the area falls back to edge distance tests.
+ */
+public final class InflatedPolygon {
+
+    private static final double MAX_ARC_STEP = Math.toRadians(22.5); // Largest angle covered by one arc segment
+    private static final double COLLINEAR_TOLERANCE = 1e-12;
+
+    private final String name;
+    private final Integer id;
+    private final double buffer;
+    private final PolygonEdges outline;
+    private final PolygonEdges inflated; // null when falling back to distance tests
+    private final List<LngLat> inflatedVertices;
+
+    private InflatedPolygon(String name, Integer id, double buffer, PolygonEdges outline, List<LngLat> inflatedVertices) {
+        this.name = name;
+        this.id = id;
+        this.buffer = buffer;
+        this.outline = outline;
+        this.inflatedVertices = inflatedVertices;
+        this.inflated = inflatedVertices.isEmpty() ? null : PolygonEdges.of(inflatedVertices);
+    }
+
+    /**
+     * Grow one restricted area; returns null if it has no vertices
+     */
+    public static InflatedPolygon of(RestrictedArea area, double buffer) {
+        if (area == null) {
+            return null;
+        }
+        PolygonEdges outline = PolygonEdges.of(area.getVertices());
+        if (outline == null) {
+            return null;
+        }
+        return new InflatedPolygon(area.getName(), area.getId(), buffer, outline, inflate(area.getVertices(), buffer));
+    }
+
+    /**
+     * Grow every usable restricted area
+     */
+    public static List<InflatedPolygon> inflateAll(List<RestrictedArea> restrictedAreas, double buffer) {
+        Builder builder = builder(buffer);
+        if (restrictedAreas != null) {
+            restrictedAreas.forEach(builder);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Builder that takes the restricted areas one at a time, e.g. as they are read from the ILP payload
+     */
+    public static Builder builder(double buffer) {
+        return new Builder(buffer);
+    }
+
+    /**
+     * Grows each usable area, edge arrays included, as it arrives; not reusable after build()
+     */
+    public static final class Builder implements Consumer<RestrictedArea> {
+
+        private final double buffer;
+        private final List<InflatedPolygon> polygons = new ArrayList<>();
+
+        private Builder(double buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public void accept(RestrictedArea area) {
+            InflatedPolygon polygon = of(area, buffer);
+            if (polygon != null) {
+                polygons.add(polygon);
+            }
+        }
+
+        public List<InflatedPolygon> build() {
+            return polygons;
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Integer getId() {
+        return id;
+    }
+
+    /**
+     * Original outline of the restricted area
+     */
+    public PolygonEdges getOutline() {
+        return outline;
+    }
+
+    /**
+     * Vertices of the grown outline (counter-clockwise, not closed); empty when not inflated
+     */
+    public List<LngLat> getInflatedVertices() {
+        return inflatedVertices;
+    }
+
+    public double getBuffer() {
+        return buffer;
+    }
+
+    public boolean isInflated() {
+        return inflated != null;
+    }
+
+    /**
+     * Distance from a point outside the buffered area to its boundary: the grown outline,
+     * or the original outline less the buffer when falling back to distance tests
+     */
+    public double clearance(double px, double py) {
+        return inflated != null ? inflated.distanceTo(px, py) : outline.distanceTo(px, py) - buffer;
+    }
+
+    /**
+     * True if moving along segment a-b enters the buffered area
+     */
+    public boolean segmentBlocked(double ax, double ay, double bx, double by) {
+        if (inflated != null) {
+            return inflated.crosses(ax, ay, bx, by)
+                    || inflated.contains(bx, by)
+                    || inflated.contains(ax, ay);
+        }
+
+        // Fallback: edge distance tests plus interior checks along the segment
+        if (outline.segmentBlocked(ax, ay, bx, by, buffer)) {
+            return true;
+        }
+        int numChecks = 3;
+        for (int j = 1; j < numChecks; j++) {
+            double t = j / (double) numChecks;
+            if (outline.contains(ax + t * (bx - ax), ay + t * (by - ay))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Offset outline of the polygon, or an empty list if it cannot be built safely
+     */
+    private static List<LngLat> inflate(List<LngLat> vertices, double buffer) {
+        List<double[]> ring = distinctRing(vertices);
+        int n = ring.size();
+        if (n < 3) {
+            return List.of();
+        }
+
+        double area = 0;
+        for (int i = 0; i < n; i++) {
+            double[] a = ring.get(i);
+            double[] b = ring.get((i + 1) % n);
+            area += a[0] * b[1] - b[0] * a[1];
+        }
+        if (area == 0) {
+            return List.of();
+        }
+        if (area < 0) {
+            Collections.reverse(ring); // Work counter-clockwise so outward normals point right of each edge
+        }
+
+        List<LngLat> result = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            double[] prev = ring.get((i + n - 1) % n);
+            double[] v = ring.get(i);
+            double[] next = ring.get((i + 1) % n);
+
+            double[] nIn = outwardNormal(prev, v);
+            double[] nOut = outwardNormal(v, next);
+            double cross = (v[0] - prev[0]) * (next[1] - v[1]) - (v[1] - prev[1]) * (next[0] - v[0]);
+
+            if (Math.abs(cross) <= COLLINEAR_TOLERANCE * COLLINEAR_TOLERANCE) {
+                result.add(new LngLat(v[0] + buffer * nIn[0], v[1] + buffer * nIn[1]));
+            } else if (cross > 0) {
+                addArc(result, v, nIn, nOut, buffer);
+            } else {
+                double dot = nIn[0] * nOut[0] + nIn[1] * nOut[1];
+                if (dot <= -1 + 1e-9) {
+                    return List.of(); // Hairpin turn, no usable miter point
+                }
+                double scale = buffer / (1 + dot);
+                result.add(new LngLat(v[0] + scale * (nIn[0] + nOut[0]), v[1] + scale * (nIn[1] + nOut[1])));
+            }
+        }
+
+        return isSimple(result) ? result : List.of();
+    }
+
+    /**
+     * Arc around a convex corner from normal nIn to normal nOut, drawn outside the circle
+     */
+    private static void addArc(List<LngLat> out, double[] v, double[] nIn, double[] nOut, double buffer) {
+        double start = Math.atan2(nIn[1], nIn[0]);
+        double turn = Math.atan2(nOut[1], nOut[0]) - start;
+        while (turn <= 0) {
+            turn += 2 * Math.PI;
+        }
+
+        int pieces = (int) Math.ceil(turn / MAX_ARC_STEP);
+        double step = turn / pieces;
+        double outerRadius = buffer / Math.cos(step / 2);
+
+        out.add(new LngLat(v[0] + buffer * nIn[0], v[1] + buffer * nIn[1]));
+        for (int k = 0; k < pieces; k++) {
+            double angle = start + (k + 0.5) * step;
+            out.add(new LngLat(v[0] + outerRadius * Math.cos(angle), v[1] + outerRadius * Math.sin(angle)));
+        }
+        out.add(new LngLat(v[0] + buffer * nOut[0], v[1] + buffer * nOut[1]));
+    }
+
+    private static double[] outwardNormal(double[] a, double[] b) {
+        double dx = b[0] - a[0];
+        double dy = b[1] - a[1];
+        double len = Math.sqrt(dx * dx + dy * dy);
+        return new double[]{dy / len, -dx / len};
+    }
+
+    /**
+     * Vertices without the closing repeat and without consecutive duplicates
+     */
+    private static List<double[]> distinctRing(List<LngLat> vertices) {
+        List<double[]> ring = new ArrayList<>();
+        for (LngLat v : vertices) {
+            if (v == null) {
+                continue;
+            }
+            double[] p = {v.getLng(), v.getLat()};
+            if (ring.isEmpty() || !samePoint(ring.get(ring.size() - 1), p)) {
+                ring.add(p);
+            }
+        }
+        while (ring.size() > 1 && samePoint(ring.get(0), ring.get(ring.size() - 1))) {
+            ring.remove(ring.size() - 1);
+        }
+        return ring;
+    }
+
+    private static boolean samePoint(double[] a, double[] b) {
+        return a[0] == b[0] && a[1] == b[1];
+    }
+
+    /**
+     * True if no two non-adjacent edges of the ring cross each other
+     */
+    private static boolean isSimple(List<LngLat> ring) {
+        int n = ring.size();
+        for (int i = 0; i < n; i++) {
+            LngLat a = ring.get(i);
+            LngLat b = ring.get((i + 1) % n);
+            for (int j = i + 2; j < n; j++) {
+                if (i == 0 && j == n - 1) {
+                    continue; // Adjacent through the wrap-around
+                }
+                LngLat c = ring.get(j);
+                LngLat d = ring.get((j + 1) % n);
+                if (PolygonEdges.properlyIntersect(a.getLng(), a.getLat(), b.getLng(), b.getLat(),
+                        c.getLng(), c.getLat(), d.getLng(), d.getLat())) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+}
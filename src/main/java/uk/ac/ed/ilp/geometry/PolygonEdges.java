@@ -0,0 +1,207 @@
+package uk.ac.ed.ilp.geometry;
+
+import uk.ac.ed.ilp.model.LngLat;
+import uk.ac.ed.ilp.model.RestrictedArea;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Edges of one polygon stored as struct-of-arrays (x1, y1, x2, y2)
+ * Lets a candidate segment be tested against every edge in one tight loop over
+ * primitive doubles instead of going through boxed LngLat getters per edge; the segment
+ * tests run on EdgeKernel.best(), which uses SIMD where the JVM supports it.
+ * A bounding box around the polygon rejects far-away segments without touching the edges.
+ */
+public final class PolygonEdges {
+
+    private static final double BORDER_TOLERANCE = 1e-12; // Same tolerance as RegionService
+    private static final EdgeKernel KERNEL = EdgeKernel.best();
+
+    private final double[] x1;
+    private final double[] y1;
+    private final double[] x2;
+    private final double[] y2;
+    private final int size;
+    private final double minX;
+    private final double minY;
+    private final double maxX;
+    private final double maxY;
+
+    private PolygonEdges(double[] x1, double[] y1, double[] x2, double[] y2) {
+        this.x1 = x1;
+        this.y1 = y1;
+        this.x2 = x2;
+        this.y2 = y2;
+        this.size = x1.length;
+
+        double loX = Double.MAX_VALUE, loY = Double.MAX_VALUE;
+        double hiX = -Double.MAX_VALUE, hiY = -Double.MAX_VALUE;
+        for (int i = 0; i < size; i++) {
+            loX = Math.min(loX, x1[i]);
+            loY = Math.min(loY, y1[i]);
+            hiX = Math.max(hiX, x1[i]);
+            hiY = Math.max(hiY, y1[i]);
+        }
+        this.minX = loX;
+        this.minY = loY;
+        this.maxX = hiX;
+        this.maxY = hiY;
+    }
+
+    /**
+     * Build the edge arrays of a polygon (edge i joins vertex i and vertex i + 1, wrapping around)
+     * Returns null for a missing or empty vertex list
+     */
+    public static PolygonEdges of(List<LngLat> vertices) {
+        if (vertices == null || vertices.isEmpty()) {
+            return null;
+        }
+
+        int n = vertices.size();
+        double[] x1 = new double[n];
+        double[] y1 = new double[n];
+        double[] x2 = new double[n];
+        double[] y2 = new double[n];
+        for (int i = 0; i < n; i++) {
+            LngLat v1 = vertices.get(i);
+            LngLat v2 = vertices.get((i + 1) % n);
+            x1[i] = v1.getLng();
+            y1[i] = v1.getLat();
+            x2[i] = v2.getLng();
+            y2[i] = v2.getLat();
+        }
+        return new PolygonEdges(x1, y1, x2, y2);
+    }
+
+    /**
+     * Compile every usable restricted area into edge arrays
+     */
+    public static List<PolygonEdges> compile(List<RestrictedArea> restrictedAreas) {
+        List<PolygonEdges> compiled = new ArrayList<>();
+        if (restrictedAreas == null) {
+            return compiled;
+        }
+
+        for (RestrictedArea area : restrictedAreas) {
+            if (area != null) {
+                PolygonEdges edges = of(area.getVertices());
+                if (edges != null) {
+                    compiled.add(edges);
+                }
+            }
+        }
+        return compiled;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public double minX() {
+        return minX;
+    }
+
+    public double minY() {
+        return minY;
+    }
+
+    public double maxX() {
+        return maxX;
+    }
+
+    public double maxY() {
+        return maxY;
+    }
+
+    /**
+     * Point in polygon or on its border
+     * Same rules as RegionService.contains: border counts as inside, then ray casting
+     */
+    public boolean contains(double px, double py) {
+        if (px < minX - BORDER_TOLERANCE || px > maxX + BORDER_TOLERANCE
+                || py < minY - BORDER_TOLERANCE || py > maxY + BORDER_TOLERANCE) {
+            return false;
+        }
+
+        for (int i = 0; i < size; i++) {
+            double cross = (py - y1[i]) * (x2[i] - x1[i]) - (px - x1[i]) * (y2[i] - y1[i]);
+            if (Math.abs(cross) <= BORDER_TOLERANCE
+                    && px >= Math.min(x1[i], x2[i]) - BORDER_TOLERANCE && px <= Math.max(x1[i], x2[i]) + BORDER_TOLERANCE
+                    && py >= Math.min(y1[i], y2[i]) - BORDER_TOLERANCE && py <= Math.max(y1[i], y2[i]) + BORDER_TOLERANCE) {
+                return true;
+            }
+        }
+
+        boolean inside = false;
+        for (int i = 0; i < size; i++) {
+            double ax = x2[i], ay = y2[i], bx = x1[i], by = y1[i];
+            if (((ay > py) != (by > py)) && (px < (bx - ax) * (py - ay) / (by - ay) + ax)) {
+                inside = !inside;
+            }
+        }
+        return inside;
+    }
+
+    /**
+     * True if segment a-b properly crosses any edge (touching an edge does not count)
+     */
+    public boolean crosses(double ax, double ay, double bx, double by) {
+        if (Math.max(ax, bx) < minX || Math.min(ax, bx) > maxX
+                || Math.max(ay, by) < minY || Math.min(ay, by) > maxY) {
+            return false;
+        }
+
+        return KERNEL.crossesAny(ax, ay, bx, by, x1, y1, x2, y2, size);
+    }
+
+    /**
+     * True if segments a-b and c-d cross, with the endpoints of each strictly on opposite sides of the other
+     */
+    public static boolean properlyIntersect(double ax, double ay, double bx, double by,
+                                            double cx, double cy, double dx, double dy) {
+        double d1 = (dx - cx) * (ay - cy) - (dy - cy) * (ax - cx);
+        double d2 = (dx - cx) * (by - cy) - (dy - cy) * (bx - cx);
+        double d3 = (bx - ax) * (cy - ay) - (by - ay) * (cx - ax);
+        double d4 = (bx - ax) * (dy - ay) - (by - ay) * (dx - ax);
+        return ((d1 > 0 && d2 < 0) || (d1 < 0 && d2 > 0)) && ((d3 > 0 && d4 < 0) || (d3 < 0 && d4 > 0));
+    }
+
+    /**
+     * True if segment a-b properly crosses any edge or passes closer than buffer to one
+     */
+    public boolean segmentBlocked(double ax, double ay, double bx, double by, double buffer) {
+        if (Math.max(ax, bx) < minX - buffer || Math.min(ax, bx) > maxX + buffer
+                || Math.max(ay, by) < minY - buffer || Math.min(ay, by) > maxY + buffer) {
+            return false;
+        }
+
+        // Non-crossing segments: closest approach is at one of the four endpoints
+        return KERNEL.crossesAny(ax, ay, bx, by, x1, y1, x2, y2, size)
+                || KERNEL.nearAny(ax, ay, bx, by, buffer * buffer, x1, y1, x2, y2, size);
+    }
+
+    /**
+     * Distance from a point to the nearest edge of the polygon
+     */
+    public double distanceTo(double px, double py) {
+        double minSq = Double.MAX_VALUE;
+        for (int i = 0; i < size; i++) {
+            minSq = Math.min(minSq, pointSegmentDistSq(px, py, x1[i], y1[i], x2[i] - x1[i], y2[i] - y1[i]));
+        }
+        return Math.sqrt(minSq);
+    }
+
+    /**
+     * Squared distance from point p to the segment starting at (sx, sy) with direction (ex, ey)
+     */
+    static double pointSegmentDistSq(double px, double py, double sx, double sy, double ex, double ey) {
+        double rx = px - sx;
+        double ry = py - sy;
+        double lenSq = ex * ex + ey * ey;
+        double t = lenSq == 0 ? 0 : Math.max(0, Math.min(1, (rx * ex + ry * ey) / lenSq));
+        double cx = rx - t * ex;
+        double cy = ry - t * ey;
+        return cx * cx + cy * cy;
+    }
+}
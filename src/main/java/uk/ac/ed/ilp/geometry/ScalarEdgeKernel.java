@@ -0,0 +1,57 @@
+package uk.ac.ed.ilp.geometry;
+
+/**
+ * Edge tests one edge at a time; also finishes the tail the vector kernel leaves
+ */
+final class ScalarEdgeKernel implements EdgeKernel {
+
+    static final ScalarEdgeKernel INSTANCE = new ScalarEdgeKernel();
+
+    private ScalarEdgeKernel() {
+    }
+
+    @Override
+    public boolean crossesAny(double ax, double ay, double bx, double by,
+                              double[] x1, double[] y1, double[] x2, double[] y2, int size) {
+        return crossesAny(ax, ay, bx, by, x1, y1, x2, y2, 0, size);
+    }
+
+    @Override
+    public boolean nearAny(double ax, double ay, double bx, double by, double bufferSq,
+                           double[] x1, double[] y1, double[] x2, double[] y2, int size) {
+        return nearAny(ax, ay, bx, by, bufferSq, x1, y1, x2, y2, 0, size);
+    }
+
+    @Override
+    public String name() {
+        return "scalar";
+    }
+
+    static boolean crossesAny(double ax, double ay, double bx, double by,
+                              double[] x1, double[] y1, double[] x2, double[] y2, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (PolygonEdges.properlyIntersect(ax, ay, bx, by, x1[i], y1[i], x2[i], y2[i])) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    static boolean nearAny(double ax, double ay, double bx, double by, double bufferSq,
+                           double[] x1, double[] y1, double[] x2, double[] y2, int from, int to) {
+        double dx = bx - ax;
+        double dy = by - ay;
+        for (int i = from; i < to; i++) {
+            double ex = x2[i] - x1[i];
+            double ey = y2[i] - y1[i];
+            // Non-crossing segments: closest approach is at one of the four endpoints
+            if (PolygonEdges.pointSegmentDistSq(ax, ay, x1[i], y1[i], ex, ey) < bufferSq
+                    || PolygonEdges.pointSegmentDistSq(bx, by, x1[i], y1[i], ex, ey) < bufferSq
+                    || PolygonEdges.pointSegmentDistSq(x1[i], y1[i], ax, ay, dx, dy) < bufferSq
+                    || PolygonEdges.pointSegmentDistSq(x2[i], y2[i], ax, ay, dx, dy) < bufferSq) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,118 @@
+package uk.ac.ed.ilp.geometry;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Edge tests on the JDK Vector API, one lane per edge
+ * Uses the same arithmetic, in the same order, as the scalar kernel, so results are
+ * bit-for-bit the same; the edges left over after the last full vector go through the
+ * scalar kernel. Only loaded by EdgeKernel once it has checked the module is present.
+ */
+final class VectorEdgeKernel implements EdgeKernel {
+
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+
+    static boolean isUseful() {
+        return SPECIES.length() >= 2;
+    }
+
+    @Override
+    public boolean crossesAny(double ax, double ay, double bx, double by,
+                              double[] x1, double[] y1, double[] x2, double[] y2, int size) {
+        double abx = bx - ax;
+        double aby = by - ay;
+        int bound = SPECIES.loopBound(size);
+        for (int i = 0; i < bound; i += SPECIES.length()) {
+            DoubleVector cx = DoubleVector.fromArray(SPECIES, x1, i);
+            DoubleVector cy = DoubleVector.fromArray(SPECIES, y1, i);
+            DoubleVector dx = DoubleVector.fromArray(SPECIES, x2, i);
+            DoubleVector dy = DoubleVector.fromArray(SPECIES, y2, i);
+            DoubleVector ex = dx.sub(cx);
+            DoubleVector ey = dy.sub(cy);
+
+            // Sides of a and b relative to each edge, then of each edge's ends relative to a-b
+            DoubleVector d1 = ex.mul(cy.neg().add(ay)).sub(ey.mul(cx.neg().add(ax)));
+            DoubleVector d2 = ex.mul(cy.neg().add(by)).sub(ey.mul(cx.neg().add(bx)));
+            DoubleVector d3 = cy.sub(ay).mul(abx).sub(cx.sub(ax).mul(aby));
+            DoubleVector d4 = dy.sub(ay).mul(abx).sub(dx.sub(ax).mul(aby));
+
+            VectorMask<Double> straddlesEdge = opposite(d1, d2);
+            if (straddlesEdge.anyTrue() && straddlesEdge.and(opposite(d3, d4)).anyTrue()) {
+                return true;
+            }
+        }
+        return ScalarEdgeKernel.crossesAny(ax, ay, bx, by, x1, y1, x2, y2, bound, size);
+    }
+
+    @Override
+    public boolean nearAny(double ax, double ay, double bx, double by, double bufferSq,
+                           double[] x1, double[] y1, double[] x2, double[] y2, int size) {
+        double abx = bx - ax;
+        double aby = by - ay;
+        double abLenSq = abx * abx + aby * aby;
+        int bound = SPECIES.loopBound(size);
+        for (int i = 0; i < bound; i += SPECIES.length()) {
+            DoubleVector sx = DoubleVector.fromArray(SPECIES, x1, i);
+            DoubleVector sy = DoubleVector.fromArray(SPECIES, y1, i);
+            DoubleVector tx = DoubleVector.fromArray(SPECIES, x2, i);
+            DoubleVector ty = DoubleVector.fromArray(SPECIES, y2, i);
+            DoubleVector ex = tx.sub(sx);
+            DoubleVector ey = ty.sub(sy);
+            DoubleVector lenSq = ex.mul(ex).add(ey.mul(ey));
+
+            VectorMask<Double> near = toEdge(ax, ay, sx, sy, ex, ey, lenSq).lt(bufferSq)
+                    .or(toEdge(bx, by, sx, sy, ex, ey, lenSq).lt(bufferSq))
+                    .or(toSegment(sx, sy, ax, ay, abx, aby, abLenSq).lt(bufferSq))
+                    .or(toSegment(tx, ty, ax, ay, abx, aby, abLenSq).lt(bufferSq));
+            if (near.anyTrue()) {
+                return true;
+            }
+        }
+        return ScalarEdgeKernel.nearAny(ax, ay, bx, by, bufferSq, x1, y1, x2, y2, bound, size);
+    }
+
+    @Override
+    public String name() {
+        return "vector(" + SPECIES.length() + " lanes)";
+    }
+
+    /**
+     * Lanes where the two values are non-zero with opposite signs
+     */
+    private static VectorMask<Double> opposite(DoubleVector p, DoubleVector q) {
+        return p.compare(VectorOperators.GT, 0).and(q.compare(VectorOperators.LT, 0))
+                .or(p.compare(VectorOperators.LT, 0).and(q.compare(VectorOperators.GT, 0)));
+    }
+
+    /**
+     * Squared distance from one point to each edge (start s, direction e)
+     */
+    private static DoubleVector toEdge(double px, double py, DoubleVector sx, DoubleVector sy,
+                                       DoubleVector ex, DoubleVector ey, DoubleVector lenSq) {
+        DoubleVector rx = sx.neg().add(px);
+        DoubleVector ry = sy.neg().add(py);
+        DoubleVector t = rx.mul(ex).add(ry.mul(ey)).div(lenSq).min(1).max(0)
+                .blend(0, lenSq.compare(VectorOperators.EQ, 0));
+        DoubleVector cx = rx.sub(t.mul(ex));
+        DoubleVector cy = ry.sub(t.mul(ey));
+        return cx.mul(cx).add(cy.mul(cy));
+    }
+
+    /**
+     * Squared distance from each point p to one segment (start s, direction e)
+     */
+    private static DoubleVector toSegment(DoubleVector px, DoubleVector py, double sx, double sy,
+                                          double ex, double ey, double lenSq) {
+        DoubleVector rx = px.sub(sx);
+        DoubleVector ry = py.sub(sy);
+        DoubleVector t = lenSq == 0
+                ? DoubleVector.zero(SPECIES)
+                : rx.mul(ex).add(ry.mul(ey)).div(lenSq).min(1).max(0);
+        DoubleVector cx = rx.sub(t.mul(ex));
+        DoubleVector cy = ry.sub(t.mul(ey));
+        return cx.mul(cx).add(cy.mul(cy));
+    }
+}
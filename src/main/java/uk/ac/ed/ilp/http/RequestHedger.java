@@ -0,0 +1,182 @@
+package uk.ac.ed.ilp.http;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hedged requests: if a call has not answered within the recent latency percentile for its
+ * resource, an identical second call is started and whichever succeeds first is used.
+ * The other one is cancelled (its thread is interrupted, which aborts the HTTP exchange).
+ *
+ * Hedges are paid for from a budget: every call earns budget-ratio of a token and a hedge
+ * costs one, so hedges stay below that fraction of all calls even during an upstream stall.
+ *
+ * Metrics per resource: ilp.client.requests, ilp.client.hedges and ilp.client.hedge.wins
+ * (hedge rate = hedges / requests, win rate = hedge.wins / hedges).
+ */
+@Component
+public class RequestHedger {
+
+    private static final int WINDOW_SIZE = 128; // Latency samples kept per resource
+    private static final int MIN_SAMPLES = 20; // Below this the initial delay is used
+    private static final long TOKEN = 1_000_000; // Budget is counted in millionths of a hedge
+    private static final long MAX_TOKENS = 10 * TOKEN; // At most 10 hedges saved up for a burst
+
+    private final MeterRegistry registry;
+    private final double percentile;
+    private final long earnPerCall;
+    private final Duration minDelay;
+    private final Duration initialDelay;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Map<String, LatencyWindow> latencies = new ConcurrentHashMap<>();
+    private final AtomicLong tokens = new AtomicLong();
+
+    public RequestHedger(MeterRegistry registry,
+                         @Value("${ilp.hedging.percentile:0.95}") double percentile,
+                         @Value("${ilp.hedging.budget:0.05}") double budget,
+                         @Value("${ilp.hedging.min-delay:PT0.05S}") Duration minDelay,
+                         @Value("${ilp.hedging.initial-delay:PT2S}") Duration initialDelay) {
+        this.registry = registry;
+        this.percentile = percentile;
+        this.earnPerCall = Math.round(Math.max(0, budget) * TOKEN);
+        this.minDelay = minDelay;
+        this.initialDelay = initialDelay;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Run the call, hedging it once if it is slower than usual and the budget allows
+     */
+    public <T> T call(String resource, Callable<T> call) {
+        LatencyWindow window = latencies.computeIfAbsent(resource, r -> new LatencyWindow());
+        counter("ilp.client.requests", resource).increment();
+        tokens.accumulateAndGet(earnPerCall, (current, earned) -> Math.min(MAX_TOKENS, current + earned));
+
+        CompletionService<T> completion = new ExecutorCompletionService<>(executor);
+        Future<T> primary = completion.submit(timed(call, window));
+        Future<T> hedge = null;
+        try {
+            Future<T> done = completion.poll(window.hedgeDelayNanos(), TimeUnit.NANOSECONDS);
+            if (done == null && takeToken()) {
+                counter("ilp.client.hedges", resource).increment();
+                hedge = completion.submit(timed(call, window));
+            }
+            if (done == null) {
+                done = completion.take();
+            }
+
+            try {
+                T result = done.get();
+                if (done == hedge) {
+                    counter("ilp.client.hedge.wins", resource).increment();
+                }
+                return result;
+            } catch (ExecutionException firstFailure) {
+                if (hedge == null) {
+                    throw unwrap(firstFailure);
+                }
+                // One of the two failed; the other may still succeed
+                try {
+                    Future<T> other = completion.take();
+                    T result = other.get();
+                    if (other == hedge) {
+                        counter("ilp.client.hedge.wins", resource).increment();
+                    }
+                    return result;
+                } catch (ExecutionException secondFailure) {
+                    throw unwrap(firstFailure);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ResourceAccessException("Interrupted while waiting for " + resource);
+        } finally {
+            primary.cancel(true);
+            if (hedge != null) {
+                hedge.cancel(true);
+            }
+        }
+    }
+
+    private boolean takeToken() {
+        long current;
+        do {
+            current = tokens.get();
+            if (current < TOKEN) {
+                return false;
+            }
+        } while (!tokens.compareAndSet(current, current - TOKEN));
+        return true;
+    }
+
+    private <T> Callable<T> timed(Callable<T> call, LatencyWindow window) {
+        return () -> {
+            long start = System.nanoTime();
+            T result = call.call();
+            window.record(System.nanoTime() - start);
+            return result;
+        };
+    }
+
+    private Counter counter(String name, String resource) {
+        return registry.counter(name, "resource", resource);
+    }
+
+    private static RuntimeException unwrap(ExecutionException e) {
+        Throwable cause = e.getCause();
+        if (cause instanceof RuntimeException runtime) {
+            return runtime;
+        }
+        if (cause instanceof Error error) {
+            throw error;
+        }
+        return new ResourceAccessException("ILP request failed: " + cause);
+    }
+
+    /**
+     * Ring buffer of recent successful latencies for one resource
+     */
+    private final class LatencyWindow {
+        private final long[] samples = new long[WINDOW_SIZE];
+        private int count;
+        private int next;
+
+        synchronized void record(long nanos) {
+            samples[next] = nanos;
+            next = (next + 1) % samples.length;
+            count = Math.min(count + 1, samples.length);
+        }
+
+        synchronized long hedgeDelayNanos() {
+            if (count < MIN_SAMPLES) {
+                return initialDelay.toNanos();
+            }
+            long[] sorted = Arrays.copyOf(samples, count);
+            Arrays.sort(sorted);
+            int index = (int) Math.min(count - 1, Math.ceil(percentile * count) - 1);
+            return Math.max(minDelay.toNanos(), sorted[Math.max(0, index)]);
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package uk.ac.ed.ilp.http;
+
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Retries idempotent requests that fail with an I/O error, 429 or a 5xx status
+ * Waits between attempts with exponential backoff and full jitter, so clients that
+ * failed together do not all retry at the same moment.
+ * Must be the last interceptor: each retry re-executes the underlying request directly.
+ */
+public final class RetryInterceptor implements ClientHttpRequestInterceptor {
+
+    private static final Duration MAX_BACKOFF = Duration.ofSeconds(2);
+
+    private final int maxRetries;
+    private final Duration baseBackoff;
+
+    public RetryInterceptor(int maxRetries, Duration baseBackoff) {
+        this.maxRetries = Math.max(0, maxRetries);
+        this.baseBackoff = baseBackoff;
+    }
+
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution)
+            throws IOException {
+        boolean idempotent = HttpMethod.GET.equals(request.getMethod()) || HttpMethod.HEAD.equals(request.getMethod());
+        for (int attempt = 0; ; attempt++) {
+            boolean lastAttempt = !idempotent || attempt >= maxRetries;
+            try {
+                ClientHttpResponse response = execute(request, body, execution);
+                if (lastAttempt || !isRetryable(response.getStatusCode())) {
+                    return response;
+                }
+                response.close();
+            } catch (IOException e) {
+                if (lastAttempt) {
+                    throw e;
+                }
+            }
+            sleep(backoff(attempt));
+        }
+    }
+
+    /**
+     * The JDK request factory reports a read timeout as a CancellationException;
+     * turn it back into an I/O error so it is retried and surfaces as ResourceAccessException
+     */
+    private static ClientHttpResponse execute(HttpRequest request, byte[] body, ClientHttpRequestExecution execution)
+            throws IOException {
+        try {
+            return execution.execute(request, body);
+        } catch (CancellationException e) {
+            HttpTimeoutException timeout = new HttpTimeoutException("Request to " + request.getURI() + " timed out");
+            timeout.initCause(e);
+            throw timeout;
+        }
+    }
+
+    private static boolean isRetryable(HttpStatusCode status) {
+        return status.is5xxServerError() || status.value() == 429;
+    }
+
+    /**
+     * Random delay between zero and base * 2^attempt, capped at MAX_BACKOFF
+     */
+    private long backoff(int attempt) {
+        long ceiling = Math.min(MAX_BACKOFF.toMillis(), baseBackoff.toMillis() << Math.min(attempt, 20));
+        return ceiling <= 0 ? 0 : ThreadLocalRandom.current().nextLong(ceiling + 1);
+    }
+
+    private static void sleep(long millis) throws InterruptedIOException {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting to retry");
+        }
+    }
+}
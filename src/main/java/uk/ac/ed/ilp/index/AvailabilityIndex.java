@@ -0,0 +1,288 @@
+package uk.ac.ed.ilp.index;
+
+import uk.ac.ed.ilp.model.DroneAvailability;
+import uk.ac.ed.ilp.model.DroneAvailabilityInfo;
+import uk.ac.ed.ilp.model.DroneForServicePoint;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Availability slots of every drone, compiled to sorted second-of-week intervals
+ * Built once per dronesForServicePoints dataset: slot strings are parsed once, overlapping
+ * and touching slots are merged, and a check is a binary search over primitive ints.
+ *
+ * Seconds rather than minutes because slot and dispatch times may carry seconds
+ * ("23:59:59") and both ends of a slot are inclusive.
+ * Merged intervals are disjoint, so both ends are sorted and range, containment and
+ * next-slot queries are also binary searches. The week does not wrap: Sunday 23:59:59 and
+ * Monday 00:00:00 stay in separate intervals.
+ * A drone listed at several service points uses the slots of its first listing.
+ */
+public final class AvailabilityIndex {
+
+    public static final int SECONDS_PER_DAY = 86_400;
+    public static final int SECONDS_PER_WEEK = 7 * SECONDS_PER_DAY;
+
+    private static final DateTimeFormatter WITH_SECONDS = DateTimeFormatter.ofPattern("HH:mm:ss");
+    private static final DateTimeFormatter WITHOUT_SECONDS = DateTimeFormatter.ofPattern("HH:mm");
+
+    public static final AvailabilityIndex EMPTY = new AvailabilityIndex(Map.of());
+
+    private final Map<String, Windows> windows;
+
+    private AvailabilityIndex(Map<String, Windows> windows) {
+        this.windows = windows;
+    }
+
+    /**
+     * Merged, sorted intervals [from[i], until[i]] (both inclusive) for one drone
+     */
+    private record Windows(int[] from, int[] until) {
+    }
+
+    public static AvailabilityIndex build(List<DroneForServicePoint> dronesForServicePoints) {
+        if (dronesForServicePoints == null) {
+            return EMPTY;
+        }
+        Builder builder = builder();
+        dronesForServicePoints.forEach(builder);
+        return builder.build();
+    }
+
+    /**
+     * Builder that takes the service points one at a time, e.g. as they are read from the ILP payload
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Compiles each drone's slots as its service point arrives; not reusable after build()
+     */
+    public static final class Builder implements Consumer<DroneForServicePoint> {
+
+        private final Map<String, Windows> windows = new HashMap<>();
+
+        private Builder() {
+        }
+
+        @Override
+        public void accept(DroneForServicePoint sp) {
+            if (sp == null || sp.getDrones() == null) {
+                return;
+            }
+            for (DroneAvailabilityInfo info : sp.getDrones()) {
+                if (info != null && info.getId() != null && !windows.containsKey(info.getId())) {
+                    windows.put(info.getId(), compile(info.getAvailability()));
+                }
+            }
+        }
+
+        public AvailabilityIndex build() {
+            return new AvailabilityIndex(windows);
+        }
+    }
+
+    /**
+     * A span of availability in seconds from Monday 00:00:00 of the queried week, both ends
+     * inclusive; values of SECONDS_PER_WEEK or more fall in the following week
+     */
+    public record Slot(int from, int until) {
+    }
+
+    /**
+     * True if the drone has a slot covering the given second of the week
+     */
+    public boolean isAvailable(String droneId, int secondOfWeek) {
+        Windows drone = droneId == null ? null : windows.get(droneId);
+        return drone != null && secondOfWeek >= 0 && containing(drone, secondOfWeek) >= 0;
+    }
+
+    /**
+     * True if one slot of the drone covers every second of [from, until]
+     * A range with from after until wraps from Sunday into Monday
+     */
+    public boolean isAvailableThroughout(String droneId, int from, int until) {
+        Windows drone = droneId == null ? null : windows.get(droneId);
+        if (drone == null || !inWeek(from) || !inWeek(until)) {
+            return false;
+        }
+        if (from > until) {
+            return isAvailableThroughout(droneId, from, SECONDS_PER_WEEK - 1) && isAvailableThroughout(droneId, 0, until);
+        }
+        int index = containing(drone, from);
+        return index >= 0 && until <= drone.until[index];
+    }
+
+    /**
+     * True if the drone is available at some second of [from, until]
+     * A range with from after until wraps from Sunday into Monday
+     */
+    public boolean isAvailableDuring(String droneId, int from, int until) {
+        Windows drone = droneId == null ? null : windows.get(droneId);
+        if (drone == null || !inWeek(from) || !inWeek(until)) {
+            return false;
+        }
+        if (from > until) {
+            return isAvailableDuring(droneId, from, SECONDS_PER_WEEK - 1) || isAvailableDuring(droneId, 0, until);
+        }
+        int index = firstEndingAtOrAfter(drone, from);
+        return index < drone.from.length && drone.from[index] <= until;
+    }
+
+    /**
+     * Earliest availability at or after the given second of the week: the rest of the current
+     * slot if the drone is available then, otherwise the next slot (possibly next week).
+     * Null if the drone has no slots.
+     */
+    public Slot nextAvailable(String droneId, int secondOfWeek) {
+        Windows drone = droneId == null ? null : windows.get(droneId);
+        if (drone == null || drone.from.length == 0 || !inWeek(secondOfWeek)) {
+            return null;
+        }
+        int index = firstEndingAtOrAfter(drone, secondOfWeek);
+        if (index < drone.from.length) {
+            return new Slot(Math.max(drone.from[index], secondOfWeek), drone.until[index]);
+        }
+        return new Slot(drone.from[0] + SECONDS_PER_WEEK, drone.until[0] + SECONDS_PER_WEEK);
+    }
+
+    /**
+     * Index of the interval covering second, or -1
+     */
+    private static int containing(Windows drone, int second) {
+        int index = Arrays.binarySearch(drone.from, second);
+        if (index >= 0) {
+            return index;
+        }
+        int before = -index - 2; // last interval starting before second
+        return before >= 0 && second <= drone.until[before] ? before : -1;
+    }
+
+    /**
+     * Index of the first interval that has not ended before second (length if none)
+     */
+    private static int firstEndingAtOrAfter(Windows drone, int second) {
+        int index = Arrays.binarySearch(drone.until, second);
+        return index >= 0 ? index : -index - 1;
+    }
+
+    private static boolean inWeek(int second) {
+        return second >= 0 && second < SECONDS_PER_WEEK;
+    }
+
+    /**
+     * True if the drone is available at the given ISO date and time ("14:30" or "14:30:00")
+     * False for a date or time that cannot be parsed
+     */
+    public boolean isAvailable(String droneId, String date, String time) {
+        return isAvailable(droneId, secondOfWeek(date, time));
+    }
+
+    /**
+     * Second of the week (Monday 00:00:00 = 0) for an ISO date and time, or -1 if either is invalid
+     */
+    public static int secondOfWeek(String date, String time) {
+        LocalDate localDate = parseDate(date);
+        LocalTime localTime = parseTime(time);
+        if (localDate == null || localTime == null) {
+            return -1;
+        }
+        return secondOfWeek(localDate.getDayOfWeek(), localTime);
+    }
+
+    public static int secondOfWeek(DayOfWeek day, LocalTime time) {
+        return (day.getValue() - 1) * SECONDS_PER_DAY + time.toSecondOfDay();
+    }
+
+    /**
+     * Parse an ISO date ("2025-01-06"); null if missing or invalid
+     */
+    public static LocalDate parseDate(String date) {
+        if (date == null) {
+            return null;
+        }
+        try {
+            return LocalDate.parse(date, DateTimeFormatter.ISO_LOCAL_DATE);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Parse "14:30" or "14:30:00"; null if blank or invalid
+     */
+    public static LocalTime parseTime(String time) {
+        if (time == null || time.trim().isEmpty()) {
+            return null;
+        }
+        try {
+            return LocalTime.parse(time, time.length() >= 8 ? WITH_SECONDS : WITHOUT_SECONDS);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    private static Windows compile(List<DroneAvailability> slots) {
+        List<int[]> intervals = new ArrayList<>();
+        if (slots != null) {
+            for (DroneAvailability slot : slots) {
+                int[] interval = interval(slot);
+                if (interval != null) {
+                    intervals.add(interval);
+                }
+            }
+        }
+        intervals.sort(Comparator.comparingInt(interval -> interval[0]));
+
+        int[] from = new int[intervals.size()];
+        int[] until = new int[intervals.size()];
+        int size = 0;
+        for (int[] interval : intervals) {
+            if (size > 0 && interval[0] <= until[size - 1] + 1) {
+                until[size - 1] = Math.max(until[size - 1], interval[1]);
+            } else {
+                from[size] = interval[0];
+                until[size] = interval[1];
+                size++;
+            }
+        }
+        return new Windows(Arrays.copyOf(from, size), Arrays.copyOf(until, size));
+    }
+
+    /**
+     * Slot as [from, until] seconds of the week, or null if it can never match
+     */
+    private static int[] interval(DroneAvailability slot) {
+        if (slot == null || slot.getDayOfWeek() == null) {
+            return null;
+        }
+        DayOfWeek day = dayOfWeek(slot.getDayOfWeek());
+        LocalTime from = parseTime(slot.getFrom());
+        LocalTime until = parseTime(slot.getUntil());
+        if (day == null || from == null || until == null || from.isAfter(until)) {
+            return null;
+        }
+        return new int[]{secondOfWeek(day, from), secondOfWeek(day, until)};
+    }
+
+    private static DayOfWeek dayOfWeek(String name) {
+        for (DayOfWeek day : DayOfWeek.values()) {
+            if (day.name().equalsIgnoreCase(name)) {
+                return day;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,88 @@
+package uk.ac.ed.ilp.index;
+
+import uk.ac.ed.ilp.model.LngLat;
+import uk.ac.ed.ilp.model.MedDispatchRec;
+import uk.ac.ed.ilp.model.MedDispatchRequirements;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Requirements of a batch of dispatches that one drone must serve together, compiled once
+ * The cooling/heating needs become one CapabilityColumns mask, capacities are summed, and
+ * dispatch times become seconds of the week for the AvailabilityIndex.
+ * maxCost is only checked up front for a single dispatch; for several it depends on the
+ * route and is checked after path calculation.
+ *
+ * @param requiredFlags   CapabilityColumns flags every dispatch needs
+ * @param totalCapacity   sum of all dispatch capacities
+ * @param secondsOfWeek   distinct dispatch times (-1 for a time that could not be parsed)
+ * @param maxCost         maxCost of a single dispatch, otherwise null
+ * @param delivery        delivery point of a single dispatch, otherwise null
+ */
+public record BatchRequirements(int requiredFlags,
+                                double totalCapacity,
+                                int[] secondsOfWeek,
+                                Double maxCost,
+                                LngLat delivery) {
+
+    /**
+     * Compiled requirements, or null if no drone can serve the batch: a dispatch without
+     * requirements, or one dispatch needing heating while another needs cooling
+     */
+    public static BatchRequirements compile(List<MedDispatchRec> dispatches) {
+        int flags = 0;
+        boolean anyHeating = false;
+        boolean anyCooling = false;
+        double totalCapacity = 0;
+        int[] seconds = new int[dispatches.size()];
+        int times = 0;
+        for (MedDispatchRec dispatch : dispatches) {
+            if (dispatch == null || dispatch.getRequirements() == null) {
+                return null;
+            }
+            MedDispatchRequirements requirements = dispatch.getRequirements();
+            if (Boolean.TRUE.equals(requirements.getCooling())) {
+                flags |= CapabilityColumns.COOLING;
+                anyCooling = true;
+            }
+            if (Boolean.TRUE.equals(requirements.getHeating())) {
+                flags |= CapabilityColumns.HEATING;
+                anyHeating = true;
+            }
+            if (requirements.getCapacity() != null) {
+                totalCapacity += requirements.getCapacity();
+            }
+            if (dispatch.getDate() != null && dispatch.getTime() != null) {
+                seconds[times++] = AvailabilityIndex.secondOfWeek(dispatch.getDate(), dispatch.getTime());
+            }
+        }
+
+        if (dispatches.size() > 1) {
+            // A drone cannot heat one delivery and cool another on the same flight
+            if (anyHeating && anyCooling) {
+                return null;
+            }
+            return new BatchRequirements(flags, totalCapacity, distinct(seconds, times), null, null);
+        }
+        MedDispatchRec single = dispatches.get(0);
+        return new BatchRequirements(flags, totalCapacity, distinct(seconds, times),
+                single.getRequirements().getMaxCost(), single.getDelivery());
+    }
+
+    private static int[] distinct(int[] values, int size) {
+        return Arrays.stream(values, 0, size).distinct().toArray();
+    }
+
+    /**
+     * True if the drone is available at every dispatch time of the batch
+     */
+    public boolean isAvailable(AvailabilityIndex availability, String droneId) {
+        for (int second : secondsOfWeek) {
+            if (!availability.isAvailable(droneId, second)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
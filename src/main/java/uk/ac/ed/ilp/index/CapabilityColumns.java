@@ -0,0 +1,192 @@
+package uk.ac.ed.ilp.index;
+
+import uk.ac.ed.ilp.model.Drone;
+import uk.ac.ed.ilp.model.DroneCapability;
+
+import java.util.BitSet;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Drone capabilities stored column by column, one row per drone
+ * Cooling, heating and "has a capability at all" are packed into one bitmask per drone and
+ * the numeric fields into primitive arrays, so checking a requirement against the whole
+ * fleet is one tight loop with no boxing or null checks.
+ *
+ * Rows keep the order of the drone list (duplicated ids included); drones that are null or
+ * have no id get no row. A missing numeric value is NaN (or -1 for maxMoves).
+ */
+public final class CapabilityColumns {
+
+    public static final int COOLING = 1;
+    public static final int HEATING = 1 << 1;
+    public static final int HAS_CAPABILITY = 1 << 2;
+
+    public static final CapabilityColumns EMPTY = build(List.of());
+
+    private final Drone[] drones;
+    private final String[] ids;
+    private final int[] flags;
+    private final double[] capacity;
+    private final int[] maxMoves;
+    private final double[] costPerMove;
+    private final double[] costInitial;
+    private final double[] costFinal;
+
+    private CapabilityColumns(int size) {
+        this.drones = new Drone[size];
+        this.ids = new String[size];
+        this.flags = new int[size];
+        this.capacity = new double[size];
+        this.maxMoves = new int[size];
+        this.costPerMove = new double[size];
+        this.costInitial = new double[size];
+        this.costFinal = new double[size];
+    }
+
+    public static CapabilityColumns build(List<Drone> drones) {
+        Builder builder = new Builder(drones == null ? 0 : drones.size());
+        if (drones != null) {
+            drones.forEach(builder);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Builder that takes the drones one at a time, e.g. as they are read from the ILP payload
+     */
+    public static Builder builder() {
+        return new Builder(16);
+    }
+
+    /**
+     * Fills the columns row by row, growing them as needed; not reusable after build()
+     */
+    public static final class Builder implements Consumer<Drone> {
+
+        private CapabilityColumns columns;
+        private int rows;
+
+        private Builder(int expected) {
+            this.columns = new CapabilityColumns(expected);
+        }
+
+        @Override
+        public void accept(Drone drone) {
+            if (drone == null || drone.getId() == null) {
+                return;
+            }
+            if (rows == columns.ids.length) {
+                columns = columns.resized(Math.max(16, rows * 2));
+            }
+            columns.fill(rows++, drone);
+        }
+
+        public CapabilityColumns build() {
+            return rows == columns.ids.length ? columns : columns.resized(rows);
+        }
+    }
+
+    private void fill(int row, Drone drone) {
+        DroneCapability capability = drone.getCapability();
+        drones[row] = drone;
+        ids[row] = drone.getId();
+        if (capability == null) {
+            capacity[row] = Double.NaN;
+            maxMoves[row] = -1;
+            costPerMove[row] = Double.NaN;
+            costInitial[row] = Double.NaN;
+            costFinal[row] = Double.NaN;
+            return;
+        }
+        flags[row] = HAS_CAPABILITY
+                | (Boolean.TRUE.equals(capability.getCooling()) ? COOLING : 0)
+                | (Boolean.TRUE.equals(capability.getHeating()) ? HEATING : 0);
+        capacity[row] = orNaN(capability.getCapacity());
+        maxMoves[row] = capability.getMaxMoves() == null ? -1 : capability.getMaxMoves();
+        costPerMove[row] = orNaN(capability.getCostPerMove());
+        costInitial[row] = orNaN(capability.getCostInitial());
+        costFinal[row] = orNaN(capability.getCostFinal());
+    }
+
+    private CapabilityColumns resized(int size) {
+        CapabilityColumns copy = new CapabilityColumns(size);
+        int rows = Math.min(size, ids.length);
+        System.arraycopy(drones, 0, copy.drones, 0, rows);
+        System.arraycopy(ids, 0, copy.ids, 0, rows);
+        System.arraycopy(flags, 0, copy.flags, 0, rows);
+        System.arraycopy(capacity, 0, copy.capacity, 0, rows);
+        System.arraycopy(maxMoves, 0, copy.maxMoves, 0, rows);
+        System.arraycopy(costPerMove, 0, copy.costPerMove, 0, rows);
+        System.arraycopy(costInitial, 0, copy.costInitial, 0, rows);
+        System.arraycopy(costFinal, 0, copy.costFinal, 0, rows);
+        return copy;
+    }
+
+    private static double orNaN(Double value) {
+        return value == null ? Double.NaN : value;
+    }
+
+    /**
+     * Rows that have a capability with every flag in requiredFlags and, if minCapacity is
+     * positive, at least that capacity
+     */
+    public BitSet matching(int requiredFlags, double minCapacity) {
+        int required = requiredFlags | HAS_CAPABILITY;
+        BitSet rows = new BitSet(size());
+        for (int row = 0; row < ids.length; row++) {
+            // NaN capacity fails the comparison, like a null capacity did
+            if ((flags[row] & required) == required && (minCapacity <= 0 || capacity[row] >= minCapacity)) {
+                rows.set(row);
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Cost of a delivery of the given number of moves; missing cost fields count as zero
+     */
+    public double estimatedCost(int row, int moves) {
+        return zeroIfNaN(costInitial[row]) + zeroIfNaN(costPerMove[row]) * moves + zeroIfNaN(costFinal[row]);
+    }
+
+    private static double zeroIfNaN(double value) {
+        return Double.isNaN(value) ? 0.0 : value;
+    }
+
+    public int size() {
+        return ids.length;
+    }
+
+    public Drone drone(int row) {
+        return drones[row];
+    }
+
+    public String id(int row) {
+        return ids[row];
+    }
+
+    public int flags(int row) {
+        return flags[row];
+    }
+
+    public double capacity(int row) {
+        return capacity[row];
+    }
+
+    public int maxMoves(int row) {
+        return maxMoves[row];
+    }
+
+    public double costPerMove(int row) {
+        return costPerMove[row];
+    }
+
+    public double costInitial(int row) {
+        return costInitial[row];
+    }
+
+    public double costFinal(int row) {
+        return costFinal[row];
+    }
+}
@@ -0,0 +1,46 @@
+package uk.ac.ed.ilp.index;
+
+import uk.ac.ed.ilp.model.Drone;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Drones by id
+ * A duplicated id resolves to the first drone with that id, like a scan would.
+ */
+public final class DroneIndex {
+
+    public static final DroneIndex EMPTY = new DroneIndex(Map.of());
+
+    private final Map<String, Drone> dronesById;
+
+    private DroneIndex(Map<String, Drone> dronesById) {
+        this.dronesById = dronesById;
+    }
+
+    public static DroneIndex build(List<Drone> drones) {
+        if (drones == null) {
+            return EMPTY;
+        }
+        Map<String, Drone> byId = new HashMap<>();
+        for (Drone drone : drones) {
+            if (drone != null && drone.getId() != null) {
+                byId.putIfAbsent(drone.getId(), drone);
+            }
+        }
+        return new DroneIndex(byId);
+    }
+
+    /**
+     * Drone with this id, or null
+     */
+    public Drone drone(String id) {
+        return id == null ? null : dronesById.get(id);
+    }
+
+    public int size() {
+        return dronesById.size();
+    }
+}
@@ -0,0 +1,159 @@
+package uk.ac.ed.ilp.index;
+
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The drone fleet as a table for attribute queries, one row per CapabilityColumns row
+ * Every numeric capability field, and the id read as a number, has a SortedColumn;
+ * cooling, heating and "has a capability" are bitmaps; id and name have hash indexes.
+ * A query condition therefore resolves to a BitSet of rows without visiting each drone.
+ */
+public final class DroneTable {
+
+    public static final DroneTable EMPTY = build(CapabilityColumns.EMPTY);
+
+    private final CapabilityColumns columns;
+    private final BitSet hasCapability;
+    private final BitSet cooling;
+    private final BitSet heating;
+    private final SortedColumn numericId;
+    private final SortedColumn capacity;
+    private final SortedColumn maxMoves;
+    private final SortedColumn costPerMove;
+    private final SortedColumn costInitial;
+    private final SortedColumn costFinal;
+    private final Map<String, BitSet> byId;
+    private final Map<String, BitSet> byName;
+
+    private DroneTable(CapabilityColumns columns) {
+        int size = columns.size();
+        this.columns = columns;
+        this.hasCapability = new BitSet(size);
+        this.cooling = new BitSet(size);
+        this.heating = new BitSet(size);
+        this.byId = new HashMap<>();
+        this.byName = new HashMap<>();
+
+        double[] ids = new double[size];
+        double[] capacities = new double[size];
+        double[] moves = new double[size];
+        double[] perMove = new double[size];
+        double[] initial = new double[size];
+        double[] last = new double[size];
+        for (int row = 0; row < size; row++) {
+            int flags = columns.flags(row);
+            hasCapability.set(row, (flags & CapabilityColumns.HAS_CAPABILITY) != 0);
+            cooling.set(row, (flags & CapabilityColumns.COOLING) != 0);
+            heating.set(row, (flags & CapabilityColumns.HEATING) != 0);
+
+            String id = columns.id(row);
+            byId.computeIfAbsent(id, key -> new BitSet(size)).set(row);
+            String name = columns.drone(row).getName();
+            if (name != null) {
+                byName.computeIfAbsent(name, key -> new BitSet(size)).set(row);
+            }
+
+            ids[row] = parseId(id);
+            capacities[row] = columns.capacity(row);
+            moves[row] = columns.maxMoves(row) < 0 ? Double.NaN : columns.maxMoves(row);
+            perMove[row] = columns.costPerMove(row);
+            initial[row] = columns.costInitial(row);
+            last[row] = columns.costFinal(row);
+        }
+        this.numericId = SortedColumn.build(ids);
+        this.capacity = SortedColumn.build(capacities);
+        this.maxMoves = SortedColumn.build(moves);
+        this.costPerMove = SortedColumn.build(perMove);
+        this.costInitial = SortedColumn.build(initial);
+        this.costFinal = SortedColumn.build(last);
+    }
+
+    public static DroneTable build(CapabilityColumns columns) {
+        return new DroneTable(columns);
+    }
+
+    /**
+     * Id as a number, NaN if it is not one
+     */
+    private static double parseId(String id) {
+        try {
+            return Double.parseDouble(id);
+        } catch (NumberFormatException e) {
+            return Double.NaN;
+        }
+    }
+
+    public CapabilityColumns columns() {
+        return columns;
+    }
+
+    public int size() {
+        return columns.size();
+    }
+
+    public String id(int row) {
+        return columns.id(row);
+    }
+
+    /**
+     * Rows whose id equals value (a copy the caller may modify)
+     */
+    public BitSet rowsWithId(String value) {
+        return copy(byId.get(value));
+    }
+
+    /**
+     * Rows whose name equals value (a copy the caller may modify)
+     */
+    public BitSet rowsWithName(String value) {
+        return copy(byName.get(value));
+    }
+
+    public BitSet allRows() {
+        BitSet rows = new BitSet(size());
+        rows.set(0, size());
+        return rows;
+    }
+
+    public BitSet hasCapability() {
+        return (BitSet) hasCapability.clone();
+    }
+
+    public BitSet cooling() {
+        return (BitSet) cooling.clone();
+    }
+
+    public BitSet heating() {
+        return (BitSet) heating.clone();
+    }
+
+    public SortedColumn numericId() {
+        return numericId;
+    }
+
+    public SortedColumn capacity() {
+        return capacity;
+    }
+
+    public SortedColumn maxMoves() {
+        return maxMoves;
+    }
+
+    public SortedColumn costPerMove() {
+        return costPerMove;
+    }
+
+    public SortedColumn costInitial() {
+        return costInitial;
+    }
+
+    public SortedColumn costFinal() {
+        return costFinal;
+    }
+
+    private BitSet copy(BitSet rows) {
+        return rows == null ? new BitSet() : (BitSet) rows.clone();
+    }
+}
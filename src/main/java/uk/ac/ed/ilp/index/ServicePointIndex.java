@@ -0,0 +1,81 @@
+package uk.ac.ed.ilp.index;
+
+import uk.ac.ed.ilp.model.DroneAvailabilityInfo;
+import uk.ac.ed.ilp.model.DroneForServicePoint;
+import uk.ac.ed.ilp.model.ServicePoint;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Hash lookups from drone id to its service point and from service point id to service point
+ * Replaces the nested scans over dronesForServicePoints and servicePoints.
+ * A drone listed at several service points belongs to its first listing, and a service
+ * point id that occurs twice resolves to its first occurrence, as the scans did.
+ */
+public final class ServicePointIndex {
+
+    public static final ServicePointIndex EMPTY = new ServicePointIndex(Map.of(), Map.of());
+
+    private final Map<Integer, ServicePoint> servicePointsById;
+    private final Map<String, ServicePoint> servicePointsByDrone; // null value: listed at an unknown service point
+
+    private ServicePointIndex(Map<Integer, ServicePoint> servicePointsById,
+                              Map<String, ServicePoint> servicePointsByDrone) {
+        this.servicePointsById = servicePointsById;
+        this.servicePointsByDrone = servicePointsByDrone;
+    }
+
+    public static ServicePointIndex build(List<ServicePoint> servicePoints,
+                                         List<DroneForServicePoint> dronesForServicePoints) {
+        Map<Integer, ServicePoint> byId = new HashMap<>();
+        if (servicePoints != null) {
+            for (ServicePoint servicePoint : servicePoints) {
+                if (servicePoint != null && servicePoint.getId() != null) {
+                    byId.putIfAbsent(servicePoint.getId(), servicePoint);
+                }
+            }
+        }
+
+        Map<String, ServicePoint> byDrone = new HashMap<>();
+        if (dronesForServicePoints != null) {
+            for (DroneForServicePoint sp : dronesForServicePoints) {
+                if (sp == null || sp.getDrones() == null) {
+                    continue;
+                }
+                ServicePoint servicePoint = sp.getServicePointId() == null ? null : byId.get(sp.getServicePointId());
+                for (DroneAvailabilityInfo info : sp.getDrones()) {
+                    if (info != null && info.getId() != null && !byDrone.containsKey(info.getId())) {
+                        byDrone.put(info.getId(), servicePoint);
+                    }
+                }
+            }
+        }
+        return new ServicePointIndex(byId, byDrone);
+    }
+
+    /**
+     * Service point the drone is based at, or null if it is not listed or its service point is unknown
+     */
+    public ServicePoint servicePointOf(String droneId) {
+        return droneId == null ? null : servicePointsByDrone.get(droneId);
+    }
+
+    public ServicePoint servicePoint(Integer id) {
+        return id == null ? null : servicePointsById.get(id);
+    }
+
+    /**
+     * True if the drone appears in dronesForServicePoints at all
+     */
+    public boolean isListed(String droneId) {
+        return droneId != null && servicePointsByDrone.containsKey(droneId);
+    }
+
+    public Set<String> listedDroneIds() {
+        return Collections.unmodifiableSet(servicePointsByDrone.keySet());
+    }
+}
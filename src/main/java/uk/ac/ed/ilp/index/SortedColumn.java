@@ -0,0 +1,176 @@
+package uk.ac.ed.ilp.index;
+
+import java.util.BitSet;
+import java.util.stream.IntStream;
+
+/**
+ * Secondary index over one numeric column: the rows sorted by value
+ * Rows whose value is missing (NaN) are left out, so they never match a comparison;
+ * neither does any row when the operand is NaN.
+ * Each comparison is two binary searches plus setting the bits of the matching run.
+ */
+public final class SortedColumn {
+
+    private final double[] values;
+    private final int[] rows;
+    private final double[] byRow;
+
+    private SortedColumn(double[] values, int[] rows, double[] byRow) {
+        this.values = values;
+        this.rows = rows;
+        this.byRow = byRow;
+    }
+
+    /**
+     * Index over column, where column[row] is the value of that row
+     */
+    public static SortedColumn build(double[] column) {
+        int[] rows = IntStream.range(0, column.length)
+                .filter(row -> !Double.isNaN(column[row]))
+                .boxed()
+                .sorted((a, b) -> Double.compare(column[a], column[b]))
+                .mapToInt(Integer::intValue)
+                .toArray();
+        double[] values = new double[rows.length];
+        for (int i = 0; i < rows.length; i++) {
+            values[i] = column[rows[i]];
+        }
+        return new SortedColumn(values, rows, column.clone());
+    }
+
+    /**
+     * Rows with a value
+     */
+    public BitSet present() {
+        return rows(0, values.length);
+    }
+
+    public BitSet lessThan(double operand) {
+        if (Double.isNaN(operand)) {
+            return new BitSet();
+        }
+        return rows(0, firstAtLeast(operand));
+    }
+
+    public BitSet greaterThan(double operand) {
+        if (Double.isNaN(operand)) {
+            return new BitSet();
+        }
+        return rows(firstAbove(operand), values.length);
+    }
+
+    public BitSet atMost(double operand) {
+        if (Double.isNaN(operand)) {
+            return new BitSet();
+        }
+        return rows(0, firstAbove(operand));
+    }
+
+    public BitSet atLeast(double operand) {
+        if (Double.isNaN(operand)) {
+            return new BitSet();
+        }
+        return rows(firstAtLeast(operand), values.length);
+    }
+
+    /**
+     * Rows with low <= value <= high
+     */
+    public BitSet between(double low, double high) {
+        if (Double.isNaN(low) || Double.isNaN(high)) {
+            return new BitSet();
+        }
+        int from = firstAtLeast(low);
+        return rows(from, Math.max(from, firstAbove(high)));
+    }
+
+    /**
+     * Rows whose value is within tolerance of operand: |value - operand| < tolerance
+     */
+    public BitSet within(double operand, double tolerance) {
+        if (Double.isNaN(operand)) {
+            return new BitSet();
+        }
+        // value - operand is monotonic in value, so the matches are one contiguous run
+        int from = firstWhereDifferenceAbove(operand, -tolerance, false);
+        int to = firstWhereDifferenceAbove(operand, tolerance, true);
+        return rows(from, Math.max(from, to));
+    }
+
+    /**
+     * Rows whose value is not within tolerance of operand
+     */
+    public BitSet notWithin(double operand, double tolerance) {
+        if (Double.isNaN(operand)) {
+            return new BitSet();
+        }
+        BitSet rows = present();
+        rows.andNot(within(operand, tolerance));
+        return rows;
+    }
+
+    private BitSet rows(int from, int to) {
+        BitSet matching = new BitSet(byRow.length);
+        for (int i = from; i < to; i++) {
+            matching.set(rows[i]);
+        }
+        return matching;
+    }
+
+    private int firstAtLeast(double operand) {
+        int low = 0;
+        int high = values.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (values[mid] < operand) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private int firstAbove(double operand) {
+        int low = 0;
+        int high = values.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (values[mid] <= operand) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * First index where value - operand is above bound (or reaches it, if inclusive)
+     */
+    private int firstWhereDifferenceAbove(double operand, double bound, boolean inclusive) {
+        int low = 0;
+        int high = values.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            double difference = values[mid] - operand;
+            if (inclusive ? difference < bound : difference <= bound) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Value of a row, NaN if it has none
+     */
+    public double valueOf(int row) {
+        return byRow[row];
+    }
+
+    public int size() {
+        return values.length;
+    }
+}
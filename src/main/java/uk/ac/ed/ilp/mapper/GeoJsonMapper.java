@@ -0,0 +1,114 @@
+package uk.ac.ed.ilp.mapper;
+
+import uk.ac.ed.ilp.model.GeoJsonFeature;
+import uk.ac.ed.ilp.model.GeoJsonGeometry;
+import uk.ac.ed.ilp.model.GeoJsonProperties;
+import uk.ac.ed.ilp.model.LngLat;
+import uk.ac.ed.ilp.model.LngLatAlt;
+import uk.ac.ed.ilp.model.RestrictedArea;
+import uk.ac.ed.ilp.model.ServicePoint;
+import uk.ac.ed.ilp.snapshot.SnapshotScoped;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * GeoJSON features for the parts of the world that do not depend on a request
+ * Restricted areas and service points are drawn on every delivery-path map, so they are
+ * built once per pair of datasets and shared by all responses.
+ */
+public final class GeoJsonMapper {
+
+    private static final SnapshotScoped<SnapshotScoped.Sources<List<RestrictedArea>, List<ServicePoint>>, List<GeoJsonFeature>>
+            STATIC_FEATURES = new SnapshotScoped<>(sources -> buildStaticFeatures(sources.first(), sources.second()));
+
+    private GeoJsonMapper() {
+    }
+
+    /**
+     * Restricted areas as Polygons followed by service points as Points (read-only)
+     * Cached per pair of dataset instances
+     */
+    public static List<GeoJsonFeature> staticFeatures(List<RestrictedArea> restrictedAreas,
+                                                      List<ServicePoint> servicePoints) {
+        return STATIC_FEATURES.get(new SnapshotScoped.Sources<>(restrictedAreas, servicePoints));
+    }
+
+    private static List<GeoJsonFeature> buildStaticFeatures(List<RestrictedArea> restrictedAreas,
+                                                            List<ServicePoint> servicePoints) {
+        List<GeoJsonFeature> features = new ArrayList<>();
+
+        // Add restricted areas as Polygon features (for visualization)
+        if (restrictedAreas != null && !restrictedAreas.isEmpty()) {
+            for (RestrictedArea area : restrictedAreas) {
+                if (area != null && area.getVertices() != null && area.getVertices().size() >= 3) {
+                    // Create polygon coordinates (close the ring by repeating first point)
+                    List<List<Double>> polygonCoordinates = new ArrayList<>();
+                    for (LngLat vertex : area.getVertices()) {
+                        if (vertex != null && vertex.isValid()) {
+                            polygonCoordinates.add(List.of(vertex.getLng(), vertex.getLat()));
+                        }
+                    }
+                    // Only add closing point if polygon isn't already closed
+                    if (!polygonCoordinates.isEmpty()) {
+                        List<Double> first = polygonCoordinates.get(0);
+                        List<Double> last = polygonCoordinates.get(polygonCoordinates.size() - 1);
+                        // Check if already closed (first == last)
+                        if (first.size() == 2 && last.size() == 2) {
+                            if (!first.get(0).equals(last.get(0)) || !first.get(1).equals(last.get(1))) {
+                                // Not closed, add first point at end
+                                polygonCoordinates.add(new ArrayList<>(first));
+                            }
+                        } else {
+                            // Add first point at end to close
+                            polygonCoordinates.add(new ArrayList<>(first));
+                        }
+                    }
+
+                    // Create Polygon geometry (GeoJSON Polygon format: [[[lng, lat], ...]])
+                    List<List<List<Double>>> polygonCoords = List.of(polygonCoordinates);
+                    GeoJsonGeometry geometry = new GeoJsonGeometry("Polygon", polygonCoords);
+
+                    // Create properties for restricted area
+                    GeoJsonProperties properties = new GeoJsonProperties();
+                    String areaName = area.getName() != null ? area.getName() : "Restricted Area (No-Fly Zone)";
+                    properties.setName(areaName);
+
+                    features.add(new GeoJsonFeature("Feature", geometry, properties));
+                }
+            }
+        }
+
+        // Add service points as Point features (for visualization)
+        if (servicePoints != null && !servicePoints.isEmpty()) {
+            for (ServicePoint servicePoint : servicePoints) {
+                if (servicePoint != null && servicePoint.getLocation() != null) {
+                    LngLatAlt location = servicePoint.getLocation();
+                    if (location.getLng() != null && location.getLat() != null) {
+                        // Create Point geometry (GeoJSON Point format: [lng, lat])
+                        List<Double> pointCoordinates = List.of(location.getLng(), location.getLat());
+                        GeoJsonGeometry geometry = new GeoJsonGeometry("Point", pointCoordinates);
+
+                        // Create properties for service point with distinct styling
+                        GeoJsonProperties properties = new GeoJsonProperties();
+                        String pointName = servicePoint.getName() != null ? servicePoint.getName() : "Service Point";
+                        if (servicePoint.getId() != null) {
+                            properties.setName(pointName + " (ID: " + servicePoint.getId() + ")");
+                        } else {
+                            properties.setName(pointName);
+                        }
+                        // Style service points as blue circles (large)
+                        properties.setType("servicePoint");
+                        properties.setMarkerColor("#0066FF"); // Blue
+                        properties.setMarkerSize("large");
+                        properties.setMarkerSymbol("circle");
+
+                        features.add(new GeoJsonFeature("Feature", geometry, properties));
+                    }
+                }
+            }
+        }
+
+        return List.copyOf(features);
+    }
+}
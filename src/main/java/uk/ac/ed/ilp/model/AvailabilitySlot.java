@@ -0,0 +1,20 @@
+package uk.ac.ed.ilp.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Response structure for nextAvailableSlot endpoint
+ * start and end are ISO local date-times, both inclusive
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class AvailabilitySlot {
+    private String droneId;
+    private String start;
+    private String end;
+}
@@ -0,0 +1,20 @@
+package uk.ac.ed.ilp.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Response structure for the explainAvailability debug endpoint
+ * reason and message are null if the drone can take the dispatches
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class DroneRejection {
+    private String droneId;
+    private RejectionReason reason;
+    private String message;
+}
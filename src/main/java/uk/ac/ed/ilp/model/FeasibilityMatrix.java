@@ -0,0 +1,23 @@
+package uk.ac.ed.ilp.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+/**
+ * Response structure for queryAvailableDronesMatrix endpoint
+ * rows[i] has one character per entry of droneIds: '1' if that drone can take
+ * dispatch dispatchIds[i] on its own (capability, availability, estimated maxCost), else '0'
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class FeasibilityMatrix {
+    private List<Integer> dispatchIds;
+    private List<String> droneIds;
+    private List<String> rows;
+}
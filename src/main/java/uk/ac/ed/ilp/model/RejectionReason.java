@@ -0,0 +1,24 @@
+package uk.ac.ed.ilp.model;
+
+/**
+ * Why a drone cannot take a batch of dispatches
+ * Returned by the availability checks instead of a message so the planner does no string work
+ */
+public enum RejectionReason {
+    /** Drone or its capability is missing */
+    NO_CAPABILITY,
+    /** Summed capacity of the batch exceeds the drone's capacity */
+    CAPACITY,
+    /** One dispatch needs heating and another needs cooling */
+    HEATING_AND_COOLING,
+    /** A dispatch has no requirements */
+    NO_REQUIREMENTS,
+    /** A dispatch needs cooling the drone does not have */
+    COOLING,
+    /** A dispatch needs heating the drone does not have */
+    HEATING,
+    /** Estimated cost of a single dispatch exceeds its maxCost */
+    MAX_COST,
+    /** Drone is not available at a dispatch's date and time */
+    NOT_AVAILABLE
+}
@@ -0,0 +1,24 @@
+package uk.ac.ed.ilp.model.requests;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Request body for queryAvailabilityWindow
+ * The window from-until applies on each of the given number of days starting at date
+ * (days defaults to 1). With overlap, a drone only needs to be free at some point of each
+ * day's window rather than for all of it.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+@Getter
+@Setter
+@NoArgsConstructor
+public class AvailabilityWindowRequest {
+    private String date;
+    private String from;
+    private String until;
+    private Integer days;
+    private Boolean overlap;
+}
@@ -0,0 +1,25 @@
+package uk.ac.ed.ilp.model.requests;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Request body for POST /api/v1/queryRanked
+ * Drones matching all conditions (every drone if there are none), ordered by a numeric
+ * attribute and cut to limit, e.g. the 5 cheapest cooling drones with capacity > 4:
+ * conditions cooling = true and capacity > 4, orderBy costPerMove, limit 5
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+@Getter
+@Setter
+@NoArgsConstructor
+public class DroneQuery {
+    private List<QueryCondition> conditions;
+    private String orderBy; // Numeric attribute or id; fleet order if missing
+    private Boolean descending;
+    private Integer limit; // All matching drones if missing
+}
@@ -5,8 +5,13 @@ import lombok.Getter;
 import lombok.Setter;
 import lombok.NoArgsConstructor;
 
+import java.util.List;
+
 /**
  * Query condition for POST /api/v1/query endpoint
+ * Beyond attribute/operator/value, a condition may list alternatives in anyOf (OR), be
+ * negated with not, or use the operators "in" (value in values) and "between"
+ * (values[0] <= attribute <= values[1]).
  */
 @JsonIgnoreProperties(ignoreUnknown = true)
 @Getter
@@ -16,5 +21,7 @@ public class QueryCondition {
     private String attribute; // "capacity", "cooling" etc.
     private String operator; 
     private String value; 
+    private List<String> values; // Operands of "in" and "between"
+    private List<QueryCondition> anyOf; // Matches if any of these matches; replaces attribute/operator/value
+    private Boolean not; // Matches if the rest of the condition does not
 }
-
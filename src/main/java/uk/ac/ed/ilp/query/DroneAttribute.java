@@ -0,0 +1,143 @@
+package uk.ac.ed.ilp.query;
+
+import uk.ac.ed.ilp.index.DroneTable;
+import uk.ac.ed.ilp.index.SortedColumn;
+import uk.ac.ed.ilp.model.Drone;
+import uk.ac.ed.ilp.model.DroneCapability;
+
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Drone attributes that can be queried, resolved from their name once per query
+ * Numeric attributes read as NaN when the drone has no capability or the value is missing.
+ */
+public enum DroneAttribute {
+    ID("id", Kind.TEXT, null),
+    NAME("name", Kind.TEXT, null),
+    COOLING("cooling", Kind.FLAG, DroneCapability::getCooling),
+    HEATING("heating", Kind.FLAG, DroneCapability::getHeating),
+    CAPACITY("capacity", Kind.DECIMAL, DroneCapability::getCapacity),
+    MAX_MOVES("maxMoves", Kind.INTEGER, DroneCapability::getMaxMoves),
+    COST_PER_MOVE("costPerMove", Kind.DECIMAL, DroneCapability::getCostPerMove),
+    COST_INITIAL("costInitial", Kind.DECIMAL, DroneCapability::getCostInitial),
+    COST_FINAL("costFinal", Kind.DECIMAL, DroneCapability::getCostFinal);
+
+    public enum Kind { TEXT, FLAG, DECIMAL, INTEGER }
+
+    private static final Map<String, DroneAttribute> BY_NAME = new HashMap<>();
+
+    static {
+        for (DroneAttribute attribute : values()) {
+            BY_NAME.put(attribute.fieldName.toLowerCase(Locale.ROOT), attribute);
+        }
+    }
+
+    private final String fieldName;
+    private final Kind kind;
+    private final Function<DroneCapability, Object> getter;
+
+    DroneAttribute(String fieldName, Kind kind, Function<DroneCapability, Object> getter) {
+        this.fieldName = fieldName;
+        this.kind = kind;
+        this.getter = getter;
+    }
+
+    /**
+     * Attribute with the given name, ignoring case; null if unknown
+     */
+    public static DroneAttribute of(String name) {
+        return name == null ? null : BY_NAME.get(name.toLowerCase(Locale.ROOT));
+    }
+
+    public String fieldName() {
+        return fieldName;
+    }
+
+    public Kind kind() {
+        return kind;
+    }
+
+    public boolean isNumeric() {
+        return kind == Kind.DECIMAL || kind == Kind.INTEGER;
+    }
+
+    /**
+     * True if drones can be ordered by this attribute (numeric ones, and id read as a number)
+     */
+    public boolean isSortable() {
+        return isNumeric() || this == ID;
+    }
+
+    /**
+     * Text value of ID or NAME
+     */
+    public String text(Drone drone) {
+        return this == ID ? drone.getId() : this == NAME ? drone.getName() : null;
+    }
+
+    /**
+     * Flag value of COOLING or HEATING; a missing flag is false
+     */
+    public boolean flag(DroneCapability capability) {
+        return Boolean.TRUE.equals(getter.apply(capability));
+    }
+
+    /**
+     * Numeric value of a capability attribute, or of the id read as a number; NaN if missing
+     */
+    public double numeric(Drone drone) {
+        if (this == ID) {
+            try {
+                return Double.parseDouble(drone.getId());
+            } catch (NumberFormatException | NullPointerException e) {
+                return Double.NaN;
+            }
+        }
+        DroneCapability capability = drone.getCapability();
+        if (capability == null || getter == null) {
+            return Double.NaN;
+        }
+        Object value = getter.apply(capability);
+        return value instanceof Number number ? number.doubleValue() : Double.NaN;
+    }
+
+    /**
+     * Sorted index of this attribute in the table; for ID, the id read as a number
+     */
+    public SortedColumn column(DroneTable table) {
+        switch (this) {
+            case ID:
+                return table.numericId();
+            case CAPACITY:
+                return table.capacity();
+            case MAX_MOVES:
+                return table.maxMoves();
+            case COST_PER_MOVE:
+                return table.costPerMove();
+            case COST_INITIAL:
+                return table.costInitial();
+            case COST_FINAL:
+                return table.costFinal();
+            default:
+                throw new IllegalArgumentException(fieldName + " has no sorted column");
+        }
+    }
+
+    /**
+     * Rows of the table where this flag is set
+     */
+    public BitSet flagRows(DroneTable table) {
+        switch (this) {
+            case COOLING:
+                return table.cooling();
+            case HEATING:
+                return table.heating();
+            default:
+                throw new IllegalArgumentException(fieldName + " is not a flag");
+        }
+    }
+}
@@ -0,0 +1,271 @@
+package uk.ac.ed.ilp.query;
+
+import uk.ac.ed.ilp.index.DroneTable;
+import uk.ac.ed.ilp.index.SortedColumn;
+import uk.ac.ed.ilp.model.Drone;
+
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Compiled form of query conditions: attribute and operand already resolved, so testing a
+ * drone does no parsing or name lookups. Each predicate can also be answered for a whole
+ * DroneTable at once from its indexes.
+ */
+public sealed interface DronePredicate {
+
+    boolean test(Drone drone);
+
+    /**
+     * Rows of the table matching this predicate
+     */
+    BitSet rows(DroneTable table);
+
+    /**
+     * Evaluation order within a conjunction: cheap and selective predicates first
+     */
+    int rank();
+
+    /**
+     * Matches no drone (unknown attribute or operator, or an operand that does not parse)
+     */
+    record Never() implements DronePredicate {
+        @Override
+        public boolean test(Drone drone) {
+            return false;
+        }
+
+        @Override
+        public BitSet rows(DroneTable table) {
+            return new BitSet();
+        }
+
+        @Override
+        public int rank() {
+            return 0;
+        }
+    }
+
+    /**
+     * id or name equal to a string
+     */
+    record TextEquals(DroneAttribute attribute, String value) implements DronePredicate {
+        @Override
+        public boolean test(Drone drone) {
+            return value.equals(attribute.text(drone));
+        }
+
+        @Override
+        public BitSet rows(DroneTable table) {
+            return attribute == DroneAttribute.ID ? table.rowsWithId(value) : table.rowsWithName(value);
+        }
+
+        @Override
+        public int rank() {
+            return 1;
+        }
+    }
+
+    /**
+     * Capability attribute compared with a number; missing values never match
+     */
+    record Compare(DroneAttribute attribute, QueryOperator operator, double operand) implements DronePredicate {
+        @Override
+        public boolean test(Drone drone) {
+            return operator.compare(attribute.numeric(drone), operand);
+        }
+
+        @Override
+        public BitSet rows(DroneTable table) {
+            return compare(attribute.column(table), operator, operand);
+        }
+
+        @Override
+        public int rank() {
+            switch (operator) {
+                case EQ:
+                    return 2;
+                case NE:
+                    return 5;
+                default:
+                    return 4;
+            }
+        }
+    }
+
+    /**
+     * Cooling or heating flag equal to a value; drones without a capability never match
+     */
+    record FlagIs(DroneAttribute attribute, boolean expected) implements DronePredicate {
+        @Override
+        public boolean test(Drone drone) {
+            return drone.getCapability() != null && attribute.flag(drone.getCapability()) == expected;
+        }
+
+        @Override
+        public BitSet rows(DroneTable table) {
+            if (expected) {
+                return attribute.flagRows(table);
+            }
+            BitSet rows = table.hasCapability();
+            rows.andNot(attribute.flagRows(table));
+            return rows;
+        }
+
+        @Override
+        public int rank() {
+            return 3;
+        }
+    }
+
+    /**
+     * id compared as a number; ids that are not numbers never match
+     */
+    record NumericId(QueryOperator operator, double operand) implements DronePredicate {
+        @Override
+        public boolean test(Drone drone) {
+            return operator.compare(DroneAttribute.ID.numeric(drone), operand);
+        }
+
+        @Override
+        public BitSet rows(DroneTable table) {
+            return compare(table.numericId(), operator, operand);
+        }
+
+        @Override
+        public int rank() {
+            return 6;
+        }
+    }
+
+    /**
+     * All predicates match, tested in the given order
+     */
+    record All(List<DronePredicate> predicates) implements DronePredicate {
+        @Override
+        public boolean test(Drone drone) {
+            for (DronePredicate predicate : predicates) {
+                if (!predicate.test(drone)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public BitSet rows(DroneTable table) {
+            BitSet rows = null;
+            for (DronePredicate predicate : predicates) {
+                if (rows == null) {
+                    rows = predicate.rows(table);
+                } else {
+                    rows.and(predicate.rows(table));
+                }
+                if (rows.isEmpty()) {
+                    break;
+                }
+            }
+            // No conditions: every drone matches
+            return rows == null ? table.allRows() : rows;
+        }
+
+        @Override
+        public int rank() {
+            return predicates.stream().mapToInt(DronePredicate::rank).max().orElse(0);
+        }
+    }
+
+    /**
+     * Any of the predicates matches
+     */
+    record Any(List<DronePredicate> predicates) implements DronePredicate {
+        @Override
+        public boolean test(Drone drone) {
+            for (DronePredicate predicate : predicates) {
+                if (predicate.test(drone)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public BitSet rows(DroneTable table) {
+            BitSet rows = new BitSet(table.size());
+            for (DronePredicate predicate : predicates) {
+                rows.or(predicate.rows(table));
+            }
+            return rows;
+        }
+
+        @Override
+        public int rank() {
+            return predicates.stream().mapToInt(DronePredicate::rank).max().orElse(0);
+        }
+    }
+
+    /**
+     * The predicate does not match; this includes drones where its attribute is missing
+     */
+    record Not(DronePredicate predicate) implements DronePredicate {
+        @Override
+        public boolean test(Drone drone) {
+            return !predicate.test(drone);
+        }
+
+        @Override
+        public BitSet rows(DroneTable table) {
+            BitSet rows = table.allRows();
+            rows.andNot(predicate.rows(table));
+            return rows;
+        }
+
+        @Override
+        public int rank() {
+            return Math.max(5, predicate.rank());
+        }
+    }
+
+    /**
+     * Numeric attribute (or id read as a number) within [low, high]; missing values never match
+     */
+    record Range(DroneAttribute attribute, double low, double high) implements DronePredicate {
+        @Override
+        public boolean test(Drone drone) {
+            double value = attribute.numeric(drone);
+            return value >= low && value <= high;
+        }
+
+        @Override
+        public BitSet rows(DroneTable table) {
+            return attribute.column(table).between(low, high);
+        }
+
+        @Override
+        public int rank() {
+            return 3;
+        }
+    }
+
+    /**
+     * Rows of a sorted column satisfying a comparison with operand
+     */
+    static BitSet compare(SortedColumn column, QueryOperator operator, double operand) {
+        switch (operator) {
+            case EQ:
+                return column.within(operand, QueryOperator.TOLERANCE);
+            case NE:
+                return column.notWithin(operand, QueryOperator.TOLERANCE);
+            case LT:
+                return column.lessThan(operand);
+            case GT:
+                return column.greaterThan(operand);
+            case LE:
+                return column.atMost(operand);
+            case GE:
+                return column.atLeast(operand);
+            default:
+                return new BitSet();
+        }
+    }
+}
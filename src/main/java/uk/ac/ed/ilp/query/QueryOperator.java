@@ -0,0 +1,60 @@
+package uk.ac.ed.ilp.query;
+
+/**
+ * Comparison operators of QueryCondition
+ */
+public enum QueryOperator {
+    EQ("="),
+    NE("!="),
+    LT("<"),
+    GT(">"),
+    LE("<="),
+    GE(">=");
+
+    // Numeric values closer than this are equal
+    public static final double TOLERANCE = 0.0001;
+
+    private final String symbol;
+
+    QueryOperator(String symbol) {
+        this.symbol = symbol;
+    }
+
+    /**
+     * Operator with the given symbol; null if unknown
+     */
+    public static QueryOperator of(String symbol) {
+        for (QueryOperator operator : values()) {
+            if (operator.symbol.equals(symbol)) {
+                return operator;
+            }
+        }
+        return null;
+    }
+
+    public String symbol() {
+        return symbol;
+    }
+
+    /**
+     * Numeric comparison; false whenever actual is NaN
+     */
+    public boolean compare(double actual, double expected) {
+        switch (this) {
+            case EQ:
+                return Math.abs(actual - expected) < TOLERANCE;
+            case NE:
+                return Math.abs(actual - expected) >= TOLERANCE;
+            case LT:
+                return actual < expected;
+            case GT:
+                return actual > expected;
+            case LE:
+                return actual <= expected;
+            case GE:
+                return actual >= expected;
+            default:
+                return false;
+        }
+    }
+}
@@ -0,0 +1,267 @@
+package uk.ac.ed.ilp.query;
+
+import uk.ac.ed.ilp.index.DroneTable;
+import uk.ac.ed.ilp.index.SortedColumn;
+import uk.ac.ed.ilp.model.Drone;
+import uk.ac.ed.ilp.model.requests.QueryCondition;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Query conditions compiled once into a DronePredicate, then run over the fleet
+ * Conditions are joined by AND, deduplicated and reordered so that cheap, selective tests
+ * run first; a condition that can never match makes the whole plan match nothing.
+ * Plans are records all the way down, so two equivalent condition lists give equal
+ * predicates, which QueryResultCache uses as its key.
+ *
+ * Operator support per attribute type:
+ * id: = as a string, != < > <= >= as numbers; name: = only; cooling/heating: = and !=;
+ * numeric capability attributes: = != < > <= >=. Any attribute supports "in" (a list of =),
+ * numeric ones and id "between"; conditions can be combined with anyOf and negated with not.
+ */
+public final class QueryPlan {
+
+    private final DronePredicate predicate;
+
+    private QueryPlan(DronePredicate predicate) {
+        this.predicate = predicate;
+    }
+
+    /**
+     * Plan matching drones that satisfy every condition
+     */
+    public static QueryPlan compile(List<QueryCondition> conditions) {
+        return new QueryPlan(all(conditions));
+    }
+
+    private static DronePredicate all(List<QueryCondition> conditions) {
+        List<DronePredicate> conjuncts = new ArrayList<>();
+        for (QueryCondition condition : conditions) {
+            DronePredicate compiled = compile(condition);
+            if (compiled instanceof DronePredicate.Never) {
+                return compiled;
+            }
+            conjuncts.add(compiled);
+        }
+        List<DronePredicate> ordered = canonical(conjuncts);
+        return ordered.size() == 1 ? ordered.get(0) : new DronePredicate.All(ordered);
+    }
+
+    private static DronePredicate any(List<DronePredicate> alternatives) {
+        // An alternative that can never match adds nothing to the OR
+        List<DronePredicate> possible = alternatives.stream()
+                .filter(alternative -> !(alternative instanceof DronePredicate.Never))
+                .toList();
+        if (possible.isEmpty()) {
+            return new DronePredicate.Never();
+        }
+        List<DronePredicate> ordered = canonical(possible);
+        return ordered.size() == 1 ? ordered.get(0) : new DronePredicate.Any(ordered);
+    }
+
+    /**
+     * Distinct predicates by rank, then by text, so equivalent condition lists give equal plans
+     */
+    private static List<DronePredicate> canonical(List<DronePredicate> predicates) {
+        return predicates.stream()
+                .distinct()
+                .sorted(Comparator.comparingInt(DronePredicate::rank).thenComparing(Object::toString))
+                .toList();
+    }
+
+    /**
+     * Predicate for one condition, including anyOf, not, "in" and "between"
+     * An anyOf or "in" alternative that cannot be compiled is dropped; a condition with no
+     * usable alternatives, or that otherwise cannot be compiled, matches nothing, even when negated.
+     */
+    public static DronePredicate compile(QueryCondition condition) {
+        if (condition == null) {
+            return new DronePredicate.Never();
+        }
+
+        DronePredicate compiled;
+        if (condition.getAnyOf() != null) {
+            List<DronePredicate> alternatives = new ArrayList<>();
+            for (QueryCondition alternative : condition.getAnyOf()) {
+                alternatives.add(compile(alternative));
+            }
+            compiled = any(alternatives);
+        } else if ("in".equalsIgnoreCase(condition.getOperator())) {
+            List<DronePredicate> alternatives = new ArrayList<>();
+            for (String value : condition.getValues() != null ? condition.getValues() : List.<String>of()) {
+                alternatives.add(compile(condition.getAttribute(), "=", value));
+            }
+            compiled = any(alternatives);
+        } else if ("between".equalsIgnoreCase(condition.getOperator())) {
+            compiled = between(condition.getAttribute(), condition.getValues());
+        } else {
+            compiled = compile(condition.getAttribute(), condition.getOperator(), condition.getValue());
+        }
+
+        if (Boolean.TRUE.equals(condition.getNot()) && !(compiled instanceof DronePredicate.Never)) {
+            return compiled instanceof DronePredicate.Not not ? not.predicate() : new DronePredicate.Not(compiled);
+        }
+        return compiled;
+    }
+
+    private static DronePredicate between(String attributeName, List<String> bounds) {
+        DroneAttribute attribute = DroneAttribute.of(attributeName);
+        if (attribute == null || !attribute.isSortable() || bounds == null || bounds.size() != 2) {
+            return new DronePredicate.Never();
+        }
+        Double low = parse(attribute, bounds.get(0));
+        Double high = parse(attribute, bounds.get(1));
+        return low == null || high == null ? new DronePredicate.Never() : new DronePredicate.Range(attribute, low, high);
+    }
+
+    private static Double parse(DroneAttribute attribute, String value) {
+        if (value == null) {
+            return null;
+        }
+        return attribute.kind() == DroneAttribute.Kind.INTEGER ? parseInteger(value) : parseDecimal(value);
+    }
+
+    /**
+     * Plan matching drones whose attribute equals value
+     */
+    public static QueryPlan compileEquals(String attribute, String value) {
+        return new QueryPlan(compile(attribute, "=", value));
+    }
+
+    /**
+     * Predicate for one condition
+     */
+    public static DronePredicate compile(String attributeName, String operatorSymbol, String value) {
+        DroneAttribute attribute = DroneAttribute.of(attributeName);
+        QueryOperator operator = QueryOperator.of(operatorSymbol);
+        if (attribute == null || operator == null || value == null) {
+            return new DronePredicate.Never();
+        }
+
+        switch (attribute.kind()) {
+            case TEXT:
+                if (operator == QueryOperator.EQ) {
+                    return new DronePredicate.TextEquals(attribute, value);
+                }
+                // id is a numeric string, so it also supports numeric comparison
+                if (attribute == DroneAttribute.ID) {
+                    Double operand = parseDecimal(value);
+                    return operand == null ? new DronePredicate.Never() : new DronePredicate.NumericId(operator, operand);
+                }
+                return new DronePredicate.Never();
+            case FLAG:
+                if (operator == QueryOperator.EQ || operator == QueryOperator.NE) {
+                    return new DronePredicate.FlagIs(attribute, Boolean.parseBoolean(value) == (operator == QueryOperator.EQ));
+                }
+                return new DronePredicate.Never();
+            default:
+                Double operand = parse(attribute, value);
+                return operand == null ? new DronePredicate.Never() : new DronePredicate.Compare(attribute, operator, operand);
+        }
+    }
+
+    private static Double parseDecimal(String value) {
+        try {
+            return Double.parseDouble(value);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static Double parseInteger(String value) {
+        try {
+            return (double) Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    public DronePredicate predicate() {
+        return predicate;
+    }
+
+    public boolean matches(Drone drone) {
+        return predicate.test(drone);
+    }
+
+    /**
+     * Ids of matching drones in fleet order; null drones and drones without an id are skipped
+     */
+    public List<String> select(List<Drone> drones) {
+        List<String> ids = new ArrayList<>();
+        if (drones == null || predicate instanceof DronePredicate.Never) {
+            return ids;
+        }
+        for (Drone drone : drones) {
+            if (drone != null && drone.getId() != null && predicate.test(drone)) {
+                ids.add(drone.getId());
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * Ids of matching drones in fleet order, answered from the table's indexes
+     */
+    public List<String> select(DroneTable table) {
+        List<String> ids = new ArrayList<>();
+        if (predicate instanceof DronePredicate.Never) {
+            return ids;
+        }
+        BitSet rows = predicate.rows(table);
+        for (int row = rows.nextSetBit(0); row >= 0; row = rows.nextSetBit(row + 1)) {
+            ids.add(table.id(row));
+        }
+        return ids;
+    }
+
+    /**
+     * Ids of the first limit matching drones ordered by a sortable attribute (fleet order if null)
+     * Drones without a value for it come last; ties keep fleet order. Keeps a heap of at most
+     * limit rows instead of sorting every match.
+     */
+    public List<String> select(DroneTable table, DroneAttribute orderBy, boolean descending, int limit) {
+        List<String> ids = new ArrayList<>();
+        if (predicate instanceof DronePredicate.Never || limit <= 0) {
+            return ids;
+        }
+        BitSet rows = predicate.rows(table);
+        if (orderBy == null) {
+            for (int row = rows.nextSetBit(0); row >= 0 && ids.size() < limit; row = rows.nextSetBit(row + 1)) {
+                ids.add(table.id(row));
+            }
+            return ids;
+        }
+
+        SortedColumn column = orderBy.column(table);
+        Comparator<Integer> ranking = (a, b) -> {
+            double first = column.valueOf(a);
+            double second = column.valueOf(b);
+            if (Double.isNaN(first) || Double.isNaN(second)) {
+                int missing = Boolean.compare(Double.isNaN(first), Double.isNaN(second));
+                return missing != 0 ? missing : Integer.compare(a, b);
+            }
+            int order = descending ? Double.compare(second, first) : Double.compare(first, second);
+            return order != 0 ? order : Integer.compare(a, b);
+        };
+
+        // Worst of the best rows so far at the head
+        PriorityQueue<Integer> best = new PriorityQueue<>(ranking.reversed());
+        for (int row = rows.nextSetBit(0); row >= 0; row = rows.nextSetBit(row + 1)) {
+            best.add(row);
+            if (best.size() > limit) {
+                best.poll();
+            }
+        }
+        List<Integer> ordered = new ArrayList<>(best);
+        ordered.sort(ranking);
+        for (int row : ordered) {
+            ids.add(table.id(row));
+        }
+        return ids;
+    }
+}
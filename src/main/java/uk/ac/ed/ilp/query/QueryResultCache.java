@@ -0,0 +1,97 @@
+package uk.ac.ed.ilp.query;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Drone query results of the current snapshot, keyed by the compiled query
+ * The key is a QueryPlan predicate, so conditions that differ only in order, attribute case,
+ * operand formatting or duplicates share an entry. All entries are dropped as soon as a
+ * request arrives for a newer snapshot version; the least recently used entry is evicted
+ * once the cache is full.
+ *
+ * Metrics: ilp.query.cache.requests (tagged result=hit or miss), ilp.query.cache.hit.ratio
+ * and ilp.query.cache.size. The two gauges are registered through MeterBinder once the
+ * cache is constructed (Spring binds it to the application registry).
+ */
+@Component
+public class QueryResultCache implements MeterBinder {
+
+    private final int maxEntries;
+    private final Map<DronePredicate, List<String>> entries;
+    private final Counter hits;
+    private final Counter misses;
+    private long version = -1;
+
+    public QueryResultCache(MeterRegistry registry, @Value("${ilp.query.cache-size:256}") int maxEntries) {
+        this.maxEntries = maxEntries;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<DronePredicate, List<String>> eldest) {
+                return size() > QueryResultCache.this.maxEntries;
+            }
+        };
+        this.hits = Counter.builder("ilp.query.cache.requests").tag("result", "hit").register(registry);
+        this.misses = Counter.builder("ilp.query.cache.requests").tag("result", "miss").register(registry);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("ilp.query.cache.hit.ratio", this, QueryResultCache::hitRatio).register(registry);
+        Gauge.builder("ilp.query.cache.size", this, QueryResultCache::size).register(registry);
+    }
+
+    /**
+     * Cached result of the query on the given snapshot version, computing it on a miss
+     * Queries that can never match are answered without touching the cache.
+     */
+    public List<String> get(long snapshotVersion, DronePredicate query, Supplier<List<String>> compute) {
+        if (query instanceof DronePredicate.Never) {
+            return compute.get();
+        }
+        synchronized (this) {
+            if (snapshotVersion > version) {
+                entries.clear();
+                version = snapshotVersion;
+            }
+            List<String> cached = snapshotVersion == version ? entries.get(query) : null;
+            if (cached != null) {
+                hits.increment();
+                return cached;
+            }
+        }
+
+        misses.increment();
+        List<String> result = Collections.unmodifiableList(new ArrayList<>(compute.get()));
+        synchronized (this) {
+            // Not stored if a newer snapshot arrived while computing
+            if (snapshotVersion == version && maxEntries > 0) {
+                entries.put(query, result);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Fraction of requests answered from the cache, 0 before the first request
+     */
+    public double hitRatio() {
+        double total = hits.count() + misses.count();
+        return total == 0 ? 0.0 : hits.count() / total;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+}
@@ -1,9 +1,17 @@
 package uk.ac.ed.ilp.service;
 
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
+import uk.ac.ed.ilp.geometry.CompactPath;
+import uk.ac.ed.ilp.index.DroneIndex;
+import uk.ac.ed.ilp.index.ServicePointIndex;
 import uk.ac.ed.ilp.model.*;
 
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.stream.Collectors;
 
 /**
@@ -16,13 +24,19 @@ public class DeliveryPathService {
     private final PathfindingService pathfindingService;
     private final DroneAvailabilityService droneAvailabilityService;
     private final DistanceService distanceService;
+    private final FleetIndexService fleetIndexService;
+    private final Executor planningExecutor;
 
     public DeliveryPathService(PathfindingService pathfindingService,
                               DroneAvailabilityService droneAvailabilityService,
-                              DistanceService distanceService) {
+                              DistanceService distanceService,
+                              FleetIndexService fleetIndexService,
+                              @Qualifier("planningExecutor") Executor planningExecutor) {
         this.pathfindingService = pathfindingService;
         this.droneAvailabilityService = droneAvailabilityService;
         this.distanceService = distanceService;
+        this.fleetIndexService = fleetIndexService;
+        this.planningExecutor = planningExecutor;
     }
 
     /**
@@ -59,16 +73,15 @@ public class DeliveryPathService {
         DeliveryPathResponse bestSolution = null;
         double bestCost = Double.MAX_VALUE;
 
+        DroneIndex fleet = fleetIndexService.drones(allDrones);
+        ServicePointIndex sites = fleetIndexService.servicePoints(servicePoints, dronesForServicePoints);
         for (String droneId : availableDroneIds) {
-            Drone drone = allDrones.stream()
-                    .filter(d -> droneId.equals(d.getId()))
-                    .findFirst()
-                    .orElse(null);
+            Drone drone = fleet.drone(droneId);
 
             if (drone == null) continue;
 
             // Find service point for this drone
-            ServicePoint servicePoint = findServicePointForDrone(droneId, servicePoints, dronesForServicePoints);
+            ServicePoint servicePoint = sites.servicePointOf(droneId);
             if (servicePoint == null) {
                 continue;
             }
@@ -124,16 +137,15 @@ public class DeliveryPathService {
         DeliveryPathResponse bestSolution = null;
         double bestCost = Double.MAX_VALUE;
 
+        DroneIndex fleet = fleetIndexService.drones(allDrones);
+        ServicePointIndex sites = fleetIndexService.servicePoints(servicePoints, dronesForServicePoints);
         for (String droneId : availableDroneIds) {
-            Drone drone = allDrones.stream()
-                    .filter(d -> droneId.equals(d.getId()))
-                    .findFirst()
-                    .orElse(null);
+            Drone drone = fleet.drone(droneId);
 
             if (drone == null) continue;
 
             // Find service point for this drone
-            ServicePoint servicePoint = findServicePointForDrone(droneId, servicePoints, dronesForServicePoints);
+            ServicePoint servicePoint = sites.servicePointOf(droneId);
             if (servicePoint == null) continue;
 
             // Calculate path for all dispatches using Greedy TSP ordering
@@ -161,6 +173,8 @@ public class DeliveryPathService {
     /**
      * Calculate path for a single drone handling all dispatches
      * USES GREEDY TSP (Nearest Neighbor) for delivery order
+     * Once the order is fixed every leg is an independent A* search (each leg ends exactly
+     * on its target, which is where the next leg starts), so the legs run concurrently
      */
     private DeliveryPathResponse calculatePathForDrone(
             Drone drone,
@@ -172,97 +186,74 @@ public class DeliveryPathService {
         if (location == null) return null;
         LngLat startPoint = new LngLat(location.getLng(), location.getLat());
 
-        List<DeliveryPath> deliveryPaths = new ArrayList<>();
+        // --- GREEDY TSP (Nearest Neighbor) ---
+        List<MedDispatchRec> visitOrder = greedyVisitOrder(startPoint, dispatches);
+
+        // Leg i flies from the previous stop to delivery i; the final leg returns to the service point
+        List<LngLat> stops = new ArrayList<>();
+        stops.add(startPoint);
+        for (MedDispatchRec dispatch : visitOrder) {
+            stops.add(dispatch.getDelivery());
+        }
+        stops.add(startPoint);
+
+        // Set once the route is known to fail, so leg searches still running give up
+        AtomicBoolean cancelled = new AtomicBoolean();
+        List<CompletableFuture<CompactPath>> legs = new ArrayList<>();
+        for (int i = 0; i + 1 < stops.size(); i++) {
+            LngLat from = stops.get(i);
+            LngLat to = stops.get(i + 1);
+            legs.add(CompletableFuture.supplyAsync(
+                    () -> pathfindingService.calculateCompactPath(from, to, restrictedAreas, cancelled::get),
+                    planningExecutor));
+        }
+
+        // Paths stay as direction codes while planning and are only expanded when serialised
+        List<CompactPath> flightPaths = new ArrayList<>();
         int totalMoves = 0;
-        LngLat currentPosition = new LngLat(startPoint.getLng(), startPoint.getLat());
 
-        // --- GREEDY TSP (Nearest Neighbor) ---
-        List<MedDispatchRec> unvisited = new ArrayList<>(dispatches);
-        
-        while (!unvisited.isEmpty()) {
-            // Find nearest unvisited dispatch
-            MedDispatchRec nearest = null;
-            double minDistance = Double.MAX_VALUE;
-            
-            for (MedDispatchRec dispatch : unvisited) {
-                if (dispatch.getDelivery() == null) continue;
-                double dist = distanceService.calculateDistance(currentPosition, dispatch.getDelivery());
-                if (dist < minDistance) {
-                    minDistance = dist;
-                    nearest = dispatch;
-                }
-            }
-            
-            if (nearest == null) break; // Should not happen if inputs are valid
-            unvisited.remove(nearest);
-            
-            LngLat deliveryLocation = nearest.getDelivery();
-            
-            // Calculate path using A*
-            List<LngLat> pathToDelivery = pathfindingService.calculatePath(
-                    currentPosition, deliveryLocation, restrictedAreas);
+        for (int i = 0; i < visitOrder.size(); i++) {
+            LngLat deliveryLocation = visitOrder.get(i).getDelivery();
+            CompactPath leg = joinLeg(legs.get(i));
 
-            if (pathToDelivery.isEmpty()) {
+            if (leg == null) {
+                cancelLegs(legs, cancelled);
                 return null; // Unreachable
             }
 
             // Validate path completeness
-            LngLat lastPoint = pathToDelivery.get(pathToDelivery.size() - 1);
-            if (!distanceService.areClose(lastPoint, deliveryLocation)) {
+            if (!distanceService.areClose(leg.end(), deliveryLocation)) {
+                cancelLegs(legs, cancelled);
                 return null;
             }
 
             // Add hover
-            LngLat hoverPoint = new LngLat(lastPoint.getLng(), lastPoint.getLat());
-            pathToDelivery.add(hoverPoint);
-
-            // Count moves
-            int moves = pathfindingService.countMoves(pathToDelivery);
-            totalMoves += moves;
-
-            // Record path
-            DeliveryPath deliveryPath = new DeliveryPath();
-            deliveryPath.setDeliveryId(nearest.getId());
-            deliveryPath.setFlightPath(pathToDelivery);
-            deliveryPaths.add(deliveryPath);
-
-            // Update current pos
-            currentPosition = hoverPoint;
+            CompactPath pathToDelivery = leg.hover();
+            totalMoves += pathToDelivery.moveCount();
+            flightPaths.add(pathToDelivery);
         }
 
         // Return to service point
-        List<LngLat> pathBack = pathfindingService.calculatePath(
-                currentPosition, startPoint, restrictedAreas);
+        CompactPath pathBack = joinLeg(legs.get(legs.size() - 1));
                 
-        if (!pathBack.isEmpty() && !deliveryPaths.isEmpty()) {
-            LngLat lastReturnPoint = pathBack.get(pathBack.size() - 1);
-            if (!distanceService.areClose(lastReturnPoint, startPoint)) {
+        if (pathBack != null && !flightPaths.isEmpty()) {
+            if (!distanceService.areClose(pathBack.end(), startPoint)) {
                 return null;
             }
             
-            // Add return path to last delivery
-            DeliveryPath lastDelivery = deliveryPaths.get(deliveryPaths.size() - 1);
-            List<LngLat> lastPath = new ArrayList<>(lastDelivery.getFlightPath());
-            if (pathBack.size() > 1) {
-                lastPath.addAll(pathBack.subList(1, pathBack.size()));
-            } else {
-                lastPath.addAll(pathBack);
-            }
-            lastDelivery.setFlightPath(lastPath);
-            
-            // Recalculate total moves combining all paths
-            List<LngLat> combinedPath = new ArrayList<>();
-            for (DeliveryPath dp : deliveryPaths) {
-                List<LngLat> flightPath = dp.getFlightPath();
-                if (combinedPath.isEmpty()) {
-                    combinedPath.addAll(flightPath);
-                } else {
-                    if (flightPath.size() > 1) {
-                        combinedPath.addAll(flightPath.subList(1, flightPath.size()));
-                    }
-                }
-            }
-            totalMoves = pathfindingService.countMoves(combinedPath);
+            // Add return path to last delivery; a return leg without moves is still one move onto its point
+            int last = flightPaths.size() - 1;
+            CompactPath lastPath = flightPaths.get(last);
+            flightPaths.set(last, pathBack.moveCount() > 0 ? lastPath.concat(pathBack) : lastPath.jumpTo(pathBack.start()));
+            totalMoves += flightPaths.get(last).moveCount() - lastPath.moveCount();
+        }
+
+        List<DeliveryPath> deliveryPaths = new ArrayList<>();
+        for (int i = 0; i < flightPaths.size(); i++) {
+            DeliveryPath deliveryPath = new DeliveryPath();
+            deliveryPath.setDeliveryId(visitOrder.get(i).getId());
+            deliveryPath.setFlightPath(flightPaths.get(i).asList());
+            deliveryPaths.add(deliveryPath);
         }
 
         // Validate max moves
@@ -316,6 +307,8 @@ public class DeliveryPathService {
             return new DeliveryPathResponse(0.0, 0, List.of());
         }
 
+        ServicePointIndex sites = fleetIndexService.servicePoints(servicePoints, dronesForServicePoints);
+
         // Group by date
         Map<String, List<MedDispatchRec>> dispatchesByDate = dispatches.stream()
                 .collect(Collectors.groupingBy(
@@ -365,7 +358,7 @@ public class DeliveryPathService {
             List<Drone> availableDrones = allDrones.stream()
                     .filter(drone -> {
                         // Check if drone is available at service points
-                        if (findServicePointForDrone(drone.getId(), servicePoints, dronesForServicePoints) == null) {
+                        if (sites.servicePointOf(drone.getId()) == null) {
                             return false;
                         }
                         
@@ -422,7 +415,7 @@ public class DeliveryPathService {
             for (Drone drone : availableDrones) {
                 if (unassigned.isEmpty()) break;
 
-                ServicePoint servicePoint = findServicePointForDrone(drone.getId(), servicePoints, dronesForServicePoints);
+                ServicePoint servicePoint = sites.servicePointOf(drone.getId());
                 if (servicePoint == null) continue;
 
                 List<MedDispatchRec> assignedToThisDrone = new ArrayList<>();
@@ -449,10 +442,10 @@ public class DeliveryPathService {
                             trialRoute.add(candidate);
                             
                             // Check Capacity and other requirements
-                            String failureReason = droneAvailabilityService.canDroneHandleDispatchesWithReason(
+                            RejectionReason rejection = droneAvailabilityService.rejectionReason(
                                     drone, trialRoute, dronesForServicePoints, servicePoints);
                             
-                            if (failureReason != null) {
+                            if (rejection != null) {
                                 continue; // Skip this candidate
                             }
                                         
@@ -473,10 +466,10 @@ public class DeliveryPathService {
                     // This handles the case where individual deliveries fail maxCost but combinations work
                     if (currentRoute.isEmpty() && !candidates.isEmpty()) {
                         // Try all remaining candidates together
-                        String failureReason = droneAvailabilityService.canDroneHandleDispatchesWithReason(
+                        RejectionReason rejection = droneAvailabilityService.rejectionReason(
                                 drone, candidates, dronesForServicePoints, servicePoints);
                         
-                        if (failureReason == null) {
+                        if (rejection == null) {
                             DeliveryPathResponse trialSolution = calculatePathForDrone(
                                     drone, servicePoint, candidates, restrictedAreas);
                             
@@ -496,10 +489,10 @@ public class DeliveryPathService {
                                 MedDispatchRec d2 = candidates.get(j);
                                 List<MedDispatchRec> pair = List.of(d1, d2);
                                 
-                                failureReason = droneAvailabilityService.canDroneHandleDispatchesWithReason(
+                                rejection = droneAvailabilityService.rejectionReason(
                                         drone, pair, dronesForServicePoints, servicePoints);
                                 
-                                if (failureReason == null) {
+                                if (rejection == null) {
                                     DeliveryPathResponse pairSolution = calculatePathForDrone(
                                             drone, servicePoint, pair, restrictedAreas);
                                     
@@ -550,23 +543,56 @@ public class DeliveryPathService {
         return new DeliveryPathResponse(totalCost, totalMoves, allDronePaths);
     }
 
-    private ServicePoint findServicePointForDrone(
-            String droneId,
-            List<ServicePoint> servicePoints,
-            List<DroneForServicePoint> dronesForServicePoints) {
-        if (dronesForServicePoints == null || servicePoints == null) return null;
-        for (DroneForServicePoint sp : dronesForServicePoints) {
-            if (sp != null && sp.getDrones() != null) {
-                for (DroneAvailabilityInfo info : sp.getDrones()) {
-                    if (info != null && droneId.equals(info.getId())) {
-                        return servicePoints.stream()
-                                .filter(p -> p.getId().equals(sp.getServicePointId()))
-                                .findFirst().orElse(null);
-                    }
+    /**
+     * Greedy nearest-neighbour visit order starting from the service point
+     * Dispatches without a delivery location are skipped
+     */
+    private List<MedDispatchRec> greedyVisitOrder(LngLat startPoint, List<MedDispatchRec> dispatches) {
+        List<MedDispatchRec> order = new ArrayList<>();
+        List<MedDispatchRec> unvisited = new ArrayList<>(dispatches);
+        LngLat currentPosition = startPoint;
+        
+        while (!unvisited.isEmpty()) {
+            // Find nearest unvisited dispatch
+            MedDispatchRec nearest = null;
+            double minDistance = Double.MAX_VALUE;
+            
+            for (MedDispatchRec dispatch : unvisited) {
+                if (dispatch.getDelivery() == null) continue;
+                double dist = distanceService.calculateDistance(currentPosition, dispatch.getDelivery());
+                if (dist < minDistance) {
+                    minDistance = dist;
+                    nearest = dispatch;
                 }
             }
+            
+            if (nearest == null) break; // Should not happen if inputs are valid
+            unvisited.remove(nearest);
+            order.add(nearest);
+            currentPosition = nearest.getDelivery();
+        }
+        return order;
+    }
+
+    /**
+     * Wait for one leg search, treating a failed search as unreachable
+     */
+    private CompactPath joinLeg(CompletableFuture<CompactPath> leg) {
+        try {
+            return leg.join();
+        } catch (CompletionException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Stop the remaining legs: queued ones never start, running searches see the flag and return
+     */
+    private void cancelLegs(List<CompletableFuture<CompactPath>> legs, AtomicBoolean cancelled) {
+        cancelled.set(true);
+        for (CompletableFuture<CompactPath> leg : legs) {
+            leg.cancel(false);
         }
-        return null;
     }
 
     private double calculateCost(Drone drone, int moves) {
@@ -646,6 +672,7 @@ public class DeliveryPathService {
             return null;
         }
         
+        ServicePointIndex sites = fleetIndexService.servicePoints(servicePoints, dronesForServicePoints);
         List<DronePath> allDronePaths = new ArrayList<>();
         double totalCost = 0.0;
         int totalMoves = 0;
@@ -666,7 +693,7 @@ public class DeliveryPathService {
                 // Skip already used drones (force different drones for each delivery)
                 if (usedDroneIds.contains(drone.getId())) continue;
                 
-                ServicePoint servicePoint = findServicePointForDrone(drone.getId(), servicePoints, dronesForServicePoints);
+                ServicePoint servicePoint = sites.servicePointOf(drone.getId());
                 if (servicePoint == null || servicePoint.getLocation() == null) continue;
                 
                 // Check if drone can handle this delivery
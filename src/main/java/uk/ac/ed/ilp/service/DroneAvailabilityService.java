@@ -1,14 +1,24 @@
 package uk.ac.ed.ilp.service;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
+import uk.ac.ed.ilp.index.AvailabilityIndex;
+import uk.ac.ed.ilp.index.BatchRequirements;
+import uk.ac.ed.ilp.index.CapabilityColumns;
+import uk.ac.ed.ilp.index.ServicePointIndex;
 import uk.ac.ed.ilp.model.*;
+import uk.ac.ed.ilp.snapshot.SnapshotScoped;
 
 import java.time.DayOfWeek;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.time.format.DateTimeFormatter;
+import java.time.temporal.TemporalAdjusters;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 import java.util.stream.Collectors;
 
 /**
@@ -18,11 +28,22 @@ import java.util.stream.Collectors;
 @Service
 public class DroneAvailabilityService {
 
+    // Dispatch rows per parallel task of feasibilityMatrix
+    private static final int MATRIX_BLOCK_ROWS = 32;
+
     private final DistanceService distanceService;
+    private final FleetIndexService fleetIndexService;
+    private final Executor planningExecutor;
+    private final SnapshotScoped<List<DroneForServicePoint>, AvailabilityIndex> availabilityIndexes =
+            new SnapshotScoped<>(AvailabilityIndex::build);
 
     @Autowired
-    public DroneAvailabilityService(DistanceService distanceService) {
+    public DroneAvailabilityService(DistanceService distanceService,
+                                    FleetIndexService fleetIndexService,
+                                    @Qualifier("planningExecutor") Executor planningExecutor) {
         this.distanceService = distanceService;
+        this.fleetIndexService = fleetIndexService;
+        this.planningExecutor = planningExecutor;
     }
 
     /**
@@ -45,43 +66,112 @@ public class DroneAvailabilityService {
             return List.of();
         }
         
-        // Get all drone IDs available at service points
-        Set<String> availableDroneIds = getAvailableDroneIds(dronesForServicePoints);
+        // All requirements of the batch as one capability mask, a capacity and dispatch times
+        BatchRequirements batch = BatchRequirements.compile(dispatches);
+        if (batch == null) {
+            return List.of();
+        }
         
-        // Filter to only drones available at service points
-        List<Drone> servicePointDrones = allDrones.stream()
-                .filter(drone -> drone != null && drone.getId() != null)
-                .filter(drone -> availableDroneIds.contains(drone.getId()))
-                .collect(Collectors.toList());
+        CapabilityColumns columns = fleetIndexService.capabilities(allDrones);
+        ServicePointIndex sites = fleetIndexService.servicePoints(servicePoints, dronesForServicePoints);
+        AvailabilityIndex availability = availabilityIndex(dronesForServicePoints);
         
-        // Find drones that can handle ALL dispatches
-        List<String> matchingDrones = servicePointDrones.stream()
-                .filter(drone -> canHandleAllDispatches(drone, dispatches, dronesForServicePoints, servicePoints))
-                .map(Drone::getId)
-                .collect(Collectors.toList());
+        BitSet feasible = feasibleRows(batch, columns, sites, availability);
+        List<String> matchingDrones = new ArrayList<>(feasible.cardinality());
+        for (int row = feasible.nextSetBit(0); row >= 0; row = feasible.nextSetBit(row + 1)) {
+            matchingDrones.add(columns.id(row));
+        }
         
         return matchingDrones;
     }
     
     /**
-     * Get set of all drone IDs available at service points
+     * Feasibility of every dispatch on its own against every drone, as a bit matrix
+     * Same checks as findAvailableDrones with a single dispatch, but the indexes are looked up
+     * once for the whole batch and blocks of rows are computed in parallel
      */
-    private Set<String> getAvailableDroneIds(List<DroneForServicePoint> dronesForServicePoints) {
-        Set<String> droneIds = new HashSet<>();
-        if (dronesForServicePoints == null) {
-            return droneIds;
+    public FeasibilityMatrix feasibilityMatrix(
+            List<MedDispatchRec> dispatches,
+            List<Drone> allDrones,
+            List<DroneForServicePoint> dronesForServicePoints,
+            List<ServicePoint> servicePoints) {
+        
+        CapabilityColumns columns = fleetIndexService.capabilities(allDrones);
+        ServicePointIndex sites = fleetIndexService.servicePoints(servicePoints, dronesForServicePoints);
+        AvailabilityIndex availability = availabilityIndex(dronesForServicePoints);
+        List<MedDispatchRec> rows = dispatches == null ? List.of() : dispatches;
+        
+        String[] bits = new String[rows.size()];
+        List<CompletableFuture<Void>> blocks = new ArrayList<>();
+        for (int start = 0; start < rows.size(); start += MATRIX_BLOCK_ROWS) {
+            int from = start;
+            int to = Math.min(rows.size(), start + MATRIX_BLOCK_ROWS);
+            blocks.add(CompletableFuture.runAsync(() -> {
+                for (int i = from; i < to; i++) {
+                    bits[i] = matrixRow(rows.get(i), columns, sites, availability);
+                }
+            }, planningExecutor));
         }
+        CompletableFuture.allOf(blocks.toArray(CompletableFuture[]::new)).join();
         
-        for (DroneForServicePoint sp : dronesForServicePoints) {
-            if (sp != null && sp.getDrones() != null) {
-                for (DroneAvailabilityInfo info : sp.getDrones()) {
-                    if (info != null && info.getId() != null) {
-                        droneIds.add(info.getId());
-                    }
+        List<String> droneIds = new ArrayList<>(columns.size());
+        for (int row = 0; row < columns.size(); row++) {
+            droneIds.add(columns.id(row));
+        }
+        List<Integer> dispatchIds = rows.stream()
+                .map(dispatch -> dispatch == null ? null : dispatch.getId())
+                .collect(Collectors.toList());
+        return new FeasibilityMatrix(dispatchIds, droneIds, Arrays.asList(bits));
+    }
+    
+    /**
+     * One matrix row: '1' for each drone column that can take the dispatch on its own
+     */
+    private String matrixRow(
+            MedDispatchRec dispatch,
+            CapabilityColumns columns,
+            ServicePointIndex sites,
+            AvailabilityIndex availability) {
+        char[] row = new char[columns.size()];
+        Arrays.fill(row, '0');
+        BatchRequirements batch = BatchRequirements.compile(Collections.singletonList(dispatch));
+        if (batch != null) {
+            BitSet feasible = feasibleRows(batch, columns, sites, availability);
+            for (int column = feasible.nextSetBit(0); column >= 0; column = feasible.nextSetBit(column + 1)) {
+                row[column] = '1';
+            }
+        }
+        return new String(row);
+    }
+    
+    /**
+     * Rows of columns whose drone can serve the whole batch
+     * Capability and capacity for the whole fleet in one pass, then per-drone checks on the survivors
+     */
+    private BitSet feasibleRows(
+            BatchRequirements batch,
+            CapabilityColumns columns,
+            ServicePointIndex sites,
+            AvailabilityIndex availability) {
+        BitSet candidates = columns.matching(batch.requiredFlags(), batch.totalCapacity());
+        // Drones at the same service point share the estimated number of moves
+        Map<ServicePoint, Integer> movesFrom = new IdentityHashMap<>();
+        for (int row = candidates.nextSetBit(0); row >= 0; row = candidates.nextSetBit(row + 1)) {
+            String droneId = columns.id(row);
+            if (!sites.isListed(droneId) || !batch.isAvailable(availability, droneId)) {
+                candidates.clear(row);
+                continue;
+            }
+            if (batch.maxCost() != null) {
+                ServicePoint servicePoint = sites.servicePointOf(droneId);
+                int moves = servicePoint == null ? -1
+                        : movesFrom.computeIfAbsent(servicePoint, sp -> estimatedMoves(sp, batch.delivery()));
+                if (moves < 0 || columns.estimatedCost(row, moves) > batch.maxCost()) {
+                    candidates.clear(row);
                 }
             }
         }
-        return droneIds;
+        return candidates;
     }
     
     /**
@@ -93,295 +183,163 @@ public class DroneAvailabilityService {
             List<MedDispatchRec> dispatches,
             List<DroneForServicePoint> dronesForServicePoints,
             List<ServicePoint> servicePoints) {
-        return canHandleAllDispatches(drone, dispatches, dronesForServicePoints, servicePoints);
+        return rejectionReason(drone, dispatches, dronesForServicePoints, servicePoints) == null;
     }
     
     /**
-     * Check if a drone can handle all dispatches
-     * Returns a result object with details about why it failed (for debugging)
+     * Why a drone cannot handle all dispatches together, or null if it can
+     * Only compares values, so it is cheap enough for the packing loop; use
+     * explainRejection for a readable message.
      */
-    private static class CanHandleResult {
-        boolean canHandle;
-        String failureReason;
-        
-        CanHandleResult(boolean canHandle, String failureReason) {
-            this.canHandle = canHandle;
-            this.failureReason = failureReason;
-        }
-        
-        static CanHandleResult success() {
-            return new CanHandleResult(true, null);
-        }
-        
-        static CanHandleResult failure(String reason) {
-            return new CanHandleResult(false, reason);
-        }
-    }
-    
-    /**
-     * Check if a drone can handle all dispatches (with detailed failure reasons)
-     */
-    private CanHandleResult canHandleAllDispatchesDetailed(
+    public RejectionReason rejectionReason(
             Drone drone,
             List<MedDispatchRec> dispatches,
             List<DroneForServicePoint> dronesForServicePoints,
             List<ServicePoint> servicePoints) {
         
         if (drone == null || drone.getCapability() == null) {
-            return CanHandleResult.failure("drone or capability is null");
+            return RejectionReason.NO_CAPABILITY;
         }
         
-        // Calculate total capacity required (sum of all dispatches)
         // Per spec: "A drone must satisfy ALL dispatches" - check total capacity
-        double totalCapacityRequired = dispatches.stream()
-                .filter(d -> d != null && d.getRequirements() != null && d.getRequirements().getCapacity() != null)
-                .mapToDouble(d -> d.getRequirements().getCapacity())
-                .sum();
-        
-        // Check if drone capacity is sufficient for total
+        double totalCapacityRequired = totalCapacity(dispatches);
         if (totalCapacityRequired > 0) {
             Double droneCapacity = drone.getCapability().getCapacity();
             if (droneCapacity == null || droneCapacity < totalCapacityRequired) {
-                return CanHandleResult.failure("capacity: required " + totalCapacityRequired + " > drone capacity " + droneCapacity);
+                return RejectionReason.CAPACITY;
             }
         }
         
-        // Check each dispatch for other requirements (cooling, heating, date/time)
-        if (dispatches.size() == 1) {
-            MedDispatchRec dispatch = dispatches.get(0);
-            if (!canHandleDispatchIgnoringCapacity(drone, dispatch, dronesForServicePoints, servicePoints)) {
-                MedDispatchRequirements req = dispatch.getRequirements();
-                String reason = "capability/availability check failed";
-                if (req != null) {
-                    if (Boolean.TRUE.equals(req.getHeating()) && !Boolean.TRUE.equals(drone.getCapability().getHeating())) {
-                        reason = "heating required but drone doesn't have it";
-                    } else if (Boolean.TRUE.equals(req.getCooling()) && !Boolean.TRUE.equals(drone.getCapability().getCooling())) {
-                        reason = "cooling required but drone doesn't have it";
-                    } else if (dispatch.getDate() != null && dispatch.getTime() != null) {
-                        reason = "not available at date/time " + dispatch.getDate() + " " + dispatch.getTime();
-                    }
-                }
-                return CanHandleResult.failure(reason);
-            }
-        } else {
-            // Multiple deliveries: skip maxCost check (will be checked in calcDeliveryPath)
-            // CRITICAL: Check if dispatches have conflicting heating/cooling requirements
-            // A drone cannot simultaneously provide heating for one delivery and cooling for another
-            boolean hasHeatingRequirement = dispatches.stream()
-                    .anyMatch(d -> d.getRequirements() != null && Boolean.TRUE.equals(d.getRequirements().getHeating()));
-            boolean hasCoolingRequirement = dispatches.stream()
-                    .anyMatch(d -> d.getRequirements() != null && Boolean.TRUE.equals(d.getRequirements().getCooling()));
-            
-            // If we have both heating and cooling requirements, the drone cannot handle both
-            // Per spec: heating and cooling are mutually exclusive per delivery.
-            // If one delivery needs heating and another needs cooling, they cannot be on the same drone
-            // because a drone can only provide one type of temperature control at a time.
-            if (hasHeatingRequirement && hasCoolingRequirement) {
-                // Reject this combination - cannot provide heating for one delivery and cooling for another simultaneously
-                return CanHandleResult.failure("cannot handle both heating and cooling requirements simultaneously (one delivery needs heating, another needs cooling)");
-            }
-            
-            // Now check each dispatch individually
-            for (MedDispatchRec dispatch : dispatches) {
-                if (!canHandleDispatchIgnoringCapacityAndMaxCost(drone, dispatch, dronesForServicePoints, servicePoints)) {
-                    MedDispatchRequirements req = dispatch.getRequirements();
-                    String reason = "capability/availability check failed for delivery " + dispatch.getId();
-                    if (req != null && drone.getCapability() != null) {
-                        // Check heating first
-                        if (Boolean.TRUE.equals(req.getHeating()) && !Boolean.TRUE.equals(drone.getCapability().getHeating())) {
-                            reason = "delivery " + dispatch.getId() + " requires heating but drone doesn't have it";
-                        } 
-                        // Check cooling
-                        else if (Boolean.TRUE.equals(req.getCooling()) && !Boolean.TRUE.equals(drone.getCapability().getCooling())) {
-                            reason = "delivery " + dispatch.getId() + " requires cooling but drone doesn't have it";
-                        } 
-                        // Check date/time (but verify it's actually the issue)
-                        else if (dispatch.getDate() != null && dispatch.getTime() != null) {
-                            // Double-check availability to ensure this is the real issue
-                            boolean actuallyAvailable = isAvailableAtDateTime(drone, dispatch.getDate(), dispatch.getTime(), dronesForServicePoints);
-                            if (!actuallyAvailable) {
-                                reason = "drone not available at date/time " + dispatch.getDate() + " " + dispatch.getTime() + " for delivery " + dispatch.getId();
-                            } else {
-                                // Date/time is fine, so must be something else - check if capability is null
-                                if (drone.getCapability() == null) {
-                                    reason = "drone " + drone.getId() + " has null capability";
-                                } else {
-                                    reason = "unknown capability/availability issue for delivery " + dispatch.getId() + " (date/time is available)";
-                                }
-                            }
-                        }
-                    }
-                    return CanHandleResult.failure(reason);
-                }
-            }
+        // Multiple deliveries: maxCost is checked in calcDeliveryPath after path calculation
+        boolean single = dispatches.size() == 1;
+        if (!single && needsHeatingAndCooling(dispatches)) {
+            return RejectionReason.HEATING_AND_COOLING;
         }
         
-        return CanHandleResult.success();
-    }
-    
-    /**
-     * Check if a drone can handle all dispatches
-     */
-    private boolean canHandleAllDispatches(
-            Drone drone,
-            List<MedDispatchRec> dispatches,
-            List<DroneForServicePoint> dronesForServicePoints,
-            List<ServicePoint> servicePoints) {
-        return canHandleAllDispatchesDetailed(drone, dispatches, dronesForServicePoints, servicePoints).canHandle;
+        for (MedDispatchRec dispatch : dispatches) {
+            RejectionReason reason = rejectDispatch(drone, dispatch, single, dronesForServicePoints, servicePoints);
+            if (reason != null) {
+                return reason;
+            }
+        }
+        return null;
     }
     
     /**
-     * Public method to check if a drone can handle dispatches with detailed failure reason
+     * Readable reason why a drone cannot handle all dispatches together, or null if it can
+     * Builds the message on demand; meant for diagnostics, not for planning.
      */
-    public String canDroneHandleDispatchesWithReason(
+    public String explainRejection(
             Drone drone,
             List<MedDispatchRec> dispatches,
             List<DroneForServicePoint> dronesForServicePoints,
             List<ServicePoint> servicePoints) {
-        CanHandleResult result = canHandleAllDispatchesDetailed(drone, dispatches, dronesForServicePoints, servicePoints);
-        return result.failureReason;
-    }
-    
-    /**
-     * Check if a drone can handle a single dispatch (ignoring capacity, which is checked separately per delivery)
-     */
-    private boolean canHandleDispatchIgnoringCapacity(
-            Drone drone,
-            MedDispatchRec dispatch,
-            List<DroneForServicePoint> dronesForServicePoints,
-            List<ServicePoint> servicePoints) {
-        
-        if (dispatch == null || dispatch.getRequirements() == null) {
-            return false;
-        }
-        
-        // Check capability requirements (excluding capacity, including maxCost for single delivery)
-        if (!meetsCapabilityRequirementsIgnoringCapacity(drone, dispatch.getRequirements(), dispatch, dronesForServicePoints, servicePoints)) {
-            return false;
+        RejectionReason reason = rejectionReason(drone, dispatches, dronesForServicePoints, servicePoints);
+        if (reason == null) {
+            return null;
         }
         
-        // Check date/time availability (if provided)
-        if (dispatch.getDate() != null && dispatch.getTime() != null) {
-            if (!isAvailableAtDateTime(drone, dispatch.getDate(), dispatch.getTime(), dronesForServicePoints)) {
-                return false;
+        switch (reason) {
+            case NO_CAPABILITY:
+                return "drone or capability is null";
+            case CAPACITY:
+                return "capacity: required " + totalCapacity(dispatches) + " > drone capacity "
+                        + drone.getCapability().getCapacity();
+            case HEATING_AND_COOLING:
+                return "cannot handle both heating and cooling requirements simultaneously "
+                        + "(one delivery needs heating, another needs cooling)";
+            default:
+                break;
+        }
+        
+        // Name the first delivery that fails for this reason
+        boolean single = dispatches.size() == 1;
+        for (MedDispatchRec dispatch : dispatches) {
+            if (rejectDispatch(drone, dispatch, single, dronesForServicePoints, servicePoints) != reason) {
+                continue;
+            }
+            String delivery = dispatch == null ? "null delivery" : "delivery " + dispatch.getId();
+            switch (reason) {
+                case NO_REQUIREMENTS:
+                    return delivery + " has no requirements";
+                case COOLING:
+                    return delivery + " requires cooling but drone doesn't have it";
+                case HEATING:
+                    return delivery + " requires heating but drone doesn't have it";
+                case MAX_COST:
+                    return "estimated cost for " + delivery + " exceeds maxCost " + dispatch.getRequirements().getMaxCost();
+                case NOT_AVAILABLE:
+                    return "drone not available at date/time " + dispatch.getDate() + " " + dispatch.getTime()
+                            + " for " + delivery;
+                default:
+                    break;
             }
         }
-        
-        return true;
+        return reason.name();
     }
     
     /**
-     * Check if a drone can handle a single dispatch (ignoring capacity AND maxCost)
-     * Used for multiple deliveries where maxCost will be checked after path calculation
+     * Check one dispatch of a batch, ignoring capacity (checked as a sum)
+     * maxCost is only estimated for a single dispatch
      */
-    private boolean canHandleDispatchIgnoringCapacityAndMaxCost(
+    private RejectionReason rejectDispatch(
             Drone drone,
             MedDispatchRec dispatch,
+            boolean single,
             List<DroneForServicePoint> dronesForServicePoints,
             List<ServicePoint> servicePoints) {
         
         if (dispatch == null || dispatch.getRequirements() == null) {
-            return false;
-        }
-        
-        // Check capability requirements (excluding capacity AND maxCost)
-        boolean meetsCapabilities = meetsCapabilityRequirementsIgnoringCapacityAndMaxCost(drone, dispatch.getRequirements(), dispatch, dronesForServicePoints, servicePoints);
-        if (!meetsCapabilities) {
-            return false;
+            return RejectionReason.NO_REQUIREMENTS;
         }
         
-        // Check date/time availability (if provided)
-        if (dispatch.getDate() != null && dispatch.getTime() != null) {
-            boolean isAvailable = isAvailableAtDateTime(drone, dispatch.getDate(), dispatch.getTime(), dronesForServicePoints);
-            if (!isAvailable) {
-                return false;
-            }
+        MedDispatchRequirements requirements = dispatch.getRequirements();
+        DroneCapability cap = drone.getCapability();
+        if (Boolean.TRUE.equals(requirements.getCooling()) && !Boolean.TRUE.equals(cap.getCooling())) {
+            return RejectionReason.COOLING;
         }
-        
-        return true;
-    }
-    
-    /**
-     * Check if drone meets capability requirements (excluding capacity, which is checked as sum)
-     */
-    private boolean meetsCapabilityRequirementsIgnoringCapacity(
-            Drone drone, 
-            MedDispatchRequirements requirements,
-            MedDispatchRec dispatch,
-            List<DroneForServicePoint> dronesForServicePoints,
-            List<ServicePoint> servicePoints) {
-        if (drone == null || drone.getCapability() == null || requirements == null) {
-            return false;
+        if (Boolean.TRUE.equals(requirements.getHeating()) && !Boolean.TRUE.equals(cap.getHeating())) {
+            return RejectionReason.HEATING;
         }
         
-        DroneCapability cap = drone.getCapability();
-        
-        // Capacity is checked separately in canHandleAllDispatches as sum
-        // Skip capacity check here
-        
-        // Check cooling 
-        if (Boolean.TRUE.equals(requirements.getCooling())) {
-            if (!Boolean.TRUE.equals(cap.getCooling())) {
-                return false;
-            }
+        // Estimate maxCost using Euclidean distance
+        if (single && requirements.getMaxCost() != null
+                && !meetsMaxCostRequirement(drone, dispatch, requirements.getMaxCost(), dronesForServicePoints, servicePoints)) {
+            return RejectionReason.MAX_COST;
         }
         
-        // Check heating 
-        if (Boolean.TRUE.equals(requirements.getHeating())) {
-            if (!Boolean.TRUE.equals(cap.getHeating())) {
-                return false;
-            }
+        // Check date/time availability (if provided)
+        if (dispatch.getDate() != null && dispatch.getTime() != null
+                && !isAvailableAtDateTime(drone, dispatch.getDate(), dispatch.getTime(), dronesForServicePoints)) {
+            return RejectionReason.NOT_AVAILABLE;
         }
-        
-        // Check maxCost estimate using Euclidean distance
-        // For single delivery, maxCost is checked here
-        // For multiple deliveries, maxCost is skipped (checked in calcDeliveryPath)
-        if (requirements.getMaxCost() != null) {
-            if (!meetsMaxCostRequirement(drone, dispatch, requirements.getMaxCost(), dronesForServicePoints, servicePoints)) {
-                return false;
+        return null;
+    }
+    
+    private static double totalCapacity(List<MedDispatchRec> dispatches) {
+        double total = 0;
+        for (MedDispatchRec dispatch : dispatches) {
+            if (dispatch != null && dispatch.getRequirements() != null && dispatch.getRequirements().getCapacity() != null) {
+                total += dispatch.getRequirements().getCapacity();
             }
         }
-        
-        return true;
+        return total;
     }
     
     /**
-     * Check if drone meets capability requirements (excluding capacity AND maxCost)
-     * Used for multiple deliveries where maxCost will be checked after path calculation
+     * True if one dispatch needs heating and another (or the same) needs cooling
+     * A drone can only provide one type of temperature control per flight
      */
-    private boolean meetsCapabilityRequirementsIgnoringCapacityAndMaxCost(
-            Drone drone, 
-            MedDispatchRequirements requirements,
-            MedDispatchRec dispatch,
-            List<DroneForServicePoint> dronesForServicePoints,
-            List<ServicePoint> servicePoints) {
-        if (drone == null || drone.getCapability() == null || requirements == null) {
-            return false;
-        }
-        
-        DroneCapability cap = drone.getCapability();
-        
-        // Capacity is checked separately in canHandleAllDispatches as sum
-        // Skip capacity check here
-        
-        // Check cooling 
-        if (Boolean.TRUE.equals(requirements.getCooling())) {
-            if (!Boolean.TRUE.equals(cap.getCooling())) {
-                return false;
-            }
-        }
-        
-        // Check heating 
-        if (Boolean.TRUE.equals(requirements.getHeating())) {
-            if (!Boolean.TRUE.equals(cap.getHeating())) {
-                return false;
+    private static boolean needsHeatingAndCooling(List<MedDispatchRec> dispatches) {
+        boolean heating = false;
+        boolean cooling = false;
+        for (MedDispatchRec dispatch : dispatches) {
+            if (dispatch != null && dispatch.getRequirements() != null) {
+                heating |= Boolean.TRUE.equals(dispatch.getRequirements().getHeating());
+                cooling |= Boolean.TRUE.equals(dispatch.getRequirements().getCooling());
             }
         }
-        
-        // Skip maxCost check for multiple deliveries
-        // maxCost will be checked in calcDeliveryPath after actual path calculation
-        
-        return true;
+        return heating && cooling;
     }
     
     /**
@@ -473,18 +431,39 @@ public class DroneAvailabilityService {
             return false;
         }
         
-        // Find service point for this drone
-        ServicePoint servicePoint = findServicePointForDrone(drone.getId(), servicePoints, dronesForServicePoints);
-        if (servicePoint == null || servicePoint.getLocation() == null) {
+        ServicePoint servicePoint = fleetIndexService.servicePoints(servicePoints, dronesForServicePoints)
+                .servicePointOf(drone.getId());
+        int estimatedMoves = estimatedMoves(servicePoint, dispatch.getDelivery());
+        if (estimatedMoves < 0) {
             return false; // Cannot estimate without service point
         }
         
+        // Calculate estimated cost
+        DroneCapability cap = drone.getCapability();
+        double costInitial = cap.getCostInitial() != null ? cap.getCostInitial() : 0.0;
+        double costPerMove = cap.getCostPerMove() != null ? cap.getCostPerMove() : 0.0;
+        double costFinal = cap.getCostFinal() != null ? cap.getCostFinal() : 0.0;
+        
+        double estimatedCost = costInitial + (costPerMove * estimatedMoves) + costFinal;
+        
+        // Check if estimated cost is within maxCost
+        return estimatedCost <= maxCost;
+    }
+    
+    /**
+     * Estimated moves for a delivery from the service point and back
+     * Uses Euclidean distance; -1 if the service point or delivery location is unknown
+     */
+    private int estimatedMoves(ServicePoint servicePoint, LngLat delivery) {
+        if (servicePoint == null || servicePoint.getLocation() == null || delivery == null) {
+            return -1;
+        }
+        
         // Get start and end locations
         LngLat start = new LngLat(servicePoint.getLocation().getLng(), servicePoint.getLocation().getLat());
-        LngLat end = dispatch.getDelivery();
         
         // Estimate distance (Euclidean)
-        double distance = distanceService.calculateDistance(start, end);
+        double distance = distanceService.calculateDistance(start, delivery);
         
         // Estimate moves: distance / step_size (round up)
         // Step size is 0.00015 (from PathfindingService)
@@ -496,46 +475,74 @@ public class DroneAvailabilityService {
         
         // Add 1 for return path (estimate same distance back)
         estimatedMoves += (int) Math.ceil(distance / stepSize);
-        
-        // Calculate estimated cost
-        DroneCapability cap = drone.getCapability();
-        double costInitial = cap.getCostInitial() != null ? cap.getCostInitial() : 0.0;
-        double costPerMove = cap.getCostPerMove() != null ? cap.getCostPerMove() : 0.0;
-        double costFinal = cap.getCostFinal() != null ? cap.getCostFinal() : 0.0;
-        
-        double estimatedCost = costInitial + (costPerMove * estimatedMoves) + costFinal;
-        
-        // Check if estimated cost is within maxCost
-        return estimatedCost <= maxCost;
+        return estimatedMoves;
     }
     
     /**
-     * Find service point for a drone
+     * Drones free during from-until on each of the given number of days starting at date
+     * A weekly schedule repeats, so at most seven days are checked. With overlap, a drone
+     * only needs to be free at some point of each day's window.
      */
-    private ServicePoint findServicePointForDrone(
+    public List<String> findDronesAvailableInWindow(
+            List<Drone> drones,
+            List<DroneForServicePoint> dronesForServicePoints,
+            LocalDate date,
+            LocalTime from,
+            LocalTime until,
+            int days,
+            boolean overlap) {
+        if (drones == null || date == null || from == null || until == null || from.isAfter(until) || days < 1) {
+            return new ArrayList<>();
+        }
+        
+        int[] starts = new int[Math.min(days, 7)];
+        int[] ends = new int[starts.length];
+        for (int day = 0; day < starts.length; day++) {
+            DayOfWeek dayOfWeek = date.plusDays(day).getDayOfWeek();
+            starts[day] = AvailabilityIndex.secondOfWeek(dayOfWeek, from);
+            ends[day] = AvailabilityIndex.secondOfWeek(dayOfWeek, until);
+        }
+        
+        AvailabilityIndex availability = availabilityIndex(dronesForServicePoints);
+        List<String> droneIds = new ArrayList<>();
+        for (Drone drone : drones) {
+            if (drone == null || drone.getId() == null) {
+                continue;
+            }
+            boolean free = true;
+            for (int day = 0; day < starts.length && free; day++) {
+                free = overlap
+                        ? availability.isAvailableDuring(drone.getId(), starts[day], ends[day])
+                        : availability.isAvailableThroughout(drone.getId(), starts[day], ends[day]);
+            }
+            if (free) {
+                droneIds.add(drone.getId());
+            }
+        }
+        return droneIds;
+    }
+    
+    /**
+     * Earliest availability of a drone at or after the given date and time, or null if it has no slots
+     * The slot may start on a later date, up to a week ahead
+     */
+    public AvailabilitySlot nextAvailableSlot(
             String droneId,
-            List<ServicePoint> servicePoints,
-            List<DroneForServicePoint> dronesForServicePoints) {
-        
-        if (dronesForServicePoints == null || servicePoints == null || droneId == null) {
+            List<DroneForServicePoint> dronesForServicePoints,
+            LocalDate date,
+            LocalTime time) {
+        if (droneId == null || date == null || time == null) {
             return null;
         }
-        
-        for (DroneForServicePoint sp : dronesForServicePoints) {
-            if (sp != null && sp.getDrones() != null) {
-                for (DroneAvailabilityInfo info : sp.getDrones()) {
-                    if (info != null && droneId.equals(info.getId())) {
-                        // Find the service point
-                        return servicePoints.stream()
-                                .filter(spoint -> spoint.getId().equals(sp.getServicePointId()))
-                                .findFirst()
-                                .orElse(null);
-                    }
-                }
-            }
+        AvailabilityIndex.Slot slot = availabilityIndex(dronesForServicePoints)
+                .nextAvailable(droneId, AvailabilityIndex.secondOfWeek(date.getDayOfWeek(), time));
+        if (slot == null) {
+            return null;
         }
-        
-        return null;
+        LocalDateTime weekStart = date.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY)).atStartOfDay();
+        return new AvailabilitySlot(droneId,
+                weekStart.plusSeconds(slot.from()).format(DateTimeFormatter.ISO_LOCAL_DATE_TIME),
+                weekStart.plusSeconds(slot.until()).format(DateTimeFormatter.ISO_LOCAL_DATE_TIME));
     }
     
     /**
@@ -552,113 +559,34 @@ public class DroneAvailabilityService {
     
     /**
      * Check if drone is available at specific date and time
-     * date is LocalDate, time is LocalTime
+     * Looks the drone up in the availability index of this dataset
      */
     private boolean isAvailableAtDateTime(
             Drone drone,
             String dateStr,
             String timeStr,
             List<DroneForServicePoint> dronesForServicePoints) {
-        
-        try {
-            // Parse date to get day of week
-            LocalDate date = LocalDate.parse(dateStr, DateTimeFormatter.ISO_LOCAL_DATE);
-            DayOfWeek dayOfWeek = date.getDayOfWeek();
-            String dayOfWeekStr = dayOfWeek.name(); // MONDAY, TUESDAY, etc.
-            
-            // Parse time
-            LocalTime time = parseTime(timeStr);
-            if (time == null) {
-                return false;
-            }
-            
-            // Find drone availability info
-            List<DroneAvailability> availability = getDroneAvailability(drone.getId(), dronesForServicePoints);
-            if (availability == null || availability.isEmpty()) {
-                return false; // No availability info = not available
-            }
-            
-            // Check if any availability slot matches
-            return availability.stream()
-                    .anyMatch(slot -> isTimeInSlot(slot, dayOfWeekStr, time));
-            
-        } catch (Exception e) {
-            // Invalid date/time format
+        if (drone == null) {
             return false;
         }
+        return availabilityIndex(dronesForServicePoints).isAvailable(drone.getId(), dateStr, timeStr);
     }
-    
-    /**
-     * Parse time string to LocalTime
-     * Handles both "14:30" and "14:30:00" formats
-     */
-    private LocalTime parseTime(String timeStr) {
-        if (timeStr == null || timeStr.trim().isEmpty()) {
-            return null;
-        }
-        
-        try {
-            // Try with seconds first
-            if (timeStr.length() >= 8) {
-                return LocalTime.parse(timeStr, DateTimeFormatter.ofPattern("HH:mm:ss"));
-            } else {
-                // Without seconds
-                return LocalTime.parse(timeStr, DateTimeFormatter.ofPattern("HH:mm"));
-            }
-        } catch (Exception e) {
-            return null;
-        }
-    }
-    
+
     /**
-     * Get availability slots for a drone
+     * Availability slots of every drone in this dataset, compiled once per dataset instance
      */
-    private List<DroneAvailability> getDroneAvailability(
-            String droneId,
-            List<DroneForServicePoint> dronesForServicePoints) {
-        
-        if (dronesForServicePoints == null || droneId == null) {
-            return null;
-        }
-        
-        for (DroneForServicePoint sp : dronesForServicePoints) {
-            if (sp != null && sp.getDrones() != null) {
-                for (DroneAvailabilityInfo info : sp.getDrones()) {
-                    if (info != null && droneId.equals(info.getId())) {
-                        return info.getAvailability();
-                    }
-                }
-            }
+    public AvailabilityIndex availabilityIndex(List<DroneForServicePoint> dronesForServicePoints) {
+        if (dronesForServicePoints == null) {
+            return AvailabilityIndex.EMPTY;
         }
-        
-        return null;
+        return availabilityIndexes.get(dronesForServicePoints);
     }
-    
+
     /**
-     * Check if time falls within availability slot
+     * Cache an index built while this dataset was read, so availabilityIndex() does not build it again
      */
-    private boolean isTimeInSlot(DroneAvailability slot, String dayOfWeek, LocalTime time) {
-        if (slot == null || slot.getDayOfWeek() == null) {
-            return false;
-        }
-        
-        // Check day of week matches (case-insensitive)
-        String slotDay = slot.getDayOfWeek();
-        if (!dayOfWeek.equalsIgnoreCase(slotDay)) {
-            return false;
-        }
-        
-        // Parse slot times
-        LocalTime fromTime = parseTime(slot.getFrom());
-        LocalTime untilTime = parseTime(slot.getUntil());
-        
-        if (fromTime == null || untilTime == null) {
-            return false;
-        }
-        
-        // Check if time is within slot
-        // from <= time <= until (both inclusive)
-        return !time.isBefore(fromTime) && !time.isAfter(untilTime);
+    public void preloadAvailabilityIndex(List<DroneForServicePoint> dronesForServicePoints, AvailabilityIndex index) {
+        availabilityIndexes.put(dronesForServicePoints, index);
     }
 }
 
@@ -0,0 +1,84 @@
+package uk.ac.ed.ilp.service;
+
+import org.springframework.stereotype.Service;
+import uk.ac.ed.ilp.index.CapabilityColumns;
+import uk.ac.ed.ilp.index.DroneIndex;
+import uk.ac.ed.ilp.index.DroneTable;
+import uk.ac.ed.ilp.index.ServicePointIndex;
+import uk.ac.ed.ilp.model.Drone;
+import uk.ac.ed.ilp.model.DroneForServicePoint;
+import uk.ac.ed.ilp.model.ServicePoint;
+import uk.ac.ed.ilp.snapshot.SnapshotScoped;
+
+import java.util.List;
+
+/**
+ * Drone and service point lookups shared by the planning services
+ * Each index is built once per dataset instance and reused by every service and request
+ * reading the same snapshot.
+ */
+@Service
+public class FleetIndexService {
+
+    private final SnapshotScoped<List<Drone>, DroneIndex> droneIndexes =
+            new SnapshotScoped<>(DroneIndex::build);
+    private final SnapshotScoped<List<Drone>, CapabilityColumns> capabilityColumns;
+    private final SnapshotScoped<List<Drone>, DroneTable> droneTables;
+    private final SnapshotScoped<SnapshotScoped.Sources<List<ServicePoint>, List<DroneForServicePoint>>, ServicePointIndex>
+            servicePointIndexes = new SnapshotScoped<>(sources -> ServicePointIndex.build(sources.first(), sources.second()));
+
+    public FleetIndexService() {
+        // The table reuses the cached columns of the same dataset rather than building its own
+        SnapshotScoped<List<Drone>, CapabilityColumns> columns = new SnapshotScoped<>(CapabilityColumns::build);
+        this.capabilityColumns = columns;
+        this.droneTables = new SnapshotScoped<>(drones -> DroneTable.build(columns.get(drones)));
+    }
+
+    /**
+     * Drones of this dataset by id
+     */
+    public DroneIndex drones(List<Drone> drones) {
+        if (drones == null) {
+            return DroneIndex.EMPTY;
+        }
+        return droneIndexes.get(drones);
+    }
+
+    /**
+     * Capabilities of this dataset's drones as columns, for filtering the whole fleet at once
+     */
+    public CapabilityColumns capabilities(List<Drone> drones) {
+        if (drones == null) {
+            return CapabilityColumns.EMPTY;
+        }
+        return capabilityColumns.get(drones);
+    }
+
+    /**
+     * Cache columns built while this dataset was read, so capabilities() does not build them again
+     */
+    public void preloadCapabilities(List<Drone> drones, CapabilityColumns columns) {
+        capabilityColumns.put(drones, columns);
+    }
+
+    /**
+     * This dataset's drones as a table with sorted indexes, for attribute queries
+     */
+    public DroneTable droneTable(List<Drone> drones) {
+        if (drones == null) {
+            return DroneTable.EMPTY;
+        }
+        return droneTables.get(drones);
+    }
+
+    /**
+     * Service points of these datasets by id and by the drones based there
+     */
+    public ServicePointIndex servicePoints(List<ServicePoint> servicePoints,
+                                           List<DroneForServicePoint> dronesForServicePoints) {
+        if (servicePoints == null && dronesForServicePoints == null) {
+            return ServicePointIndex.EMPTY;
+        }
+        return servicePointIndexes.get(new SnapshotScoped.Sources<>(servicePoints, dronesForServicePoints));
+    }
+}
@@ -1,32 +1,75 @@
 package uk.ac.ed.ilp.service;
 
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.beans.factory.annotation.Qualifier;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.exc.MismatchedInputException;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
 import org.springframework.stereotype.Service;
+import org.springframework.web.client.ResourceAccessException;
 import org.springframework.web.client.RestTemplate;
+import uk.ac.ed.ilp.http.RequestHedger;
 import uk.ac.ed.ilp.model.Drone;
 import uk.ac.ed.ilp.model.DroneForServicePoint;
 import uk.ac.ed.ilp.model.RestrictedArea;
 import uk.ac.ed.ilp.model.ServicePoint;
+import uk.ac.ed.ilp.snapshot.DatasetSink;
 
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
 
 /**
  * HTTP client service to fetch data from ILP REST service
- * Fetches fresh data on every call 
+ * Fetches fresh data on every call; request handlers read WorldSnapshotService instead
+ * Each fetch goes through RequestHedger, so an upstream stall is covered by a second request
+ * Concurrent callers for the same resource share one in-flight fetch (single flight);
+ * a call made after that fetch finishes starts a new one
+ *
+ * Requests are conditional: the ETag / Last-Modified of the last response for each endpoint
+ * is sent back, and a 304 returns the previous list. Without validators, a body whose
+ * SHA-256 matches the previous one is not deserialised again. Either way an unchanged
+ * dataset comes back as the same (read-only) list instance, which is how WorldSnapshot and
+ * SnapshotScoped caches tell that nothing derived from it needs rebuilding.
+ *
+ * A changed body is bound one element at a time (an ObjectReader driven over the array by a
+ * JsonParser), with the same ObjectMapper rules as binding the whole list. Each element is also passed to
+ * the DatasetSink given by the caller, which lets the streamed pipeline stages build
+ * their structures during the read.
  */
 @Service
 public class IlpRestClient {
 
     private final String ilpEndpoint;
     private final RestTemplate restTemplate;
+    private final RequestHedger requestHedger;
+    private final Map<String, CompletableFuture<List<?>>> inFlight = new ConcurrentHashMap<>();
+    private final Map<String, Validators> validators = new ConcurrentHashMap<>();
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
 
     @Autowired
-    public IlpRestClient(String ilpEndpoint) {
+    public IlpRestClient(String ilpEndpoint,
+                         @Qualifier("ilpRestTemplate") RestTemplate restTemplate,
+                         RequestHedger requestHedger) {
         this.ilpEndpoint = ilpEndpoint;
-        this.restTemplate = new RestTemplate();
+        this.restTemplate = restTemplate;
+        this.requestHedger = requestHedger;
     }
 
     /**
@@ -34,14 +77,14 @@ public class IlpRestClient {
      * Endpoint: /drones
      */
     public List<Drone> fetchDrones() {
-        String url = ilpEndpoint + "drones";
-        ResponseEntity<List<Drone>> response = restTemplate.exchange(
-                url,
-                HttpMethod.GET,
-                null,
-                new ParameterizedTypeReference<List<Drone>>() {}
-        );
-        return response.getBody();
+        return fetchDrones(null);
+    }
+
+    /**
+     * As fetchDrones(), passing each drone read to sink (may be null)
+     */
+    public List<Drone> fetchDrones(DatasetSink<Drone> sink) {
+        return fetch("drones", Drone.class, sink);
     }
 
     /**
@@ -49,14 +92,14 @@ public class IlpRestClient {
      * Endpoint: /service-points
      */
     public List<ServicePoint> fetchServicePoints() {
-        String url = ilpEndpoint + "service-points";
-        ResponseEntity<List<ServicePoint>> response = restTemplate.exchange(
-                url,
-                HttpMethod.GET,
-                null,
-                new ParameterizedTypeReference<List<ServicePoint>>() {}
-        );
-        return response.getBody();
+        return fetchServicePoints(null);
+    }
+
+    /**
+     * As fetchServicePoints(), passing each service point read to sink (may be null)
+     */
+    public List<ServicePoint> fetchServicePoints(DatasetSink<ServicePoint> sink) {
+        return fetch("service-points", ServicePoint.class, sink);
     }
 
     /**
@@ -64,14 +107,14 @@ public class IlpRestClient {
      * Endpoint: /restricted-areas
      */
     public List<RestrictedArea> fetchRestrictedAreas() {
-        String url = ilpEndpoint + "restricted-areas";
-        ResponseEntity<List<RestrictedArea>> response = restTemplate.exchange(
-                url,
-                HttpMethod.GET,
-                null,
-                new ParameterizedTypeReference<List<RestrictedArea>>() {}
-        );
-        return response.getBody();
+        return fetchRestrictedAreas(null);
+    }
+
+    /**
+     * As fetchRestrictedAreas(), passing each restricted area read to sink (may be null)
+     */
+    public List<RestrictedArea> fetchRestrictedAreas(DatasetSink<RestrictedArea> sink) {
+        return fetch("restricted-areas", RestrictedArea.class, sink);
     }
 
     /**
@@ -79,14 +122,139 @@ public class IlpRestClient {
      * Endpoint: /drones-for-service-points
      */
     public List<DroneForServicePoint> fetchDronesForServicePoints() {
-        String url = ilpEndpoint + "drones-for-service-points";
-        ResponseEntity<List<DroneForServicePoint>> response = restTemplate.exchange(
-                url,
-                HttpMethod.GET,
-                null,
-                new ParameterizedTypeReference<List<DroneForServicePoint>>() {}
-        );
-        return response.getBody();
+        return fetchDronesForServicePoints(null);
+    }
+
+    /**
+     * As fetchDronesForServicePoints(), passing each entry read to sink (may be null)
+     */
+    public List<DroneForServicePoint> fetchDronesForServicePoints(DatasetSink<DroneForServicePoint> sink) {
+        return fetch("drones-for-service-points", DroneForServicePoint.class, sink);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> List<T> fetch(String resource, Class<T> type, DatasetSink<T> sink) {
+        CompletableFuture<List<?>> mine = new CompletableFuture<>();
+        CompletableFuture<List<?>> leader = inFlight.putIfAbsent(resource, mine);
+        if (leader != null) {
+            return (List<T>) awaitShared(resource, leader);
+        }
+
+        try {
+            List<T> body = requestHedger.call(resource, () -> fetchIfChanged(resource, type, sink));
+            mine.complete(body);
+            return body;
+        } catch (RuntimeException | Error e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(resource, mine);
+        }
     }
-}
 
+    /**
+     * Conditional GET; returns the previous list if the server or the content hash says
+     * the dataset has not changed
+     */
+    @SuppressWarnings("unchecked")
+    private <T> List<T> fetchIfChanged(String resource, Class<T> type, DatasetSink<T> sink) throws IOException {
+        Validators previous = validators.get(resource);
+        HttpHeaders headers = new HttpHeaders();
+        if (previous != null) {
+            if (previous.etag() != null) {
+                headers.set(HttpHeaders.IF_NONE_MATCH, previous.etag());
+            }
+            if (previous.lastModified() != null) {
+                headers.set(HttpHeaders.IF_MODIFIED_SINCE, previous.lastModified());
+            }
+        }
+
+        ResponseEntity<byte[]> response = restTemplate.exchange(
+                ilpEndpoint + resource, HttpMethod.GET, new HttpEntity<>(headers), byte[].class);
+        if (previous != null && response.getStatusCode().isSameCodeAs(HttpStatus.NOT_MODIFIED)) {
+            return (List<T>) previous.body();
+        }
+
+        byte[] bytes = response.getBody();
+        byte[] hash = sha256(bytes == null ? new byte[0] : bytes);
+        List<?> body;
+        if (previous != null && Arrays.equals(previous.contentHash(), hash)) {
+            body = previous.body();
+        } else if (bytes == null || bytes.length == 0) {
+            body = null;
+        } else {
+            DatasetSink.Reading<T> reading = sink == null ? null : sink.open();
+            List<T> parsed = read(bytes, type, reading);
+            List<T> readOnly = parsed == null ? null : Collections.unmodifiableList(parsed);
+            if (reading != null && readOnly != null) {
+                reading.complete(readOnly);
+            }
+            body = readOnly;
+        }
+
+        HttpHeaders responseHeaders = response.getHeaders();
+        validators.put(resource, new Validators(responseHeaders.getETag(),
+                responseHeaders.getFirst(HttpHeaders.LAST_MODIFIED), hash, body));
+        return (List<T>) body;
+    }
+
+    /**
+     * Bind a JSON array one element at a time; null for a JSON null
+     */
+    private <T> List<T> read(byte[] bytes, Class<T> type, DatasetSink.Reading<T> reading) throws IOException {
+        try (JsonParser parser = objectMapper.createParser(bytes)) {
+            JsonToken first = parser.nextToken();
+            if (first == JsonToken.VALUE_NULL) {
+                return null;
+            }
+            if (first != JsonToken.START_ARRAY) {
+                throw MismatchedInputException.from(parser, List.class,
+                        "Expected a JSON array of " + type.getSimpleName() + " but got " + first);
+            }
+
+            ObjectReader reader = objectMapper.readerFor(type);
+            List<T> elements = new ArrayList<>();
+            JsonToken token;
+            while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+                if (token == null) {
+                    throw MismatchedInputException.from(parser, List.class, "Unexpected end of the JSON array");
+                }
+                // A null element stays null, as in a bound list (reading it as a root value would fail)
+                T element = token == JsonToken.VALUE_NULL ? null : reader.readValue(parser);
+                elements.add(element);
+                if (reading != null) {
+                    reading.add(element);
+                }
+            }
+            return elements;
+        }
+    }
+
+    private static byte[] sha256(byte[] bytes) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(bytes);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static List<?> awaitShared(String resource, CompletableFuture<List<?>> leader) {
+        try {
+            return leader.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new ResourceAccessException("ILP fetch failed: " + e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ResourceAccessException("Interrupted while waiting for " + resource);
+        }
+    }
+
+    /**
+     * What was learned from the last full response for one endpoint
+     */
+    private record Validators(String etag, String lastModified, byte[] contentHash, List<?> body) {
+    }
+}
@@ -1,14 +1,24 @@
 package uk.ac.ed.ilp.service;
 
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.stereotype.Service;
+import uk.ac.ed.ilp.geometry.ClearanceField;
+import uk.ac.ed.ilp.geometry.CompactPath;
+import uk.ac.ed.ilp.geometry.DistanceField;
+import uk.ac.ed.ilp.geometry.InflatedPolygon;
 import uk.ac.ed.ilp.model.LngLat;
 import uk.ac.ed.ilp.model.RestrictedArea;
+import uk.ac.ed.ilp.model.ServicePoint;
+import uk.ac.ed.ilp.snapshot.SnapshotScoped;
 
 import java.util.*;
+import java.util.function.BooleanSupplier;
 
 /**
  * Service for pathfinding between points
  * Implements A* (A-Star) algorithm with Euclidean heuristic
+ * Nodes expanded per search are recorded as ilp.pathfinding.expansions.
  */
 @Service
 public class PathfindingService {
@@ -19,33 +29,61 @@ public class PathfindingService {
         180.0, 202.5, 225.0, 247.5, 270.0, 292.5, 315.0, 337.5
     };
     private static final double SAFETY_BUFFER = 0.00005; // Safety margin around restricted areas
+    private static final int MAX_JUMP_STEPS = 16; // Longest macro-move taken in open airspace
+    private static final double JUMP_ROUNDING_MARGIN = 1e-9; // Run that exactly fills the clearance loses a step rather than touching the buffer
+    private static final double DISTANCE_FIELD_CELL = 2 * STEP_SIZE;
 
     private final PositionService positionService;
     private final DistanceService distanceService;
     private final RegionService regionService;
+    private final DistributionSummary expansions;
+    private final SnapshotScoped<List<RestrictedArea>, List<InflatedPolygon>> inflatedAreas =
+            new SnapshotScoped<>(areas -> InflatedPolygon.inflateAll(areas, SAFETY_BUFFER));
+    // Keyed on the inflated list, which is itself built once per restricted-area list
+    private final SnapshotScoped<List<InflatedPolygon>, ClearanceField> clearanceFields =
+            new SnapshotScoped<>(polygons -> ClearanceField.build(polygons, (MAX_JUMP_STEPS + 1) * STEP_SIZE, STEP_SIZE));
+    private final SnapshotScoped<SnapshotScoped.Sources<List<ServicePoint>, List<InflatedPolygon>>, Map<ServicePoint, DistanceField>>
+            distanceFields;
 
     public PathfindingService(PositionService positionService, 
                              DistanceService distanceService,
-                             RegionService regionService) {
+                             RegionService regionService,
+                             MeterRegistry registry) {
         this.positionService = positionService;
         this.distanceService = distanceService;
         this.regionService = regionService;
+        this.expansions = DistributionSummary.builder("ilp.pathfinding.expansions")
+                .description("Nodes expanded by one A* search")
+                .register(registry);
+        SnapshotScoped<List<InflatedPolygon>, ClearanceField> clearance = clearanceFields;
+        this.distanceFields = new SnapshotScoped<>(sources ->
+                buildDistanceFields(sources.first(), sources.second(), clearance.get(sources.second())));
     }
 
     /**
      * Node class for A* algorithm
+     * A node reached by a macro-move remembers its direction and step count
+     * so the run can be expanded back into single moves
      */
     private static class Node implements Comparable<Node> {
         LngLat position;
         Node parent;
         double gCost; // Cost from start (number of moves)
         double hCost; // Heuristic cost to end (Euclidean distance)
+        double angle; // Direction of the move that reached this node
+        int steps; // Number of STEP_SIZE moves from parent (1 for a normal move)
         
         public Node(LngLat position, Node parent, double gCost, double hCost) {
+            this(position, parent, gCost, hCost, 0.0, 1);
+        }
+
+        public Node(LngLat position, Node parent, double gCost, double hCost, double angle, int steps) {
             this.position = position;
             this.parent = parent;
             this.gCost = gCost;
             this.hCost = hCost;
+            this.angle = angle;
+            this.steps = steps;
         }
         
         public double getFCost() {
@@ -65,8 +103,27 @@ public class PathfindingService {
      * Returns list of LngLat coordinates representing the path
      */
     public List<LngLat> calculatePath(LngLat start, LngLat end, List<RestrictedArea> restrictedAreas) {
+        CompactPath path = calculateCompactPath(start, end, restrictedAreas);
+        return path == null ? List.of() : path.asList();
+    }
+
+    /**
+     * Calculate path from start to end using A* algorithm
+     * Returns the path as direction codes ending exactly on end, or null if no path was found
+     */
+    public CompactPath calculateCompactPath(LngLat start, LngLat end, List<RestrictedArea> restrictedAreas) {
+        return calculateCompactPath(start, end, restrictedAreas, () -> false);
+    }
+
+    /**
+     * As calculateCompactPath, but gives up (returning null) as soon as cancelled reports true
+     * The flag is checked before every expansion, so a search nobody needs any more stops
+     * instead of holding its pool thread until it finishes
+     */
+    public CompactPath calculateCompactPath(LngLat start, LngLat end, List<RestrictedArea> restrictedAreas,
+                                            BooleanSupplier cancelled) {
         if (start == null || end == null || !start.isValid() || !end.isValid()) {
-            return List.of();
+            return null;
         }
 
         PriorityQueue<Node> openSet = new PriorityQueue<>();
@@ -74,12 +131,16 @@ public class PathfindingService {
         
         // Initialize start node
         if (!isValidPosition(start, restrictedAreas)) {
-            return List.of();
+            return null;
         }
         if (!isValidPosition(end, restrictedAreas)) {
-            return List.of();
+            return null;
         }
 
+        // Buffered restricted areas and their clearance, built once per restricted-area dataset
+        List<InflatedPolygon> obstacles = inflatedRestrictedAreas(restrictedAreas);
+        ClearanceField clearance = clearanceFields.get(obstacles);
+
         // H cost must be in same units as G cost (moves)
         // distance / STEP_SIZE gives minimum moves required
         double startH = distanceService.calculateDistance(start, end) / STEP_SIZE;
@@ -92,25 +153,37 @@ public class PathfindingService {
         int exploredCount = 0;
         
         while (!openSet.isEmpty()) {
-            if (exploredCount++ > maxNodesExplored) {
-                // If we hit the limit, return empty (failed to find path within limits)
-                return List.of();
+            if (exploredCount++ > maxNodesExplored || cancelled.getAsBoolean()) {
+                // If we hit the limit (or nobody wants the result), return empty
+                expansions.record(exploredCount);
+                return null;
             }
             
             Node current = openSet.poll();
             
             // Check if reached destination
             if (distanceService.areClose(current.position, end)) {
+                expansions.record(exploredCount);
                 return reconstructPath(current, end);
             }
             
+            // Macro-moves: if nothing restricted lies within k steps, jump k steps at once.
+            // In open airspace the runs replace the single steps rather than adding to them
+            int jumpSteps = maxJumpSteps(current, clearance);
+            if (jumpSteps >= 2) {
+                for (double angle : COMPASS_DIRECTIONS) {
+                    addJumpNeighbor(current, angle, jumpSteps, end, openSet, gScoreMap);
+                }
+                continue;
+            }
+            
             // Explore neighbors (16 compass directions)
             for (double angle : COMPASS_DIRECTIONS) {
                 LngLat nextPos = positionService.calculateNextPosition(current.position, angle);
                 
                 // Check if valid position and valid segment (avoids restricted areas)
                 boolean isValidPos = isValidPosition(nextPos, restrictedAreas);
-                boolean isValidSeg = isValidPos && isValidPathSegment(current.position, nextPos, restrictedAreas);
+                boolean isValidSeg = isValidPos && isValidPathSegment(current.position, nextPos, obstacles);
                 
                 if (isValidSeg) {
                     
@@ -123,37 +196,85 @@ public class PathfindingService {
                         // H cost in moves
                         double hCost = distanceService.calculateDistance(nextPos, end) / STEP_SIZE;
                         // Standard A*
-                        Node neighbor = new Node(nextPos, current, newGCost, hCost);
+                        Node neighbor = new Node(nextPos, current, newGCost, hCost, angle, 1);
                         openSet.add(neighbor);
                     }
                 }
             }
         }
         
-        return List.of(); // No path found
+        expansions.record(exploredCount);
+        return null; // No path found
     }
-    
+
     /**
-     * Reconstruct path from end node back to start
+     * Number of steps a macro-move may take from this node in any direction
+     * The precomputed clearance (distance to the nearest buffered restricted area) bounds
+     * the run so that no intermediate move enters SAFETY_BUFFER, and the distance to the
+     * target bounds it so that the run can never pass through the goal area
      */
-    private List<LngLat> reconstructPath(Node endNode, LngLat target) {
-        List<LngLat> path = new ArrayList<>();
-        // Add the actual target point as the last point (to be precise)
-        path.add(target);
+    private int maxJumpSteps(Node current, ClearanceField clearance) {
+        int goalSteps = (int) Math.ceil(current.hCost - 1) - 1;
+        if (goalSteps < 2) {
+            return 0;
+        }
+        
+        double clear = clearance.clearance(current.position.getLng(), current.position.getLat());
+        int clearSteps = (int) Math.floor(clear / STEP_SIZE - JUMP_ROUNDING_MARGIN);
+        
+        return Math.min(MAX_JUMP_STEPS, Math.min(goalSteps, clearSteps));
+    }
+
+    /**
+     * Add the node reached by moving the given number of steps in one direction
+     * The end point is built by repeated single moves so it lies exactly on the lattice
+     */
+    private void addJumpNeighbor(Node current, double angle, int steps, LngLat end,
+                                 PriorityQueue<Node> openSet, Map<String, Double> gScoreMap) {
+        LngLat jumpPos = current.position;
+        for (int i = 0; i < steps; i++) {
+            jumpPos = positionService.calculateNextPosition(jumpPos, angle);
+        }
+        if (!jumpPos.isValid()) {
+            return;
+        }
         
+        double newGCost = current.gCost + steps;
+        String jumpPosKey = roundPosition(jumpPos);
+        if (!gScoreMap.containsKey(jumpPosKey) || newGCost < gScoreMap.get(jumpPosKey)) {
+            gScoreMap.put(jumpPosKey, newGCost);
+            double hCost = distanceService.calculateDistance(jumpPos, end) / STEP_SIZE;
+            openSet.add(new Node(jumpPos, current, newGCost, hCost, angle, steps));
+        }
+    }
+
+    /**
+     * Reconstruct path from end node back to start
+     * Macro-moves become runs of the same direction code; the last move snaps exactly onto the target
+     */
+    private CompactPath reconstructPath(Node endNode, LngLat target) {
         Node current = endNode;
         // Skip the first node if it's very close to target (avoid duplicates)
         if (distanceService.areClose(current.position, target)) {
             current = current.parent;
         }
+        if (current == null) {
+            return CompactPath.at(target);
+        }
         
-        while (current != null) {
-            path.add(current.position);
-            current = current.parent;
+        List<Node> nodes = new ArrayList<>();
+        for (Node node = current; node != null; node = node.parent) {
+            nodes.add(node);
         }
+        Collections.reverse(nodes);
         
-        Collections.reverse(path);
-        return path;
+        CompactPath.Builder path = CompactPath.builder(nodes.get(0).position);
+        for (int i = 1; i < nodes.size(); i++) {
+            Node node = nodes.get(i);
+            path.move(CompactPath.directionIndex(node.angle), node.steps);
+        }
+        // Add the actual target point as the last point (to be precise)
+        return path.anchor(target).build();
     }
     
     /**
@@ -191,95 +312,80 @@ public class PathfindingService {
     }
 
     /**
-     * Check if a path segment intersects with any restricted area
-     * Includes safety buffer
+     * Check if a path segment enters any restricted area or its safety buffer
      */
-    private boolean isValidPathSegment(LngLat start, LngLat end, List<RestrictedArea> restrictedAreas) {
+    private boolean isValidPathSegment(LngLat start, LngLat end, List<InflatedPolygon> obstacles) {
         if (start == null || end == null || !start.isValid() || !end.isValid()) {
             return false;
         }
 
-        if (restrictedAreas == null || restrictedAreas.isEmpty()) {
-            return true;
-        }
-
-        for (RestrictedArea area : restrictedAreas) {
-            if (area != null && area.getVertices() != null && !area.getVertices().isEmpty()) {
-                List<LngLat> vertices = area.getVertices();
-                
-                // Check segment intersection with polygon edges
-                for (int i = 0; i < vertices.size(); i++) {
-                    LngLat v1 = vertices.get(i);
-                    LngLat v2 = vertices.get((i + 1) % vertices.size());
-                    
-                    if (segmentsIntersect(start, end, v1, v2)) {
-                        return false;
-                    }
-                    
-                    if (distanceToSegment(start, end, v1, v2) < SAFETY_BUFFER) {
-                        return false;
-                    }
-                }
-                
-                // Check midpoints along segment to ensure we don't pass too close
-                // (Approximation for checking if segment is inside polygon)
-                int numChecks = 3;
-                for (int j = 1; j < numChecks; j++) {
-                    double t = j / (double) numChecks;
-                    LngLat checkPoint = new LngLat(
-                        start.getLng() + t * (end.getLng() - start.getLng()),
-                        start.getLat() + t * (end.getLat() - start.getLat())
-                    );
-                    
-                    if (regionService.contains(vertices, checkPoint)) {
-                        return false;
-                    }
-                }
+        for (InflatedPolygon polygon : obstacles) {
+            if (polygon.segmentBlocked(start.getLng(), start.getLat(), end.getLng(), end.getLat())) {
+                return false;
             }
         }
 
         return true;
     }
-    
-    // --- Geometric Helper Methods ---
 
-    private double distanceToSegment(LngLat p1, LngLat p2, LngLat a, LngLat b) {
-        if (segmentsIntersect(p1, p2, a, b)) return 0.0;
-        
-        double minDist = Double.MAX_VALUE;
-        minDist = Math.min(minDist, distanceToSegmentPoint(p1, a, b));
-        minDist = Math.min(minDist, distanceToSegmentPoint(p2, a, b));
-        minDist = Math.min(minDist, distanceToSegmentPoint(a, p1, p2));
-        minDist = Math.min(minDist, distanceToSegmentPoint(b, p1, p2));
-        return minDist;
+    /**
+     * Restricted areas grown by SAFETY_BUFFER
+     * Cached per restricted-area list, so repeated searches over the same data reuse them
+     */
+    public List<InflatedPolygon> inflatedRestrictedAreas(List<RestrictedArea> restrictedAreas) {
+        if (restrictedAreas == null) {
+            return List.of();
+        }
+        return inflatedAreas.get(restrictedAreas);
     }
-    
-    private double distanceToSegmentPoint(LngLat p, LngLat a, LngLat b) {
-        double dx = b.getLng() - a.getLng();
-        double dy = b.getLat() - a.getLat();
-        if (dx == 0 && dy == 0) return distanceService.calculateDistance(p, a);
-        
-        double px = p.getLng() - a.getLng();
-        double py = p.getLat() - a.getLat();
-        
-        double t = Math.max(0, Math.min(1, (px * dx + py * dy) / (dx * dx + dy * dy)));
-        LngLat closest = new LngLat(a.getLng() + t * dx, a.getLat() + t * dy);
-        return distanceService.calculateDistance(p, closest);
+
+    /**
+     * Builder growing restricted areas by SAFETY_BUFFER one at a time, as they are read
+     */
+    public InflatedPolygon.Builder inflatedAreasBuilder() {
+        return InflatedPolygon.builder(SAFETY_BUFFER);
     }
 
-    private boolean segmentsIntersect(LngLat p1, LngLat p2, LngLat p3, LngLat p4) {
-        double d1 = crossProduct(p3, p4, p1);
-        double d2 = crossProduct(p3, p4, p2);
-        double d3 = crossProduct(p1, p2, p3);
-        double d4 = crossProduct(p1, p2, p4);
-        
-        return ((d1 > 0 && d2 < 0) || (d1 < 0 && d2 > 0)) &&
-               ((d3 > 0 && d4 < 0) || (d3 < 0 && d4 > 0));
+    /**
+     * Cache areas grown while this dataset was read, so inflatedRestrictedAreas() does not grow them again
+     */
+    public void preloadInflatedRestrictedAreas(List<RestrictedArea> restrictedAreas, List<InflatedPolygon> inflated) {
+        inflatedAreas.put(restrictedAreas, inflated);
     }
 
-    private double crossProduct(LngLat a, LngLat b, LngLat c) {
-        return (b.getLng() - a.getLng()) * (c.getLat() - a.getLat()) -
-               (b.getLat() - a.getLat()) * (c.getLng() - a.getLng());
+    /**
+     * Clearance around the buffered restricted areas that sizes macro-moves
+     * Cached per restricted-area list like inflatedRestrictedAreas
+     */
+    public ClearanceField clearanceField(List<RestrictedArea> restrictedAreas) {
+        return clearanceFields.get(inflatedRestrictedAreas(restrictedAreas));
+    }
+
+    /**
+     * Flight distance field around the buffered restricted areas from each service point
+     * (by identity) that has a location; cached per pair of dataset instances
+     */
+    public Map<ServicePoint, DistanceField> servicePointDistances(List<ServicePoint> servicePoints,
+                                                                  List<RestrictedArea> restrictedAreas) {
+        if (servicePoints == null) {
+            return Map.of();
+        }
+        return distanceFields.get(new SnapshotScoped.Sources<>(servicePoints, inflatedRestrictedAreas(restrictedAreas)));
+    }
+
+    private static Map<ServicePoint, DistanceField> buildDistanceFields(List<ServicePoint> servicePoints,
+                                                                        List<InflatedPolygon> polygons,
+                                                                        ClearanceField clearance) {
+        Map<ServicePoint, DistanceField> fields = new IdentityHashMap<>();
+        for (ServicePoint servicePoint : servicePoints) {
+            if (servicePoint == null || servicePoint.getLocation() == null
+                    || servicePoint.getLocation().getLng() == null || servicePoint.getLocation().getLat() == null) {
+                continue;
+            }
+            fields.put(servicePoint, DistanceField.build(servicePoint.getLocation().getLng(),
+                    servicePoint.getLocation().getLat(), polygons, clearance, DISTANCE_FIELD_CELL));
+        }
+        return Collections.unmodifiableMap(fields);
     }
 
     public int countMoves(List<LngLat> path) {
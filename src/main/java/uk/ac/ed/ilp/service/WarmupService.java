@@ -0,0 +1,214 @@
+package uk.ac.ed.ilp.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import uk.ac.ed.ilp.model.LngLat;
+import uk.ac.ed.ilp.model.MedDispatchRec;
+import uk.ac.ed.ilp.model.MedDispatchRequirements;
+import uk.ac.ed.ilp.model.ServicePoint;
+import uk.ac.ed.ilp.snapshot.SnapshotPipeline;
+import uk.ac.ed.ilp.snapshot.WorldSnapshot;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Warms the service up after startup and holds readiness DOWN until it is done
+ * Loads the world snapshot, makes sure the pipeline's caches are filled for it, then runs a few
+ * synthetic path and delivery-path calculations so the hot code is JIT-compiled before
+ * real traffic arrives. Only part of the readiness health group (see application.yml and
+ * HealthConfig), so liveness and the root health are not held DOWN while it runs.
+ *
+ * If the snapshot cannot be loaded the warm-up is retried after a delay; the service
+ * stays out of rotation until it succeeds.
+ * Timings: ilp.warmup.duration (total) and ilp.warmup.stage (tagged by stage).
+ */
+@Service
+public class WarmupService implements HealthIndicator {
+
+    private static final Logger log = LoggerFactory.getLogger(WarmupService.class);
+
+    // Delivery points around each service point, about 10 moves away
+    private static final double[][] OFFSETS = {{0.0015, 0}, {0, 0.0015}, {-0.0015, 0}, {0, -0.0015}};
+
+    private final WorldSnapshotService worldSnapshotService;
+    private final PathfindingService pathfindingService;
+    private final DeliveryPathService deliveryPathService;
+    private final SnapshotPipeline pipeline;
+    private final MeterRegistry registry;
+    private final ScheduledExecutorService executor;
+    private final int iterations;
+    private final Duration retryDelay;
+
+    private volatile String stage = "pending";
+    private volatile Duration completedIn;
+
+    public WarmupService(WorldSnapshotService worldSnapshotService,
+                         PathfindingService pathfindingService,
+                         DeliveryPathService deliveryPathService,
+                         SnapshotPipeline pipeline,
+                         MeterRegistry registry,
+                         @Qualifier("warmupExecutor") ScheduledExecutorService executor,
+                         @Value("${ilp.warmup.iterations:5}") int iterations,
+                         @Value("${ilp.warmup.retry-delay:PT10S}") Duration retryDelay) {
+        this.worldSnapshotService = worldSnapshotService;
+        this.pathfindingService = pathfindingService;
+        this.deliveryPathService = deliveryPathService;
+        this.pipeline = pipeline;
+        this.registry = registry;
+        this.executor = executor;
+        this.iterations = iterations;
+        this.retryDelay = retryDelay;
+    }
+
+    /**
+     * Start the warm-up once the application has started
+     * Runs on its own thread, so refreshes are never queued behind it or its retries
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    void startWarmup() {
+        schedule(0);
+    }
+
+    @Override
+    public Health health() {
+        Duration duration = completedIn;
+        if (duration == null) {
+            return Health.down().withDetail("stage", stage).build();
+        }
+        return Health.up().withDetail("durationMs", duration.toMillis()).build();
+    }
+
+    public boolean isComplete() {
+        return completedIn != null;
+    }
+
+    /**
+     * Run all warm-up stages now; returns false (and stays not ready) if a stage failed
+     */
+    public boolean warmUp() {
+        long start = System.nanoTime();
+        try {
+            WorldSnapshot world = timed("snapshot", worldSnapshotService::current);
+            timed("derived", () -> {
+                SnapshotPipeline.Report report = pipeline.compile(world, null);
+                for (SnapshotPipeline.StageResult result : report.stages()) {
+                    if (result.failure() != null) {
+                        throw new IllegalStateException("Stage " + result.name() + " failed", result.failure());
+                    }
+                }
+                return null;
+            });
+            timed("pathfinding", () -> {
+                warmPathfinding(world);
+                return null;
+            });
+            timed("deliveryPath", () -> {
+                warmDeliveryPaths(world);
+                return null;
+            });
+        } catch (RuntimeException e) {
+            log.warn("Warm-up failed during {}: {}", stage, e.toString());
+            return false;
+        }
+
+        Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+        registry.timer("ilp.warmup.duration").record(elapsed);
+        stage = "complete";
+        completedIn = elapsed;
+        log.info("Warm-up complete in {} ms", elapsed.toMillis());
+        return true;
+    }
+
+    private void warmPathfinding(WorldSnapshot world) {
+        for (int i = 0; i < iterations; i++) {
+            for (ServicePoint servicePoint : servicePoints(world)) {
+                LngLat origin = location(servicePoint);
+                for (double[] offset : OFFSETS) {
+                    LngLat target = new LngLat(origin.getLng() + offset[0], origin.getLat() + offset[1]);
+                    pathfindingService.calculateCompactPath(origin, target, world.getRestrictedAreas());
+                }
+            }
+        }
+    }
+
+    private void warmDeliveryPaths(WorldSnapshot world) {
+        List<MedDispatchRec> dispatches = new ArrayList<>();
+        int id = 1;
+        for (ServicePoint servicePoint : servicePoints(world)) {
+            LngLat origin = location(servicePoint);
+            for (double[] offset : OFFSETS) {
+                dispatches.add(dispatch(id++, new LngLat(origin.getLng() + offset[0], origin.getLat() + offset[1])));
+            }
+        }
+        for (int i = 0; i < iterations; i++) {
+            for (MedDispatchRec dispatch : dispatches) {
+                deliveryPathService.calculateDeliveryPaths(List.of(dispatch),
+                        world.getDrones(), world.getServicePoints(),
+                        world.getDronesForServicePoints(), world.getRestrictedAreas());
+            }
+        }
+    }
+
+    private static List<ServicePoint> servicePoints(WorldSnapshot world) {
+        if (world.getServicePoints() == null) {
+            return List.of();
+        }
+        return world.getServicePoints().stream()
+                .filter(servicePoint -> servicePoint != null && servicePoint.getLocation() != null)
+                .toList();
+    }
+
+    private static LngLat location(ServicePoint servicePoint) {
+        return new LngLat(servicePoint.getLocation().getLng(), servicePoint.getLocation().getLat());
+    }
+
+    private static MedDispatchRec dispatch(int id, LngLat delivery) {
+        MedDispatchRequirements requirements = new MedDispatchRequirements();
+        requirements.setCapacity(1.0);
+        MedDispatchRec dispatch = new MedDispatchRec();
+        dispatch.setId(id);
+        dispatch.setDate(LocalDate.now().toString());
+        dispatch.setTime("12:00");
+        dispatch.setRequirements(requirements);
+        dispatch.setDelivery(delivery);
+        return dispatch;
+    }
+
+    private <T> T timed(String name, Supplier<T> body) {
+        stage = name;
+        Timer.Sample sample = Timer.start(registry);
+        try {
+            return body.get();
+        } finally {
+            sample.stop(registry.timer("ilp.warmup.stage", "stage", name));
+        }
+    }
+
+    private void schedule(long delayMillis) {
+        try {
+            executor.schedule(() -> {
+                if (!warmUp()) {
+                    schedule(retryDelay.toMillis());
+                }
+            }, delayMillis, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            // Shutting down
+        }
+    }
+}
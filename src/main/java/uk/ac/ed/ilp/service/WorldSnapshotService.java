@@ -0,0 +1,292 @@
+package uk.ac.ed.ilp.service;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.ResourceAccessException;
+import uk.ac.ed.ilp.model.Drone;
+import uk.ac.ed.ilp.model.DroneForServicePoint;
+import uk.ac.ed.ilp.model.RestrictedArea;
+import uk.ac.ed.ilp.model.ServicePoint;
+import uk.ac.ed.ilp.snapshot.SnapshotBundle;
+import uk.ac.ed.ilp.snapshot.SnapshotIngest;
+import uk.ac.ed.ilp.snapshot.SnapshotPipeline;
+import uk.ac.ed.ilp.snapshot.WorldDataset;
+import uk.ac.ed.ilp.snapshot.WorldSnapshot;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Holds the current ILP world snapshot and keeps it fresh in the background
+ * Requests read whatever snapshot is current (stale-while-revalidate): only the very first
+ * request waits for the ILP service, later ones never include a remote round trip.
+ * A refresh that fails leaves the previous snapshot in place.
+ *
+ * The four datasets are fetched concurrently on virtual threads under one shared deadline,
+ * so a refresh takes as long as the slowest endpoint rather than the sum of all four.
+ * Datasets the client reports unchanged carry over into the new snapshot as the same list.
+ *
+ * Offline mode: with a file:// ILP endpoint the snapshot is read from a SnapshotBundle
+ * instead, and every refresh re-reads that file. With ilp.snapshot.export-path set, each
+ * new snapshot is exported there, and on startup an existing export is served until the
+ * first live fetch succeeds, so a cold start does not wait on (or need) the ILP service.
+ *
+ * A new snapshot is only published once the SnapshotPipeline has filled the services'
+ * caches for it, so request handlers never build derived structures on the hot path.
+ */
+@Service
+public class WorldSnapshotService {
+
+    private static final Logger log = LoggerFactory.getLogger(WorldSnapshotService.class);
+
+    private final IlpRestClient ilpRestClient;
+    private final ScheduledExecutorService refreshExecutor;
+    private final Duration refreshInterval;
+    private final Duration fetchDeadline;
+    private final Path bundle;
+    private final Path exportPath;
+    private final SnapshotPipeline pipeline;
+    private final AtomicReference<WorldSnapshot> current = new AtomicReference<>();
+    private final AtomicBoolean refreshing = new AtomicBoolean();
+    private final AtomicLong versions = new AtomicLong();
+    private final Object initialLoadLock = new Object();
+
+    @Autowired
+    public WorldSnapshotService(IlpRestClient ilpRestClient,
+                                @Qualifier("snapshotRefreshExecutor") ScheduledExecutorService refreshExecutor,
+                                @Value("${ilp.snapshot.refresh-interval:PT5M}") Duration refreshInterval,
+                                @Value("${ilp.snapshot.fetch-deadline:PT30S}") Duration fetchDeadline,
+                                String ilpEndpoint,
+                                @Value("${ilp.snapshot.export-path:}") String exportPath,
+                                SnapshotPipeline pipeline) {
+        this.ilpRestClient = ilpRestClient;
+        this.refreshExecutor = refreshExecutor;
+        this.refreshInterval = refreshInterval;
+        this.fetchDeadline = fetchDeadline;
+        this.bundle = ilpEndpoint != null && ilpEndpoint.startsWith("file:") ? Path.of(URI.create(ilpEndpoint)) : null;
+        this.exportPath = exportPath == null || exportPath.isBlank() ? null : Path.of(exportPath);
+        this.pipeline = pipeline;
+    }
+
+    /**
+     * Live ILP service only: no bundle import or export, derived structures built on first use
+     */
+    public WorldSnapshotService(IlpRestClient ilpRestClient,
+                                ScheduledExecutorService refreshExecutor,
+                                Duration refreshInterval,
+                                Duration fetchDeadline) {
+        this(ilpRestClient, refreshExecutor, refreshInterval, fetchDeadline, null, null, null);
+    }
+
+    /**
+     * Load the first snapshot in the background and refresh it on a fixed delay
+     */
+    @PostConstruct
+    void startBackgroundRefresh() {
+        refreshExecutor.scheduleWithFixedDelay(this::refreshQuietly,
+                0, refreshInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Current snapshot
+     * Loads synchronously if none has been fetched yet (failures propagate to the caller);
+     * if the snapshot is older than the refresh interval it is still returned while a
+     * background refresh is started
+     */
+    public WorldSnapshot current() {
+        WorldSnapshot snapshot = current.get();
+        if (snapshot == null) {
+            return loadInitial();
+        }
+        if (snapshot.isOlderThan(refreshInterval, Instant.now())) {
+            revalidate();
+        }
+        return snapshot;
+    }
+
+    /**
+     * Fetch all four datasets now (or re-read the bundle) and publish them as a new snapshot
+     */
+    public WorldSnapshot refresh() {
+        long version = versions.incrementAndGet();
+        WorldSnapshot fetched = bundle != null ? readBundle(version) : fetchAll(version);
+        WorldSnapshot installed = install(fetched);
+        if (installed == fetched && exportPath != null) {
+            exportQuietly(installed, exportPath);
+        }
+        return installed;
+    }
+
+    private WorldSnapshot install(WorldSnapshot candidate) {
+        if (pipeline != null) {
+            SnapshotPipeline.Report report = pipeline.compile(candidate, current.get());
+            for (SnapshotPipeline.StageResult stage : report.stages()) {
+                if (stage.failure() != null) {
+                    log.warn("Could not precompute {} for snapshot version {}: {}",
+                            stage.name(), report.version(), stage.failure().toString());
+                }
+            }
+        }
+        // A slower refresh that started earlier must not replace a newer snapshot
+        return current.accumulateAndGet(candidate,
+                (existing, next) -> existing == null || next.getVersion() > existing.getVersion()
+                        ? next : existing);
+    }
+
+    private WorldSnapshot readBundle(long version) {
+        try {
+            WorldSnapshot loaded = SnapshotBundle.read(bundle);
+            return WorldSnapshot.next(current.get(), version, Instant.now(),
+                    loaded.getDrones(), loaded.getServicePoints(),
+                    loaded.getDronesForServicePoints(), loaded.getRestrictedAreas());
+        } catch (IOException e) {
+            throw new ResourceAccessException("Could not read snapshot bundle " + bundle + ": " + e.getMessage());
+        }
+    }
+
+    private void exportQuietly(WorldSnapshot snapshot, Path path) {
+        try {
+            SnapshotBundle.write(snapshot, path);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Could not export snapshot version {} to {}: {}", snapshot.getVersion(), path, e.getMessage());
+        }
+    }
+
+    /**
+     * Fetch the four datasets in parallel; if any fetch fails or the deadline passes,
+     * the others are cancelled and the failure is thrown
+     * With a pipeline, its streamed stages are fed each element as it is read
+     */
+    private WorldSnapshot fetchAll(long version) {
+        long deadlineNanos = System.nanoTime() + fetchDeadline.toNanos();
+        ExecutorService fetchers = Executors.newVirtualThreadPerTaskExecutor();
+        try {
+            // Without a pipeline there are no streamed stages to feed
+            SnapshotIngest ingest = pipeline == null ? null : pipeline.ingest();
+            Future<List<Drone>> drones = fetchers.submit(() -> ingest == null
+                    ? ilpRestClient.fetchDrones()
+                    : ilpRestClient.fetchDrones(ingest.sink(WorldDataset.DRONES)));
+            Future<List<ServicePoint>> servicePoints = fetchers.submit(() -> ingest == null
+                    ? ilpRestClient.fetchServicePoints()
+                    : ilpRestClient.fetchServicePoints(ingest.sink(WorldDataset.SERVICE_POINTS)));
+            Future<List<DroneForServicePoint>> dronesForServicePoints = fetchers.submit(() -> ingest == null
+                    ? ilpRestClient.fetchDronesForServicePoints()
+                    : ilpRestClient.fetchDronesForServicePoints(ingest.sink(WorldDataset.DRONES_FOR_SERVICE_POINTS)));
+            Future<List<RestrictedArea>> restrictedAreas = fetchers.submit(() -> ingest == null
+                    ? ilpRestClient.fetchRestrictedAreas()
+                    : ilpRestClient.fetchRestrictedAreas(ingest.sink(WorldDataset.RESTRICTED_AREAS)));
+
+            WorldSnapshot snapshot = WorldSnapshot.next(current.get(), version, Instant.now(),
+                    await(drones, deadlineNanos),
+                    await(servicePoints, deadlineNanos),
+                    await(dronesForServicePoints, deadlineNanos),
+                    await(restrictedAreas, deadlineNanos));
+            if (ingest != null) {
+                // Structures built during the reads go straight into their caches
+                ingest.preload(snapshot);
+            }
+            return snapshot;
+        } finally {
+            // Interrupts fetches still running after a failure; does not wait for them
+            fetchers.shutdownNow();
+        }
+    }
+
+    private <T> T await(Future<T> fetch, long deadlineNanos) {
+        try {
+            return fetch.get(Math.max(0, deadlineNanos - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new ResourceAccessException("ILP fetch failed: " + e.getCause());
+        } catch (TimeoutException e) {
+            throw new ResourceAccessException("ILP fetch did not finish within " + fetchDeadline);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ResourceAccessException("Interrupted while fetching ILP data");
+        }
+    }
+
+    private WorldSnapshot loadInitial() {
+        synchronized (initialLoadLock) {
+            WorldSnapshot snapshot = current.get();
+            if (snapshot != null) {
+                return snapshot;
+            }
+            WorldSnapshot seed = readExport();
+            return seed != null ? install(seed) : refresh();
+        }
+    }
+
+    /**
+     * Last exported snapshot, keeping its original fetch time so it is refreshed as soon as
+     * it is older than the refresh interval; null if there is none or it cannot be read
+     */
+    private WorldSnapshot readExport() {
+        if (bundle != null || exportPath == null || !Files.isRegularFile(exportPath)) {
+            return null;
+        }
+        try {
+            WorldSnapshot exported = SnapshotBundle.read(exportPath);
+            return WorldSnapshot.next(null, versions.incrementAndGet(), exported.getFetchedAt(),
+                    exported.getDrones(), exported.getServicePoints(),
+                    exported.getDronesForServicePoints(), exported.getRestrictedAreas());
+        } catch (IOException | RuntimeException e) {
+            log.warn("Ignoring unreadable snapshot export {}: {}", exportPath, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Start a background refresh unless one is already running
+     */
+    private void revalidate() {
+        if (!refreshing.get()) {
+            try {
+                refreshExecutor.execute(this::refreshQuietly);
+            } catch (RejectedExecutionException e) {
+                // Shutting down; keep serving the current snapshot
+            }
+        }
+    }
+
+    private void refreshQuietly() {
+        if (!refreshing.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            refresh();
+        } catch (RuntimeException e) {
+            log.warn("ILP snapshot refresh failed, keeping version {}: {}", currentVersion(), e.getMessage());
+        } finally {
+            refreshing.set(false);
+        }
+    }
+
+    private long currentVersion() {
+        WorldSnapshot snapshot = current.get();
+        return snapshot == null ? 0 : snapshot.getVersion();
+    }
+}
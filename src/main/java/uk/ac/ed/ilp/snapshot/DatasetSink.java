@@ -0,0 +1,32 @@
+package uk.ac.ed.ilp.snapshot;
+
+import java.util.List;
+
+/**
+ * Receives the elements of one dataset while it is being read, before the list exists
+ * Every read opens its own Reading, so concurrent reads of the same dataset (a hedged
+ * request) never share state.
+ *
+ * @param <E> element type of the dataset
+ */
+@FunctionalInterface
+public interface DatasetSink<E> {
+
+    Reading<E> open();
+
+    /**
+     * One read of the dataset
+     */
+    interface Reading<E> {
+
+        /**
+         * Next element, in payload order (null elements included)
+         */
+        void add(E element);
+
+        /**
+         * The read finished; dataset is the list it produced, holding the elements passed to add
+         */
+        void complete(List<E> dataset);
+    }
+}
@@ -0,0 +1,103 @@
+package uk.ac.ed.ilp.snapshot;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * One step of SnapshotPipeline: fills a SnapshotScoped cache for a new snapshot
+ * The built value lives in the owning service's cache, keyed on the dataset instances,
+ * which is also where request handlers read it; the stage only makes sure it is there
+ * before the snapshot is published. Declares the datasets it reads and the stages whose
+ * caches its own build reads, so the pipeline can order the stages.
+ *
+ * A streamed stage can also build its value from the elements of its one input dataset
+ * while IlpRestClient reads them (see SnapshotIngest); the warmer then finds it cached.
+ */
+public final class PipelineStage {
+
+    private final String name;
+    private final Set<WorldDataset> inputs;
+    private final List<PipelineStage> dependencies;
+    private final Consumer<WorldSnapshot> warmer;
+    private final Supplier<? extends StreamedBuild<?>> streamedBuilds;
+
+    private PipelineStage(String name, Set<WorldDataset> inputs, List<PipelineStage> dependencies,
+                          Consumer<WorldSnapshot> warmer, Supplier<? extends StreamedBuild<?>> streamedBuilds) {
+        this.name = name;
+        this.inputs = inputs.isEmpty() ? Set.of() : Set.copyOf(EnumSet.copyOf(inputs));
+        this.dependencies = List.copyOf(dependencies);
+        this.warmer = warmer;
+        this.streamedBuilds = streamedBuilds;
+    }
+
+    public static PipelineStage of(String name, Set<WorldDataset> inputs, Consumer<WorldSnapshot> warmer) {
+        return new PipelineStage(name, inputs, List.of(), warmer, null);
+    }
+
+    /**
+     * Stage whose build reads the caches filled by the given stages
+     */
+    public static PipelineStage of(String name, Set<WorldDataset> inputs, List<PipelineStage> dependencies,
+                                   Consumer<WorldSnapshot> warmer) {
+        return new PipelineStage(name, inputs, dependencies, warmer, null);
+    }
+
+    /**
+     * Stage that can also be built element by element while its input dataset is read
+     *
+     * @param builders new builder per read, fed each element of the dataset
+     * @param build    value of a builder that has seen the whole dataset
+     * @param preload  puts a streamed value in the owning cache, under the snapshot's dataset
+     * @param warmer   as for of(), used whenever no streamed value was preloaded
+     */
+    public static <E, B extends Consumer<E>, T> PipelineStage streamed(String name, WorldDataset input,
+                                                                       Supplier<B> builders, Function<B, T> build,
+                                                                       BiConsumer<List<E>, T> preload,
+                                                                       Consumer<WorldSnapshot> warmer) {
+        Supplier<StreamedBuild<E>> streamedBuilds = () -> {
+            B builder = builders.get();
+            return new StreamedBuild<>(builder, dataset -> preload.accept(dataset, build.apply(builder)));
+        };
+        return new PipelineStage(name, EnumSet.of(input), List.of(), warmer, streamedBuilds);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Set<WorldDataset> getInputs() {
+        return inputs;
+    }
+
+    public List<PipelineStage> getDependencies() {
+        return dependencies;
+    }
+
+    void run(WorldSnapshot snapshot) {
+        warmer.accept(snapshot);
+    }
+
+    boolean isStreamed() {
+        return streamedBuilds != null;
+    }
+
+    StreamedBuild<?> startStreamedBuild() {
+        return streamedBuilds.get();
+    }
+
+    /**
+     * One streamed build in progress: the builder being fed, and how its result is preloaded
+     */
+    record StreamedBuild<E>(Consumer<E> builder, Consumer<List<E>> preload) {
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
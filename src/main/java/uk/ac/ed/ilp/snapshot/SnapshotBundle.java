@@ -0,0 +1,163 @@
+package uk.ac.ed.ilp.snapshot;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import uk.ac.ed.ilp.model.Drone;
+import uk.ac.ed.ilp.model.DroneForServicePoint;
+import uk.ac.ed.ilp.model.RestrictedArea;
+import uk.ac.ed.ilp.model.ServicePoint;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * World snapshot saved to a single local file, for offline runs and fast cold starts
+ *
+ * Layout (big-endian): magic "ILPB", format version (int), snapshot version (long),
+ * fetchedAt epoch millis (long), then drones, service points, drones-for-service-points
+ * and restricted areas, each as a length (int, -1 for a missing dataset) followed by
+ * gzip-compressed JSON in the ILP service's own shape.
+ *
+ * Reading maps the file into memory and inflates each section straight from the mapping
+ * into the same databind mapping IlpRestClient uses. Writing goes to a temporary file that is then
+ * moved over the target, so a reader never sees a half-written bundle.
+ */
+public final class SnapshotBundle {
+
+    private static final int MAGIC = 0x494C5042; // "ILPB"
+    private static final int FORMAT_VERSION = 1;
+    private static final ObjectMapper JSON = Jackson2ObjectMapperBuilder.json().build();
+
+    private SnapshotBundle() {
+    }
+
+    /**
+     * Write the snapshot to path, replacing any existing bundle atomically
+     */
+    public static void write(WorldSnapshot snapshot, Path path) throws IOException {
+        Path target = path.toAbsolutePath();
+        Files.createDirectories(target.getParent());
+        Path temp = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+        try {
+            try (OutputStream out = new BufferedOutputStream(
+                    Files.newOutputStream(temp, StandardOpenOption.TRUNCATE_EXISTING))) {
+                write(snapshot, out);
+            }
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Write the snapshot in bundle format to a stream (left open)
+     */
+    public static void write(WorldSnapshot snapshot, OutputStream stream) throws IOException {
+        DataOutputStream out = new DataOutputStream(stream);
+        out.writeInt(MAGIC);
+        out.writeInt(FORMAT_VERSION);
+        out.writeLong(snapshot.getVersion());
+        out.writeLong(snapshot.getFetchedAt().toEpochMilli());
+        writeSection(out, snapshot.getDrones());
+        writeSection(out, snapshot.getServicePoints());
+        writeSection(out, snapshot.getDronesForServicePoints());
+        writeSection(out, snapshot.getRestrictedAreas());
+        out.flush();
+    }
+
+    /**
+     * Read a bundle; the snapshot keeps the version and fetch time it was written with
+     */
+    public static WorldSnapshot read(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.remaining() < 8 || buffer.getInt() != MAGIC) {
+                throw new IOException("Not an ILP snapshot bundle: " + path);
+            }
+            int format = buffer.getInt();
+            if (format != FORMAT_VERSION) {
+                throw new IOException("Unsupported snapshot bundle format " + format + ": " + path);
+            }
+            long version = buffer.getLong();
+            Instant fetchedAt = Instant.ofEpochMilli(buffer.getLong());
+            return WorldSnapshot.of(version, fetchedAt,
+                    readSection(buffer, new TypeReference<List<Drone>>() {}),
+                    readSection(buffer, new TypeReference<List<ServicePoint>>() {}),
+                    readSection(buffer, new TypeReference<List<DroneForServicePoint>>() {}),
+                    readSection(buffer, new TypeReference<List<RestrictedArea>>() {}));
+        } catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+            throw new IOException("Truncated snapshot bundle: " + path, e);
+        }
+    }
+
+    private static void writeSection(DataOutputStream out, List<?> dataset) throws IOException {
+        if (dataset == null) {
+            out.writeInt(-1);
+            return;
+        }
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (OutputStream gzip = new GZIPOutputStream(compressed)) {
+            JSON.writeValue(gzip, dataset);
+        }
+        out.writeInt(compressed.size());
+        compressed.writeTo(out);
+    }
+
+    /**
+     * Next section, deserialised as it is inflated (null for a missing dataset)
+     */
+    private static <T> List<T> readSection(ByteBuffer buffer, TypeReference<List<T>> type) throws IOException {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        ByteBuffer section = buffer.slice(buffer.position(), length);
+        buffer.position(buffer.position() + length);
+        try (InputStream in = new GZIPInputStream(new ByteBufferInputStream(section))) {
+            return JSON.readValue(in, type);
+        }
+    }
+
+    /**
+     * Reads a (mapped) buffer without copying it onto the heap first
+     */
+    private static final class ByteBufferInputStream extends InputStream {
+        private final ByteBuffer buffer;
+
+        ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) {
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            int count = Math.min(length, buffer.remaining());
+            buffer.get(bytes, offset, count);
+            return count;
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package uk.ac.ed.ilp.snapshot;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Streamed stage values built while one refresh reads its datasets
+ * IlpRestClient passes every element it binds to the sink of its dataset, so the streamed
+ * stages fill their structures in the same pass instead of walking the list again.
+ * Once the snapshot exists, preload() hands each value to its cache under the snapshot's
+ * copy of the dataset, and only for the read whose list the snapshot was made from.
+ *
+ * A builder that throws is dropped; its stage then builds from the snapshot as usual.
+ */
+public final class SnapshotIngest {
+
+    private final Map<WorldDataset, List<PipelineStage>> streamed = new EnumMap<>(WorldDataset.class);
+    private final Queue<Reading<?>> completed = new ConcurrentLinkedQueue<>();
+
+    SnapshotIngest(List<PipelineStage> stages) {
+        for (PipelineStage stage : stages) {
+            if (stage.isStreamed()) {
+                for (WorldDataset input : stage.getInputs()) {
+                    streamed.computeIfAbsent(input, ignored -> new ArrayList<>()).add(stage);
+                }
+            }
+        }
+    }
+
+    /**
+     * Sink for one dataset, or null if no stage is built from it while it is read
+     */
+    public <E> DatasetSink<E> sink(WorldDataset dataset) {
+        List<PipelineStage> stages = streamed.get(dataset);
+        if (stages == null) {
+            return null;
+        }
+        return () -> new Reading<>(dataset, stages);
+    }
+
+    /**
+     * Put the values built while reading the snapshot's datasets into their caches
+     */
+    public void preload(WorldSnapshot snapshot) {
+        Reading<?> reading;
+        while ((reading = completed.poll()) != null) {
+            if (reading.dataset != null && reading.dataset == snapshot.source(reading.input)) {
+                reading.preload(snapshot.dataset(reading.input));
+            }
+        }
+    }
+
+    private final class Reading<E> implements DatasetSink.Reading<E> {
+
+        private final WorldDataset input;
+        private final List<PipelineStage.StreamedBuild<E>> builds = new ArrayList<>();
+        private List<E> dataset;
+
+        @SuppressWarnings("unchecked")
+        Reading(WorldDataset input, List<PipelineStage> stages) {
+            this.input = input;
+            for (PipelineStage stage : stages) {
+                builds.add((PipelineStage.StreamedBuild<E>) stage.startStreamedBuild());
+            }
+        }
+
+        @Override
+        public void add(E element) {
+            for (int i = 0; i < builds.size(); i++) {
+                PipelineStage.StreamedBuild<E> build = builds.get(i);
+                if (build == null) {
+                    continue;
+                }
+                try {
+                    build.builder().accept(element);
+                } catch (RuntimeException e) {
+                    builds.set(i, null);
+                }
+            }
+        }
+
+        @Override
+        public void complete(List<E> dataset) {
+            this.dataset = dataset;
+            completed.add(this);
+        }
+
+        @SuppressWarnings("unchecked")
+        void preload(List<?> view) {
+            for (PipelineStage.StreamedBuild<E> build : builds) {
+                if (build == null) {
+                    continue;
+                }
+                try {
+                    build.preload().accept((List<E>) view);
+                } catch (RuntimeException e) {
+                    // Left to the stage's warmer
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package uk.ac.ed.ilp.snapshot;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
+/**
+ * Fills the SnapshotScoped caches for a new snapshot before it is published, so request
+ * handlers never pay for those builds
+ * Each stage starts as soon as the stages it depends on are done, so independent stages
+ * run in parallel on the executor (a ForkJoinPool in the application). A stage whose
+ * input datasets are the same instances as in the previous snapshot, and whose
+ * dependencies were carried over too, finds its value already cached and is reported reused.
+ *
+ * A failed stage (and anything depending on it) is left out and gets built on first use,
+ * so one broken structure does not hold back fresh data.
+ */
+public final class SnapshotPipeline {
+
+    private final List<PipelineStage> stages;
+    private final Executor executor;
+
+    /**
+     * @param stages stages to run; their dependencies run too even if not listed
+     */
+    public SnapshotPipeline(List<PipelineStage> stages, Executor executor) {
+        this.stages = List.copyOf(stages);
+        this.executor = executor;
+    }
+
+    public List<PipelineStage> getStages() {
+        return stages;
+    }
+
+    /**
+     * Sinks for one refresh's dataset reads, building the streamed stages as the data arrives
+     */
+    public SnapshotIngest ingest() {
+        return new SnapshotIngest(stages);
+    }
+
+    /**
+     * Outcome of one stage
+     */
+    public record StageResult(String name, Duration elapsed, boolean reused, Throwable failure) {
+    }
+
+    /**
+     * Outcome of compiling one snapshot
+     */
+    public record Report(long version, Duration elapsed, List<StageResult> stages) {
+
+        public boolean hasFailures() {
+            return stages.stream().anyMatch(stage -> stage.failure() != null);
+        }
+    }
+
+    /**
+     * Run every stage for next; previous (may be null) tells which stages are reused
+     * Blocks until all stages have finished
+     */
+    public Report compile(WorldSnapshot next, WorldSnapshot previous) {
+        long start = System.nanoTime();
+        Map<PipelineStage, CompletableFuture<Boolean>> scheduled = new IdentityHashMap<>();
+        List<CompletableFuture<?>> recorded = new ArrayList<>();
+        List<StageResult> results = Collections.synchronizedList(new ArrayList<>());
+        for (PipelineStage stage : stages) {
+            schedule(stage, next, previous, scheduled, recorded, results);
+        }
+
+        CompletableFuture.allOf(recorded.toArray(CompletableFuture[]::new))
+                .handle((ignored, failure) -> null)
+                .join();
+        return new Report(next.getVersion(), Duration.ofNanos(System.nanoTime() - start), List.copyOf(results));
+    }
+
+    /**
+     * Future completing with whether the stage's inputs were carried over from previous
+     */
+    private CompletableFuture<Boolean> schedule(PipelineStage stage, WorldSnapshot next, WorldSnapshot previous,
+                                                Map<PipelineStage, CompletableFuture<Boolean>> scheduled,
+                                                List<CompletableFuture<?>> recorded,
+                                                List<StageResult> results) {
+        CompletableFuture<Boolean> existing = scheduled.get(stage);
+        if (existing != null) {
+            return existing;
+        }
+
+        List<CompletableFuture<Boolean>> dependencies = new ArrayList<>();
+        for (PipelineStage dependency : stage.getDependencies()) {
+            dependencies.add(schedule(dependency, next, previous, scheduled, recorded, results));
+        }
+
+        CompletableFuture<Boolean> future = CompletableFuture
+                .allOf(dependencies.toArray(CompletableFuture[]::new))
+                .thenApplyAsync(ignored -> {
+                    long start = System.nanoTime();
+                    boolean dependenciesReused = dependencies.stream().allMatch(CompletableFuture::join);
+                    boolean reused = dependenciesReused && previous != null && sameInputs(stage, next, previous);
+                    // Run even when reused: a cache hit then, and a rebuild if the earlier build failed
+                    stage.run(next);
+                    results.add(new StageResult(stage.getName(), Duration.ofNanos(System.nanoTime() - start), reused, null));
+                    return reused;
+                }, executor);
+        recorded.add(future.whenComplete((reused, failure) -> {
+            if (failure != null) {
+                Throwable cause = failure instanceof CompletionException && failure.getCause() != null
+                        ? failure.getCause() : failure;
+                results.add(new StageResult(stage.getName(), Duration.ZERO, false, cause));
+            }
+        }));
+        scheduled.put(stage, future);
+        return future;
+    }
+
+    private static boolean sameInputs(PipelineStage stage, WorldSnapshot next, WorldSnapshot previous) {
+        for (WorldDataset input : stage.getInputs()) {
+            if (next.dataset(input) != previous.dataset(input)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,74 @@
+package uk.ac.ed.ilp.snapshot;
+
+import java.util.function.Function;
+
+/**
+ * A value derived from one dataset instance, rebuilt only when the instance changes
+ * ILP datasets are replaced wholesale rather than mutated, so identity of the
+ * source list is enough to tell whether the derived value is still current.
+ * The previous value is kept as well: while SnapshotPipeline builds for a new snapshot,
+ * requests still on the old one keep hitting the cache instead of evicting the new value.
+ * A value built from two datasets uses Sources as its source.
+ *
+ * @param <S> source dataset type
+ * @param <T> derived value type
+ */
+public final class SnapshotScoped<S, T> {
+
+    private final Function<S, T> builder;
+    private volatile Entries<S, T> entries;
+
+    public SnapshotScoped(Function<S, T> builder) {
+        this.builder = builder;
+    }
+
+    /**
+     * Derived value for this source, building it if the source is not one of the cached two
+     * Concurrent callers with a new source may both build; the last one wins
+     */
+    public T get(S source) {
+        Entries<S, T> cached = entries;
+        if (cached != null) {
+            if (sameSource(cached.latest.source, source)) {
+                return cached.latest.value;
+            }
+            if (cached.previous != null && sameSource(cached.previous.source, source)) {
+                return cached.previous.value;
+            }
+        }
+        T value = builder.apply(source);
+        entries = new Entries<>(new Entry<>(source, value), cached == null ? null : cached.latest);
+        return value;
+    }
+
+    /**
+     * Cache a value already built for this source elsewhere (e.g. while the dataset was read)
+     */
+    public void put(S source, T value) {
+        Entries<S, T> cached = entries;
+        Entry<S, T> previous = cached == null ? null
+                : sameSource(cached.latest.source, source) ? cached.previous : cached.latest;
+        entries = new Entries<>(new Entry<>(source, value), previous);
+    }
+
+    private static boolean sameSource(Object cached, Object source) {
+        return cached == source || cached instanceof Sources<?, ?> pair && pair.sameAs(source);
+    }
+
+    /**
+     * Two datasets used together as one source
+     * Matches another Sources holding the same two instances
+     */
+    public record Sources<A, B>(A first, B second) {
+
+        boolean sameAs(Object other) {
+            return other instanceof Sources<?, ?> pair && first == pair.first && second == pair.second;
+        }
+    }
+
+    private record Entry<S, T>(S source, T value) {
+    }
+
+    private record Entries<S, T>(Entry<S, T> latest, Entry<S, T> previous) {
+    }
+}
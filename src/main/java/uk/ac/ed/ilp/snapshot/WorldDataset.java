@@ -0,0 +1,11 @@
+package uk.ac.ed.ilp.snapshot;
+
+/**
+ * The four ILP datasets a world snapshot holds
+ */
+public enum WorldDataset {
+    DRONES,
+    SERVICE_POINTS,
+    DRONES_FOR_SERVICE_POINTS,
+    RESTRICTED_AREAS
+}
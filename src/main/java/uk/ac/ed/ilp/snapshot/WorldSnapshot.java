@@ -0,0 +1,139 @@
+package uk.ac.ed.ilp.snapshot;
+
+import uk.ac.ed.ilp.model.Drone;
+import uk.ac.ed.ilp.model.DroneForServicePoint;
+import uk.ac.ed.ilp.model.RestrictedArea;
+import uk.ac.ed.ilp.model.ServicePoint;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * One consistent copy of the four ILP datasets
+ * Immutable: a refresh builds a new snapshot with a higher version and swaps it in whole,
+ * so a request that reads one snapshot never mixes data from two fetches.
+ * The lists keep their identity for the life of the snapshot, which is what
+ * SnapshotScoped caches key on; a dataset the client reports unchanged keeps
+ * its identity into the next snapshot as well.
+ */
+public final class WorldSnapshot {
+
+    private final long version;
+    private final Instant fetchedAt;
+    private final Dataset<Drone> drones;
+    private final Dataset<ServicePoint> servicePoints;
+    private final Dataset<DroneForServicePoint> dronesForServicePoints;
+    private final Dataset<RestrictedArea> restrictedAreas;
+
+    private WorldSnapshot(long version, Instant fetchedAt,
+                          Dataset<Drone> drones,
+                          Dataset<ServicePoint> servicePoints,
+                          Dataset<DroneForServicePoint> dronesForServicePoints,
+                          Dataset<RestrictedArea> restrictedAreas) {
+        this.version = version;
+        this.fetchedAt = fetchedAt;
+        this.drones = drones;
+        this.servicePoints = servicePoints;
+        this.dronesForServicePoints = dronesForServicePoints;
+        this.restrictedAreas = restrictedAreas;
+    }
+
+    /**
+     * Snapshot holding read-only copies of the given lists (a missing list stays null)
+     */
+    public static WorldSnapshot of(long version, Instant fetchedAt,
+                                   List<Drone> drones,
+                                   List<ServicePoint> servicePoints,
+                                   List<DroneForServicePoint> dronesForServicePoints,
+                                   List<RestrictedArea> restrictedAreas) {
+        return next(null, version, fetchedAt, drones, servicePoints, dronesForServicePoints, restrictedAreas);
+    }
+
+    /**
+     * Snapshot following previous (which may be null)
+     * A dataset passed in as the same list instance the previous snapshot was built from
+     * keeps the previous read-only copy, so values derived from it stay valid
+     */
+    public static WorldSnapshot next(WorldSnapshot previous, long version, Instant fetchedAt,
+                                     List<Drone> drones,
+                                     List<ServicePoint> servicePoints,
+                                     List<DroneForServicePoint> dronesForServicePoints,
+                                     List<RestrictedArea> restrictedAreas) {
+        return new WorldSnapshot(version, fetchedAt,
+                Dataset.of(previous == null ? null : previous.drones, drones),
+                Dataset.of(previous == null ? null : previous.servicePoints, servicePoints),
+                Dataset.of(previous == null ? null : previous.dronesForServicePoints, dronesForServicePoints),
+                Dataset.of(previous == null ? null : previous.restrictedAreas, restrictedAreas));
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public Instant getFetchedAt() {
+        return fetchedAt;
+    }
+
+    public List<Drone> getDrones() {
+        return drones.view();
+    }
+
+    public List<ServicePoint> getServicePoints() {
+        return servicePoints.view();
+    }
+
+    public List<DroneForServicePoint> getDronesForServicePoints() {
+        return dronesForServicePoints.view();
+    }
+
+    public List<RestrictedArea> getRestrictedAreas() {
+        return restrictedAreas.view();
+    }
+
+    /**
+     * One of the four datasets by name
+     */
+    public List<?> dataset(WorldDataset dataset) {
+        return switch (dataset) {
+            case DRONES -> getDrones();
+            case SERVICE_POINTS -> getServicePoints();
+            case DRONES_FOR_SERVICE_POINTS -> getDronesForServicePoints();
+            case RESTRICTED_AREAS -> getRestrictedAreas();
+        };
+    }
+
+    /**
+     * List a dataset was copied from (the one the fetch returned)
+     */
+    List<?> source(WorldDataset dataset) {
+        return switch (dataset) {
+            case DRONES -> drones.source();
+            case SERVICE_POINTS -> servicePoints.source();
+            case DRONES_FOR_SERVICE_POINTS -> dronesForServicePoints.source();
+            case RESTRICTED_AREAS -> restrictedAreas.source();
+        };
+    }
+
+    /**
+     * True if the snapshot was fetched longer ago than maxAge
+     */
+    public boolean isOlderThan(Duration maxAge, Instant now) {
+        return fetchedAt.plus(maxAge).isBefore(now);
+    }
+
+    /**
+     * Read-only copy of a dataset together with the list it was copied from
+     */
+    private record Dataset<T>(List<T> source, List<T> view) {
+
+        static <T> Dataset<T> of(Dataset<T> previous, List<T> source) {
+            if (previous != null && source != null && previous.source == source) {
+                return previous;
+            }
+            return new Dataset<>(source, source == null ? null : Collections.unmodifiableList(new ArrayList<>(source)));
+        }
+    }
+}
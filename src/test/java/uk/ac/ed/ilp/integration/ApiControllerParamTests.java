@@ -1,5 +1,6 @@
 package uk.ac.ed.ilp.integration;
 
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.MethodSource;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -145,6 +146,15 @@ class ApiControllerParamTests {
         assertThat(resp.getStatusCode().value()).isEqualTo(tc.expectedStatus);
     }
 
+    // Warm-up gates readiness only; root health and liveness do not wait for it
+    @Test
+    void health_warmupOnlyInReadiness() {
+        String base = "http://localhost:" + port + "/actuator/health";
+        assertThat(rest.getForEntity(base, String.class).getBody()).doesNotContain("warmupService");
+        assertThat(rest.getForEntity(base + "/liveness", String.class).getBody()).doesNotContain("warmupService");
+        assertThat(rest.getForEntity(base + "/readiness", String.class).getBody()).contains("warmupService");
+    }
+
     private record TestCase(String path, int expectedStatus, String body) {
         static TestCase json(String path, int expectedStatus, String body) {
             return new TestCase(path, expectedStatus, body);
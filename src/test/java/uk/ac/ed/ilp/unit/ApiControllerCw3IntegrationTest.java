@@ -1,18 +1,24 @@
 package uk.ac.ed.ilp.unit;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.context.annotation.Import;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import uk.ac.ed.ilp.controller.ApiController;
+import uk.ac.ed.ilp.query.QueryResultCache;
 import uk.ac.ed.ilp.model.*;
 import uk.ac.ed.ilp.service.*;
+import uk.ac.ed.ilp.snapshot.WorldSnapshot;
 
+import java.time.Instant;
 import java.util.List;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -22,6 +28,7 @@ import static org.springframework.test.web.servlet.request.MockMvcRequestBuilder
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @WebMvcTest(ApiController.class)
+@Import({QueryResultCache.class, SimpleMeterRegistry.class})
 class ApiControllerCw3IntegrationTest {
 
     @Autowired
@@ -35,9 +42,22 @@ class ApiControllerCw3IntegrationTest {
     @MockBean private DroneQueryService droneQueryService;
     @MockBean private DroneAvailabilityService droneAvailabilityService;
     @MockBean private DeliveryPathService deliveryPathService;
+    @MockBean private WorldSnapshotService worldSnapshotService;
 
     private final ObjectMapper objectMapper = new ObjectMapper();
 
+    /**
+     * Serve each request a fresh snapshot built from the IlpRestClient stubs of the current test
+     */
+    @BeforeEach
+    void stubWorldSnapshot() {
+        when(worldSnapshotService.current()).thenAnswer(inv -> WorldSnapshot.of(1, Instant.now(),
+                ilpRestClient.fetchDrones(),
+                ilpRestClient.fetchServicePoints(),
+                ilpRestClient.fetchDronesForServicePoints(),
+                ilpRestClient.fetchRestrictedAreas()));
+    }
+
     @Test
     @DisplayName("POST /api/v1/calcDeliveryPath - returns 200 for non-empty dispatches")
     void calcDeliveryPath_happy() throws Exception {
@@ -1,25 +1,32 @@
 package uk.ac.ed.ilp.unit;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import uk.ac.ed.ilp.controller.ApiController;
+import uk.ac.ed.ilp.query.QueryPlan;
+import uk.ac.ed.ilp.query.QueryResultCache;
 import uk.ac.ed.ilp.model.LngLat;
 import uk.ac.ed.ilp.model.Region;
 import uk.ac.ed.ilp.model.requests.DistanceRequest;
 import uk.ac.ed.ilp.model.requests.IsInRegionSpecRequest;
 import uk.ac.ed.ilp.model.requests.NextPositionRequest;
+import uk.ac.ed.ilp.model.requests.QueryCondition;
 import uk.ac.ed.ilp.service.DistanceService;
 import uk.ac.ed.ilp.service.PositionService;
 import uk.ac.ed.ilp.service.RegionService;
 import uk.ac.ed.ilp.service.ValidationService;
 import uk.ac.ed.ilp.service.IlpRestClient;
 import uk.ac.ed.ilp.service.DroneQueryService;
+import uk.ac.ed.ilp.service.FleetIndexService;
 import uk.ac.ed.ilp.service.DroneAvailabilityService;
 import uk.ac.ed.ilp.service.DeliveryPathService;
+import uk.ac.ed.ilp.service.WorldSnapshotService;
 import uk.ac.ed.ilp.model.Drone;
 import uk.ac.ed.ilp.model.DroneForServicePoint;
 import uk.ac.ed.ilp.model.MedDispatchRec;
@@ -27,8 +34,10 @@ import uk.ac.ed.ilp.model.RestrictedArea;
 import uk.ac.ed.ilp.model.ServicePoint;
 import uk.ac.ed.ilp.model.DeliveryPathResponse;
 
+import java.time.Duration;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.*;
@@ -50,7 +59,11 @@ class ApiControllerMockitoTest {
 
     @BeforeEach
     void setup() {
-        apiController = new ApiController(regionService, distanceService, positionService, validationService, ilpRestClient, droneQueryService, droneAvailabilityService, deliveryPathService);
+        // Fresh snapshot holder per test: the first request loads from the ilpRestClient stubs
+        WorldSnapshotService worldSnapshotService = new WorldSnapshotService(
+                ilpRestClient, mock(ScheduledExecutorService.class), Duration.ofMinutes(5), Duration.ofSeconds(5));
+        apiController = new ApiController(regionService, distanceService, positionService, validationService, worldSnapshotService, droneQueryService, droneAvailabilityService, deliveryPathService,
+                new QueryResultCache(new SimpleMeterRegistry(), 16));
     }
 
     @Test
@@ -375,6 +388,25 @@ class ApiControllerMockitoTest {
         assertThat(resp.getBody()).isEmpty();
     }
 
+    @Test
+    @DisplayName("query: the plan compiled for the cache key is the one the service runs")
+    void query_compilesOnce() {
+        when(ilpRestClient.fetchDrones()).thenReturn(List.of(new Drone()));
+        when(droneQueryService.select(anyList(), any())).thenReturn(List.of("d1"));
+        QueryCondition condition = new QueryCondition();
+        condition.setAttribute("cooling");
+        condition.setOperator("=");
+        condition.setValue("true");
+
+        assertThat(apiController.query(List.of(condition)).getBody()).containsExactly("d1");
+        assertThat(apiController.dronesWithCooling(true).getBody()).containsExactly("d1");
+
+        // dronesWithCooling(true) is the same plan, so it is answered from the cache
+        ArgumentCaptor<QueryPlan> plan = ArgumentCaptor.forClass(QueryPlan.class);
+        verify(droneQueryService, times(1)).select(anyList(), plan.capture());
+        assertThat(plan.getValue().predicate()).isEqualTo(QueryPlan.compile(List.of(condition)).predicate());
+    }
+
     @Test
     @DisplayName("queryAvailableDrones: null dispatches returns empty list")
     void queryAvailableDrones_null() {
@@ -407,6 +439,10 @@ class ApiControllerMockitoTest {
         drone2.setCapability(cap2);
         
         when(ilpRestClient.fetchDrones()).thenReturn(List.of(drone1, drone2));
+        // Answered by the query service, through the same plan as the condition cooling = state
+        DroneQueryService queryService = new DroneQueryService(new FleetIndexService());
+        when(droneQueryService.select(anyList(), any())).thenAnswer(call ->
+                queryService.select(call.getArgument(0), call.getArgument(1)));
         
         var resp = apiController.dronesWithCooling(true);
         assertThat(resp.getStatusCode().value()).isEqualTo(200);
@@ -1,25 +1,38 @@
 package uk.ac.ed.ilp.unit;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.context.annotation.Import;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import uk.ac.ed.ilp.controller.ApiController;
+import uk.ac.ed.ilp.query.DroneAttribute;
+import uk.ac.ed.ilp.query.QueryResultCache;
 import uk.ac.ed.ilp.model.*;
 import uk.ac.ed.ilp.model.requests.QueryCondition;
 import uk.ac.ed.ilp.service.*;
+import uk.ac.ed.ilp.snapshot.WorldSnapshot;
 
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
 import java.util.List;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(ApiController.class)
+@Import({QueryResultCache.class, SimpleMeterRegistry.class})
 class ApiControllerQueryIntegrationTest {
 
     @Autowired
@@ -33,6 +46,19 @@ class ApiControllerQueryIntegrationTest {
     @MockBean private DroneQueryService droneQueryService;
     @MockBean private DroneAvailabilityService droneAvailabilityService;
     @MockBean private DeliveryPathService deliveryPathService;
+    @MockBean private WorldSnapshotService worldSnapshotService;
+
+    /**
+     * Serve each request a fresh snapshot built from the IlpRestClient stubs of the current test
+     */
+    @BeforeEach
+    void stubWorldSnapshot() {
+        when(worldSnapshotService.current()).thenAnswer(inv -> WorldSnapshot.of(1, Instant.now(),
+                ilpRestClient.fetchDrones(),
+                ilpRestClient.fetchServicePoints(),
+                ilpRestClient.fetchDronesForServicePoints(),
+                ilpRestClient.fetchRestrictedAreas()));
+    }
 
     @Test
     @DisplayName("POST /api/v1/queryAvailableDrones - happy path")
@@ -53,11 +79,38 @@ class ApiControllerQueryIntegrationTest {
                 .andExpect(status().isOk());
     }
 
+    @Test
+    @DisplayName("POST /api/v1/queryAvailableDronesMatrix - returns the service's matrix; empty body gives an empty matrix")
+    void queryAvailableDronesMatrix() throws Exception {
+        String body = """
+        [
+          { "id": 1, "requirements": { "capacity": 2.0 }, "delivery": { "lng": 0.0, "lat": 0.0 } },
+          { "id": 2, "requirements": { "capacity": 9.0 }, "delivery": { "lng": 0.0, "lat": 0.0 } }
+        ]
+        """;
+        when(ilpRestClient.fetchDrones()).thenReturn(List.of(new Drone()));
+        when(droneAvailabilityService.feasibilityMatrix(any(), any(), any(), any()))
+                .thenReturn(new FeasibilityMatrix(List.of(1, 2), List.of("d1", "d2"), List.of("11", "01")));
+
+        mockMvc.perform(post("/api/v1/queryAvailableDronesMatrix")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.droneIds[1]").value("d2"))
+                .andExpect(jsonPath("$.rows[1]").value("01"));
+
+        mockMvc.perform(post("/api/v1/queryAvailableDronesMatrix")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.rows").isEmpty());
+    }
+
     @Test
     @DisplayName("POST /api/v1/query - empty conditions returns 200 with empty array")
     void query_emptyConditions() throws Exception {
         when(ilpRestClient.fetchDrones()).thenReturn(List.of(new Drone()));
-        when(droneQueryService.queryByConditions(any(), any())).thenReturn(List.of());
+        when(droneQueryService.select(any(), any())).thenReturn(List.of());
 
         mockMvc.perform(post("/api/v1/query")
                         .contentType(MediaType.APPLICATION_JSON)
@@ -69,11 +122,68 @@ class ApiControllerQueryIntegrationTest {
     @DisplayName("POST /api/v1/query - malformed body returns 200 with empty array")
     void query_malformed() throws Exception {
         when(ilpRestClient.fetchDrones()).thenReturn(List.of(new Drone()));
-        when(droneQueryService.queryByConditions(any(), any())).thenReturn(List.of());
+        when(droneQueryService.select(any(), any())).thenReturn(List.of());
 
         mockMvc.perform(post("/api/v1/query")
                         .contentType(MediaType.APPLICATION_JSON)
                         .content("{ \"bad\": true }"))
                 .andExpect(status().isOk());
     }
+
+    @Test
+    @DisplayName("POST /api/v1/queryAvailabilityWindow - parses the window; invalid window returns 400")
+    void queryAvailabilityWindow() throws Exception {
+        when(ilpRestClient.fetchDrones()).thenReturn(List.of(new Drone()));
+        when(droneAvailabilityService.findDronesAvailableInWindow(any(), any(),
+                eq(LocalDate.of(2025, 1, 6)), eq(LocalTime.of(9, 0)), eq(LocalTime.of(13, 0)), eq(7), eq(false)))
+                .thenReturn(List.of("d1"));
+
+        mockMvc.perform(post("/api/v1/queryAvailabilityWindow")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{ \"date\": \"2025-01-06\", \"from\": \"09:00\", \"until\": \"13:00\", \"days\": 7 }"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0]").value("d1"));
+
+        mockMvc.perform(post("/api/v1/queryAvailabilityWindow")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{ \"date\": \"2025-01-06\", \"from\": \"13:00\", \"until\": \"09:00\" }"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("GET /api/v1/nextAvailableSlot/{id} - returns the slot; no slot returns 404")
+    void nextAvailableSlot() throws Exception {
+        when(droneAvailabilityService.nextAvailableSlot(eq("d1"), any(), any(), any()))
+                .thenReturn(new AvailabilitySlot("d1", "2025-01-06T09:00:00", "2025-01-06T17:00:00"));
+
+        mockMvc.perform(get("/api/v1/nextAvailableSlot/d1").param("date", "2025-01-06").param("time", "08:00"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.start").value("2025-01-06T09:00:00"));
+        mockMvc.perform(get("/api/v1/nextAvailableSlot/d2").param("date", "2025-01-06").param("time", "08:00"))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(get("/api/v1/nextAvailableSlot/d1").param("date", "Monday").param("time", "08:00"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("POST /api/v1/queryRanked - resolves orderBy; unknown or non-numeric orderBy returns 400")
+    void queryRanked() throws Exception {
+        when(ilpRestClient.fetchDrones()).thenReturn(List.of(new Drone()));
+        when(droneQueryService.queryRanked(any(), any(), eq(DroneAttribute.COST_PER_MOVE), eq(false), eq(5)))
+                .thenReturn(List.of("d3", "d1"));
+
+        mockMvc.perform(post("/api/v1/queryRanked")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                        { "conditions": [ { "attribute": "cooling", "operator": "=", "value": "true" } ],
+                          "orderBy": "costpermove", "limit": 5 }
+                        """))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0]").value("d3"));
+
+        mockMvc.perform(post("/api/v1/queryRanked")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{ \"orderBy\": \"name\" }"))
+                .andExpect(status().isBadRequest());
+    }
 }
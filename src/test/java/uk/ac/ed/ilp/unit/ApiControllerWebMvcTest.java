@@ -1,6 +1,8 @@
 package uk.ac.ed.ilp.unit;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.DisplayName;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -8,10 +10,12 @@ import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.CsvSource;
 import org.junit.jupiter.params.provider.MethodSource;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.context.annotation.Import;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import uk.ac.ed.ilp.controller.ApiController;
+import uk.ac.ed.ilp.query.QueryResultCache;
 import uk.ac.ed.ilp.model.LngLat;
 import uk.ac.ed.ilp.model.requests.DistanceRequest;
 import uk.ac.ed.ilp.service.DistanceService;
@@ -22,6 +26,10 @@ import uk.ac.ed.ilp.service.IlpRestClient;
 import uk.ac.ed.ilp.service.DroneQueryService;
 import uk.ac.ed.ilp.service.DroneAvailabilityService;
 import uk.ac.ed.ilp.service.DeliveryPathService;
+import uk.ac.ed.ilp.service.WorldSnapshotService;
+import uk.ac.ed.ilp.snapshot.WorldSnapshot;
+
+import java.time.Instant;
 
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyDouble;
@@ -36,6 +44,7 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
  * Tests HTTP layer without full Spring context
  */
 @WebMvcTest(ApiController.class)
+@Import({QueryResultCache.class, SimpleMeterRegistry.class})
 @DisplayName("ApiController WebMvc Tests")
 class ApiControllerWebMvcTest {
 
@@ -69,6 +78,21 @@ class ApiControllerWebMvcTest {
     @MockBean
     private DeliveryPathService deliveryPathService;
 
+    @MockBean
+    private WorldSnapshotService worldSnapshotService;
+
+    /**
+     * Serve each request a fresh snapshot built from the IlpRestClient stubs of the current test
+     */
+    @BeforeEach
+    void stubWorldSnapshot() {
+        when(worldSnapshotService.current()).thenAnswer(inv -> WorldSnapshot.of(1, Instant.now(),
+                ilpRestClient.fetchDrones(),
+                ilpRestClient.fetchServicePoints(),
+                ilpRestClient.fetchDronesForServicePoints(),
+                ilpRestClient.fetchRestrictedAreas()));
+    }
+
     // ========== UID ENDPOINT TESTS ==========
 
     @Test
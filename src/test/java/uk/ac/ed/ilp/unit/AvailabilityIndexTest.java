@@ -0,0 +1,147 @@
+package uk.ac.ed.ilp.unit;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import uk.ac.ed.ilp.index.AvailabilityIndex;
+import uk.ac.ed.ilp.model.DroneAvailability;
+import uk.ac.ed.ilp.model.DroneAvailabilityInfo;
+import uk.ac.ed.ilp.model.DroneForServicePoint;
+
+import java.time.DayOfWeek;
+import java.time.LocalTime;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AvailabilityIndexTest {
+
+    // 2025-01-06 is a Monday
+    private static final String MONDAY = "2025-01-06";
+    private static final String TUESDAY = "2025-01-07";
+
+    private static DroneAvailability slot(String day, String from, String until) {
+        DroneAvailability slot = new DroneAvailability();
+        slot.setDayOfWeek(day);
+        slot.setFrom(from);
+        slot.setUntil(until);
+        return slot;
+    }
+
+    private static DroneAvailabilityInfo info(String id, DroneAvailability... slots) {
+        DroneAvailabilityInfo info = new DroneAvailabilityInfo();
+        info.setId(id);
+        info.setAvailability(Arrays.asList(slots));
+        return info;
+    }
+
+    private static DroneForServicePoint servicePoint(int id, DroneAvailabilityInfo... drones) {
+        DroneForServicePoint servicePoint = new DroneForServicePoint();
+        servicePoint.setServicePointId(id);
+        servicePoint.setDrones(Arrays.asList(drones));
+        return servicePoint;
+    }
+
+    @Test
+    @DisplayName("isAvailable: both slot ends are inclusive to the second")
+    void isAvailable_inclusiveBounds() {
+        AvailabilityIndex index = AvailabilityIndex.build(List.of(
+                servicePoint(1, info("1", slot("MONDAY", "09:00:00", "17:00:00"), slot("monday", "20:00", "23:59:59")))));
+
+        assertThat(index.isAvailable("1", MONDAY, "09:00")).isTrue();
+        assertThat(index.isAvailable("1", MONDAY, "17:00:00")).isTrue();
+        assertThat(index.isAvailable("1", MONDAY, "17:00:01")).isFalse();
+        assertThat(index.isAvailable("1", MONDAY, "08:59:59")).isFalse();
+        assertThat(index.isAvailable("1", MONDAY, "23:59:59")).isTrue();
+        assertThat(index.isAvailable("1", TUESDAY, "10:00")).isFalse();
+    }
+
+    @Test
+    @DisplayName("build: overlapping and touching slots are merged")
+    void build_mergesSlots() {
+        AvailabilityIndex index = AvailabilityIndex.build(List.of(servicePoint(1, info("1",
+                slot("TUESDAY", "12:00:00", "23:59:59"),
+                slot("MONDAY", "10:00:00", "14:00:00"),
+                slot("MONDAY", "00:00:00", "11:00:00"),
+                slot("MONDAY", "14:00:01", "15:00:00")))));
+
+        assertThat(index.isAvailable("1", MONDAY, "10:30")).isTrue();
+        assertThat(index.isAvailable("1", MONDAY, "14:00:01")).isTrue();
+        assertThat(index.isAvailable("1", MONDAY, "15:00:01")).isFalse();
+        assertThat(index.isAvailable("1", TUESDAY, "11:59:59")).isFalse();
+        assertThat(index.isAvailable("1", TUESDAY, "12:00")).isTrue();
+    }
+
+    @Test
+    @DisplayName("build: invalid slots are ignored and a drone's first listing wins")
+    void build_invalidSlotsAndDuplicates() {
+        AvailabilityIndex index = AvailabilityIndex.build(Arrays.asList(
+                null,
+                servicePoint(1, info("1", slot("FUNDAY", "00:00", "23:59"), slot("MONDAY", "12:00", "10:00"),
+                        slot(null, "00:00", "23:59"), slot("MONDAY", "bad", "10:00"), null)),
+                servicePoint(2, info("1", slot("MONDAY", "00:00", "23:59")), info("2"))));
+
+        assertThat(index.isAvailable("1", MONDAY, "11:00")).isFalse();
+        assertThat(index.isAvailable("2", MONDAY, "11:00")).isFalse();
+        assertThat(index.isAvailable("unknown", MONDAY, "11:00")).isFalse();
+        assertThat(index.isAvailable(null, MONDAY, "11:00")).isFalse();
+    }
+
+    @Test
+    @DisplayName("secondOfWeek: Monday midnight is zero, invalid input is -1")
+    void secondOfWeek() {
+        assertThat(AvailabilityIndex.secondOfWeek(MONDAY, "00:00")).isZero();
+        assertThat(AvailabilityIndex.secondOfWeek("2025-01-12", "23:59:59"))
+                .isEqualTo(AvailabilityIndex.SECONDS_PER_WEEK - 1);
+        assertThat(AvailabilityIndex.secondOfWeek(DayOfWeek.TUESDAY, LocalTime.of(1, 0)))
+                .isEqualTo(AvailabilityIndex.SECONDS_PER_DAY + 3600);
+        assertThat(AvailabilityIndex.secondOfWeek("2025-13-01", "10:00")).isEqualTo(-1);
+        assertThat(AvailabilityIndex.secondOfWeek(MONDAY, "10")).isEqualTo(-1);
+        assertThat(AvailabilityIndex.secondOfWeek(null, "10:00")).isEqualTo(-1);
+    }
+
+    @Test
+    @DisplayName("range queries: containment needs one slot for the whole range, overlap any shared second")
+    void rangeQueries() {
+        AvailabilityIndex index = AvailabilityIndex.build(List.of(servicePoint(1, info("1",
+                slot("MONDAY", "09:00", "12:00"),
+                slot("MONDAY", "12:00:01", "13:00"),
+                slot("WEDNESDAY", "14:00", "18:00"),
+                slot("SUNDAY", "22:00", "23:59:59"),
+                slot("MONDAY", "00:00", "01:00")))));
+        int monday9 = AvailabilityIndex.secondOfWeek(MONDAY, "09:00");
+        int monday13 = AvailabilityIndex.secondOfWeek(MONDAY, "13:00");
+        int tuesday9 = AvailabilityIndex.secondOfWeek(TUESDAY, "09:00");
+        int tuesday13 = AvailabilityIndex.secondOfWeek(TUESDAY, "13:00");
+        int sunday23 = AvailabilityIndex.secondOfWeek("2025-01-12", "23:00");
+        int monday0030 = AvailabilityIndex.secondOfWeek(MONDAY, "00:30");
+
+        assertThat(index.isAvailableThroughout("1", monday9, monday13)).isTrue();
+        assertThat(index.isAvailableThroughout("1", monday9, monday13 + 1)).isFalse();
+        assertThat(index.isAvailableThroughout("1", monday9 - 1, monday13)).isFalse();
+        assertThat(index.isAvailableDuring("1", monday13, tuesday9)).isTrue();
+        assertThat(index.isAvailableDuring("1", monday13 + 1, tuesday13)).isFalse();
+        // Sunday night into Monday morning
+        assertThat(index.isAvailableThroughout("1", sunday23, monday0030)).isTrue();
+        assertThat(index.isAvailableThroughout("2", monday9, monday9)).isFalse();
+    }
+
+    @Test
+    @DisplayName("nextAvailable: rest of the current slot, else the next one, wrapping into next week")
+    void nextAvailable() {
+        AvailabilityIndex index = AvailabilityIndex.build(List.of(servicePoint(1,
+                info("1", slot("MONDAY", "09:00", "12:00"), slot("WEDNESDAY", "14:00", "18:00")), info("2"))));
+        int monday10 = AvailabilityIndex.secondOfWeek(MONDAY, "10:00");
+        int monday12 = AvailabilityIndex.secondOfWeek(MONDAY, "12:00");
+        int monday9 = AvailabilityIndex.secondOfWeek(MONDAY, "09:00");
+        int wednesday14 = AvailabilityIndex.secondOfWeek(DayOfWeek.WEDNESDAY, LocalTime.of(14, 0));
+        int wednesday18 = AvailabilityIndex.secondOfWeek(DayOfWeek.WEDNESDAY, LocalTime.of(18, 0));
+
+        assertThat(index.nextAvailable("1", monday10)).isEqualTo(new AvailabilityIndex.Slot(monday10, monday12));
+        assertThat(index.nextAvailable("1", monday12 + 1)).isEqualTo(new AvailabilityIndex.Slot(wednesday14, wednesday18));
+        assertThat(index.nextAvailable("1", wednesday18 + 1)).isEqualTo(new AvailabilityIndex.Slot(
+                monday9 + AvailabilityIndex.SECONDS_PER_WEEK, monday12 + AvailabilityIndex.SECONDS_PER_WEEK));
+        assertThat(index.nextAvailable("2", monday10)).isNull();
+        assertThat(index.nextAvailable("1", -1)).isNull();
+    }
+}
@@ -0,0 +1,83 @@
+package uk.ac.ed.ilp.unit;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import uk.ac.ed.ilp.index.BatchRequirements;
+import uk.ac.ed.ilp.index.CapabilityColumns;
+import uk.ac.ed.ilp.model.Drone;
+import uk.ac.ed.ilp.model.DroneCapability;
+import uk.ac.ed.ilp.model.MedDispatchRec;
+import uk.ac.ed.ilp.model.MedDispatchRequirements;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CapabilityColumnsTest {
+
+    private static Drone drone(String id, Double capacity, Boolean cooling, Boolean heating) {
+        DroneCapability capability = new DroneCapability();
+        capability.setCapacity(capacity);
+        capability.setCooling(cooling);
+        capability.setHeating(heating);
+        capability.setCostInitial(1.0);
+        capability.setCostPerMove(0.5);
+        Drone drone = new Drone();
+        drone.setId(id);
+        drone.setCapability(capability);
+        return drone;
+    }
+
+    private static MedDispatchRec dispatch(Double capacity, Boolean cooling, Boolean heating) {
+        MedDispatchRequirements requirements = new MedDispatchRequirements();
+        requirements.setCapacity(capacity);
+        requirements.setCooling(cooling);
+        requirements.setHeating(heating);
+        MedDispatchRec dispatch = new MedDispatchRec();
+        dispatch.setRequirements(requirements);
+        return dispatch;
+    }
+
+    private static List<String> ids(CapabilityColumns columns, BitSet rows) {
+        return rows.stream().mapToObj(columns::id).toList();
+    }
+
+    @Test
+    @DisplayName("matching: flags and capacity are checked across the fleet; missing values never match")
+    void matching() {
+        Drone noCapability = new Drone();
+        noCapability.setId("none");
+        CapabilityColumns columns = CapabilityColumns.build(Arrays.asList(
+                drone("cool", 4.0, true, null),
+                drone("both", 8.0, true, true),
+                null,
+                noCapability,
+                drone("unknown capacity", null, true, true)));
+
+        assertThat(columns.size()).isEqualTo(4);
+        assertThat(ids(columns, columns.matching(0, 0)))
+                .containsExactly("cool", "both", "unknown capacity");
+        assertThat(ids(columns, columns.matching(CapabilityColumns.COOLING, 5.0))).containsExactly("both");
+        assertThat(ids(columns, columns.matching(CapabilityColumns.COOLING | CapabilityColumns.HEATING, 0)))
+                .containsExactly("both", "unknown capacity");
+        assertThat(columns.maxMoves(3)).isEqualTo(-1);
+        assertThat(columns.estimatedCost(0, 10)).isEqualTo(6.0);
+    }
+
+    @Test
+    @DisplayName("BatchRequirements: one mask and a summed capacity; heating with cooling across dispatches fails")
+    void batchRequirements() {
+        BatchRequirements batch = BatchRequirements.compile(List.of(dispatch(1.5, true, null), dispatch(2.0, null, null)));
+
+        assertThat(batch.requiredFlags()).isEqualTo(CapabilityColumns.COOLING);
+        assertThat(batch.totalCapacity()).isEqualTo(3.5);
+        assertThat(batch.maxCost()).isNull();
+
+        assertThat(BatchRequirements.compile(List.of(dispatch(1.0, true, null), dispatch(1.0, null, true)))).isNull();
+        assertThat(BatchRequirements.compile(List.of(dispatch(1.0, true, true))).requiredFlags())
+                .isEqualTo(CapabilityColumns.COOLING | CapabilityColumns.HEATING);
+        assertThat(BatchRequirements.compile(List.of(new MedDispatchRec()))).isNull();
+    }
+}
@@ -0,0 +1,67 @@
+package uk.ac.ed.ilp.unit;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import uk.ac.ed.ilp.geometry.ClearanceField;
+import uk.ac.ed.ilp.geometry.InflatedPolygon;
+import uk.ac.ed.ilp.model.LngLat;
+import uk.ac.ed.ilp.model.RestrictedArea;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ClearanceFieldTest {
+
+    private static final double BUFFER = 0.00005;
+    private static final double RANGE = 0.0015;
+    private static final double CELL = 0.00015;
+
+    private static RestrictedArea area(double... lngLat) {
+        RestrictedArea area = new RestrictedArea();
+        List<LngLat> vertices = new ArrayList<>();
+        for (int i = 0; i < lngLat.length; i += 2) {
+            vertices.add(new LngLat(lngLat[i], lngLat[i + 1]));
+        }
+        area.setVertices(vertices);
+        return area;
+    }
+
+    @Test
+    @DisplayName("clearance: never above the true distance to a buffered area, and within a cell diagonal of it")
+    void clearance_boundsTrueDistance() {
+        List<InflatedPolygon> polygons = InflatedPolygon.inflateAll(List.of(
+                // L shape and a separate square
+                area(0.0, 0.0, 0.002, 0.0, 0.002, 0.001, 0.001, 0.001, 0.001, 0.002, 0.0, 0.002),
+                area(0.004, 0.0, 0.005, 0.0, 0.005, 0.001, 0.004, 0.001)), BUFFER);
+        ClearanceField field = ClearanceField.build(polygons, RANGE, CELL);
+
+        for (double x = -0.003; x <= 0.008; x += 0.00007) {
+            for (double y = -0.003; y <= 0.005; y += 0.00007) {
+                double exact = RANGE;
+                boolean blocked = false;
+                for (InflatedPolygon polygon : polygons) {
+                    exact = Math.min(exact, polygon.clearance(x, y));
+                    blocked |= polygon.segmentBlocked(x, y, x, y);
+                }
+                if (blocked) {
+                    continue;
+                }
+                assertThat(field.clearance(x, y)).as("at %s,%s", x, y).isLessThanOrEqualTo(exact);
+                assertThat(field.clearance(x, y)).as("at %s,%s", x, y).isGreaterThanOrEqualTo(exact - Math.sqrt(2) * CELL);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("clearance: off the grid and without areas the full range is clear")
+    void clearance_saturatesAtRange() {
+        ClearanceField field = ClearanceField.build(
+                InflatedPolygon.inflateAll(List.of(area(0.0, 0.0, 0.001, 0.0, 0.001, 0.001)), BUFFER), RANGE, CELL);
+
+        assertThat(field.clearance(1.0, 1.0)).isEqualTo(RANGE);
+        assertThat(field.clearance(-0.004, 0.0)).isEqualTo(RANGE);
+        assertThat(ClearanceField.build(List.of(), RANGE, CELL).clearance(0.0, 0.0)).isEqualTo(RANGE);
+    }
+}
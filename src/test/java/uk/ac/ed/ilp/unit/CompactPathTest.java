@@ -0,0 +1,87 @@
+package uk.ac.ed.ilp.unit;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import uk.ac.ed.ilp.geometry.CompactPath;
+import uk.ac.ed.ilp.model.LngLat;
+import uk.ac.ed.ilp.service.PositionService;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CompactPathTest {
+
+    private final PositionService positionService = new PositionService();
+
+    @Test
+    @DisplayName("asList: expanded points are identical to repeated PositionService moves")
+    void asList_matchesPositionService() {
+        LngLat start = new LngLat(-3.1869, 55.9445);
+        CompactPath.Builder builder = CompactPath.builder(start);
+        List<LngLat> expected = new ArrayList<>(List.of(start));
+        LngLat pos = start;
+        for (int d = 0; d < CompactPath.DIRECTIONS; d++) {
+            builder.move(d, 3);
+            for (int i = 0; i < 3; i++) {
+                pos = positionService.calculateNextPosition(pos, d * 22.5);
+                expected.add(pos);
+            }
+        }
+        CompactPath path = builder.build();
+
+        List<LngLat> points = path.asList();
+        assertThat(points).hasSize(expected.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertThat(points.get(i).getLng()).isEqualTo(expected.get(i).getLng());
+            assertThat(points.get(i).getLat()).isEqualTo(expected.get(i).getLat());
+        }
+        assertThat(path.end().getLng()).isEqualTo(pos.getLng());
+        assertThat(path.end().getLat()).isEqualTo(pos.getLat());
+    }
+
+    @Test
+    @DisplayName("concat/hover/anchor: legs join without repeating the shared point")
+    void concat_joinsLegs() {
+        LngLat a = new LngLat(0.0, 0.0);
+        LngLat target = new LngLat(0.00031, 0.00002);
+        CompactPath first = CompactPath.builder(a).move(0, 2).anchor(target).build().hover();
+        CompactPath back = CompactPath.builder(target).move(8).anchor(a).build();
+
+        CompactPath whole = first.concat(back);
+
+        assertThat(whole.moveCount()).isEqualTo(first.moveCount() + back.moveCount());
+        List<LngLat> points = whole.asList();
+        assertThat(points).hasSize(7);
+        assertThat(points.get(3).getLng()).isEqualTo(0.00031);
+        assertThat(points.get(4).getLng()).isEqualTo(0.00031); // hover
+        assertThat(points.get(6).getLng()).isEqualTo(0.0);
+        assertThat(whole.end().getLat()).isEqualTo(0.0);
+        assertThat(new ArrayList<>(points)).isEqualTo(points);
+    }
+
+    @Test
+    @DisplayName("fromPoints: compass steps and hovers take one byte, other moves become anchors")
+    void fromPoints_roundTrip() {
+        LngLat start = new LngLat(1.0, 1.0);
+        LngLat step = positionService.calculateNextPosition(start, 45.0);
+        List<LngLat> points = List.of(start, step, step, new LngLat(2.0, 2.0));
+
+        CompactPath path = CompactPath.fromPoints(points);
+
+        assertThat(path.moveCount()).isEqualTo(3);
+        assertThat(path.encodedBytes()).isEqualTo(3 + 2 * Double.BYTES);
+        assertThat(path.asList()).usingRecursiveFieldByFieldElementComparator().containsExactlyElementsOf(points);
+        assertThat(CompactPath.fromPoints(List.of())).isNull();
+    }
+
+    @Test
+    @DisplayName("encodedBytes: one byte per compass move")
+    void encodedBytes_oneBytePerMove() {
+        CompactPath path = CompactPath.builder(new LngLat(0.0, 0.0)).move(3, 1000).build();
+
+        assertThat(path.pointCount()).isEqualTo(1001);
+        assertThat(path.encodedBytes()).isEqualTo(1000);
+    }
+}
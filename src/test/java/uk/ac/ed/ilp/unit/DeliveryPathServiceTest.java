@@ -7,14 +7,19 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.mockito.junit.jupiter.MockitoSettings;
 import org.mockito.quality.Strictness;
+import uk.ac.ed.ilp.geometry.CompactPath;
 import uk.ac.ed.ilp.model.*;
 import uk.ac.ed.ilp.service.DeliveryPathService;
 import uk.ac.ed.ilp.service.DistanceService;
 import uk.ac.ed.ilp.service.DroneAvailabilityService;
+import uk.ac.ed.ilp.service.FleetIndexService;
 import uk.ac.ed.ilp.service.PathfindingService;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.BooleanSupplier;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
@@ -35,7 +40,8 @@ class DeliveryPathServiceTest {
 
     @org.junit.jupiter.api.BeforeEach
     void init() {
-        service = new DeliveryPathService(pathfindingService, droneAvailabilityService, distanceService);
+        service = new DeliveryPathService(pathfindingService, droneAvailabilityService, distanceService,
+                new FleetIndexService(), Runnable::run);
     }
 
     @Test
@@ -101,7 +107,7 @@ class DeliveryPathServiceTest {
         List<LngLat> path = new ArrayList<>();
         path.add(new LngLat(0.0, 0.0));
         path.add(new LngLat(0.01, 0.01));
-        when(pathfindingService.calculatePath(any(), any(), any())).thenReturn(path);
+        when(pathfindingService.calculateCompactPath(any(), any(), any(), any())).thenReturn(CompactPath.fromPoints(path));
         // Distance stub
         when(distanceService.calculateDistance(any(), any())).thenReturn(1.0);
         when(distanceService.areClose(any(), any())).thenReturn(true);
@@ -118,6 +124,120 @@ class DeliveryPathServiceTest {
         assertThat(resp.getTotalCost()).isGreaterThanOrEqualTo(0.0);
     }
 
+    @Test
+    @DisplayName("calculateDeliveryPaths: legs computed concurrently are stitched in visit order")
+    void calculateDeliveryPaths_concurrentLegsStitchedInOrder() {
+        MedDispatchRec far = new MedDispatchRec();
+        far.setId(1);
+        far.setDelivery(new LngLat(0.02, 0.0));
+        MedDispatchRec near = new MedDispatchRec();
+        near.setId(2);
+        near.setDelivery(new LngLat(0.01, 0.0));
+        List<MedDispatchRec> dispatches = List.of(far, near);
+
+        DroneCapability cap = new DroneCapability();
+        cap.setCapacity(5.0);
+        cap.setMaxMoves(1000);
+        cap.setCostPerMove(1.0);
+        Drone drone = new Drone();
+        drone.setId("d1");
+        drone.setCapability(cap);
+        List<Drone> drones = List.of(drone);
+
+        ServicePoint sp = new ServicePoint();
+        sp.setId(1);
+        LngLatAlt loc = new LngLatAlt();
+        loc.setLng(0.0); loc.setLat(0.0); loc.setAlt(0);
+        sp.setLocation(loc);
+        List<ServicePoint> sps = List.of(sp);
+
+        DroneAvailabilityInfo dai = new DroneAvailabilityInfo();
+        dai.setId("d1");
+        DroneForServicePoint dfsp = new DroneForServicePoint();
+        dfsp.setServicePointId(1);
+        dfsp.setDrones(List.of(dai));
+        List<DroneForServicePoint> dfspList = List.of(dfsp);
+
+        // Each leg is a straight two-point path from its start to its target
+        when(pathfindingService.calculateCompactPath(any(), any(), any(), any())).thenAnswer(inv ->
+                CompactPath.fromPoints(List.of((LngLat) inv.getArgument(0), (LngLat) inv.getArgument(1))));
+        when(distanceService.calculateDistance(any(), any())).thenAnswer(inv -> {
+            LngLat a = inv.getArgument(0);
+            LngLat b = inv.getArgument(1);
+            return Math.hypot(a.getLng() - b.getLng(), a.getLat() - b.getLat());
+        });
+        when(distanceService.areClose(any(), any())).thenReturn(true);
+        when(droneAvailabilityService.findAvailableDrones(dispatches, drones, dfspList, sps)).thenReturn(List.of("d1"));
+
+        ExecutorService pool = Executors.newFixedThreadPool(3);
+        try {
+            DeliveryPathService concurrent = new DeliveryPathService(
+                    pathfindingService, droneAvailabilityService, distanceService, new FleetIndexService(), pool);
+            DeliveryPathResponse resp = concurrent.calculateDeliveryPaths(dispatches, drones, sps, dfspList, List.of());
+
+            assertThat(resp.getDronePaths()).hasSize(1);
+            List<DeliveryPath> deliveries = resp.getDronePaths().get(0).getDeliveries();
+            assertThat(deliveries).extracting(DeliveryPath::getDeliveryId).containsExactly(2, 1);
+            // Each leg starts where the previous one ended (after the hover point)
+            assertThat(deliveries.get(0).getFlightPath().get(2).getLng()).isEqualTo(0.01);
+            assertThat(deliveries.get(1).getFlightPath().get(0).getLng()).isEqualTo(0.01);
+            List<LngLat> last = deliveries.get(1).getFlightPath();
+            assertThat(last.get(last.size() - 1).getLng()).isEqualTo(0.0);
+            assertThat(resp.getTotalMoves()).isEqualTo(5);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("calculateDeliveryPaths: an unreachable leg cancels the searches of the other legs")
+    void calculateDeliveryPaths_failedLegCancelsOthers() {
+        MedDispatchRec dispatch = new MedDispatchRec();
+        dispatch.setId(1);
+        MedDispatchRequirements req = new MedDispatchRequirements();
+        req.setCapacity(1.0);
+        dispatch.setRequirements(req);
+        dispatch.setDelivery(new LngLat(0.01, 0.0));
+        List<MedDispatchRec> dispatches = List.of(dispatch);
+
+        DroneCapability cap = new DroneCapability();
+        cap.setCapacity(5.0);
+        cap.setMaxMoves(1000);
+        Drone drone = new Drone();
+        drone.setId("d1");
+        drone.setCapability(cap);
+        List<Drone> drones = List.of(drone);
+
+        ServicePoint sp = new ServicePoint();
+        sp.setId(1);
+        LngLatAlt loc = new LngLatAlt();
+        loc.setLng(0.0); loc.setLat(0.0); loc.setAlt(0);
+        sp.setLocation(loc);
+        List<ServicePoint> sps = List.of(sp);
+
+        DroneAvailabilityInfo dai = new DroneAvailabilityInfo();
+        dai.setId("d1");
+        DroneForServicePoint dfsp = new DroneForServicePoint();
+        dfsp.setServicePointId(1);
+        dfsp.setDrones(List.of(dai));
+        List<DroneForServicePoint> dfspList = List.of(dfsp);
+
+        // The outbound leg is unreachable; every leg records the cancellation flag it was given
+        List<BooleanSupplier> flags = new ArrayList<>();
+        when(pathfindingService.calculateCompactPath(any(), any(), any(), any())).thenAnswer(inv -> {
+            flags.add(inv.getArgument(3));
+            LngLat to = inv.getArgument(1);
+            return to.getLng() == 0.01 ? null : CompactPath.fromPoints(List.of(new LngLat(0.01, 0.0), to));
+        });
+        when(distanceService.areClose(any(), any())).thenReturn(true);
+        when(droneAvailabilityService.findAvailableDrones(dispatches, drones, dfspList, sps)).thenReturn(List.of("d1"));
+
+        DeliveryPathResponse resp = service.calculateDeliveryPaths(dispatches, drones, sps, dfspList, List.of());
+
+        assertThat(resp.getDronePaths()).isEmpty();
+        assertThat(flags).isNotEmpty().allMatch(BooleanSupplier::getAsBoolean);
+    }
+
     @Test
     @DisplayName("calculateDeliveryPaths: no path found yields empty response")
     void calculateDeliveryPaths_noPath() {
@@ -152,7 +272,7 @@ class DeliveryPathServiceTest {
         List<DroneForServicePoint> dfspList = List.of(dfsp);
 
         // No path found
-        when(pathfindingService.calculatePath(any(), any(), any())).thenReturn(List.of());
+        when(pathfindingService.calculateCompactPath(any(), any(), any(), any())).thenReturn(CompactPath.fromPoints(List.of()));
         when(droneAvailabilityService.findAvailableDrones(dispatches, drones, dfspList, sps)).thenReturn(List.of("d1"));
         when(droneAvailabilityService.canDroneHandleDispatches(any(), any(), any(), any())).thenReturn(true);
 
@@ -197,7 +317,7 @@ class DeliveryPathServiceTest {
         // No available drones for all dispatches in single-drone phase
         when(droneAvailabilityService.findAvailableDrones(dispatches, drones, dfspList, sps)).thenReturn(List.of());
         // Multi-drone calculation will attempt and fail (pathfinding returns empty)
-        when(pathfindingService.calculatePath(any(), any(), any())).thenReturn(List.of());
+        when(pathfindingService.calculateCompactPath(any(), any(), any(), any())).thenReturn(CompactPath.fromPoints(List.of()));
         when(droneAvailabilityService.canDroneHandleDispatches(any(), any(), any(), any())).thenReturn(true);
 
         DeliveryPathResponse resp = service.calculateDeliveryPaths(dispatches, drones, sps, dfspList, List.of());
@@ -241,7 +361,7 @@ class DeliveryPathServiceTest {
 
         // Path longer than allowed moves
         List<LngLat> path = List.of(new LngLat(0.0, 0.0), new LngLat(1.0, 1.0), new LngLat(2.0, 2.0));
-        when(pathfindingService.calculatePath(any(), any(), any())).thenReturn(path);
+        when(pathfindingService.calculateCompactPath(any(), any(), any(), any())).thenReturn(CompactPath.fromPoints(path));
         when(distanceService.calculateDistance(any(), any())).thenReturn(1.0);
         when(droneAvailabilityService.findAvailableDrones(dispatches, drones, dfspList, sps)).thenReturn(List.of("d1"));
         when(droneAvailabilityService.canDroneHandleDispatches(any(), any(), any(), any())).thenReturn(true);
@@ -292,7 +412,7 @@ class DeliveryPathServiceTest {
 
         // Path exists but will be too expensive given cost settings
         List<LngLat> path = List.of(new LngLat(0.0, 0.0), new LngLat(1.0, 1.0));
-        when(pathfindingService.calculatePath(any(), any(), any())).thenReturn(path);
+        when(pathfindingService.calculateCompactPath(any(), any(), any(), any())).thenReturn(CompactPath.fromPoints(path));
         when(distanceService.calculateDistance(any(), any())).thenReturn(1.0);
         when(droneAvailabilityService.findAvailableDrones(dispatches, drones, dfspList, sps)).thenReturn(List.of("d1"));
         when(droneAvailabilityService.canDroneHandleDispatches(any(), any(), any(), any())).thenReturn(true);
@@ -347,7 +467,7 @@ class DeliveryPathServiceTest {
         ));
 
         // Pathfinding sees the restriction and returns empty
-        when(pathfindingService.calculatePath(any(), any(), any())).thenReturn(List.of());
+        when(pathfindingService.calculateCompactPath(any(), any(), any(), any())).thenReturn(CompactPath.fromPoints(List.of()));
         when(droneAvailabilityService.findAvailableDrones(dispatches, drones, dfspList, sps)).thenReturn(List.of("d1"));
         when(droneAvailabilityService.canDroneHandleDispatches(any(), any(), any(), any())).thenReturn(true);
         when(droneAvailabilityService.isDroneAvailableAtDateTime(any(), any(), any(), any())).thenReturn(true);
@@ -405,7 +525,7 @@ class DeliveryPathServiceTest {
         List<DroneForServicePoint> dfspList = List.of(dfsp);
 
         List<LngLat> path = List.of(new LngLat(0.0, 0.0), new LngLat(0.01, 0.01));
-        when(pathfindingService.calculatePath(any(), any(), any())).thenReturn(path);
+        when(pathfindingService.calculateCompactPath(any(), any(), any(), any())).thenReturn(CompactPath.fromPoints(path));
         when(distanceService.calculateDistance(any(), any())).thenReturn(1.0);
         when(droneAvailabilityService.findAvailableDrones(any(), any(), any(), any())).thenReturn(List.of("d1"));
         when(droneAvailabilityService.canDroneHandleDispatches(any(), any(), any(), any())).thenReturn(true);
@@ -519,7 +639,7 @@ class DeliveryPathServiceTest {
         List<LngLat> path2 = new ArrayList<>();
         path2.add(new LngLat(0.0, 0.0));
         path2.add(new LngLat(0.02, 0.02));
-        when(pathfindingService.calculatePath(any(), any(), any())).thenReturn(path1, path2);
+        when(pathfindingService.calculateCompactPath(any(), any(), any(), any())).thenReturn(CompactPath.fromPoints(path1), CompactPath.fromPoints(path2));
         when(distanceService.calculateDistance(any(), any())).thenReturn(1.0);
         when(distanceService.areClose(any(), any())).thenReturn(true);
         when(droneAvailabilityService.findAvailableDrones(any(), any(), any(), any())).thenReturn(List.of());
@@ -569,7 +689,7 @@ class DeliveryPathServiceTest {
         List<LngLat> path = new ArrayList<>();
         path.add(new LngLat(0.0, 0.0));
         path.add(new LngLat(0.01, 0.01));
-        when(pathfindingService.calculatePath(any(), any(), any())).thenReturn(path);
+        when(pathfindingService.calculateCompactPath(any(), any(), any(), any())).thenReturn(CompactPath.fromPoints(path));
         when(distanceService.calculateDistance(any(), any())).thenReturn(1.0);
         when(distanceService.areClose(any(), any())).thenReturn(true);
         when(droneAvailabilityService.findAvailableDrones(any(), any(), any(), any())).thenReturn(List.of("d1"));
@@ -0,0 +1,72 @@
+package uk.ac.ed.ilp.unit;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import uk.ac.ed.ilp.geometry.ClearanceField;
+import uk.ac.ed.ilp.geometry.DistanceField;
+import uk.ac.ed.ilp.geometry.InflatedPolygon;
+import uk.ac.ed.ilp.model.LngLat;
+import uk.ac.ed.ilp.model.RestrictedArea;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class DistanceFieldTest {
+
+    private static final double BUFFER = 0.00005;
+    private static final double CELL = 0.0003;
+
+    private static RestrictedArea area(double... lngLat) {
+        RestrictedArea area = new RestrictedArea();
+        List<LngLat> vertices = new ArrayList<>();
+        for (int i = 0; i < lngLat.length; i += 2) {
+            vertices.add(new LngLat(lngLat[i], lngLat[i + 1]));
+        }
+        area.setVertices(vertices);
+        return area;
+    }
+
+    private static DistanceField field(RestrictedArea... areas) {
+        List<InflatedPolygon> polygons = InflatedPolygon.inflateAll(List.of(areas), BUFFER);
+        return DistanceField.build(0, 0, polygons, ClearanceField.build(polygons, 0.0015, 0.00015), CELL);
+    }
+
+    // Thin wall between the origin and x = 0.002
+    private static final RestrictedArea WALL = area(0.001, -0.002, 0.0011, -0.002, 0.0011, 0.002, 0.001, 0.002);
+
+    @Test
+    @DisplayName("distance: straight-line distance where the origin sees the point")
+    void distance_directWhenInSight() {
+        assertThat(field().distance(0.003, -0.004)).isEqualTo(Math.hypot(0.003, -0.004));
+        assertThat(field().cellCount()).isZero();
+
+        DistanceField walled = field(WALL);
+        assertThat(walled.cellCount()).isPositive();
+        assertThat(walled.distance(-0.002, 0.001)).isEqualTo(Math.hypot(-0.002, 0.001));
+        assertThat(walled.distance(0.002, 0.005)).isEqualTo(Math.hypot(0.002, 0.005));
+    }
+
+    @Test
+    @DisplayName("distance: behind an area the route goes around it, within a few percent of the shortest")
+    void distance_aroundArea() {
+        // Shortest route passes just outside the buffered top corners of the wall
+        double around = Math.hypot(0.001 - BUFFER, 0.002 + BUFFER) + (0.0001 + 2 * BUFFER)
+                + Math.hypot(0.002 - 0.0011 - BUFFER, 0.002 + BUFFER);
+
+        double distance = field(WALL).distance(0.002, 0);
+
+        assertThat(distance).isGreaterThanOrEqualTo(around * 0.999);
+        assertThat(distance).isLessThanOrEqualTo(around * 1.1);
+    }
+
+    @Test
+    @DisplayName("distance: falls back to the straight line for a point the grid cannot reach")
+    void distance_unreachableFallsBack() {
+        RestrictedArea block = area(0.001, -0.001, 0.003, -0.001, 0.003, 0.001, 0.001, 0.001);
+
+        assertThat(field(block).distance(0.002, 0)).isCloseTo(0.002, within(1e-12));
+    }
+}
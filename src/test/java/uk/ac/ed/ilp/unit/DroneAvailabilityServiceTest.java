@@ -5,14 +5,19 @@ import org.junit.jupiter.api.Test;
 import uk.ac.ed.ilp.model.*;
 import uk.ac.ed.ilp.service.DistanceService;
 import uk.ac.ed.ilp.service.DroneAvailabilityService;
+import uk.ac.ed.ilp.service.FleetIndexService;
 
+import java.time.LocalDate;
+import java.time.LocalTime;
 import java.util.List;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
 class DroneAvailabilityServiceTest {
 
-    private final DroneAvailabilityService service = new DroneAvailabilityService(new DistanceService());
+    private final DroneAvailabilityService service = new DroneAvailabilityService(
+            new DistanceService(), new FleetIndexService(), Runnable::run);
 
     private Drone drone(String id, Double capacity, Integer maxMoves, Boolean cooling, Boolean heating) {
         Drone d = new Drone();
@@ -144,4 +149,184 @@ class DroneAvailabilityServiceTest {
                 List.of(dispatch), drones, List.of(dfsp), List.of(sp));
         assertThat(result).contains("d1");
     }
+
+    @Test
+    @DisplayName("findAvailableDrones: same drones as checking each one with canDroneHandleDispatches")
+    void findAvailableDrones_matchesPerDroneCheck() {
+        java.util.Random random = new java.util.Random(42);
+        List<Drone> drones = new java.util.ArrayList<>();
+        List<DroneAvailabilityInfo> infos = new java.util.ArrayList<>();
+        for (int i = 0; i < 60; i++) {
+            Drone d = drone("d" + i, random.nextInt(4) == 0 ? null : (double) random.nextInt(10),
+                    1000, random.nextBoolean(), random.nextBoolean());
+            d.getCapability().setCostInitial(1.0);
+            d.getCapability().setCostPerMove(random.nextDouble() * 0.1);
+            drones.add(d);
+            if (random.nextInt(5) > 0) {
+                DroneAvailabilityInfo info = new DroneAvailabilityInfo();
+                info.setId(d.getId());
+                DroneAvailability slot = new DroneAvailability();
+                slot.setDayOfWeek(random.nextBoolean() ? "MONDAY" : "TUESDAY");
+                slot.setFrom("08:00:00");
+                slot.setUntil("18:00:00");
+                info.setAvailability(List.of(slot));
+                infos.add(info);
+            }
+        }
+        DroneForServicePoint listing = new DroneForServicePoint();
+        listing.setServicePointId(1);
+        listing.setDrones(infos);
+        ServicePoint sp = new ServicePoint();
+        sp.setId(1);
+        LngLatAlt loc = new LngLatAlt();
+        loc.setLng(0.0); loc.setLat(0.0);
+        sp.setLocation(loc);
+        List<DroneForServicePoint> dfspList = List.of(listing);
+        List<ServicePoint> sps = List.of(sp);
+
+        for (int trial = 0; trial < 40; trial++) {
+            List<MedDispatchRec> dispatches = new java.util.ArrayList<>();
+            int count = 1 + random.nextInt(3);
+            for (int j = 0; j < count; j++) {
+                MedDispatchRec d = dispatch(random.nextInt(5), 1);
+                d.setId(j);
+                d.getRequirements().setCooling(random.nextInt(3) == 0);
+                d.getRequirements().setHeating(random.nextInt(3) == 0);
+                d.getRequirements().setMaxCost(random.nextBoolean() ? null : random.nextDouble() * 20);
+                d.setDelivery(new LngLat(0.001 * random.nextInt(5), 0.0));
+                if (random.nextBoolean()) {
+                    d.setDate("2025-01-06"); // Monday
+                    d.setTime(random.nextBoolean() ? "10:00" : "19:00");
+                }
+                dispatches.add(d);
+            }
+
+            List<String> expected = drones.stream()
+                    .filter(d -> infos.stream().anyMatch(info -> info.getId().equals(d.getId())))
+                    .filter(d -> service.canDroneHandleDispatches(d, dispatches, dfspList, sps))
+                    .map(Drone::getId)
+                    .toList();
+            assertThat(service.findAvailableDrones(dispatches, drones, dfspList, sps))
+                    .as("trial %d", trial)
+                    .containsExactlyElementsOf(expected);
+        }
+    }
+
+    @Test
+    @DisplayName("feasibilityMatrix: each row matches findAvailableDrones for that dispatch alone")
+    void feasibilityMatrix_matchesSingleDispatchQueries() {
+        List<Drone> drones = List.of(
+                drone("a", 5.0, 1000, true, false),
+                drone("b", 2.0, 500, false, true),
+                drone("c", 8.0, 500, true, true),
+                drone("unlisted", 9.0, 500, true, true));
+        List<DroneForServicePoint> dfspList = List.of(dfsp(1, "a", "b", "c"));
+        ServicePoint sp = new ServicePoint();
+        sp.setId(1);
+        LngLatAlt loc = new LngLatAlt();
+        loc.setLng(0.0); loc.setLat(0.0);
+        sp.setLocation(loc);
+        List<ServicePoint> sps = List.of(sp);
+
+        List<MedDispatchRec> dispatches = new java.util.ArrayList<>();
+        for (int i = 0; i < 70; i++) {
+            MedDispatchRec d = dispatch(i % 10, 1);
+            d.setId(i);
+            d.getRequirements().setCooling(i % 3 == 0);
+            d.getRequirements().setHeating(i % 4 == 0);
+            dispatches.add(d);
+        }
+
+        java.util.concurrent.ExecutorService pool = java.util.concurrent.Executors.newFixedThreadPool(3);
+        try {
+            DroneAvailabilityService parallel = new DroneAvailabilityService(
+                    new DistanceService(), new FleetIndexService(), pool);
+            FeasibilityMatrix matrix = parallel.feasibilityMatrix(dispatches, drones, dfspList, sps);
+
+            assertThat(matrix.getDroneIds()).containsExactly("a", "b", "c", "unlisted");
+            assertThat(matrix.getRows()).hasSize(70);
+            for (int i = 0; i < dispatches.size(); i++) {
+                String row = matrix.getRows().get(i);
+                List<String> feasible = java.util.stream.IntStream.range(0, row.length())
+                        .filter(column -> row.charAt(column) == '1')
+                        .mapToObj(matrix.getDroneIds()::get)
+                        .toList();
+                assertThat(matrix.getDispatchIds().get(i)).isEqualTo(i);
+                assertThat(feasible).as("dispatch %d", i)
+                        .containsExactlyElementsOf(service.findAvailableDrones(List.of(dispatches.get(i)), drones, dfspList, sps));
+            }
+            assertThat(matrix.getRows().get(1)).isEqualTo("1110"); // capacity 1, no cooling or heating
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("rejectionReason: reports a code; explainRejection spells it out on demand")
+    void rejectionReason_codesAndMessages() {
+        Drone cooler = drone("c", 4.0, 1000, true, false);
+        List<DroneForServicePoint> dfsp = List.of(dfsp(1, "c"));
+
+        MedDispatchRec heated = dispatch(1.0, 1);
+        heated.setId(7);
+        heated.getRequirements().setHeating(true);
+        MedDispatchRec cooled = dispatch(1.0, 1);
+        cooled.getRequirements().setCooling(true);
+
+        assertThat(service.rejectionReason(cooler, List.of(dispatch(1.0, 1)), dfsp, List.of())).isNull();
+        assertThat(service.explainRejection(cooler, List.of(dispatch(1.0, 1)), dfsp, List.of())).isNull();
+        assertThat(service.rejectionReason(null, List.of(dispatch(1.0, 1)), dfsp, List.of()))
+                .isEqualTo(RejectionReason.NO_CAPABILITY);
+        assertThat(service.rejectionReason(cooler, List.of(dispatch(3.0, 1), dispatch(2.0, 1)), dfsp, List.of()))
+                .isEqualTo(RejectionReason.CAPACITY);
+        assertThat(service.explainRejection(cooler, List.of(dispatch(3.0, 1), dispatch(2.0, 1)), dfsp, List.of()))
+                .isEqualTo("capacity: required 5.0 > drone capacity 4.0");
+        assertThat(service.rejectionReason(cooler, List.of(cooled, heated), dfsp, List.of()))
+                .isEqualTo(RejectionReason.HEATING_AND_COOLING);
+        assertThat(service.rejectionReason(cooler, List.of(dispatch(1.0, 1), heated), dfsp, List.of()))
+                .isEqualTo(RejectionReason.HEATING);
+        assertThat(service.explainRejection(cooler, List.of(dispatch(1.0, 1), heated), dfsp, List.of()))
+                .isEqualTo("delivery 7 requires heating but drone doesn't have it");
+
+        MedDispatchRec tuesday = dispatch(1.0, 1);
+        tuesday.setDate("2025-01-07");
+        tuesday.setTime("10:00");
+        assertThat(service.rejectionReason(cooler, List.of(tuesday), dfsp, List.of()))
+                .isEqualTo(RejectionReason.NOT_AVAILABLE);
+        assertThat(service.canDroneHandleDispatches(cooler, List.of(tuesday), dfsp, List.of())).isFalse();
+    }
+
+    @Test
+    @DisplayName("findDronesAvailableInWindow and nextAvailableSlot: answer over calendar dates")
+    void availabilityWindows() {
+        DroneAvailabilityInfo weekdays = new DroneAvailabilityInfo();
+        weekdays.setId("w");
+        weekdays.setAvailability(Stream.of("MONDAY", "TUESDAY", "WEDNESDAY", "THURSDAY", "FRIDAY")
+                .map(day -> {
+                    DroneAvailability slot = new DroneAvailability();
+                    slot.setDayOfWeek(day);
+                    slot.setFrom("08:00");
+                    slot.setUntil("14:00");
+                    return slot;
+                }).toList());
+        DroneForServicePoint listing = new DroneForServicePoint();
+        listing.setServicePointId(1);
+        listing.setDrones(List.of(weekdays, droneAvailabilityInfos("n")[0]));
+        List<DroneForServicePoint> dfsp = List.of(listing);
+        List<Drone> drones = List.of(drone("w", 4.0, 100, false, false), drone("n", 4.0, 100, false, false));
+        LocalDate monday = LocalDate.of(2025, 1, 6);
+
+        assertThat(service.findDronesAvailableInWindow(drones, dfsp, monday,
+                LocalTime.of(9, 0), LocalTime.of(13, 0), 5, false)).containsExactly("w");
+        assertThat(service.findDronesAvailableInWindow(drones, dfsp, monday,
+                LocalTime.of(9, 0), LocalTime.of(13, 0), 7, false)).isEmpty();
+        assertThat(service.findDronesAvailableInWindow(drones, dfsp, monday,
+                LocalTime.of(13, 0), LocalTime.of(15, 0), 1, true)).containsExactly("w");
+
+        AvailabilitySlot slot = service.nextAvailableSlot("w", dfsp, LocalDate.of(2025, 1, 10),
+                LocalTime.of(15, 0));
+        assertThat(slot.getStart()).isEqualTo("2025-01-13T08:00:00");
+        assertThat(slot.getEnd()).isEqualTo("2025-01-13T14:00:00");
+        assertThat(service.nextAvailableSlot("n", dfsp, monday, LocalTime.NOON)).isNull();
+    }
 }
@@ -5,7 +5,9 @@ import org.junit.jupiter.api.Test;
 import uk.ac.ed.ilp.model.Drone;
 import uk.ac.ed.ilp.model.DroneCapability;
 import uk.ac.ed.ilp.model.requests.QueryCondition;
+import uk.ac.ed.ilp.query.DroneAttribute;
 import uk.ac.ed.ilp.service.DroneQueryService;
+import uk.ac.ed.ilp.service.FleetIndexService;
 
 import java.util.List;
 
@@ -13,7 +15,7 @@ import static org.assertj.core.api.Assertions.assertThat;
 
 class DroneQueryServiceTest {
 
-    private final DroneQueryService service = new DroneQueryService();
+    private final DroneQueryService service = new DroneQueryService(new FleetIndexService());
 
     private Drone drone(String id, Double capacity, Boolean cooling, Boolean heating, Double costPerMove) {
         Drone d = new Drone();
@@ -62,4 +64,31 @@ class DroneQueryServiceTest {
         List<String> result = service.queryByConditions(drones, List.of(condCapacity, condCooling));
         assertThat(result).containsExactly("1");
     }
+
+    @Test
+    @DisplayName("queryRanked: the 2 cheapest cooling drones with capacity > 4")
+    void queryRanked_cheapestCooling() {
+        List<Drone> drones = List.of(
+                drone("1", 10.0, true, false, 1.0),
+                drone("2", 8.0, true, false, 0.8),
+                drone("3", 4.0, true, false, 0.4),
+                drone("4", 6.0, false, false, 0.1),
+                drone("5", 5.0, true, false, 0.9)
+        );
+
+        QueryCondition cooling = new QueryCondition();
+        cooling.setAttribute("cooling");
+        cooling.setOperator("=");
+        cooling.setValue("true");
+
+        QueryCondition capacity = new QueryCondition();
+        capacity.setAttribute("capacity");
+        capacity.setOperator(">");
+        capacity.setValue("4");
+
+        assertThat(service.queryRanked(drones, List.of(cooling, capacity), DroneAttribute.COST_PER_MOVE, false, 2))
+                .containsExactly("2", "5");
+        assertThat(service.queryRanked(drones, null, DroneAttribute.CAPACITY, true, null))
+                .containsExactly("1", "2", "4", "5", "3");
+    }
 }
@@ -0,0 +1,107 @@
+package uk.ac.ed.ilp.unit;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import uk.ac.ed.ilp.geometry.EdgeKernel;
+
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Timing harness comparing the scalar and vector edge kernels; not part of the normal build
+ * Run with: mvn test -Dtest=EdgeKernelBenchmark -Dilp.benchmark=true -Djacoco.skip=true
+ * (the coverage agent slows both kernels down and hides the difference)
+ */
+@EnabledIfSystemProperty(named = "ilp.benchmark", matches = "true")
+class EdgeKernelBenchmark {
+
+    private static final int SEGMENTS = 4096;
+    private static final int WARMUP_ROUNDS = 100;
+    private static final int MEASURED_ROUNDS = 100;
+
+    @Test
+    @DisplayName("benchmark: segment tests per polygon size, scalar vs vector")
+    void compareKernels() {
+        EdgeKernel vector = EdgeKernel.vector();
+        assumeTrue(vector != null, "Vector API not available in this JVM");
+
+        for (int edges : new int[]{8, 32, 128, 512}) {
+            Polygon polygon = Polygon.circle(edges);
+            double[] segments = segments();
+
+            long scalarNanos = time(EdgeKernel.scalar(), polygon, segments);
+            long vectorNanos = time(vector, polygon, segments);
+            assertThat(count(vector, polygon, segments)).isEqualTo(count(EdgeKernel.scalar(), polygon, segments));
+
+            double calls = (double) MEASURED_ROUNDS * SEGMENTS;
+            System.out.printf("%4d edges: scalar %7.1f ns/segment, %s %7.1f ns/segment, speed-up %.2fx%n",
+                    edges, scalarNanos / calls, vector.name(), vectorNanos / calls,
+                    (double) scalarNanos / vectorNanos);
+        }
+    }
+
+    private static long time(EdgeKernel kernel, Polygon polygon, double[] segments) {
+        for (int round = 0; round < WARMUP_ROUNDS; round++) {
+            count(kernel, polygon, segments);
+        }
+        long start = System.nanoTime();
+        long blocked = 0;
+        for (int round = 0; round < MEASURED_ROUNDS; round++) {
+            blocked += count(kernel, polygon, segments);
+        }
+        long elapsed = System.nanoTime() - start;
+        assertThat(blocked).isNotNegative(); // Keeps the loop from being optimised away
+        return elapsed;
+    }
+
+    /**
+     * Segments blocked the way PolygonEdges.segmentBlocked tests them
+     */
+    private static int count(EdgeKernel kernel, Polygon p, double[] segments) {
+        int blocked = 0;
+        for (int i = 0; i < segments.length; i += 4) {
+            double ax = segments[i], ay = segments[i + 1], bx = segments[i + 2], by = segments[i + 3];
+            if (kernel.crossesAny(ax, ay, bx, by, p.x1, p.y1, p.x2, p.y2, p.size)
+                    || kernel.nearAny(ax, ay, bx, by, 0.00005 * 0.00005, p.x1, p.y1, p.x2, p.y2, p.size)) {
+                blocked++;
+            }
+        }
+        return blocked;
+    }
+
+    /**
+     * Single moves scattered over the polygon's bounding box; most miss every edge, so
+     * each test has to scan the whole polygon
+     */
+    private static double[] segments() {
+        Random random = new Random(1);
+        double[] segments = new double[SEGMENTS * 4];
+        for (int i = 0; i < segments.length; i += 4) {
+            double angle = random.nextInt(16) * Math.PI / 8;
+            segments[i] = random.nextDouble() * 0.004 - 0.002;
+            segments[i + 1] = random.nextDouble() * 0.004 - 0.002;
+            segments[i + 2] = segments[i] + 0.00015 * Math.cos(angle);
+            segments[i + 3] = segments[i + 1] + 0.00015 * Math.sin(angle);
+        }
+        return segments;
+    }
+
+    private record Polygon(double[] x1, double[] y1, double[] x2, double[] y2, int size) {
+
+        static Polygon circle(int edges) {
+            double[] x1 = new double[edges], y1 = new double[edges], x2 = new double[edges], y2 = new double[edges];
+            for (int i = 0; i < edges; i++) {
+                double from = 2 * Math.PI * i / edges;
+                double to = 2 * Math.PI * (i + 1) / edges;
+                x1[i] = 0.0015 * Math.cos(from);
+                y1[i] = 0.0015 * Math.sin(from);
+                x2[i] = 0.0015 * Math.cos(to);
+                y2[i] = 0.0015 * Math.sin(to);
+            }
+            return new Polygon(x1, y1, x2, y2, edges);
+        }
+    }
+}
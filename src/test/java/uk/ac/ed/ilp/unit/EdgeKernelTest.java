@@ -0,0 +1,61 @@
+package uk.ac.ed.ilp.unit;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import uk.ac.ed.ilp.geometry.EdgeKernel;
+import uk.ac.ed.ilp.geometry.PolygonEdges;
+
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class EdgeKernelTest {
+
+    @Test
+    @DisplayName("best: the vector kernel when the module is present (surefire adds it), else scalar")
+    void best_prefersVector() {
+        EdgeKernel vector = EdgeKernel.vector();
+        assertThat(EdgeKernel.best()).isSameAs(vector != null ? vector : EdgeKernel.scalar());
+        assertThat(EdgeKernel.scalar().name()).isEqualTo("scalar");
+    }
+
+    @Test
+    @DisplayName("vector and scalar kernels agree, including tails, shared endpoints and zero-length edges")
+    void vector_matchesScalar() {
+        EdgeKernel vector = EdgeKernel.vector();
+        assumeTrue(vector != null, "Vector API not available in this JVM");
+        EdgeKernel scalar = EdgeKernel.scalar();
+        Random random = new Random(27);
+
+        for (int round = 0; round < 2000; round++) {
+            int size = random.nextInt(40);
+            double[] x1 = new double[size];
+            double[] y1 = new double[size];
+            double[] x2 = new double[size];
+            double[] y2 = new double[size];
+            for (int i = 0; i < size; i++) {
+                // Coarse coordinates so that touching and collinear cases come up often
+                x1[i] = random.nextInt(10) * 0.0001;
+                y1[i] = random.nextInt(10) * 0.0001;
+                boolean degenerate = random.nextInt(10) == 0;
+                x2[i] = degenerate ? x1[i] : random.nextInt(10) * 0.0001;
+                y2[i] = degenerate ? y1[i] : random.nextInt(10) * 0.0001;
+            }
+            double ax = random.nextInt(10) * 0.0001;
+            double ay = random.nextInt(10) * 0.0001;
+            double bx = random.nextBoolean() ? ax : random.nextInt(10) * 0.0001;
+            double by = random.nextInt(10) * 0.0001;
+            double bufferSq = Math.pow(random.nextInt(3) * 0.00005, 2);
+
+            boolean expectedCrossing = false;
+            for (int i = 0; i < size; i++) {
+                expectedCrossing |= PolygonEdges.properlyIntersect(ax, ay, bx, by, x1[i], y1[i], x2[i], y2[i]);
+            }
+            assertThat(scalar.crossesAny(ax, ay, bx, by, x1, y1, x2, y2, size)).isEqualTo(expectedCrossing);
+            assertThat(vector.crossesAny(ax, ay, bx, by, x1, y1, x2, y2, size)).isEqualTo(expectedCrossing);
+            assertThat(vector.nearAny(ax, ay, bx, by, bufferSq, x1, y1, x2, y2, size))
+                    .isEqualTo(scalar.nearAny(ax, ay, bx, by, bufferSq, x1, y1, x2, y2, size));
+        }
+    }
+}
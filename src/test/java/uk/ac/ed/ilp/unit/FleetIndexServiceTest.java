@@ -0,0 +1,90 @@
+package uk.ac.ed.ilp.unit;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import uk.ac.ed.ilp.index.ServicePointIndex;
+import uk.ac.ed.ilp.model.Drone;
+import uk.ac.ed.ilp.model.DroneAvailabilityInfo;
+import uk.ac.ed.ilp.model.DroneForServicePoint;
+import uk.ac.ed.ilp.model.ServicePoint;
+import uk.ac.ed.ilp.service.FleetIndexService;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FleetIndexServiceTest {
+
+    private final FleetIndexService service = new FleetIndexService();
+
+    private static Drone drone(String id, String name) {
+        Drone drone = new Drone();
+        drone.setId(id);
+        drone.setName(name);
+        return drone;
+    }
+
+    private static ServicePoint servicePoint(Integer id, String name) {
+        ServicePoint servicePoint = new ServicePoint();
+        servicePoint.setId(id);
+        servicePoint.setName(name);
+        return servicePoint;
+    }
+
+    private static DroneForServicePoint listing(Integer servicePointId, String... droneIds) {
+        DroneForServicePoint listing = new DroneForServicePoint();
+        listing.setServicePointId(servicePointId);
+        listing.setDrones(Arrays.stream(droneIds).map(id -> {
+            DroneAvailabilityInfo info = new DroneAvailabilityInfo();
+            info.setId(id);
+            return info;
+        }).toList());
+        return listing;
+    }
+
+    @Test
+    @DisplayName("drones: looks drones up by id, first duplicate wins, nulls skipped")
+    void drones_byId() {
+        List<Drone> drones = Arrays.asList(drone("1", "first"), null, drone(null, "no id"), drone("1", "second"));
+
+        assertThat(service.drones(drones).drone("1").getName()).isEqualTo("first");
+        assertThat(service.drones(drones).drone("2")).isNull();
+        assertThat(service.drones(drones).drone(null)).isNull();
+        assertThat(service.drones(null).size()).isZero();
+    }
+
+    @Test
+    @DisplayName("servicePoints: a drone resolves to the service point of its first listing")
+    void servicePoints_byDrone() {
+        List<ServicePoint> servicePoints = List.of(servicePoint(1, "Appleton"), servicePoint(2, "Ocean"),
+                servicePoint(1, "duplicate"));
+        List<DroneForServicePoint> listings = List.of(listing(2, "a", "b"), listing(1, "a", "c"), listing(9, "d"));
+
+        ServicePointIndex index = service.servicePoints(servicePoints, listings);
+
+        assertThat(index.servicePointOf("a").getName()).isEqualTo("Ocean");
+        assertThat(index.servicePointOf("c").getName()).isEqualTo("Appleton");
+        assertThat(index.servicePoint(1).getName()).isEqualTo("Appleton");
+        // Listed at a service point that does not exist
+        assertThat(index.servicePointOf("d")).isNull();
+        assertThat(index.isListed("d")).isTrue();
+        assertThat(index.isListed("x")).isFalse();
+        assertThat(index.listedDroneIds()).containsExactlyInAnyOrder("a", "b", "c", "d");
+    }
+
+    @Test
+    @DisplayName("servicePoints: built once per pair of dataset instances")
+    void servicePoints_cachedPerDataset() {
+        List<ServicePoint> servicePoints = new ArrayList<>(List.of(servicePoint(1, "Appleton")));
+        List<DroneForServicePoint> listings = new ArrayList<>(List.of(listing(1, "a")));
+
+        ServicePointIndex first = service.servicePoints(servicePoints, listings);
+
+        assertThat(service.servicePoints(servicePoints, listings)).isSameAs(first);
+        assertThat(service.servicePoints(servicePoints, new ArrayList<>(listings))).isNotSameAs(first);
+        List<Drone> drones = new ArrayList<>(List.of(drone("1", "first")));
+        assertThat(service.drones(drones)).isSameAs(service.drones(drones));
+    }
+}
@@ -0,0 +1,249 @@
+package uk.ac.ed.ilp.unit;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import com.fasterxml.jackson.core.type.TypeReference;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+import uk.ac.ed.ilp.config.IlpConfiguration;
+import uk.ac.ed.ilp.http.RequestHedger;
+import uk.ac.ed.ilp.model.Drone;
+import uk.ac.ed.ilp.model.RestrictedArea;
+import uk.ac.ed.ilp.service.IlpRestClient;
+import uk.ac.ed.ilp.snapshot.DatasetSink;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Runs IlpRestClient against a local HTTP server standing in for the ILP service
+ */
+class IlpRestClientTest {
+
+    private HttpServer server;
+
+    @AfterEach
+    void stopServer() {
+        if (server != null) {
+            server.stop(0);
+        }
+    }
+
+    private IlpRestClient clientFor(HttpHandler handler, int timeoutMillis, int maxRetries) throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", handler);
+        server.start();
+
+        IlpConfiguration config = new IlpConfiguration();
+        config.setTimeout(timeoutMillis);
+        config.setMaxRetries(maxRetries);
+        String endpoint = "http://127.0.0.1:" + server.getAddress().getPort() + "/";
+        RequestHedger hedger = new RequestHedger(new SimpleMeterRegistry(), 0.95, 0.05, Duration.ofMillis(50), Duration.ofSeconds(5));
+        return new IlpRestClient(endpoint, config.ilpRestTemplate(), hedger);
+    }
+
+    private static void respond(HttpExchange exchange, int status, byte[] body, boolean gzip) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        if (gzip) {
+            exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+        }
+        exchange.sendResponseHeaders(status, body.length == 0 ? -1 : body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private static byte[] gzip(String text) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (GZIPOutputStream out = new GZIPOutputStream(bytes)) {
+            out.write(text.getBytes(StandardCharsets.UTF_8));
+        }
+        return bytes.toByteArray();
+    }
+
+    @Test
+    @DisplayName("fetchDrones: retries a 503 and decodes a gzip response")
+    void fetchDrones_retriesAndDecodesGzip() throws IOException {
+        AtomicInteger requests = new AtomicInteger();
+        List<String> acceptEncodings = new CopyOnWriteArrayList<>();
+        IlpRestClient client = clientFor(exchange -> {
+            acceptEncodings.add(exchange.getRequestHeaders().getFirst("Accept-Encoding"));
+            if (requests.incrementAndGet() == 1) {
+                respond(exchange, 503, new byte[0], false);
+            } else {
+                respond(exchange, 200, gzip("[{\"name\":\"Drone 1\",\"id\":\"1\"}]"), true);
+            }
+        }, 2000, 2);
+
+        List<Drone> drones = client.fetchDrones();
+
+        assertThat(drones).extracting(Drone::getId).containsExactly("1");
+        assertThat(requests.get()).isEqualTo(2);
+        assertThat(acceptEncodings).containsOnly("gzip");
+    }
+
+    @Test
+    @DisplayName("fetchDrones: gives up after maxRetries attempts")
+    void fetchDrones_boundedRetries() throws IOException {
+        AtomicInteger requests = new AtomicInteger();
+        IlpRestClient client = clientFor(exchange -> {
+            requests.incrementAndGet();
+            respond(exchange, 500, new byte[0], false);
+        }, 2000, 2);
+
+        assertThatThrownBy(client::fetchDrones).isInstanceOf(HttpServerErrorException.class);
+        assertThat(requests.get()).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("fetchDrones: read timeout from the configuration applies")
+    void fetchDrones_readTimeout() throws IOException {
+        IlpRestClient client = clientFor(exchange -> {
+            try {
+                Thread.sleep(2000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            respond(exchange, 200, "[]".getBytes(StandardCharsets.UTF_8), false);
+        }, 300, 0);
+
+        long start = System.nanoTime();
+        assertThatThrownBy(client::fetchDrones).isInstanceOf(ResourceAccessException.class);
+        assertThat((System.nanoTime() - start) / 1_000_000).isLessThan(1500);
+    }
+
+    @Test
+    @DisplayName("fetchDrones: concurrent callers share one upstream request")
+    void fetchDrones_singleFlight() throws Exception {
+        AtomicInteger requests = new AtomicInteger();
+        IlpRestClient client = clientFor(exchange -> {
+            requests.incrementAndGet();
+            try {
+                Thread.sleep(300);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            respond(exchange, 200, "[{\"name\":\"Drone 1\",\"id\":\"1\"}]".getBytes(StandardCharsets.UTF_8), false);
+        }, 2000, 0);
+
+        ExecutorService callers = Executors.newFixedThreadPool(8);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<List<Drone>>> results = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                results.add(callers.submit(() -> {
+                    start.await();
+                    return client.fetchDrones();
+                }));
+            }
+            start.countDown();
+            for (Future<List<Drone>> result : results) {
+                assertThat(result.get(5, TimeUnit.SECONDS)).extracting(Drone::getId).containsExactly("1");
+            }
+        } finally {
+            callers.shutdownNow();
+        }
+
+        assertThat(requests.get()).isEqualTo(1);
+
+        client.fetchDrones();
+        assertThat(requests.get()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("fetchRestrictedAreas: sends the ETag back and reuses the list on 304")
+    void fetchRestrictedAreas_conditionalGet() throws IOException {
+        List<String> ifNoneMatch = new CopyOnWriteArrayList<>();
+        IlpRestClient client = clientFor(exchange -> {
+            String validator = exchange.getRequestHeaders().getFirst("If-None-Match");
+            ifNoneMatch.add(String.valueOf(validator));
+            if ("\"v1\"".equals(validator)) {
+                exchange.sendResponseHeaders(304, -1);
+                exchange.close();
+                return;
+            }
+            exchange.getResponseHeaders().set("ETag", "\"v1\"");
+            respond(exchange, 200, "[{\"name\":\"George Square\",\"id\":1}]".getBytes(StandardCharsets.UTF_8), false);
+        }, 2000, 0);
+
+        List<RestrictedArea> first = client.fetchRestrictedAreas();
+        List<RestrictedArea> second = client.fetchRestrictedAreas();
+
+        assertThat(ifNoneMatch).containsExactly("null", "\"v1\"");
+        assertThat(second).isSameAs(first);
+        assertThat(second).extracting(RestrictedArea::getName).containsExactly("George Square");
+    }
+
+    @Test
+    @DisplayName("fetchDrones: without validators an identical body returns the same list")
+    void fetchDrones_contentHashDetectsNoChange() throws IOException {
+        AtomicInteger requests = new AtomicInteger();
+        IlpRestClient client = clientFor(exchange -> {
+            String id = requests.incrementAndGet() <= 2 ? "1" : "2";
+            respond(exchange, 200, ("[{\"name\":\"Drone\",\"id\":\"" + id + "\"}]").getBytes(StandardCharsets.UTF_8), false);
+        }, 2000, 0);
+
+        List<Drone> first = client.fetchDrones();
+        List<Drone> unchanged = client.fetchDrones();
+        List<Drone> changed = client.fetchDrones();
+
+        assertThat(unchanged).isSameAs(first);
+        assertThat(changed).isNotSameAs(first);
+        assertThat(changed).extracting(Drone::getId).containsExactly("2");
+    }
+
+    @Test
+    @DisplayName("fetchDrones: element-by-element binding matches databind, unknown fields included")
+    void fetchDrones_streamedMatchesDatabind() throws IOException {
+        String json = "[{\"name\":\"Drone 1\",\"id\":\"1\",\"firmware\":{\"rev\":[1,2]},"
+                + "\"capability\":{\"cooling\":true,\"capacity\":4.0,\"maxMoves\":2000,\"colour\":\"red\"}},"
+                + "null,"
+                + "{\"id\":\"2\",\"extra\":null,\"capability\":{\"heating\":true,\"costPerMove\":0.01}}]";
+        IlpRestClient client = clientFor(exchange -> respond(exchange, 200, json.getBytes(StandardCharsets.UTF_8), false),
+                2000, 0);
+        List<Drone> streamed = new ArrayList<>();
+        List<List<Drone>> completed = new ArrayList<>();
+        DatasetSink<Drone> sink = () -> new DatasetSink.Reading<>() {
+            @Override
+            public void add(Drone element) {
+                streamed.add(element);
+            }
+
+            @Override
+            public void complete(List<Drone> dataset) {
+                completed.add(dataset);
+            }
+        };
+
+        List<Drone> drones = client.fetchDrones(sink);
+        List<Drone> databind = Jackson2ObjectMapperBuilder.json().build()
+                .readValue(json, new TypeReference<List<Drone>>() {});
+
+        assertThat(drones).usingRecursiveComparison().isEqualTo(databind);
+        assertThat(streamed).containsExactlyElementsOf(drones);
+        assertThat(completed).singleElement().isSameAs(drones);
+    }
+}
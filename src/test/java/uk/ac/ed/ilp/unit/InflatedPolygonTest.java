@@ -0,0 +1,76 @@
+package uk.ac.ed.ilp.unit;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import uk.ac.ed.ilp.geometry.InflatedPolygon;
+import uk.ac.ed.ilp.model.LngLat;
+import uk.ac.ed.ilp.model.RestrictedArea;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class InflatedPolygonTest {
+
+    private static final double BUFFER = 0.00005;
+
+    private RestrictedArea area(LngLat... vertices) {
+        RestrictedArea area = new RestrictedArea();
+        area.setName("area");
+        area.setVertices(List.of(vertices));
+        return area;
+    }
+
+    @Test
+    @DisplayName("of: square is grown outwards by the buffer with rounded corners")
+    void of_square() {
+        // Clockwise with closing vertex, as some ILP areas are given
+        InflatedPolygon polygon = InflatedPolygon.of(area(
+                new LngLat(0.0, 0.0), new LngLat(0.0, 0.001), new LngLat(0.001, 0.001),
+                new LngLat(0.001, 0.0), new LngLat(0.0, 0.0)), BUFFER);
+
+        assertThat(polygon.isInflated()).isTrue();
+        assertThat(polygon.getInflatedVertices().size()).isGreaterThan(4);
+        for (LngLat v : polygon.getInflatedVertices()) {
+            double dx = Math.max(0, Math.max(-v.getLng(), v.getLng() - 0.001));
+            double dy = Math.max(0, Math.max(-v.getLat(), v.getLat() - 0.001));
+            // Every grown vertex sits on or just outside the buffer circle
+            assertThat(Math.sqrt(dx * dx + dy * dy)).isBetween(BUFFER - 1e-12, BUFFER * 1.05);
+        }
+    }
+
+    @Test
+    @DisplayName("segmentBlocked: moves inside the buffer are blocked, moves outside are not")
+    void segmentBlocked_buffer() {
+        InflatedPolygon polygon = InflatedPolygon.of(area(
+                new LngLat(0.0, 0.0), new LngLat(0.001, 0.0), new LngLat(0.001, 0.001),
+                new LngLat(0.0, 0.001)), BUFFER);
+
+        // Ends 0.00003 below the bottom edge
+        assertThat(polygon.segmentBlocked(0.0005, -0.0002, 0.0005, -0.00003)).isTrue();
+        // Passes 0.00003 beside the right edge without ending near it
+        assertThat(polygon.segmentBlocked(0.00103, -0.0002, 0.00103, 0.0012)).isTrue();
+        // Stays 0.0001 away from the polygon
+        assertThat(polygon.segmentBlocked(-0.0001, -0.0002, -0.0001, 0.0012)).isFalse();
+    }
+
+    @Test
+    @DisplayName("of: non-convex polygon is inflated and its notch stays usable")
+    void of_nonConvex() {
+        InflatedPolygon polygon = InflatedPolygon.of(area(
+                new LngLat(0.0, 0.0), new LngLat(0.002, 0.0), new LngLat(0.002, 0.001),
+                new LngLat(0.001, 0.001), new LngLat(0.001, 0.002), new LngLat(0.0, 0.002)), BUFFER);
+
+        assertThat(polygon.isInflated()).isTrue();
+        assertThat(polygon.segmentBlocked(0.0015, 0.0015, 0.0018, 0.0018)).isFalse();
+        assertThat(polygon.segmentBlocked(0.00103, 0.0015, 0.00103, 0.0018)).isTrue();
+    }
+
+    @Test
+    @DisplayName("inflateAll: skips missing areas and areas without vertices")
+    void inflateAll_skipsEmpty() {
+        RestrictedArea empty = new RestrictedArea();
+        assertThat(InflatedPolygon.inflateAll(null, BUFFER)).isEmpty();
+        assertThat(InflatedPolygon.inflateAll(java.util.Arrays.asList(null, empty), BUFFER)).isEmpty();
+    }
+}
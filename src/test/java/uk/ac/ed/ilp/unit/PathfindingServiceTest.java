@@ -1,9 +1,13 @@
 package uk.ac.ed.ilp.unit;
 
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import uk.ac.ed.ilp.model.LngLat;
+import uk.ac.ed.ilp.model.LngLatAlt;
 import uk.ac.ed.ilp.model.RestrictedArea;
+import uk.ac.ed.ilp.model.ServicePoint;
 import uk.ac.ed.ilp.service.DistanceService;
 import uk.ac.ed.ilp.service.PathfindingService;
 import uk.ac.ed.ilp.service.PositionService;
@@ -11,15 +15,18 @@ import uk.ac.ed.ilp.service.RegionService;
 
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
 class PathfindingServiceTest {
 
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
     private final PathfindingService pathfindingService = new PathfindingService(
             new PositionService(),
             new DistanceService(),
-            new RegionService()
+            new RegionService(),
+            registry
     );
 
     @Test
@@ -178,4 +185,146 @@ class PathfindingServiceTest {
         assertThat(path.get(0).getLng()).isCloseTo(start.getLng(), org.assertj.core.api.Assertions.within(1e-6));
         assertThat(path.get(path.size() - 1).getLng()).isCloseTo(end.getLng(), org.assertj.core.api.Assertions.within(1e-6));
     }
+
+    @Test
+    @DisplayName("calculatePath: long open-space path is expanded into single STEP_SIZE moves")
+    void calculatePath_openSpaceSingleMoves() {
+        LngLat start = new LngLat(0.0, 0.0);
+        LngLat end = new LngLat(0.02, 0.005);
+
+        List<LngLat> path = pathfindingService.calculatePath(start, end, List.of());
+        assertThat(path).isNotEmpty();
+        // Every move except the final snap onto the target is exactly one step
+        for (int i = 1; i < path.size() - 1; i++) {
+            double dLng = path.get(i).getLng() - path.get(i - 1).getLng();
+            double dLat = path.get(i).getLat() - path.get(i - 1).getLat();
+            assertThat(Math.sqrt(dLng * dLng + dLat * dLat)).isCloseTo(0.00015, org.assertj.core.api.Assertions.within(1e-12));
+        }
+        // Straight-line lower bound is ~138 moves; macro-moves must not inflate it much
+        assertThat(pathfindingService.countMoves(path)).isLessThan(160);
+    }
+
+    @Test
+    @DisplayName("calculatePath: macro-moves keep the safety buffer around restricted areas")
+    void calculatePath_macroMovesRespectRestriction() {
+        LngLat start = new LngLat(0.0, 0.0);
+        LngLat end = new LngLat(0.006, 0.0);
+
+        RestrictedArea wall = new RestrictedArea();
+        wall.setVertices(List.of(
+                new LngLat(0.0029, -0.002),
+                new LngLat(0.0031, -0.002),
+                new LngLat(0.0031, 0.002),
+                new LngLat(0.0029, 0.002),
+                new LngLat(0.0029, -0.002)
+        ));
+
+        List<LngLat> path = pathfindingService.calculatePath(start, end, List.of(wall));
+        assertThat(path).isNotEmpty();
+        // The path has to go around the end of the wall rather than through it
+        assertThat(path.stream().mapToDouble(p -> Math.abs(p.getLat())).max().orElse(0.0)).isGreaterThan(0.002);
+    }
+
+    @Test
+    @DisplayName("calculatePath: macro-moves expand far fewer nodes than the path has moves")
+    void calculatePath_macroMovesCutExpansions() {
+        RestrictedArea wall = new RestrictedArea();
+        wall.setVertices(List.of(
+                new LngLat(0.0099, -0.001),
+                new LngLat(0.0101, -0.001),
+                new LngLat(0.0101, 0.001),
+                new LngLat(0.0099, 0.001),
+                new LngLat(0.0099, -0.001)
+        ));
+
+        // Single-step A* expands at least every node on the path, one per move
+        assertThat(expansionsPerMove(List.of())).isLessThan(0.1);
+        // Near the wall the search falls back to single steps
+        assertThat(expansionsPerMove(List.of(wall))).isLessThan(0.35);
+    }
+
+    private static double expansionsPerMove(List<RestrictedArea> areas) {
+        SimpleMeterRegistry searches = new SimpleMeterRegistry();
+        PathfindingService service = new PathfindingService(
+                new PositionService(), new DistanceService(), new RegionService(), searches);
+
+        List<LngLat> path = service.calculatePath(new LngLat(0.0, 0.0), new LngLat(0.02, 0.0), areas);
+        DistributionSummary expansions = searches.get("ilp.pathfinding.expansions").summary();
+
+        assertThat(path).isNotEmpty();
+        assertThat(expansions.count()).isEqualTo(1);
+        return expansions.totalAmount() / service.countMoves(path);
+    }
+
+    @Test
+    @DisplayName("calculateCompactPath: a cancelled search stops expanding and returns null")
+    void calculateCompactPath_cancelled() {
+        AtomicInteger checks = new AtomicInteger();
+        LngLat start = new LngLat(0.0, 0.0);
+        LngLat end = new LngLat(0.01, 0.01);
+
+        assertThat(pathfindingService.calculateCompactPath(start, end, List.of(), () -> checks.incrementAndGet() > 2))
+                .isNull();
+        assertThat(checks.get()).isEqualTo(3);
+        assertThat(pathfindingService.calculateCompactPath(start, end, List.of(), () -> false)).isNotNull();
+    }
+
+    @Test
+    @DisplayName("clearanceField: built once per restricted-area list and zero-sized without areas")
+    void clearanceField_cachedPerList() {
+        RestrictedArea area = new RestrictedArea();
+        area.setVertices(List.of(
+                new LngLat(0.0, 0.0),
+                new LngLat(0.001, 0.0),
+                new LngLat(0.001, 0.001),
+                new LngLat(0.0, 0.001)
+        ));
+        List<RestrictedArea> areas = List.of(area);
+
+        assertThat(pathfindingService.clearanceField(areas)).isSameAs(pathfindingService.clearanceField(areas));
+        assertThat(pathfindingService.clearanceField(List.of()).cellCount()).isZero();
+    }
+
+    @Test
+    @DisplayName("servicePointDistances: one field per located service point, built once per pair of datasets")
+    void servicePointDistances_cachedPerDatasets() {
+        RestrictedArea area = new RestrictedArea();
+        area.setVertices(List.of(
+                new LngLat(0.001, -0.001),
+                new LngLat(0.0011, -0.001),
+                new LngLat(0.0011, 0.001),
+                new LngLat(0.001, 0.001)
+        ));
+        LngLatAlt location = new LngLatAlt();
+        location.setLng(0.0);
+        location.setLat(0.0);
+        ServicePoint located = new ServicePoint();
+        located.setLocation(location);
+        List<ServicePoint> servicePoints = List.of(located, new ServicePoint());
+        List<RestrictedArea> areas = List.of(area);
+
+        var fields = pathfindingService.servicePointDistances(servicePoints, areas);
+
+        assertThat(fields).containsOnlyKeys(located);
+        assertThat(pathfindingService.servicePointDistances(servicePoints, areas)).isSameAs(fields);
+        assertThat(fields.get(located).distance(0.002, 0)).isGreaterThan(0.002);
+    }
+
+    @Test
+    @DisplayName("inflatedRestrictedAreas: built once per restricted-area list")
+    void inflatedRestrictedAreas_cachedPerList() {
+        RestrictedArea area = new RestrictedArea();
+        area.setVertices(List.of(
+                new LngLat(0.0, 0.0),
+                new LngLat(0.001, 0.0),
+                new LngLat(0.001, 0.001),
+                new LngLat(0.0, 0.001)
+        ));
+        List<RestrictedArea> areas = List.of(area);
+
+        var first = pathfindingService.inflatedRestrictedAreas(areas);
+        assertThat(first).hasSize(1);
+        assertThat(pathfindingService.inflatedRestrictedAreas(areas)).isSameAs(first);
+        assertThat(pathfindingService.inflatedRestrictedAreas(List.of(area))).isNotSameAs(first);
+    }
 }
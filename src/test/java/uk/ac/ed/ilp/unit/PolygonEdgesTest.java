@@ -0,0 +1,73 @@
+package uk.ac.ed.ilp.unit;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import uk.ac.ed.ilp.geometry.PolygonEdges;
+import uk.ac.ed.ilp.model.LngLat;
+import uk.ac.ed.ilp.service.RegionService;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class PolygonEdgesTest {
+
+    // L-shaped (non-convex) polygon, closed like the ILP restricted areas
+    private final List<LngLat> lShape = List.of(
+            new LngLat(0.0, 0.0),
+            new LngLat(0.002, 0.0),
+            new LngLat(0.002, 0.001),
+            new LngLat(0.001, 0.001),
+            new LngLat(0.001, 0.002),
+            new LngLat(0.0, 0.002),
+            new LngLat(0.0, 0.0)
+    );
+
+    @Test
+    @DisplayName("contains: agrees with RegionService on a grid of points, including borders")
+    void contains_matchesRegionService() {
+        RegionService regionService = new RegionService();
+        PolygonEdges edges = PolygonEdges.of(lShape);
+
+        for (int i = -2; i <= 22; i++) {
+            for (int j = -2; j <= 22; j++) {
+                LngLat p = new LngLat(i * 0.0001, j * 0.0001);
+                assertThat(edges.contains(p.getLng(), p.getLat()))
+                        .as("point %s,%s", p.getLng(), p.getLat())
+                        .isEqualTo(regionService.contains(lShape, p));
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("segmentBlocked: crossing, near-miss within buffer and clear segments")
+    void segmentBlocked_cases() {
+        PolygonEdges edges = PolygonEdges.of(lShape);
+
+        // Crosses the bottom edge
+        assertThat(edges.segmentBlocked(0.0005, -0.0005, 0.0005, 0.0005, 0.00005)).isTrue();
+        // Runs parallel to the bottom edge, 0.00003 below it
+        assertThat(edges.segmentBlocked(0.0005, -0.00003, 0.0008, -0.00003, 0.00005)).isTrue();
+        // Passes through the notch of the L, well clear of the edges
+        assertThat(edges.segmentBlocked(0.0015, 0.0015, 0.0018, 0.0018, 0.00005)).isFalse();
+        // Far away: rejected by the bounding box
+        assertThat(edges.segmentBlocked(1.0, 1.0, 1.0001, 1.0001, 0.00005)).isFalse();
+    }
+
+    @Test
+    @DisplayName("distanceTo: distance to the nearest edge")
+    void distanceTo_nearestEdge() {
+        PolygonEdges edges = PolygonEdges.of(lShape);
+        assertThat(edges.distanceTo(0.0015, 0.0015)).isCloseTo(0.0005, within(1e-12));
+        assertThat(edges.distanceTo(-0.0003, 0.001)).isCloseTo(0.0003, within(1e-12));
+    }
+
+    @Test
+    @DisplayName("of/compile: skip missing vertex lists")
+    void compile_skipsEmpty() {
+        assertThat(PolygonEdges.of(null)).isNull();
+        assertThat(PolygonEdges.of(List.of())).isNull();
+        assertThat(PolygonEdges.compile(null)).isEmpty();
+    }
+}
@@ -0,0 +1,217 @@
+package uk.ac.ed.ilp.unit;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import uk.ac.ed.ilp.index.CapabilityColumns;
+import uk.ac.ed.ilp.index.DroneTable;
+import uk.ac.ed.ilp.model.Drone;
+import uk.ac.ed.ilp.model.DroneCapability;
+import uk.ac.ed.ilp.model.requests.QueryCondition;
+import uk.ac.ed.ilp.query.DroneAttribute;
+import uk.ac.ed.ilp.query.DronePredicate;
+import uk.ac.ed.ilp.query.QueryOperator;
+import uk.ac.ed.ilp.query.QueryPlan;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class QueryPlanTest {
+
+    private static QueryCondition condition(String attribute, String operator, String value) {
+        QueryCondition condition = new QueryCondition();
+        condition.setAttribute(attribute);
+        condition.setOperator(operator);
+        condition.setValue(value);
+        return condition;
+    }
+
+    private static Drone drone(String id, Double capacity, Integer maxMoves, Boolean cooling) {
+        DroneCapability capability = new DroneCapability();
+        capability.setCapacity(capacity);
+        capability.setMaxMoves(maxMoves);
+        capability.setCooling(cooling);
+        Drone drone = new Drone();
+        drone.setId(id);
+        drone.setCapability(capability);
+        return drone;
+    }
+
+    @Test
+    @DisplayName("compile: operands parsed once, attribute case ignored, conjuncts ordered by rank")
+    void compile_typedAndOrdered() {
+        QueryPlan plan = QueryPlan.compile(List.of(
+                condition("capacity", "!=", "4"),
+                condition("MAXMOVES", ">", "10"),
+                condition("cooling", "=", "true"),
+                condition("id", "=", "7")));
+
+        DronePredicate.All all = (DronePredicate.All) plan.predicate();
+        assertThat(all.predicates()).containsExactly(
+                new DronePredicate.TextEquals(DroneAttribute.ID, "7"),
+                new DronePredicate.FlagIs(DroneAttribute.COOLING, true),
+                new DronePredicate.Compare(DroneAttribute.MAX_MOVES, QueryOperator.GT, 10),
+                new DronePredicate.Compare(DroneAttribute.CAPACITY, QueryOperator.NE, 4));
+    }
+
+    @Test
+    @DisplayName("compile: unknown attribute, unsupported operator or unparsable operand match nothing")
+    void compile_never() {
+        assertThat(QueryPlan.compile(List.of(condition("capacity", ">", "4"), condition("colour", "=", "red")))
+                .predicate()).isInstanceOf(DronePredicate.Never.class);
+        assertThat(QueryPlan.compile(List.of(condition("name", "<", "b"))).predicate())
+                .isInstanceOf(DronePredicate.Never.class);
+        assertThat(QueryPlan.compile(List.of(condition("maxMoves", "=", "3.5"))).predicate())
+                .isInstanceOf(DronePredicate.Never.class);
+        assertThat(QueryPlan.compile(Arrays.asList((QueryCondition) null)).predicate())
+                .isInstanceOf(DronePredicate.Never.class);
+        assertThat(QueryPlan.compile(List.of(condition("capacity", "~", "4"))).select(List.of(drone("1", 8.0, 1, true))))
+                .isEmpty();
+    }
+
+    @Test
+    @DisplayName("select: missing values never match; id also compares numerically")
+    void select() {
+        List<Drone> drones = Arrays.asList(
+                drone("1", 4.0, 10, true),
+                drone("2", null, 20, null),
+                null,
+                drone("10", 8.00001, null, false));
+
+        assertThat(QueryPlan.compile(List.of(condition("capacity", "!=", "4"))).select(drones)).containsExactly("10");
+        assertThat(QueryPlan.compile(List.of(condition("capacity", "=", "8"))).select(drones)).containsExactly("10");
+        assertThat(QueryPlan.compile(List.of(condition("cooling", "!=", "true"))).select(drones)).containsExactly("2", "10");
+        assertThat(QueryPlan.compile(List.of(condition("id", ">", "1.5"))).select(drones)).containsExactly("2", "10");
+        assertThat(QueryPlan.compileEquals("maxmoves", "20").select(drones)).containsExactly("2");
+    }
+
+    @Test
+    @DisplayName("select: the DroneTable indexes give the same drones as testing each drone")
+    void select_tableMatchesPerDroneTest() {
+        Random random = new Random(42);
+        String[] attributes = {"id", "name", "cooling", "heating", "capacity", "maxMoves", "costPerMove", "costInitial", "costFinal"};
+        String[] operators = {"=", "!=", "<", ">"};
+        String[] values = {"0", "1", "2", "2.5", "4", "4.00005", "7", "true", "false", "Drone 1", "NaN", "-Infinity"};
+
+        List<Drone> drones = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            Drone drone = random.nextInt(10) == 0
+                    ? new Drone()
+                    : drone(null, random.nextInt(5) == 0 ? null : random.nextInt(10) / 2.0,
+                            random.nextInt(5) == 0 ? null : random.nextInt(8), random.nextBoolean() ? null : random.nextBoolean());
+            drone.setId(random.nextInt(8) == 0 ? "d" + i : String.valueOf(random.nextInt(50)));
+            drone.setName(random.nextBoolean() ? "Drone " + random.nextInt(3) : null);
+            if (drone.getCapability() != null) {
+                drone.getCapability().setHeating(random.nextBoolean());
+                drone.getCapability().setCostPerMove(random.nextInt(4) == 0 ? null : (double) random.nextInt(5));
+                drone.getCapability().setCostInitial((double) random.nextInt(3));
+            }
+            drones.add(random.nextInt(25) == 0 ? null : drone);
+        }
+        DroneTable table = DroneTable.build(CapabilityColumns.build(drones));
+
+        for (int query = 0; query < 2000; query++) {
+            List<QueryCondition> conditions = new ArrayList<>();
+            for (int i = 0; i <= random.nextInt(3); i++) {
+                QueryCondition condition = condition(attributes[random.nextInt(attributes.length)],
+                        operators[random.nextInt(operators.length)], values[random.nextInt(values.length)]);
+                switch (random.nextInt(5)) {
+                    case 0 -> condition.setNot(true);
+                    case 1 -> {
+                        condition.setOperator(random.nextBoolean() ? "in" : "between");
+                        condition.setValues(List.of(values[random.nextInt(values.length)], values[random.nextInt(values.length)]));
+                    }
+                    case 2 -> condition.setAnyOf(List.of(
+                            condition(attributes[random.nextInt(attributes.length)], "<=", values[random.nextInt(values.length)]),
+                            condition(attributes[random.nextInt(attributes.length)], ">=", values[random.nextInt(values.length)])));
+                    default -> { }
+                }
+                conditions.add(condition);
+            }
+            QueryPlan plan = QueryPlan.compile(conditions);
+            assertThat(plan.select(table)).isEqualTo(plan.select(drones));
+        }
+    }
+
+    @Test
+    @DisplayName("compile: anyOf, not, in and between; a bad alternative is dropped, only all bad match nothing")
+    void compile_extendedConditions() {
+        List<Drone> drones = List.of(
+                drone("1", 4.0, 10, true),
+                drone("2", 6.0, 20, false),
+                drone("3", null, 30, true),
+                drone("4", 9.0, 40, null));
+        DroneTable table = DroneTable.build(CapabilityColumns.build(drones));
+
+        QueryCondition lowOrHigh = new QueryCondition();
+        lowOrHigh.setAnyOf(List.of(condition("capacity", "<=", "4"), condition("capacity", ">", "8")));
+        QueryCondition notCooling = condition("cooling", "=", "true");
+        notCooling.setNot(true);
+        QueryCondition someIds = condition("id", "in", null);
+        someIds.setValues(List.of("2", "3", "4"));
+        QueryCondition midMoves = condition("maxMoves", "between", null);
+        midMoves.setValues(List.of("20", "30"));
+
+        assertThat(QueryPlan.compile(List.of(lowOrHigh)).select(table)).containsExactly("1", "4");
+        assertThat(QueryPlan.compile(List.of(notCooling)).select(table)).containsExactly("2", "4");
+        assertThat(QueryPlan.compile(List.of(someIds, midMoves)).select(table)).containsExactly("2", "3");
+        assertThat(QueryPlan.compile(List.of(someIds, midMoves)).select(drones)).containsExactly("2", "3");
+
+        QueryCondition badAlternative = new QueryCondition();
+        badAlternative.setAnyOf(List.of(condition("capacity", ">", "8"), condition("colour", "=", "red")));
+        assertThat(QueryPlan.compile(List.of(badAlternative)).predicate())
+                .isEqualTo(QueryPlan.compile(List.of(condition("capacity", ">", "8"))).predicate());
+        assertThat(QueryPlan.compile(List.of(badAlternative)).select(table)).containsExactly("4");
+        badAlternative.setNot(true);
+        QueryCondition notHigh = condition("capacity", ">", "8");
+        notHigh.setNot(true);
+        assertThat(QueryPlan.compile(List.of(badAlternative)).predicate())
+                .isEqualTo(QueryPlan.compile(List.of(notHigh)).predicate());
+
+        QueryCondition allBad = new QueryCondition();
+        allBad.setAnyOf(List.of(condition("colour", "=", "red"), condition("capacity", ">", "lots")));
+        allBad.setNot(true);
+        assertThat(QueryPlan.compile(List.of(allBad)).predicate()).isInstanceOf(DronePredicate.Never.class);
+        QueryCondition partlyBadIn = condition("capacity", "in", null);
+        partlyBadIn.setValues(List.of("6", "lots"));
+        assertThat(QueryPlan.compile(List.of(partlyBadIn)).select(table)).containsExactly("2");
+    }
+
+    @Test
+    @DisplayName("select with orderBy: same as sorting every match, missing values last, ties in fleet order")
+    void select_topK() {
+        Random random = new Random(3);
+        List<Drone> drones = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            Drone drone = drone(String.valueOf(i), random.nextInt(6) == 0 ? null : (double) random.nextInt(20),
+                    random.nextInt(100), random.nextBoolean());
+            drones.add(drone);
+        }
+        DroneTable table = DroneTable.build(CapabilityColumns.build(drones));
+        QueryPlan cooling = QueryPlan.compile(List.of(condition("cooling", "=", "true")));
+
+        for (boolean descending : new boolean[]{false, true}) {
+            List<String> expected = drones.stream()
+                    .filter(cooling::matches)
+                    .sorted((a, b) -> {
+                        Double first = a.getCapability().getCapacity();
+                        Double second = b.getCapability().getCapacity();
+                        if (first == null || second == null) {
+                            return Boolean.compare(first == null, second == null);
+                        }
+                        return descending ? Double.compare(second, first) : Double.compare(first, second);
+                    })
+                    .map(Drone::getId)
+                    .toList();
+
+            assertThat(cooling.select(table, DroneAttribute.CAPACITY, descending, 7)).isEqualTo(expected.subList(0, 7));
+            assertThat(cooling.select(table, DroneAttribute.CAPACITY, descending, Integer.MAX_VALUE)).isEqualTo(expected);
+        }
+        assertThat(cooling.select(table, null, false, 3))
+                .isEqualTo(cooling.select(drones).subList(0, 3));
+        assertThat(cooling.select(table, DroneAttribute.CAPACITY, false, 0)).isEmpty();
+    }
+}
@@ -0,0 +1,90 @@
+package uk.ac.ed.ilp.unit;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import uk.ac.ed.ilp.model.requests.QueryCondition;
+import uk.ac.ed.ilp.query.DronePredicate;
+import uk.ac.ed.ilp.query.QueryPlan;
+import uk.ac.ed.ilp.query.QueryResultCache;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class QueryResultCacheTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final AtomicInteger computed = new AtomicInteger();
+
+    private static QueryCondition condition(String attribute, String operator, String value) {
+        QueryCondition condition = new QueryCondition();
+        condition.setAttribute(attribute);
+        condition.setOperator(operator);
+        condition.setValue(value);
+        return condition;
+    }
+
+    private static DronePredicate key(QueryCondition... conditions) {
+        return QueryPlan.compile(List.of(conditions)).predicate();
+    }
+
+    private Supplier<List<String>> compute(String result) {
+        return () -> {
+            computed.incrementAndGet();
+            return List.of(result);
+        };
+    }
+
+    @Test
+    @DisplayName("get: equivalent condition sets share an entry on the same snapshot version")
+    void get_canonicalKey() {
+        QueryResultCache cache = new QueryResultCache(registry, 8);
+        cache.bindTo(registry);
+
+        cache.get(1, key(condition("capacity", ">", "4"), condition("cooling", "=", "true")), compute("a"));
+        List<String> again = cache.get(1, key(condition("COOLING", "!=", "false"), condition("Capacity", ">", "4.0"),
+                condition("capacity", ">", "4")), compute("b"));
+
+        assertThat(again).containsExactly("a");
+        assertThat(computed).hasValue(1);
+        assertThat(cache.hitRatio()).isEqualTo(0.5);
+        assertThat(registry.get("ilp.query.cache.hit.ratio").gauge().value()).isEqualTo(0.5);
+        assertThat(registry.get("ilp.query.cache.requests").tag("result", "miss").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("get: a newer snapshot version drops all entries; an older one is not cached")
+    void get_invalidatedBySnapshotVersion() {
+        QueryResultCache cache = new QueryResultCache(registry, 8);
+        DronePredicate cooling = key(condition("cooling", "=", "true"));
+
+        cache.get(1, cooling, compute("v1"));
+        assertThat(cache.get(2, cooling, compute("v2"))).containsExactly("v2");
+        assertThat(cache.get(1, cooling, compute("stale"))).containsExactly("stale");
+        assertThat(cache.get(2, cooling, compute("unused"))).containsExactly("v2");
+        assertThat(cache.size()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("get: least recently used entry is evicted at the size bound; never-matching queries bypass the cache")
+    void get_boundedSize() {
+        QueryResultCache cache = new QueryResultCache(registry, 2);
+        DronePredicate first = key(condition("maxMoves", ">", "1"));
+        DronePredicate second = key(condition("maxMoves", ">", "2"));
+        DronePredicate third = key(condition("maxMoves", ">", "3"));
+
+        cache.get(1, first, compute("1"));
+        cache.get(1, second, compute("2"));
+        cache.get(1, first, compute("unused"));
+        cache.get(1, third, compute("3"));
+        assertThat(cache.size()).isEqualTo(2);
+        assertThat(cache.get(1, first, compute("unused"))).containsExactly("1");
+        assertThat(cache.get(1, second, compute("2 again"))).containsExactly("2 again");
+
+        cache.get(1, key(condition("colour", "=", "red")), compute("none"));
+        assertThat(cache.size()).isEqualTo(2);
+    }
+}
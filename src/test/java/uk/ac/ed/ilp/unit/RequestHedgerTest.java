@@ -0,0 +1,92 @@
+package uk.ac.ed.ilp.unit;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import uk.ac.ed.ilp.http.RequestHedger;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RequestHedgerTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final RequestHedger hedger = new RequestHedger(registry, 0.95, 0.05, Duration.ofMillis(50), Duration.ofMillis(50));
+
+    private double count(String name) {
+        return registry.counter(name, "resource", "drones").count();
+    }
+
+    /** Enough fast calls to fill the latency window and earn budget for `hedges` hedges */
+    private void warmUp(int hedges) {
+        for (int i = 0; i < hedges * 20; i++) {
+            hedger.call("drones", () -> "fast");
+        }
+    }
+
+    @Test
+    @DisplayName("call: fast calls are never hedged")
+    void call_fastCallsNotHedged() {
+        warmUp(3);
+
+        assertThat(count("ilp.client.requests")).isEqualTo(60);
+        assertThat(count("ilp.client.hedges")).isZero();
+    }
+
+    @Test
+    @DisplayName("call: a stalled call is hedged, the hedge wins and the stalled one is cancelled")
+    void call_hedgeWinsAndLoserCancelled() throws InterruptedException {
+        warmUp(1);
+        AtomicInteger attempts = new AtomicInteger();
+        CountDownLatch loserInterrupted = new CountDownLatch(1);
+
+        long start = System.nanoTime();
+        String result = hedger.call("drones", () -> {
+            if (attempts.incrementAndGet() == 1) {
+                try {
+                    Thread.sleep(5000);
+                } catch (InterruptedException e) {
+                    loserInterrupted.countDown();
+                    throw e;
+                }
+                return "stalled";
+            }
+            return "hedge";
+        });
+
+        assertThat(result).isEqualTo("hedge");
+        assertThat((System.nanoTime() - start) / 1_000_000).isLessThan(1000);
+        assertThat(loserInterrupted.await(1, TimeUnit.SECONDS)).isTrue();
+        assertThat(count("ilp.client.hedges")).isEqualTo(1);
+        assertThat(count("ilp.client.hedge.wins")).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("call: hedges stop once the budget is spent")
+    void call_budgetCapsHedges() {
+        warmUp(1);
+
+        for (int i = 0; i < 3; i++) {
+            hedger.call("drones", () -> {
+                Thread.sleep(100);
+                return "slow";
+            });
+        }
+
+        // 23 requests earn 1.15 hedges
+        assertThat(count("ilp.client.hedges")).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("call: a failure with no hedge in flight is rethrown as is")
+    void call_failurePropagates() {
+        assertThatThrownBy(() -> hedger.call("drones", () -> {
+            throw new IllegalStateException("ILP unavailable");
+        })).isInstanceOf(IllegalStateException.class);
+    }
+}
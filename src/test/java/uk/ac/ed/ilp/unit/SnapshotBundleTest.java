@@ -0,0 +1,112 @@
+package uk.ac.ed.ilp.unit;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import uk.ac.ed.ilp.model.Drone;
+import uk.ac.ed.ilp.model.DroneAvailability;
+import uk.ac.ed.ilp.model.DroneAvailabilityInfo;
+import uk.ac.ed.ilp.model.DroneCapability;
+import uk.ac.ed.ilp.model.DroneForServicePoint;
+import uk.ac.ed.ilp.model.LngLat;
+import uk.ac.ed.ilp.model.LngLatAlt;
+import uk.ac.ed.ilp.model.RestrictedArea;
+import uk.ac.ed.ilp.model.ServicePoint;
+import uk.ac.ed.ilp.snapshot.SnapshotBundle;
+import uk.ac.ed.ilp.snapshot.WorldSnapshot;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SnapshotBundleTest {
+
+    @TempDir
+    Path dir;
+
+    private static WorldSnapshot sampleSnapshot() {
+        DroneCapability capability = new DroneCapability();
+        capability.setCooling(true);
+        capability.setCapacity(4.0);
+        capability.setMaxMoves(2000);
+        Drone drone = new Drone();
+        drone.setId("1");
+        drone.setName("Drone 1");
+        drone.setCapability(capability);
+
+        LngLatAlt location = new LngLatAlt();
+        location.setLng(-3.186);
+        location.setLat(55.944);
+        ServicePoint servicePoint = new ServicePoint();
+        servicePoint.setId(1);
+        servicePoint.setName("Appleton Tower");
+        servicePoint.setLocation(location);
+
+        DroneAvailability slot = new DroneAvailability();
+        slot.setDayOfWeek("MONDAY");
+        slot.setFrom("00:00:00");
+        slot.setUntil("23:59:59");
+        DroneAvailabilityInfo info = new DroneAvailabilityInfo();
+        info.setId("1");
+        info.setAvailability(List.of(slot));
+        DroneForServicePoint dronesAtPoint = new DroneForServicePoint();
+        dronesAtPoint.setServicePointId(1);
+        dronesAtPoint.setDrones(List.of(info));
+
+        RestrictedArea area = new RestrictedArea();
+        area.setId(1);
+        area.setName("George Square");
+        area.setVertices(List.of(new LngLat(-3.19, 55.944), new LngLat(-3.189, 55.942), new LngLat(-3.187, 55.943)));
+
+        return WorldSnapshot.of(7, Instant.ofEpochMilli(1_700_000_000_000L),
+                List.of(drone), List.of(servicePoint), List.of(dronesAtPoint), List.of(area));
+    }
+
+    @Test
+    @DisplayName("write/read: a bundle round-trips all four datasets with version and fetch time")
+    void roundTrip() throws IOException {
+        WorldSnapshot snapshot = sampleSnapshot();
+        Path file = dir.resolve("bundles/world.ilpb");
+
+        SnapshotBundle.write(snapshot, file);
+        WorldSnapshot read = SnapshotBundle.read(file);
+
+        assertThat(read.getVersion()).isEqualTo(7);
+        assertThat(read.getFetchedAt()).isEqualTo(snapshot.getFetchedAt());
+        assertThat(read).usingRecursiveComparison().isEqualTo(snapshot);
+        assertThat(Files.list(file.getParent())).containsExactly(file);
+    }
+
+    @Test
+    @DisplayName("write/read: a missing dataset stays missing")
+    void missingDataset() throws IOException {
+        WorldSnapshot snapshot = WorldSnapshot.of(1, Instant.now(), List.of(), null, null, List.of());
+        Path file = dir.resolve("partial.ilpb");
+
+        SnapshotBundle.write(snapshot, file);
+        WorldSnapshot read = SnapshotBundle.read(file);
+
+        assertThat(read.getDrones()).isEmpty();
+        assertThat(read.getServicePoints()).isNull();
+        assertThat(read.getDronesForServicePoints()).isNull();
+    }
+
+    @Test
+    @DisplayName("read: files that are not complete bundles are rejected")
+    void read_rejectsInvalidFiles() throws IOException {
+        Path notBundle = Files.writeString(dir.resolve("drones.json"), "[]");
+        Path file = dir.resolve("world.ilpb");
+        SnapshotBundle.write(sampleSnapshot(), file);
+        byte[] bytes = Files.readAllBytes(file);
+        Path truncated = Files.write(dir.resolve("truncated.ilpb"), Arrays.copyOf(bytes, bytes.length / 2));
+
+        assertThatThrownBy(() -> SnapshotBundle.read(notBundle)).isInstanceOf(IOException.class);
+        assertThatThrownBy(() -> SnapshotBundle.read(truncated)).isInstanceOf(IOException.class);
+    }
+}
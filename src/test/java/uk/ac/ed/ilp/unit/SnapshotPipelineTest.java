@@ -0,0 +1,190 @@
+package uk.ac.ed.ilp.unit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import uk.ac.ed.ilp.model.Drone;
+import uk.ac.ed.ilp.model.RestrictedArea;
+import uk.ac.ed.ilp.snapshot.DatasetSink;
+import uk.ac.ed.ilp.snapshot.PipelineStage;
+import uk.ac.ed.ilp.snapshot.SnapshotIngest;
+import uk.ac.ed.ilp.snapshot.SnapshotPipeline;
+import uk.ac.ed.ilp.snapshot.SnapshotScoped;
+import uk.ac.ed.ilp.snapshot.WorldDataset;
+import uk.ac.ed.ilp.snapshot.WorldSnapshot;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SnapshotPipelineTest {
+
+    private final ForkJoinPool pool = new ForkJoinPool(4);
+
+    @AfterEach
+    void shutdown() {
+        pool.shutdownNow();
+    }
+
+    private static WorldSnapshot world(long version, List<Drone> drones, List<RestrictedArea> areas) {
+        return WorldSnapshot.of(version, Instant.now(), drones, List.of(), List.of(), areas);
+    }
+
+    private static final class IdCollector implements Consumer<Drone> {
+
+        private final List<String> ids = new ArrayList<>();
+
+        @Override
+        public void accept(Drone drone) {
+            ids.add(drone.getId());
+        }
+
+        List<String> ids() {
+            return ids;
+        }
+    }
+
+    private static Drone drone(String id) {
+        Drone drone = new Drone();
+        drone.setId(id);
+        return drone;
+    }
+
+    @Test
+    @DisplayName("compile: stages run after their dependencies and caches are filled before publication")
+    void compile_dependencyOrder() {
+        AtomicInteger countBuilds = new AtomicInteger();
+        SnapshotScoped<List<Drone>, Integer> counts = new SnapshotScoped<>(drones -> {
+            countBuilds.incrementAndGet();
+            return drones.size();
+        });
+        SnapshotScoped<List<Drone>, Integer> doubles = new SnapshotScoped<>(drones -> counts.get(drones) * 2);
+        PipelineStage droneCount = PipelineStage.of("droneCount", EnumSet.of(WorldDataset.DRONES),
+                world -> counts.get(world.getDrones()));
+        PipelineStage doubled = PipelineStage.of("doubled", EnumSet.of(WorldDataset.DRONES), List.of(droneCount),
+                world -> doubles.get(world.getDrones()));
+        WorldSnapshot snapshot = world(1, List.of(drone("1"), drone("2")), List.of());
+
+        SnapshotPipeline.Report report = new SnapshotPipeline(List.of(doubled), pool).compile(snapshot, null);
+
+        assertThat(report.hasFailures()).isFalse();
+        assertThat(report.stages()).extracting(SnapshotPipeline.StageResult::name)
+                .containsExactly("droneCount", "doubled");
+        assertThat(doubles.get(snapshot.getDrones())).isEqualTo(4);
+        assertThat(countBuilds.get()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("compile: independent stages run in parallel")
+    void compile_independentStagesInParallel() {
+        CyclicBarrier bothRunning = new CyclicBarrier(2);
+        PipelineStage first = PipelineStage.of("first", EnumSet.noneOf(WorldDataset.class), world -> meet(bothRunning));
+        PipelineStage second = PipelineStage.of("second", EnumSet.noneOf(WorldDataset.class), world -> meet(bothRunning));
+        WorldSnapshot snapshot = world(1, List.of(), List.of());
+
+        SnapshotPipeline.Report report = new SnapshotPipeline(List.of(first, second), pool).compile(snapshot, null);
+
+        assertThat(report.hasFailures()).isFalse();
+        assertThat(report.stages()).hasSize(2);
+    }
+
+    private static boolean meet(CyclicBarrier barrier) {
+        try {
+            barrier.await(5, TimeUnit.SECONDS);
+            return true;
+        } catch (Exception e) {
+            throw new IllegalStateException("stages did not run concurrently", e);
+        }
+    }
+
+    @Test
+    @DisplayName("compile: a stage whose input dataset is unchanged is a cache hit and reported reused")
+    void compile_reusesUnchangedInputs() {
+        AtomicInteger areaBuilds = new AtomicInteger();
+        AtomicInteger droneBuilds = new AtomicInteger();
+        SnapshotScoped<List<RestrictedArea>, Integer> areaCounts = new SnapshotScoped<>(areas -> {
+            areaBuilds.incrementAndGet();
+            return areas.size();
+        });
+        SnapshotScoped<List<Drone>, Integer> droneCounts = new SnapshotScoped<>(drones -> {
+            droneBuilds.incrementAndGet();
+            return drones.size();
+        });
+        PipelineStage areaCount = PipelineStage.of("areaCount", EnumSet.of(WorldDataset.RESTRICTED_AREAS),
+                world -> areaCounts.get(world.getRestrictedAreas()));
+        PipelineStage droneCount = PipelineStage.of("droneCount", EnumSet.of(WorldDataset.DRONES),
+                world -> droneCounts.get(world.getDrones()));
+        SnapshotPipeline pipeline = new SnapshotPipeline(List.of(areaCount, droneCount), pool);
+        List<RestrictedArea> areas = new ArrayList<>();
+        WorldSnapshot first = world(1, List.of(drone("1")), areas);
+        pipeline.compile(first, null);
+
+        List<Drone> changedDrones = List.of(drone("1"), drone("2"));
+        WorldSnapshot second = WorldSnapshot.next(first, 2, Instant.now(), changedDrones,
+                List.of(), List.of(), areas);
+        SnapshotPipeline.Report report = pipeline.compile(second, first);
+
+        assertThat(droneCounts.get(second.getDrones())).isEqualTo(2);
+        assertThat(droneBuilds.get()).isEqualTo(2);
+        assertThat(areaBuilds.get()).isEqualTo(1);
+        assertThat(report.stages()).filteredOn(SnapshotPipeline.StageResult::reused)
+                .extracting(SnapshotPipeline.StageResult::name).containsExactly("areaCount");
+    }
+
+    @Test
+    @DisplayName("compile: a failing stage is reported with its dependents and the rest still run")
+    void compile_failureIsolated() {
+        AtomicInteger dependentRuns = new AtomicInteger();
+        AtomicInteger fineRuns = new AtomicInteger();
+        PipelineStage broken = PipelineStage.of("broken", EnumSet.noneOf(WorldDataset.class), world -> {
+            throw new IllegalStateException("bad data");
+        });
+        PipelineStage dependent = PipelineStage.of("dependent", EnumSet.noneOf(WorldDataset.class), List.of(broken),
+                world -> dependentRuns.incrementAndGet());
+        PipelineStage fine = PipelineStage.of("fine", EnumSet.noneOf(WorldDataset.class), world -> fineRuns.incrementAndGet());
+        WorldSnapshot snapshot = world(1, List.of(), List.of());
+
+        SnapshotPipeline.Report report = new SnapshotPipeline(List.of(dependent, fine), pool).compile(snapshot, null);
+
+        assertThat(report.stages()).filteredOn(stage -> stage.failure() != null)
+                .extracting(SnapshotPipeline.StageResult::name)
+                .containsExactlyInAnyOrder("broken", "dependent");
+        assertThat(dependentRuns.get()).isZero();
+        assertThat(fineRuns.get()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("ingest: a streamed stage's value built during the read is preloaded, so the warmer does not rebuild")
+    void ingest_streamedStagePreloaded() {
+        AtomicInteger snapshotBuilds = new AtomicInteger();
+        SnapshotScoped<List<Drone>, List<String>> ids = new SnapshotScoped<>(drones -> {
+            snapshotBuilds.incrementAndGet();
+            return drones.stream().map(Drone::getId).toList();
+        });
+        PipelineStage droneIds = PipelineStage.streamed("droneIds", WorldDataset.DRONES,
+                IdCollector::new, IdCollector::ids, ids::put, world -> ids.get(world.getDrones()));
+        SnapshotPipeline pipeline = new SnapshotPipeline(List.of(droneIds), pool);
+
+        SnapshotIngest ingest = pipeline.ingest();
+        DatasetSink.Reading<Drone> reading = ingest.<Drone>sink(WorldDataset.DRONES).open();
+        List<Drone> fetched = List.of(drone("1"), drone("2"));
+        fetched.forEach(reading::add);
+        reading.complete(fetched);
+        WorldSnapshot snapshot = world(1, fetched, List.of());
+        ingest.preload(snapshot);
+        SnapshotPipeline.Report report = pipeline.compile(snapshot, null);
+
+        assertThat(report.hasFailures()).isFalse();
+        assertThat(ids.get(snapshot.getDrones())).containsExactly("1", "2");
+        assertThat(snapshotBuilds.get()).isZero();
+        assertThat(ingest.sink(WorldDataset.RESTRICTED_AREAS)).isNull();
+    }
+}
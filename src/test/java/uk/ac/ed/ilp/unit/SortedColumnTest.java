@@ -0,0 +1,31 @@
+package uk.ac.ed.ilp.unit;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import uk.ac.ed.ilp.index.SortedColumn;
+
+import java.util.BitSet;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SortedColumnTest {
+
+    private static int[] rows(BitSet rows) {
+        return rows.stream().toArray();
+    }
+
+    @Test
+    @DisplayName("comparisons: strict bounds, tolerant equality, missing values never match")
+    void comparisons() {
+        SortedColumn column = SortedColumn.build(new double[]{4.0, Double.NaN, 1.0, 4.00005, 9.0, 1.0});
+
+        assertThat(column.size()).isEqualTo(5);
+        assertThat(rows(column.lessThan(4.0))).containsExactly(2, 5);
+        assertThat(rows(column.greaterThan(4.0))).containsExactly(3, 4);
+        assertThat(rows(column.within(4.0, 0.0001))).containsExactly(0, 3);
+        assertThat(rows(column.notWithin(4.0, 0.0001))).containsExactly(2, 4, 5);
+        assertThat(rows(column.greaterThan(Double.NaN))).isEmpty();
+        assertThat(rows(column.notWithin(Double.NaN, 0.0001))).isEmpty();
+        assertThat(rows(column.present())).containsExactly(0, 2, 3, 4, 5);
+    }
+}
@@ -0,0 +1,112 @@
+package uk.ac.ed.ilp.unit;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.web.client.ResourceAccessException;
+import uk.ac.ed.ilp.model.LngLatAlt;
+import uk.ac.ed.ilp.model.ServicePoint;
+import uk.ac.ed.ilp.service.DeliveryPathService;
+import uk.ac.ed.ilp.service.PathfindingService;
+import uk.ac.ed.ilp.service.WarmupService;
+import uk.ac.ed.ilp.service.WorldSnapshotService;
+import uk.ac.ed.ilp.snapshot.PipelineStage;
+import uk.ac.ed.ilp.snapshot.SnapshotPipeline;
+import uk.ac.ed.ilp.snapshot.WorldDataset;
+import uk.ac.ed.ilp.snapshot.WorldSnapshot;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class WarmupServiceTest {
+
+    private final WorldSnapshotService worldSnapshotService = mock(WorldSnapshotService.class);
+    private final PathfindingService pathfindingService = mock(PathfindingService.class);
+    private final DeliveryPathService deliveryPathService = mock(DeliveryPathService.class);
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final AtomicInteger derivedBuilds = new AtomicInteger();
+    private final PipelineStage derived = PipelineStage.of("count", EnumSet.of(WorldDataset.DRONES),
+            world -> derivedBuilds.incrementAndGet());
+
+    private WarmupService warmupService(int iterations) {
+        SnapshotPipeline pipeline = new SnapshotPipeline(List.of(derived), Runnable::run);
+        return new WarmupService(worldSnapshotService, pathfindingService, deliveryPathService, pipeline,
+                registry, mock(ScheduledExecutorService.class), iterations, Duration.ofSeconds(10));
+    }
+
+    private static WorldSnapshot world() {
+        LngLatAlt location = new LngLatAlt();
+        location.setLng(-3.186);
+        location.setLat(55.944);
+        ServicePoint servicePoint = new ServicePoint();
+        servicePoint.setId(1);
+        servicePoint.setLocation(location);
+        return WorldSnapshot.of(1, Instant.now(), List.of(), List.of(servicePoint), List.of(), List.of());
+    }
+
+    @Test
+    @DisplayName("health: DOWN until the warm-up has run, then UP")
+    void health_downUntilWarm() {
+        when(worldSnapshotService.current()).thenReturn(world());
+        WarmupService warmup = warmupService(2);
+
+        assertThat(warmup.health().getStatus()).isEqualTo(Status.DOWN);
+        assertThat(warmup.warmUp()).isTrue();
+
+        assertThat(warmup.health().getStatus()).isEqualTo(Status.UP);
+        assertThat(warmup.isComplete()).isTrue();
+    }
+
+    @Test
+    @DisplayName("warmUp: builds derived structures and runs synthetic path and delivery calculations")
+    void warmUp_exercisesServices() {
+        when(worldSnapshotService.current()).thenReturn(world());
+
+        warmupService(2).warmUp();
+
+        assertThat(derivedBuilds.get()).isEqualTo(1);
+        // 2 iterations x 4 delivery points around the one service point
+        verify(pathfindingService, times(8)).calculateCompactPath(any(), any(), anyList());
+        verify(deliveryPathService, times(8)).calculateDeliveryPaths(anyList(), anyList(), anyList(), anyList(), anyList());
+    }
+
+    @Test
+    @DisplayName("warmUp: records the total duration and a timer per stage")
+    void warmUp_recordsTimings() {
+        when(worldSnapshotService.current()).thenReturn(world());
+
+        warmupService(1).warmUp();
+
+        assertThat(registry.get("ilp.warmup.duration").timer().count()).isEqualTo(1);
+        for (String stage : List.of("snapshot", "derived", "pathfinding", "deliveryPath")) {
+            assertThat(registry.get("ilp.warmup.stage").tag("stage", stage).timer().count()).isEqualTo(1);
+        }
+    }
+
+    @Test
+    @DisplayName("warmUp: a snapshot that cannot be loaded keeps readiness DOWN")
+    void warmUp_snapshotFailure() {
+        when(worldSnapshotService.current()).thenThrow(new ResourceAccessException("ILP down"));
+        WarmupService warmup = warmupService(1);
+
+        assertThat(warmup.warmUp()).isFalse();
+
+        assertThat(warmup.health().getStatus()).isEqualTo(Status.DOWN);
+        assertThat(warmup.health().getDetails()).containsEntry("stage", "snapshot");
+        verifyNoInteractions(pathfindingService, deliveryPathService);
+    }
+}
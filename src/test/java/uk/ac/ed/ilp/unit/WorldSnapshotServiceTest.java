@@ -0,0 +1,190 @@
+package uk.ac.ed.ilp.unit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.web.client.ResourceAccessException;
+import uk.ac.ed.ilp.model.Drone;
+import uk.ac.ed.ilp.service.IlpRestClient;
+import uk.ac.ed.ilp.service.WorldSnapshotService;
+import uk.ac.ed.ilp.snapshot.SnapshotBundle;
+import uk.ac.ed.ilp.snapshot.WorldSnapshot;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class WorldSnapshotServiceTest {
+
+    @Mock
+    private IlpRestClient ilpRestClient;
+
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+
+    @AfterEach
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private static Drone drone(String id) {
+        Drone drone = new Drone();
+        drone.setId(id);
+        return drone;
+    }
+
+    @Test
+    @DisplayName("current: first call loads synchronously, later calls reuse the snapshot")
+    void current_loadsOnceThenReuses() {
+        when(ilpRestClient.fetchDrones()).thenReturn(List.of(drone("1")));
+        WorldSnapshotService service = new WorldSnapshotService(ilpRestClient, executor, Duration.ofMinutes(5), Duration.ofSeconds(5));
+
+        WorldSnapshot first = service.current();
+        WorldSnapshot second = service.current();
+
+        assertThat(second).isSameAs(first);
+        assertThat(first.getVersion()).isEqualTo(1);
+        assertThat(first.getDrones()).extracting(Drone::getId).containsExactly("1");
+        verify(ilpRestClient, times(1)).fetchDrones();
+        verify(ilpRestClient, times(1)).fetchRestrictedAreas();
+    }
+
+    @Test
+    @DisplayName("current: stale snapshot is served while a background refresh swaps in a new version")
+    void current_staleWhileRevalidate() throws Exception {
+        when(ilpRestClient.fetchDrones()).thenReturn(List.of(drone("old")), List.of(drone("new")));
+        WorldSnapshotService service = new WorldSnapshotService(ilpRestClient, executor, Duration.ofMillis(1), Duration.ofSeconds(5));
+
+        WorldSnapshot first = service.current();
+        Thread.sleep(5);
+        assertThat(service.current()).isSameAs(first);
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (service.current().getVersion() == 1 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertThat(service.current().getVersion()).isGreaterThan(1);
+        assertThat(service.current().getDrones()).extracting(Drone::getId).containsExactly("new");
+        assertThat(first.getDrones()).extracting(Drone::getId).containsExactly("old");
+    }
+
+    @Test
+    @DisplayName("refresh: a failed fetch keeps the previous snapshot")
+    void refresh_failureKeepsPrevious() {
+        when(ilpRestClient.fetchDrones())
+                .thenReturn(List.of(drone("1")))
+                .thenThrow(new IllegalStateException("ILP unavailable"));
+        WorldSnapshotService service = new WorldSnapshotService(ilpRestClient, executor, Duration.ofMinutes(5), Duration.ofSeconds(5));
+
+        WorldSnapshot first = service.current();
+        assertThatThrownBy(service::refresh).isInstanceOf(IllegalStateException.class);
+
+        assertThat(service.current()).isSameAs(first);
+    }
+
+    @Test
+    @DisplayName("refresh: the four datasets are fetched in parallel")
+    void refresh_fetchesInParallel() {
+        when(ilpRestClient.fetchDrones()).thenAnswer(inv -> { Thread.sleep(300); return List.of(); });
+        when(ilpRestClient.fetchServicePoints()).thenAnswer(inv -> { Thread.sleep(300); return List.of(); });
+        when(ilpRestClient.fetchDronesForServicePoints()).thenAnswer(inv -> { Thread.sleep(300); return List.of(); });
+        when(ilpRestClient.fetchRestrictedAreas()).thenAnswer(inv -> { Thread.sleep(300); return List.of(); });
+        WorldSnapshotService service = new WorldSnapshotService(ilpRestClient, executor, Duration.ofMinutes(5), Duration.ofSeconds(5));
+
+        long start = System.nanoTime();
+        service.refresh();
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        assertThat(elapsedMillis).isLessThan(1000);
+    }
+
+    @Test
+    @DisplayName("refresh: a fetch that misses the shared deadline fails the refresh")
+    void refresh_deadlineExceeded() {
+        when(ilpRestClient.fetchRestrictedAreas()).thenAnswer(inv -> { Thread.sleep(5000); return List.of(); });
+        WorldSnapshotService service = new WorldSnapshotService(ilpRestClient, executor, Duration.ofMinutes(5), Duration.ofMillis(200));
+
+        long start = System.nanoTime();
+        assertThatThrownBy(service::refresh).isInstanceOf(ResourceAccessException.class);
+        assertThat((System.nanoTime() - start) / 1_000_000).isLessThan(2000);
+    }
+
+    @Test
+    @DisplayName("WorldSnapshot: dataset lists are read-only copies")
+    void snapshot_isImmutable() {
+        List<Drone> source = new ArrayList<>(List.of(drone("1")));
+        when(ilpRestClient.fetchDrones()).thenReturn(source);
+        WorldSnapshot snapshot = new WorldSnapshotService(ilpRestClient, executor, Duration.ofMinutes(5), Duration.ofSeconds(5)).current();
+
+        source.add(drone("2"));
+
+        assertThat(snapshot.getDrones()).hasSize(1);
+        assertThatThrownBy(() -> snapshot.getDrones().add(drone("3"))).isInstanceOf(UnsupportedOperationException.class);
+    }
+
+    @Test
+    @DisplayName("refresh: a dataset returned unchanged keeps its identity in the new snapshot")
+    void refresh_unchangedDatasetKeepsIdentity() {
+        List<Drone> unchanged = List.of(drone("1"));
+        when(ilpRestClient.fetchDrones()).thenReturn(unchanged);
+        when(ilpRestClient.fetchServicePoints()).thenReturn(new ArrayList<>(), new ArrayList<>());
+        WorldSnapshotService service = new WorldSnapshotService(ilpRestClient, executor, Duration.ofMinutes(5), Duration.ofSeconds(5));
+
+        WorldSnapshot first = service.current();
+        WorldSnapshot second = service.refresh();
+
+        assertThat(second.getVersion()).isGreaterThan(first.getVersion());
+        assertThat(second.getDrones()).isSameAs(first.getDrones());
+        assertThat(second.getServicePoints()).isNotSameAs(first.getServicePoints());
+    }
+
+    @Test
+    @DisplayName("current: a file:// endpoint serves the bundle without calling the ILP service")
+    void current_offlineBundle(@TempDir Path dir) throws Exception {
+        Path file = dir.resolve("world.ilpb");
+        SnapshotBundle.write(WorldSnapshot.of(42, Instant.now(), List.of(drone("7")), List.of(), List.of(), List.of()), file);
+        WorldSnapshotService service = new WorldSnapshotService(ilpRestClient, executor,
+                Duration.ofMinutes(5), Duration.ofSeconds(5), file.toUri().toString(), null, null);
+
+        WorldSnapshot snapshot = service.current();
+
+        assertThat(snapshot.getDrones()).extracting(Drone::getId).containsExactly("7");
+        verifyNoInteractions(ilpRestClient);
+    }
+
+    @Test
+    @DisplayName("refresh: exports each new snapshot, and the export seeds the next cold start")
+    void refresh_exportSeedsColdStart(@TempDir Path dir) {
+        Path export = dir.resolve("export.ilpb");
+        when(ilpRestClient.fetchDrones()).thenReturn(List.of(drone("1")));
+        new WorldSnapshotService(ilpRestClient, executor, Duration.ofMinutes(5), Duration.ofSeconds(5),
+                "https://ilp.example/", export.toString(), null).refresh();
+        assertThat(export).exists();
+
+        IlpRestClient unreachable = mock(IlpRestClient.class);
+        when(unreachable.fetchDrones()).thenThrow(new ResourceAccessException("ILP unreachable"));
+        WorldSnapshotService restarted = new WorldSnapshotService(unreachable, executor, Duration.ofMinutes(5),
+                Duration.ofSeconds(5), "https://ilp.example/", export.toString(), null);
+
+        assertThat(restarted.current().getDrones()).extracting(Drone::getId).containsExactly("1");
+    }
+}